@@ -0,0 +1,104 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.benchmark.cluster.metadata;
+
+import org.elasticsearch.Version;
+import org.elasticsearch.action.support.IndicesOptions;
+import org.elasticsearch.cluster.ClusterName;
+import org.elasticsearch.cluster.ClusterState;
+import org.elasticsearch.cluster.metadata.AliasMetaData;
+import org.elasticsearch.cluster.metadata.IndexMetaData;
+import org.elasticsearch.cluster.metadata.IndexNameExpressionResolver;
+import org.elasticsearch.cluster.metadata.MetaData;
+import org.elasticsearch.common.settings.Settings;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(3)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class IndexNameExpressionResolverBenchmark {
+
+    private static final String[] APPS = new String[] {"app", "web", "db", "queue", "auth"};
+
+    @Param({"10000"})
+    public int numIndices = 10000;
+
+    @Param({"logs-*", "logs-*-app", "metrics-2019.01.*", "logs-0042-auth,metrics-2019.01.43"})
+    public String expression = "logs-*";
+
+    private final IndicesOptions options = IndicesOptions.lenientExpandOpen();
+    private final IndexNameExpressionResolver cachingResolver = new IndexNameExpressionResolver(Settings.EMPTY);
+    private ClusterState clusterState;
+    private String[] expressions;
+
+    @Setup
+    public void setUp() {
+        MetaData.Builder mb = MetaData.builder();
+        for (int i = 0; i < numIndices; i++) {
+            final String name;
+            if (i % 2 == 0) {
+                name = String.format(Locale.ROOT, "logs-%04d-%s", i / 2, APPS[i % APPS.length]);
+            } else {
+                name = String.format(Locale.ROOT, "metrics-2019.%02d.%d", (i / 100) % 12 + 1, i % 100);
+            }
+            IndexMetaData.Builder index = IndexMetaData.builder(name)
+                .settings(Settings.builder().put(IndexMetaData.SETTING_VERSION_CREATED, Version.CURRENT))
+                .numberOfShards(1)
+                .numberOfReplicas(0);
+            if (i % 10 == 0) {
+                index.putAlias(AliasMetaData.builder("alias-" + APPS[i % APPS.length]));
+            }
+            mb.put(index);
+        }
+        clusterState = ClusterState.builder(ClusterName.CLUSTER_NAME_SETTING.getDefault(Settings.EMPTY))
+            .metaData(mb)
+            .build();
+        expressions = expression.split(",");
+        if (cachingResolver.concreteIndexNames(clusterState, options, expressions).length == 0) {
+            throw new IllegalStateException("expression [" + expression + "] does not match any index");
+        }
+    }
+
+    @Benchmark
+    public String[] resolveCached() {
+        return cachingResolver.concreteIndexNames(clusterState, options, expressions);
+    }
+
+    @Benchmark
+    public String[] resolveUncached() {
+        // every resolver starts with an empty cache, so this measures the wildcard expansion itself
+        return new IndexNameExpressionResolver(Settings.EMPTY).concreteIndexNames(clusterState, options, expressions);
+    }
+}
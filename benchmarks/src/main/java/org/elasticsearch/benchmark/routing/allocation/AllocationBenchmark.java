@@ -106,7 +106,11 @@ public class AllocationBenchmark {
         "       10|     10|        2|    50",
         "      100|      1|        2|    50",
         "      100|      3|        2|    50",
-        "      100|     10|        2|    50"
+        "      100|     10|        2|    50",
+
+        "     1000|      5|        1|   100",
+        "     5000|      5|        1|   200",
+        "    25000|      1|        1|   200"
     })
     public String indicesShardsReplicasNodes = "10|1|0|1";
 
@@ -114,6 +118,7 @@ public class AllocationBenchmark {
 
     private AllocationService strategy;
     private ClusterState initialClusterState;
+    private ClusterState allocatedClusterState;
 
     @Setup
     public void setUp() throws Exception {
@@ -149,6 +154,7 @@ public class AllocationBenchmark {
         initialClusterState = ClusterState.builder(ClusterName.CLUSTER_NAME_SETTING.getDefault(Settings.EMPTY))
             .metaData(metaData).routingTable(routingTable).nodes
                 (nb).build();
+        allocatedClusterState = measureAllocation();
     }
 
     private int toInt(String v) {
@@ -165,4 +171,13 @@ public class AllocationBenchmark {
         }
         return clusterState;
     }
+
+    /**
+     * Measures a single reroute of a cluster whose shards are all started, which is what the master pays on
+     * every cluster state update that triggers a reroute in a large, stable cluster.
+     */
+    @Benchmark
+    public ClusterState measureReroute() {
+        return strategy.reroute(allocatedClusterState, "reroute");
+    }
 }
@@ -0,0 +1,154 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.benchmark.search;
+
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.Version;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.document.DocumentField;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.io.stream.NamedWriteableAwareStreamInput;
+import org.elasticsearch.common.io.stream.NamedWriteableRegistry;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.text.Text;
+import org.elasticsearch.index.Index;
+import org.elasticsearch.search.DocValueFormat;
+import org.elasticsearch.search.SearchHit;
+import org.elasticsearch.search.SearchHits;
+import org.elasticsearch.search.SearchModule;
+import org.elasticsearch.search.SearchShardTarget;
+import org.elasticsearch.search.aggregations.BucketOrder;
+import org.elasticsearch.search.aggregations.InternalAggregations;
+import org.elasticsearch.search.aggregations.bucket.terms.StringTerms;
+import org.elasticsearch.search.aggregations.metrics.max.InternalMax;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the serialization of large shard level search results. The {@code version} parameter allows to compare the wire format
+ * with and without the string dictionary that is used for repeated index, field and aggregation names.
+ */
+@Fork(3)
+@Warmup(iterations = 10)
+@Measurement(iterations = 10)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@SuppressWarnings("unused") //invoked by benchmarking framework
+public class SearchResultSerializationBenchmark {
+
+    @Param({"6.8.23", "6.8.24"})
+    public String version;
+
+    @Param({"1000", "10000"})
+    public int numBuckets;
+
+    @Param({"100", "1000"})
+    public int numHits;
+
+    private Version streamVersion;
+    private NamedWriteableRegistry namedWriteableRegistry;
+    private InternalAggregations aggregations;
+    private SearchHits hits;
+    private BytesReference serializedAggregations;
+    private BytesReference serializedHits;
+
+    @Setup
+    public void setUp() throws IOException {
+        streamVersion = Version.fromString(version);
+        namedWriteableRegistry = new NamedWriteableRegistry(
+            new SearchModule(Settings.EMPTY, false, Collections.emptyList()).getNamedWriteables());
+
+        List<StringTerms.Bucket> buckets = new ArrayList<>(numBuckets);
+        for (int i = 0; i < numBuckets; i++) {
+            InternalAggregations subAggregations = new InternalAggregations(Collections.singletonList(
+                new InternalMax("max_response_time", i, DocValueFormat.RAW, Collections.emptyList(), null)));
+            buckets.add(new StringTerms.Bucket(new BytesRef("host-" + i), i, subAggregations, false, 0, DocValueFormat.RAW));
+        }
+        StringTerms terms = new StringTerms("hosts", BucketOrder.count(false), numBuckets, 1, Collections.emptyList(), null,
+            DocValueFormat.RAW, numBuckets, false, 0, buckets, 0);
+        aggregations = new InternalAggregations(Collections.singletonList(terms));
+
+        SearchHit[] searchHits = new SearchHit[numHits];
+        SearchShardTarget shardTarget = new SearchShardTarget("Jk3SabeCRe2l3XYvMpNdfQ",
+            new Index("logs-2019.01.01", "9Cfd2p5tQqKL6yBYRKJqiQ"), 0, null);
+        for (int i = 0; i < numHits; i++) {
+            Map<String, DocumentField> fields = new HashMap<>();
+            fields.put("host.name", new DocumentField("host.name", Collections.singletonList("host-" + i)));
+            fields.put("response_time", new DocumentField("response_time", Collections.singletonList(i)));
+            SearchHit hit = new SearchHit(i, Integer.toString(i), new Text("_doc"), fields);
+            hit.shard(shardTarget);
+            searchHits[i] = hit;
+        }
+        hits = new SearchHits(searchHits, numHits, 1.0f);
+
+        serializedAggregations = serializeAggregations();
+        serializedHits = serializeHits();
+    }
+
+    @Benchmark
+    public BytesReference serializeAggregations() throws IOException {
+        BytesStreamOutput out = new BytesStreamOutput();
+        out.setVersion(streamVersion);
+        aggregations.writeTo(out);
+        return out.bytes();
+    }
+
+    @Benchmark
+    public InternalAggregations deserializeAggregations() throws IOException {
+        try (StreamInput in = new NamedWriteableAwareStreamInput(serializedAggregations.streamInput(), namedWriteableRegistry)) {
+            in.setVersion(streamVersion);
+            return InternalAggregations.readAggregations(in);
+        }
+    }
+
+    @Benchmark
+    public BytesReference serializeHits() throws IOException {
+        BytesStreamOutput out = new BytesStreamOutput();
+        out.setVersion(streamVersion);
+        hits.writeTo(out);
+        return out.bytes();
+    }
+
+    @Benchmark
+    public SearchHits deserializeHits() throws IOException {
+        try (StreamInput in = new NamedWriteableAwareStreamInput(serializedHits.streamInput(), namedWriteableRegistry)) {
+            in.setVersion(streamVersion);
+            return SearchHits.readSearchHits(in);
+        }
+    }
+}
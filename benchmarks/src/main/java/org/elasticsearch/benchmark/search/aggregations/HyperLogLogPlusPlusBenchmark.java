@@ -0,0 +1,97 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.benchmark.search.aggregations;
+
+import org.elasticsearch.common.util.BigArrays;
+import org.elasticsearch.search.aggregations.metrics.cardinality.HyperLogLogPlusPlus;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the time it takes to collect values into many {@link HyperLogLogPlusPlus} buckets, like a {@code cardinality}
+ * aggregation under a {@code terms} aggregation does, and reports the memory usage per bucket as a secondary result.
+ */
+@Fork(3)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@SuppressWarnings("unused") //invoked by benchmarking framework
+public class HyperLogLogPlusPlusBenchmark {
+
+    @Param({"1000", "10000"})
+    public int buckets;
+
+    // the number of distinct values per bucket
+    @Param({"1", "10", "100", "1000", "10000"})
+    public int cardinality;
+
+    @Param({"14"})
+    public int precision;
+
+    private long[] hashes;
+
+    @Setup
+    public void setUp() {
+        final Random random = new Random(0);
+        hashes = new long[cardinality];
+        for (int i = 0; i < hashes.length; ++i) {
+            hashes[i] = random.nextLong();
+        }
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Memory {
+        public long bytesPerBucket;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            bytesPerBucket = 0;
+        }
+    }
+
+    @Benchmark
+    public long collect(Memory memory) {
+        try (HyperLogLogPlusPlus counts = new HyperLogLogPlusPlus(precision, BigArrays.NON_RECYCLING_INSTANCE, 1)) {
+            for (long hash : hashes) {
+                for (int bucket = 0; bucket < buckets; ++bucket) {
+                    counts.collect(bucket, hash + bucket);
+                }
+            }
+            memory.bytesPerBucket = counts.ramBytesUsed() / buckets;
+            return counts.cardinality(0);
+        }
+    }
+}
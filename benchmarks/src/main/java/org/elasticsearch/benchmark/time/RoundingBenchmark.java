@@ -0,0 +1,122 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.benchmark.time;
+
+import org.elasticsearch.common.rounding.DateTimeUnit;
+import org.elasticsearch.common.rounding.Rounding;
+import org.elasticsearch.common.unit.TimeValue;
+import org.joda.time.DateTimeZone;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+@Fork(3)
+@Warmup(iterations = 10)
+@Measurement(iterations = 10)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@SuppressWarnings("unused") //invoked by benchmarking framework
+public class RoundingBenchmark {
+
+    private static final int VALUES = 10_000;
+
+    @Param({"UTC", "Europe/Paris", "America/New_York", "Asia/Kolkata"})
+    public String timeZone;
+
+    @Param({"second", "hour", "day", "month", "90m"})
+    public String interval;
+
+    // the range of the values to round, in days
+    @Param({"1", "365"})
+    public int days;
+
+    private Rounding rounding;
+    private Rounding.Prepared prepared;
+    private long min;
+    private long max;
+    private long[] values;
+
+    @Setup
+    public void setUp() {
+        final DateTimeZone tz = DateTimeZone.forID(timeZone);
+        final Rounding.Builder builder;
+        switch (interval) {
+            case "second":
+                builder = Rounding.builder(DateTimeUnit.SECOND_OF_MINUTE);
+                break;
+            case "hour":
+                builder = Rounding.builder(DateTimeUnit.HOUR_OF_DAY);
+                break;
+            case "day":
+                builder = Rounding.builder(DateTimeUnit.DAY_OF_MONTH);
+                break;
+            case "month":
+                builder = Rounding.builder(DateTimeUnit.MONTH_OF_YEAR);
+                break;
+            default:
+                builder = Rounding.builder(TimeValue.parseTimeValue(interval, "interval"));
+                break;
+        }
+        rounding = builder.timeZone(tz).build();
+
+        min = 1546300800000L; // 2019-01-01T00:00:00Z
+        max = min + TimeUnit.DAYS.toMillis(days);
+        prepared = rounding.prepare(min, max);
+        final Random random = new Random(42);
+        values = new long[VALUES];
+        for (int i = 0; i < VALUES; i++) {
+            values[i] = min + (long) (random.nextDouble() * (max - min));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(VALUES)
+    public void round(Blackhole bh) {
+        for (long value : values) {
+            bh.consume(rounding.round(value));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(VALUES)
+    public void roundPrepared(Blackhole bh) {
+        for (long value : values) {
+            bh.consume(prepared.round(value));
+        }
+    }
+
+    @Benchmark
+    public Rounding.Prepared prepare() {
+        return rounding.prepare(min, max);
+    }
+}
@@ -19,6 +19,7 @@
 
 package org.elasticsearch.http.netty4;
 
+import io.netty.buffer.Unpooled;
 import io.netty.channel.Channel;
 import io.netty.handler.codec.http.FullHttpRequest;
 import io.netty.handler.codec.http.HttpHeaders;
@@ -42,7 +43,8 @@ public class Netty4HttpRequest extends RestRequest {
 
     private final FullHttpRequest request;
     private final Channel channel;
-    private final BytesReference content;
+    private BytesReference content;
+    private boolean pooledContent;
 
     /**
      * Construct a new request.
@@ -149,6 +151,24 @@ public class Netty4HttpRequest extends RestRequest {
         return content;
     }
 
+    /**
+     * Marks the content of this request as being backed by a pooled buffer that is only retained until the response to this request
+     * has been sent.
+     */
+    void markPooledContent() {
+        pooledContent = true;
+    }
+
+    @Override
+    public void ensureSafeBuffers() {
+        if (pooledContent) {
+            if (request.content().isReadable()) {
+                content = Netty4Utils.toBytesReference(Unpooled.copiedBuffer(request.content()));
+            }
+            pooledContent = false;
+        }
+    }
+
     /**
      * Returns the remote address where this rest request channel is "connected to".  The
      * returned {@link SocketAddress} is supposed to be down-cast into more
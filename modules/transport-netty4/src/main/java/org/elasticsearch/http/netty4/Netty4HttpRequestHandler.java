@@ -65,14 +65,23 @@ class Netty4HttpRequestHandler extends SimpleChannelInboundHandler<Object> {
         boolean success = false;
         try {
 
-            final FullHttpRequest copy =
-                    new DefaultFullHttpRequest(
-                            request.protocolVersion(),
-                            request.method(),
-                            request.uri(),
-                            Unpooled.copiedBuffer(request.content()),
-                            request.headers(),
-                            request.trailingHeaders());
+            /*
+             * A pipelined request is retained until its response has been sent, so its content can be handed to handlers that allow
+             * unsafe buffers without copying it first. Other requests are released once this method returns and need to be copied.
+             */
+            final boolean pooledContent = pipelinedRequest != null;
+            final FullHttpRequest copy;
+            if (pooledContent) {
+                copy = request;
+            } else {
+                copy = new DefaultFullHttpRequest(
+                        request.protocolVersion(),
+                        request.method(),
+                        request.uri(),
+                        Unpooled.copiedBuffer(request.content()),
+                        request.headers(),
+                        request.trailingHeaders());
+            }
 
             Exception badRequestCause = null;
 
@@ -95,6 +104,9 @@ class Netty4HttpRequestHandler extends SimpleChannelInboundHandler<Object> {
                     badRequestCause = e;
                     innerHttpRequest = requestWithoutParameters(copy, ctx.channel());
                 }
+                if (pooledContent) {
+                    innerHttpRequest.markPooledContent();
+                }
                 httpRequest = innerHttpRequest;
             }
 
@@ -123,6 +135,9 @@ class Netty4HttpRequestHandler extends SimpleChannelInboundHandler<Object> {
                                     copy.uri(),
                                     copy,
                                     ctx.channel());
+                    if (pooledContent) {
+                        innerRequest.markPooledContent();
+                    }
                     innerChannel =
                             new Netty4HttpChannel(serverTransport, innerRequest, pipelinedRequest, detailedErrorsEnabled, threadContext);
                 }
@@ -56,6 +56,7 @@ public class ClusterAllocationExplainRequest extends MasterNodeRequest<ClusterAl
     private String currentNode;
     private boolean includeYesDecisions = false;
     private boolean includeDiskInfo = false;
+    private boolean includeDeciderStats = false;
 
     /**
      * Create a new allocation explain request to explain any unassigned shard in the cluster.
@@ -203,6 +204,20 @@ public class ClusterAllocationExplainRequest extends MasterNodeRequest<ClusterAl
         return this.includeDiskInfo;
     }
 
+    /**
+     * Set to {@code true} to include the per-decider invocation counts and timings of this node.
+     */
+    public void includeDeciderStats(boolean includeDeciderStats) {
+        this.includeDeciderStats = includeDeciderStats;
+    }
+
+    /**
+     * Returns {@code true} if the per-decider invocation counts and timings should also be returned.
+     */
+    public boolean includeDeciderStats() {
+        return this.includeDeciderStats;
+    }
+
     @Override
     public String toString() {
         StringBuilder sb = new StringBuilder("ClusterAllocationExplainRequest[");
@@ -234,6 +249,9 @@ public class ClusterAllocationExplainRequest extends MasterNodeRequest<ClusterAl
         this.currentNode = in.readOptionalString();
         this.includeYesDecisions = in.readBoolean();
         this.includeDiskInfo = in.readBoolean();
+        if (in.getVersion().onOrAfter(Version.V_6_8_24)) {
+            this.includeDeciderStats = in.readBoolean();
+        }
     }
 
     @Override
@@ -246,6 +264,9 @@ public class ClusterAllocationExplainRequest extends MasterNodeRequest<ClusterAl
         out.writeOptionalString(currentNode);
         out.writeBoolean(includeYesDecisions);
         out.writeBoolean(includeDiskInfo);
+        if (out.getVersion().onOrAfter(Version.V_6_8_24)) {
+            out.writeBoolean(includeDeciderStats);
+        }
     }
 
     private void checkVersion(Version version) {
@@ -64,6 +64,12 @@ public class ClusterAllocationExplainRequestBuilder
         return this;
     }
 
+    /** Whether to include the per-decider invocation counts and timings of the elected master */
+    public ClusterAllocationExplainRequestBuilder setIncludeDeciderStats(boolean includeDeciderStats) {
+        request.includeDeciderStats(includeDeciderStats);
+        return this;
+    }
+
     /**
      * Requests the explain API to explain an already assigned replica shard currently allocated to
      * the given node.
@@ -101,6 +101,10 @@ public class TransportClusterAllocationExplainAction
 
         ClusterAllocationExplanation cae = explainShard(shardRouting, allocation,
             request.includeDiskInfo() ? clusterInfo : null, request.includeYesDecisions(), gatewayAllocator, shardAllocator);
+        if (request.includeDeciderStats()) {
+            cae = new ClusterAllocationExplanation(shardRouting, cae.getCurrentNode(), cae.getRelocationTargetNode(),
+                cae.getClusterInfo(), cae.getShardAllocationDecision(), allocationDeciders.stats());
+        }
         listener.onResponse(new ClusterAllocationExplainResponse(cae));
     }
 
@@ -149,4 +149,12 @@ public class NodesStatsRequestBuilder
         return this;
     }
 
+    /**
+     * Should the node indexing pressure stats be returned.
+     */
+    public NodesStatsRequestBuilder setIndexingPressure(boolean indexingPressure) {
+        request.indexingPressure(indexingPressure);
+        return this;
+    }
+
 }
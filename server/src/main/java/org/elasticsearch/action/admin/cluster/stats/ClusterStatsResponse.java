@@ -19,10 +19,12 @@
 
 package org.elasticsearch.action.admin.cluster.stats;
 
+import org.elasticsearch.Version;
 import org.elasticsearch.action.FailedNodeException;
 import org.elasticsearch.action.support.nodes.BaseNodesResponse;
 import org.elasticsearch.cluster.ClusterName;
 import org.elasticsearch.cluster.health.ClusterHealthStatus;
+import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.Strings;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
@@ -41,6 +43,7 @@ public class ClusterStatsResponse extends BaseNodesResponse<ClusterStatsNodeResp
     ClusterHealthStatus status;
     long timestamp;
     String clusterUUID;
+    MappingStats mappingStats;
 
     ClusterStatsResponse() {
     }
@@ -49,10 +52,12 @@ public class ClusterStatsResponse extends BaseNodesResponse<ClusterStatsNodeResp
                                 String clusterUUID,
                                 ClusterName clusterName,
                                 List<ClusterStatsNodeResponse> nodes,
-                                List<FailedNodeException> failures) {
+                                List<FailedNodeException> failures,
+                                @Nullable MappingStats mappingStats) {
         super(clusterName, nodes, failures);
         this.clusterUUID = clusterUUID;
         this.timestamp = timestamp;
+        this.mappingStats = mappingStats;
         nodesStats = new ClusterStatsNodes(nodes);
         indicesStats = new ClusterStatsIndices(nodes);
         for (ClusterStatsNodeResponse response : nodes) {
@@ -84,12 +89,23 @@ public class ClusterStatsResponse extends BaseNodesResponse<ClusterStatsNodeResp
         return indicesStats;
     }
 
+    /**
+     * Returns the stats of the mappings in the cluster metadata, or {@code null} if they are not available.
+     */
+    @Nullable
+    public MappingStats getMappingStats() {
+        return mappingStats;
+    }
+
     @Override
     public void readFrom(StreamInput in) throws IOException {
         super.readFrom(in);
         timestamp = in.readVLong();
         // it may be that the master switched on us while doing the operation. In this case the status may be null.
         status = in.readOptionalWriteable(ClusterHealthStatus::readFrom);
+        if (in.getVersion().onOrAfter(Version.V_6_8_24)) {
+            mappingStats = in.readOptionalWriteable(MappingStats::new);
+        }
     }
 
     @Override
@@ -97,6 +113,9 @@ public class ClusterStatsResponse extends BaseNodesResponse<ClusterStatsNodeResp
         super.writeTo(out);
         out.writeVLong(timestamp);
         out.writeOptionalWriteable(status);
+        if (out.getVersion().onOrAfter(Version.V_6_8_24)) {
+            out.writeOptionalWriteable(mappingStats);
+        }
     }
 
     @Override
@@ -125,6 +144,9 @@ public class ClusterStatsResponse extends BaseNodesResponse<ClusterStatsNodeResp
         }
         builder.startObject("indices");
         indicesStats.toXContent(builder, params);
+        if (mappingStats != null) {
+            mappingStats.toXContent(builder, params);
+        }
         builder.endObject();
         builder.startObject("nodes");
         nodesStats.toXContent(builder, params);
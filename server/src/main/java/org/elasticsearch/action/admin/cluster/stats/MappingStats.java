@@ -0,0 +1,170 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.action.admin.cluster.stats;
+
+import com.carrotsearch.hppc.cursors.ObjectCursor;
+import org.elasticsearch.cluster.metadata.IndexMetaData;
+import org.elasticsearch.cluster.metadata.MappingMetaData;
+import org.elasticsearch.cluster.metadata.MetaData;
+import org.elasticsearch.common.compress.CompressedXContent;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.io.stream.Writeable;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.common.xcontent.ToXContentFragment;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Statistics about the mappings held in the cluster metadata, and how much heap is saved by sharing identical mappings
+ * between indices.
+ */
+public final class MappingStats implements Writeable, ToXContentFragment {
+
+    private final long totalCount;
+    private final long uniqueCount;
+    private final long totalSizeInBytes;
+    private final long uniqueSizeInBytes;
+
+    public MappingStats(long totalCount, long uniqueCount, long totalSizeInBytes, long uniqueSizeInBytes) {
+        this.totalCount = totalCount;
+        this.uniqueCount = uniqueCount;
+        this.totalSizeInBytes = totalSizeInBytes;
+        this.uniqueSizeInBytes = uniqueSizeInBytes;
+    }
+
+    public MappingStats(StreamInput in) throws IOException {
+        totalCount = in.readVLong();
+        uniqueCount = in.readVLong();
+        totalSizeInBytes = in.readVLong();
+        uniqueSizeInBytes = in.readVLong();
+    }
+
+    /**
+     * Computes the mapping stats of the given metadata. Mappings are considered shared if they are the same instance.
+     */
+    public static MappingStats of(MetaData metaData) {
+        final Set<CompressedXContent> uniqueSources = Collections.newSetFromMap(new IdentityHashMap<>());
+        long totalCount = 0;
+        long totalSizeInBytes = 0;
+        long uniqueSizeInBytes = 0;
+        for (ObjectCursor<IndexMetaData> cursor : metaData.indices().values()) {
+            for (ObjectCursor<MappingMetaData> mappingCursor : cursor.value.getMappings().values()) {
+                final CompressedXContent source = mappingCursor.value.source();
+                final int sizeInBytes = source.compressed().length;
+                totalCount++;
+                totalSizeInBytes += sizeInBytes;
+                if (uniqueSources.add(source)) {
+                    uniqueSizeInBytes += sizeInBytes;
+                }
+            }
+        }
+        return new MappingStats(totalCount, uniqueSources.size(), totalSizeInBytes, uniqueSizeInBytes);
+    }
+
+    @Override
+    public void writeTo(StreamOutput out) throws IOException {
+        out.writeVLong(totalCount);
+        out.writeVLong(uniqueCount);
+        out.writeVLong(totalSizeInBytes);
+        out.writeVLong(uniqueSizeInBytes);
+    }
+
+    /**
+     * Returns the number of mappings across all indices.
+     */
+    public long getTotalCount() {
+        return totalCount;
+    }
+
+    /**
+     * Returns the number of distinct mapping instances that are held on heap.
+     */
+    public long getUniqueCount() {
+        return uniqueCount;
+    }
+
+    /**
+     * Returns the compressed size of all mappings, as if none were shared.
+     */
+    public long getTotalSizeInBytes() {
+        return totalSizeInBytes;
+    }
+
+    /**
+     * Returns the compressed size of the distinct mapping instances that are held on heap.
+     */
+    public long getUniqueSizeInBytes() {
+        return uniqueSizeInBytes;
+    }
+
+    /**
+     * Returns the number of bytes saved by sharing identical mappings.
+     */
+    public long getDeduplicatedSizeInBytes() {
+        return totalSizeInBytes - uniqueSizeInBytes;
+    }
+
+    @Override
+    public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+        builder.startObject(Fields.MAPPINGS);
+        builder.field(Fields.TOTAL_COUNT, totalCount);
+        builder.field(Fields.UNIQUE_COUNT, uniqueCount);
+        builder.humanReadableField(Fields.TOTAL_SIZE_IN_BYTES, Fields.TOTAL_SIZE, new ByteSizeValue(totalSizeInBytes));
+        builder.humanReadableField(Fields.UNIQUE_SIZE_IN_BYTES, Fields.UNIQUE_SIZE, new ByteSizeValue(uniqueSizeInBytes));
+        builder.humanReadableField(Fields.DEDUPLICATED_SIZE_IN_BYTES, Fields.DEDUPLICATED_SIZE,
+            new ByteSizeValue(getDeduplicatedSizeInBytes()));
+        builder.endObject();
+        return builder;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        MappingStats that = (MappingStats) o;
+        return totalCount == that.totalCount
+            && uniqueCount == that.uniqueCount
+            && totalSizeInBytes == that.totalSizeInBytes
+            && uniqueSizeInBytes == that.uniqueSizeInBytes;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(totalCount, uniqueCount, totalSizeInBytes, uniqueSizeInBytes);
+    }
+
+    static final class Fields {
+        static final String MAPPINGS = "mappings";
+        static final String TOTAL_COUNT = "total_count";
+        static final String UNIQUE_COUNT = "unique_count";
+        static final String TOTAL_SIZE = "total_size";
+        static final String TOTAL_SIZE_IN_BYTES = "total_size_in_bytes";
+        static final String UNIQUE_SIZE = "unique_size";
+        static final String UNIQUE_SIZE_IN_BYTES = "unique_size_in_bytes";
+        static final String DEDUPLICATED_SIZE = "deduplicated_size";
+        static final String DEDUPLICATED_SIZE_IN_BYTES = "deduplicated_size_in_bytes";
+    }
+}
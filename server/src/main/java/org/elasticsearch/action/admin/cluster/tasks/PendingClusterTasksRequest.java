@@ -19,14 +19,49 @@
 
 package org.elasticsearch.action.admin.cluster.tasks;
 
+import org.elasticsearch.Version;
 import org.elasticsearch.action.ActionRequestValidationException;
 import org.elasticsearch.action.support.master.MasterNodeReadRequest;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+
+import java.io.IOException;
 
 public class PendingClusterTasksRequest extends MasterNodeReadRequest<PendingClusterTasksRequest> {
 
+    private boolean includeStats = false;
+
+    /**
+     * Whether to include the stats of the batches executed by the master service in the response
+     */
+    public PendingClusterTasksRequest includeStats(boolean includeStats) {
+        this.includeStats = includeStats;
+        return this;
+    }
+
+    public boolean includeStats() {
+        return includeStats;
+    }
+
     @Override
     public ActionRequestValidationException validate() {
         return null;
     }
 
+    @Override
+    public void readFrom(StreamInput in) throws IOException {
+        super.readFrom(in);
+        if (in.getVersion().onOrAfter(Version.V_6_8_24)) {
+            includeStats = in.readBoolean();
+        }
+    }
+
+    @Override
+    public void writeTo(StreamOutput out) throws IOException {
+        super.writeTo(out);
+        if (out.getVersion().onOrAfter(Version.V_6_8_24)) {
+            out.writeBoolean(includeStats);
+        }
+    }
+
 }
@@ -28,4 +28,12 @@ public class PendingClusterTasksRequestBuilder extends MasterNodeReadOperationRe
     public PendingClusterTasksRequestBuilder(ElasticsearchClient client, PendingClusterTasksAction action) {
         super(client, action, new PendingClusterTasksRequest());
     }
+
+    /**
+     * Whether to include the stats of the batches executed by the master service in the response
+     */
+    public PendingClusterTasksRequestBuilder setIncludeStats(boolean includeStats) {
+        request.includeStats(includeStats);
+        return this;
+    }
 }
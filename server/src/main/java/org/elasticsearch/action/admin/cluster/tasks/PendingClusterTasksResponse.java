@@ -19,8 +19,11 @@
 
 package org.elasticsearch.action.admin.cluster.tasks;
 
+import org.elasticsearch.Version;
 import org.elasticsearch.action.ActionResponse;
+import org.elasticsearch.cluster.service.MasterServiceStats;
 import org.elasticsearch.cluster.service.PendingClusterTask;
+import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.xcontent.ToXContentObject;
@@ -35,11 +38,19 @@ public class PendingClusterTasksResponse extends ActionResponse implements Itera
 
     private List<PendingClusterTask> pendingTasks;
 
+    @Nullable
+    private MasterServiceStats masterServiceStats;
+
     PendingClusterTasksResponse() {
     }
 
     PendingClusterTasksResponse(List<PendingClusterTask> pendingTasks) {
+        this(pendingTasks, null);
+    }
+
+    PendingClusterTasksResponse(List<PendingClusterTask> pendingTasks, @Nullable MasterServiceStats masterServiceStats) {
         this.pendingTasks = pendingTasks;
+        this.masterServiceStats = masterServiceStats;
     }
 
     public List<PendingClusterTask> pendingTasks() {
@@ -53,6 +64,14 @@ public class PendingClusterTasksResponse extends ActionResponse implements Itera
         return pendingTasks();
     }
 
+    /**
+     * The stats of the batches executed by the master service, or {@code null} if they were not requested
+     */
+    @Nullable
+    public MasterServiceStats getMasterServiceStats() {
+        return masterServiceStats;
+    }
+
     @Override
     public Iterator<PendingClusterTask> iterator() {
         return pendingTasks.iterator();
@@ -84,6 +103,9 @@ public class PendingClusterTasksResponse extends ActionResponse implements Itera
             builder.endObject();
         }
         builder.endArray();
+        if (masterServiceStats != null) {
+            masterServiceStats.toXContent(builder, params);
+        }
         builder.endObject();
         return builder;
     }
@@ -110,6 +132,9 @@ public class PendingClusterTasksResponse extends ActionResponse implements Itera
             task.readFrom(in);
             pendingTasks.add(task);
         }
+        if (in.getVersion().onOrAfter(Version.V_6_8_24)) {
+            masterServiceStats = in.readOptionalWriteable(MasterServiceStats::new);
+        }
     }
 
     @Override
@@ -119,6 +144,9 @@ public class PendingClusterTasksResponse extends ActionResponse implements Itera
         for (PendingClusterTask task : pendingTasks) {
             task.writeTo(out);
         }
+        if (out.getVersion().onOrAfter(Version.V_6_8_24)) {
+            out.writeOptionalWriteable(masterServiceStats);
+        }
     }
 
 }
@@ -27,6 +27,7 @@ import org.elasticsearch.cluster.block.ClusterBlockException;
 import org.elasticsearch.cluster.block.ClusterBlockLevel;
 import org.elasticsearch.cluster.metadata.IndexNameExpressionResolver;
 import org.elasticsearch.cluster.service.ClusterService;
+import org.elasticsearch.cluster.service.MasterServiceStats;
 import org.elasticsearch.cluster.service.PendingClusterTask;
 import org.elasticsearch.common.inject.Inject;
 import org.elasticsearch.common.settings.Settings;
@@ -71,6 +72,7 @@ public class TransportPendingClusterTasksAction
         logger.trace("fetching pending tasks from cluster service");
         final List<PendingClusterTask> pendingTasks = clusterService.getMasterService().pendingTasks();
         logger.trace("done fetching pending tasks from cluster service");
-        listener.onResponse(new PendingClusterTasksResponse(pendingTasks));
+        final MasterServiceStats masterServiceStats = request.includeStats() ? clusterService.getMasterService().stats() : null;
+        listener.onResponse(new PendingClusterTasksResponse(pendingTasks, masterServiceStats));
     }
 }
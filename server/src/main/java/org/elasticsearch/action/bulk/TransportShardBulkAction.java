@@ -49,12 +49,14 @@ import org.elasticsearch.common.CheckedSupplier;
 import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.collect.Tuple;
 import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.common.lease.Releasable;
 import org.elasticsearch.common.logging.DeprecationLogger;
 import org.elasticsearch.common.lucene.uid.Versions;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.common.xcontent.XContentHelper;
 import org.elasticsearch.common.xcontent.XContentType;
+import org.elasticsearch.index.IndexingPressure;
 import org.elasticsearch.index.VersionType;
 import org.elasticsearch.index.engine.Engine;
 import org.elasticsearch.index.engine.VersionConflictEngineException;
@@ -88,16 +90,38 @@ public class TransportShardBulkAction extends TransportWriteAction<BulkShardRequ
 
     private final UpdateHelper updateHelper;
     private final MappingUpdatedAction mappingUpdatedAction;
+    private final IndexingPressure indexingPressure;
 
     @Inject
     public TransportShardBulkAction(Settings settings, TransportService transportService, ClusterService clusterService,
                                     IndicesService indicesService, ThreadPool threadPool, ShardStateAction shardStateAction,
                                     MappingUpdatedAction mappingUpdatedAction, UpdateHelper updateHelper, ActionFilters actionFilters,
-                                    IndexNameExpressionResolver indexNameExpressionResolver) {
+                                    IndexNameExpressionResolver indexNameExpressionResolver, IndexingPressure indexingPressure) {
         super(settings, ACTION_NAME, transportService, clusterService, indicesService, threadPool, shardStateAction, actionFilters,
             indexNameExpressionResolver, BulkShardRequest::new, BulkShardRequest::new, ThreadPool.Names.WRITE);
         this.updateHelper = updateHelper;
         this.mappingUpdatedAction = mappingUpdatedAction;
+        this.indexingPressure = indexingPressure;
+    }
+
+    @Override
+    protected Releasable checkOperationLimits(BulkShardRequest request) {
+        return indexingPressure.markCoordinatingOperationStarted(request.estimatedSizeInBytes(), false);
+    }
+
+    @Override
+    protected Releasable checkPrimaryLimits(BulkShardRequest request, boolean rerouteWasLocal) {
+        if (rerouteWasLocal) {
+            // the bytes of the request are already accounted for as coordinating bytes of this node
+            return indexingPressure.markPrimaryOperationLocalToCoordinatingNodeStarted(request.estimatedSizeInBytes());
+        }
+        return indexingPressure.markPrimaryOperationStarted(request.estimatedSizeInBytes(), false);
+    }
+
+    @Override
+    protected Releasable checkReplicaLimits(BulkShardRequest request) {
+        // a rejected replica operation fails the replica shard instead of being retried, so replica bytes are only accounted
+        return indexingPressure.markReplicaOperationStarted(request.estimatedSizeInBytes(), true);
     }
 
     @Override
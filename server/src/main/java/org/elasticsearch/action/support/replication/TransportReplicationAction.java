@@ -211,6 +211,33 @@ public abstract class TransportReplicationAction<
      */
     protected abstract ReplicaResult shardOperationOnReplica(ReplicaRequest shardRequest, IndexShard replica) throws Exception;
 
+    /**
+     * Accounts for a request that was rerouted to this node because its primary shard is here. The returned {@link Releasable} is
+     * released once the response to the request has been sent. Implementations reject the request by throwing an exception.
+     */
+    protected Releasable checkOperationLimits(final Request request) {
+        return () -> {};
+    }
+
+    /**
+     * Accounts for a request that is about to be executed on the primary shard. The returned {@link Releasable} is released once the
+     * response to the request has been sent. Implementations reject the request by throwing an exception.
+     *
+     * @param rerouteWasLocal whether the request was routed to the primary by this node, which already accounted for the request
+     *                        when it started to coordinate it or when it received it from another node
+     */
+    protected Releasable checkPrimaryLimits(final Request request, boolean rerouteWasLocal) {
+        return () -> {};
+    }
+
+    /**
+     * Accounts for a request that is about to be executed on a replica shard. The returned {@link Releasable} is released once the
+     * response to the request has been sent. Implementations reject the request by throwing an exception.
+     */
+    protected Releasable checkReplicaLimits(final ReplicaRequest request) {
+        return () -> {};
+    }
+
     /**
      * Cluster level block to check before request execution. Returning null means that no blocks need to be checked.
      */
@@ -281,7 +308,8 @@ public abstract class TransportReplicationAction<
 
         @Override
         public void messageReceived(final Request request, final TransportChannel channel, Task task) throws Exception {
-            execute(task, request, new ActionListener<Response>() {
+            final Releasable releasable = checkOperationLimits(request);
+            execute(task, request, ActionListener.runAfter(new ActionListener<Response>() {
                 @Override
                 public void onResponse(Response result) {
                     try {
@@ -300,7 +328,7 @@ public abstract class TransportReplicationAction<
                         logger.warn(() -> new ParameterizedMessage("Failed to send response for {}", actionName), inner);
                     }
                 }
-            });
+            }, releasable::close));
         }
 
         @Override
@@ -322,7 +350,9 @@ public abstract class TransportReplicationAction<
 
         @Override
         public void messageReceived(ConcreteShardRequest<Request> request, TransportChannel channel, Task task) {
-            new AsyncPrimaryAction(request.request, request.targetAllocationID, request.primaryTerm, channel, (ReplicationTask) task).run();
+            final Releasable releasable = checkPrimaryLimits(request.request, request.sentFromLocalReroute());
+            new AsyncPrimaryAction(request.request, request.targetAllocationID, request.primaryTerm,
+                new ReleasingTransportChannel(channel, releasable), (ReplicationTask) task).run();
         }
     }
 
@@ -578,13 +608,14 @@ public abstract class TransportReplicationAction<
                 final TransportChannel channel,
                 final Task task)
             throws Exception {
+            final Releasable releasable = checkReplicaLimits(replicaRequest.getRequest());
             new AsyncReplicaAction(
                     replicaRequest.getRequest(),
                     replicaRequest.getTargetAllocationID(),
                     replicaRequest.getPrimaryTerm(),
                     replicaRequest.getGlobalCheckpoint(),
                     replicaRequest.getMaxSeqNoOfUpdatesOrDeletes(),
-                    channel,
+                    new ReleasingTransportChannel(channel, releasable),
                     (ReplicationTask) task).run();
         }
 
@@ -830,7 +861,7 @@ public abstract class TransportReplicationAction<
                     transportPrimaryAction, request.shardId(), request, state.version(), primary.currentNodeId());
             }
             performAction(node, transportPrimaryAction, true,
-                new ConcreteShardRequest<>(request, primary.allocationId().getId(), indexMetaData.primaryTerm(primary.id())));
+                new ConcreteShardRequest<>(request, primary.allocationId().getId(), indexMetaData.primaryTerm(primary.id()), true));
         }
 
         private void performRemoteAction(ClusterState state, ShardRouting primary, DiscoveryNode node) {
@@ -1232,19 +1263,28 @@ public abstract class TransportReplicationAction<
 
         private R request;
 
+        /** whether the reroute phase of this node sent the request to its local primary, never sent over the wire **/
+        private final transient boolean sentFromLocalReroute;
+
         public ConcreteShardRequest(Supplier<R> requestSupplier) {
             request = requestSupplier.get();
             // null now, but will be populated by reading from the streams
             targetAllocationID = null;
             primaryTerm = UNASSIGNED_PRIMARY_TERM;
+            sentFromLocalReroute = false;
         }
 
         public ConcreteShardRequest(R request, String targetAllocationID, long primaryTerm) {
+            this(request, targetAllocationID, primaryTerm, false);
+        }
+
+        public ConcreteShardRequest(R request, String targetAllocationID, long primaryTerm, boolean sentFromLocalReroute) {
             Objects.requireNonNull(request);
             Objects.requireNonNull(targetAllocationID);
             this.request = request;
             this.targetAllocationID = targetAllocationID;
             this.primaryTerm = primaryTerm;
+            this.sentFromLocalReroute = sentFromLocalReroute;
         }
 
         @Override
@@ -1297,6 +1337,10 @@ public abstract class TransportReplicationAction<
             return primaryTerm;
         }
 
+        public boolean sentFromLocalReroute() {
+            return sentFromLocalReroute;
+        }
+
         @Override
         public String toString() {
             return "request: " + request + ", target allocation id: " + targetAllocationID + ", primary term: " + primaryTerm;
@@ -1376,4 +1420,58 @@ public abstract class TransportReplicationAction<
             task.setPhase(phase);
         }
     }
+
+    /**
+     * A {@link TransportChannel} that releases the resources accounted for a request once its response has been sent.
+     */
+    static final class ReleasingTransportChannel implements TransportChannel {
+
+        private final TransportChannel channel;
+        private final Releasable releasable;
+        private final AtomicBoolean released = new AtomicBoolean(false);
+
+        ReleasingTransportChannel(TransportChannel channel, Releasable releasable) {
+            this.channel = channel;
+            this.releasable = releasable;
+        }
+
+        @Override
+        public String getProfileName() {
+            return channel.getProfileName();
+        }
+
+        @Override
+        public String getChannelType() {
+            return channel.getChannelType();
+        }
+
+        @Override
+        public void sendResponse(TransportResponse response) throws IOException {
+            try {
+                channel.sendResponse(response);
+            } finally {
+                release();
+            }
+        }
+
+        @Override
+        public void sendResponse(Exception exception) throws IOException {
+            try {
+                channel.sendResponse(exception);
+            } finally {
+                release();
+            }
+        }
+
+        @Override
+        public Version getVersion() {
+            return channel.getVersion();
+        }
+
+        private void release() {
+            if (released.compareAndSet(false, true)) {
+                releasable.close();
+            }
+        }
+    }
 }
@@ -109,6 +109,9 @@ public class ClusterModule extends AbstractModule {
                          ClusterInfoService clusterInfoService) {
         this.deciderList = createAllocationDeciders(settings, clusterService.getClusterSettings(), clusterPlugins);
         this.allocationDeciders = new AllocationDeciders(deciderList);
+        this.allocationDeciders.setTimingEnabled(AllocationDeciders.TIMING_ENABLED_SETTING.get(settings));
+        clusterService.getClusterSettings().addSettingsUpdateConsumer(AllocationDeciders.TIMING_ENABLED_SETTING,
+            this.allocationDeciders::setTimingEnabled);
         this.shardsAllocator = createShardsAllocator(settings, clusterService.getClusterSettings(), clusterPlugins);
         this.clusterService = clusterService;
         this.indexNameExpressionResolver = new IndexNameExpressionResolver(settings);
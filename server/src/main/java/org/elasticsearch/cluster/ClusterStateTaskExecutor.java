@@ -31,6 +31,15 @@ public interface ClusterStateTaskExecutor<T> {
      */
     ClusterTasksResult<T> execute(ClusterState currentState, List<T> tasks) throws Exception;
 
+    /**
+     * Indicates whether the master may execute a batch of this executor together with batches of other executors that allow
+     * coalescing, publishing a single cluster state for all of them. Such executors must not depend on observing a cluster
+     * state that was published on its own.
+     */
+    default boolean allowsCoalescing() {
+        return false;
+    }
+
     /**
      * indicates whether this executor should only run if the current node is master
      */
@@ -0,0 +1,422 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.cluster;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.message.ParameterizedMessage;
+import org.apache.lucene.store.AlreadyClosedException;
+import org.elasticsearch.Version;
+import org.elasticsearch.cluster.node.DiscoveryNode;
+import org.elasticsearch.cluster.node.DiscoveryNodes;
+import org.elasticsearch.cluster.routing.ShardRouting;
+import org.elasticsearch.cluster.service.ClusterService;
+import org.elasticsearch.common.Nullable;
+import org.elasticsearch.common.component.AbstractLifecycleComponent;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.io.stream.Writeable;
+import org.elasticsearch.common.settings.ClusterSettings;
+import org.elasticsearch.common.settings.Setting;
+import org.elasticsearch.common.settings.Setting.Property;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.ByteSizeUnit;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.common.util.concurrent.EsRejectedExecutionException;
+import org.elasticsearch.index.IndexService;
+import org.elasticsearch.index.shard.IllegalIndexShardStateException;
+import org.elasticsearch.index.shard.IndexShard;
+import org.elasticsearch.indices.IndicesService;
+import org.elasticsearch.monitor.fs.FsInfo;
+import org.elasticsearch.monitor.fs.FsService;
+import org.elasticsearch.threadpool.Scheduler;
+import org.elasticsearch.threadpool.ThreadPool;
+import org.elasticsearch.transport.EmptyTransportResponseHandler;
+import org.elasticsearch.transport.TransportException;
+import org.elasticsearch.transport.TransportRequest;
+import org.elasticsearch.transport.TransportResponse;
+import org.elasticsearch.transport.TransportService;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+/**
+ * Pushes the disk usage of a data node and the sizes of its shards to the elected master whenever they changed by more than a
+ * threshold, so that the master can maintain its {@link ClusterInfo} incrementally instead of fetching the stats of every node and
+ * shard on each refresh. The first report to a newly elected master, and the first report after a failed one, contain everything.
+ */
+public class DiskUsageReporter extends AbstractLifecycleComponent {
+
+    private static final Logger logger = LogManager.getLogger(DiskUsageReporter.class);
+
+    public static final String ACTION_NAME = "internal:cluster/info/disk_usage";
+
+    public static final Setting<Boolean> INCREMENTAL_REPORTS_ENABLED_SETTING =
+        Setting.boolSetting("cluster.info.incremental_reports.enabled", false, Property.Dynamic, Property.NodeScope);
+    public static final Setting<ByteSizeValue> DISK_USAGE_THRESHOLD_SETTING =
+        Setting.byteSizeSetting("cluster.info.incremental_reports.disk_usage_threshold", new ByteSizeValue(100, ByteSizeUnit.MB),
+            Property.Dynamic, Property.NodeScope);
+    public static final Setting<ByteSizeValue> SHARD_SIZE_THRESHOLD_SETTING =
+        Setting.byteSizeSetting("cluster.info.incremental_reports.shard_size_threshold", new ByteSizeValue(10, ByteSizeUnit.MB),
+            Property.Dynamic, Property.NodeScope);
+
+    private final Settings settings;
+    private final ClusterService clusterService;
+    private final TransportService transportService;
+    private final ThreadPool threadPool;
+    private final IndicesService indicesService;
+    private final FsService fsService;
+
+    private volatile boolean enabled;
+    private volatile ByteSizeValue diskUsageThreshold;
+    private volatile ByteSizeValue shardSizeThreshold;
+    private volatile TimeValue updateFrequency;
+    private volatile Scheduler.Cancellable scheduled;
+
+    // what the master acknowledged so far, only accessed by the reporting task which never runs concurrently with itself
+    private String reportedToMaster;
+    private FsInfo reportedFsInfo;
+    private final Map<ShardRouting, ShardUsage> reportedShards = new HashMap<>();
+
+    public DiskUsageReporter(Settings settings, ClusterService clusterService, TransportService transportService, ThreadPool threadPool,
+                             IndicesService indicesService, FsService fsService, Consumer<Report> reportConsumer) {
+        this.settings = settings;
+        this.clusterService = clusterService;
+        this.transportService = transportService;
+        this.threadPool = threadPool;
+        this.indicesService = indicesService;
+        this.fsService = fsService;
+        this.enabled = INCREMENTAL_REPORTS_ENABLED_SETTING.get(settings);
+        this.diskUsageThreshold = DISK_USAGE_THRESHOLD_SETTING.get(settings);
+        this.shardSizeThreshold = SHARD_SIZE_THRESHOLD_SETTING.get(settings);
+        this.updateFrequency = InternalClusterInfoService.INTERNAL_CLUSTER_INFO_UPDATE_INTERVAL_SETTING.get(settings);
+        ClusterSettings clusterSettings = clusterService.getClusterSettings();
+        clusterSettings.addSettingsUpdateConsumer(INCREMENTAL_REPORTS_ENABLED_SETTING, enabled -> this.enabled = enabled);
+        clusterSettings.addSettingsUpdateConsumer(DISK_USAGE_THRESHOLD_SETTING, threshold -> this.diskUsageThreshold = threshold);
+        clusterSettings.addSettingsUpdateConsumer(SHARD_SIZE_THRESHOLD_SETTING, threshold -> this.shardSizeThreshold = threshold);
+        clusterSettings.addSettingsUpdateConsumer(InternalClusterInfoService.INTERNAL_CLUSTER_INFO_UPDATE_INTERVAL_SETTING,
+            frequency -> this.updateFrequency = frequency);
+        transportService.registerRequestHandler(ACTION_NAME, ThreadPool.Names.MANAGEMENT, Report::new, (request, channel) -> {
+            reportConsumer.accept(request);
+            channel.sendResponse(TransportResponse.Empty.INSTANCE);
+        });
+    }
+
+    @Override
+    protected void doStart() {
+        if (DiscoveryNode.isDataNode(settings)) {
+            scheduleNextReport();
+        }
+    }
+
+    @Override
+    protected void doStop() {
+        final Scheduler.Cancellable scheduled = this.scheduled;
+        if (scheduled != null) {
+            scheduled.cancel();
+        }
+    }
+
+    @Override
+    protected void doClose() {
+    }
+
+    private void scheduleNextReport() {
+        if (lifecycle.started()) {
+            try {
+                scheduled = threadPool.schedule(this::maybeReport, updateFrequency, ThreadPool.Names.MANAGEMENT);
+            } catch (EsRejectedExecutionException e) {
+                logger.debug("failed to schedule the next disk usage report, node might be shutting down", e);
+            }
+        }
+    }
+
+    private void maybeReport() {
+        final DiscoveryNode masterNode;
+        final Report report;
+        try {
+            final DiscoveryNode localNode = clusterService.localNode();
+            final DiscoveryNodes nodes = clusterService.state().nodes();
+            masterNode = nodes.getMasterNode();
+            // the master only accepts reports once all nodes support them
+            if (enabled == false || masterNode == null || nodes.getMinNodeVersion().before(Version.V_6_8_24)) {
+                reset();
+                scheduleNextReport();
+                return;
+            }
+            if (masterNode.getEphemeralId().equals(reportedToMaster) == false) {
+                // a new master knows nothing about us yet
+                reset();
+            }
+            report = diff(localNode.getId(), reportedToMaster == null, reportedFsInfo, fsService.stats(), reportedShards,
+                currentShards(), diskUsageThreshold.getBytes(), shardSizeThreshold.getBytes());
+        } catch (Exception e) {
+            logger.warn("failed to compute the disk usage report", e);
+            reset();
+            scheduleNextReport();
+            return;
+        }
+        if (report == null) {
+            logger.trace("disk usage did not change significantly, not reporting");
+            scheduleNextReport();
+            return;
+        }
+        transportService.sendRequest(masterNode, ACTION_NAME, report, new EmptyTransportResponseHandler(ThreadPool.Names.SAME) {
+            @Override
+            public void handleResponse(TransportResponse.Empty response) {
+                onReportAcknowledged(masterNode, report);
+                scheduleNextReport();
+            }
+
+            @Override
+            public void handleException(TransportException exp) {
+                logger.debug(() -> new ParameterizedMessage("failed to report disk usage to [{}]", masterNode), exp);
+                reset();
+                scheduleNextReport();
+            }
+        });
+    }
+
+    private void onReportAcknowledged(DiscoveryNode masterNode, Report report) {
+        reportedToMaster = masterNode.getEphemeralId();
+        if (report.getFsInfo() != null) {
+            reportedFsInfo = report.getFsInfo();
+        }
+        for (ShardRouting shardRouting : report.getRemovedShards()) {
+            reportedShards.remove(shardRouting);
+        }
+        for (ShardUsage shardUsage : report.getShards()) {
+            reportedShards.put(shardUsage.getShardRouting(), shardUsage);
+        }
+    }
+
+    private void reset() {
+        reportedToMaster = null;
+        reportedFsInfo = null;
+        reportedShards.clear();
+    }
+
+    private Map<ShardRouting, ShardUsage> currentShards() {
+        final Map<ShardRouting, ShardUsage> shards = new HashMap<>();
+        for (IndexService indexService : indicesService) {
+            for (IndexShard indexShard : indexService) {
+                final ShardRouting shardRouting = indexShard.routingEntry();
+                if (shardRouting == null) {
+                    continue;
+                }
+                try {
+                    shards.put(shardRouting, new ShardUsage(shardRouting, indexShard.shardPath().getRootDataPath().toString(),
+                        indexShard.storeStats().sizeInBytes()));
+                } catch (AlreadyClosedException | IllegalIndexShardStateException e) {
+                    // the shard is closing and will be reported as removed
+                }
+            }
+        }
+        return shards;
+    }
+
+    /**
+     * Computes the report that brings the master from the previously reported state to the current one, or returns {@code null} if
+     * nothing changed by more than the given thresholds.
+     */
+    static Report diff(String nodeId, boolean full, @Nullable FsInfo previousFsInfo, FsInfo currentFsInfo,
+                       Map<ShardRouting, ShardUsage> previousShards, Map<ShardRouting, ShardUsage> currentShards,
+                       long diskUsageThreshold, long shardSizeThreshold) {
+        final FsInfo fsInfo = full || fsInfoChanged(previousFsInfo, currentFsInfo, diskUsageThreshold) ? currentFsInfo : null;
+        final List<ShardUsage> shards = new ArrayList<>();
+        for (ShardUsage current : currentShards.values()) {
+            final ShardUsage previous = full ? null : previousShards.get(current.getShardRouting());
+            if (previous == null
+                || previous.getDataPath().equals(current.getDataPath()) == false
+                || Math.abs(previous.getSizeInBytes() - current.getSizeInBytes()) >= shardSizeThreshold) {
+                shards.add(current);
+            }
+        }
+        final List<ShardRouting> removedShards = new ArrayList<>();
+        if (full == false) {
+            for (ShardRouting shardRouting : previousShards.keySet()) {
+                if (currentShards.containsKey(shardRouting) == false) {
+                    removedShards.add(shardRouting);
+                }
+            }
+        }
+        if (full == false && fsInfo == null && shards.isEmpty() && removedShards.isEmpty()) {
+            return null;
+        }
+        return new Report(nodeId, full, fsInfo, shards, removedShards);
+    }
+
+    private static boolean fsInfoChanged(@Nullable FsInfo previous, FsInfo current, long threshold) {
+        if (previous == null) {
+            return true;
+        }
+        final Map<String, FsInfo.Path> previousPaths = new HashMap<>();
+        for (FsInfo.Path path : previous) {
+            previousPaths.put(path.getPath(), path);
+        }
+        int paths = 0;
+        for (FsInfo.Path path : current) {
+            final FsInfo.Path previousPath = previousPaths.get(path.getPath());
+            if (previousPath == null
+                || previousPath.getTotal().getBytes() != path.getTotal().getBytes()
+                || Math.abs(previousPath.getAvailable().getBytes() - path.getAvailable().getBytes()) >= threshold) {
+                return true;
+            }
+            paths++;
+        }
+        return paths != previousPaths.size();
+    }
+
+    /**
+     * The size of a shard copy on a data node.
+     */
+    public static class ShardUsage implements Writeable {
+
+        private final ShardRouting shardRouting;
+        private final String dataPath;
+        private final long sizeInBytes;
+
+        public ShardUsage(ShardRouting shardRouting, String dataPath, long sizeInBytes) {
+            this.shardRouting = shardRouting;
+            this.dataPath = dataPath;
+            this.sizeInBytes = sizeInBytes;
+        }
+
+        public ShardUsage(StreamInput in) throws IOException {
+            shardRouting = new ShardRouting(in);
+            dataPath = in.readString();
+            sizeInBytes = in.readLong();
+        }
+
+        @Override
+        public void writeTo(StreamOutput out) throws IOException {
+            shardRouting.writeTo(out);
+            out.writeString(dataPath);
+            out.writeLong(sizeInBytes);
+        }
+
+        public ShardRouting getShardRouting() {
+            return shardRouting;
+        }
+
+        public String getDataPath() {
+            return dataPath;
+        }
+
+        public long getSizeInBytes() {
+            return sizeInBytes;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            ShardUsage that = (ShardUsage) o;
+            return sizeInBytes == that.sizeInBytes && shardRouting.equals(that.shardRouting) && dataPath.equals(that.dataPath);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(shardRouting, dataPath, sizeInBytes);
+        }
+    }
+
+    /**
+     * The changes in disk usage of a data node since its previous report to the same master.
+     */
+    public static class Report extends TransportRequest {
+
+        private final String nodeId;
+        private final boolean full;
+        @Nullable
+        private final FsInfo fsInfo;
+        private final List<ShardUsage> shards;
+        private final List<ShardRouting> removedShards;
+
+        public Report(String nodeId, boolean full, @Nullable FsInfo fsInfo, List<ShardUsage> shards, List<ShardRouting> removedShards) {
+            this.nodeId = nodeId;
+            this.full = full;
+            this.fsInfo = fsInfo;
+            this.shards = Collections.unmodifiableList(shards);
+            this.removedShards = Collections.unmodifiableList(removedShards);
+        }
+
+        public Report(StreamInput in) throws IOException {
+            super(in);
+            nodeId = in.readString();
+            full = in.readBoolean();
+            fsInfo = in.readOptionalWriteable(FsInfo::new);
+            shards = Collections.unmodifiableList(in.readList(ShardUsage::new));
+            removedShards = Collections.unmodifiableList(in.readList(ShardRouting::new));
+        }
+
+        @Override
+        public void writeTo(StreamOutput out) throws IOException {
+            super.writeTo(out);
+            out.writeString(nodeId);
+            out.writeBoolean(full);
+            out.writeOptionalWriteable(fsInfo);
+            out.writeList(shards);
+            out.writeList(removedShards);
+        }
+
+        /**
+         * Returns the id of the data node that sent this report.
+         */
+        public String getNodeId() {
+            return nodeId;
+        }
+
+        /**
+         * Returns whether this report replaces everything that the node reported before, rather than updating it.
+         */
+        public boolean isFull() {
+            return full;
+        }
+
+        /**
+         * Returns the current file system stats of the node, or {@code null} if they did not change significantly.
+         */
+        @Nullable
+        public FsInfo getFsInfo() {
+            return fsInfo;
+        }
+
+        /**
+         * Returns the shard copies that are new or whose size changed significantly.
+         */
+        public List<ShardUsage> getShards() {
+            return shards;
+        }
+
+        /**
+         * Returns the shard copies that the node no longer holds.
+         */
+        public List<ShardRouting> getRemovedShards() {
+            return removedShards;
+        }
+    }
+}
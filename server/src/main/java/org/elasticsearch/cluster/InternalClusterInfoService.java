@@ -21,6 +21,7 @@ package org.elasticsearch.cluster;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.elasticsearch.Version;
 import org.elasticsearch.action.ActionListener;
 import org.elasticsearch.action.LatchedActionListener;
 import org.elasticsearch.action.admin.cluster.node.stats.NodeStats;
@@ -46,7 +47,10 @@ import org.elasticsearch.monitor.fs.FsInfo;
 import org.elasticsearch.threadpool.ThreadPool;
 import org.elasticsearch.transport.ReceiveTimeoutTransportException;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
@@ -60,7 +64,9 @@ import java.util.function.Consumer;
  * ClusterInfoUpdateJob if a node has been added.
  *
  * Every time the timer runs, gathers information about the disk usage and
- * shard sizes across the cluster.
+ * shard sizes across the cluster. If incremental reports are enabled, see
+ * {@link DiskUsageReporter}, data nodes push changes in their disk usage and
+ * shard sizes to the master instead and the timer does nothing.
  */
 public class InternalClusterInfoService implements ClusterInfoService, LocalNodeMasterListener, ClusterStateListener {
 
@@ -81,12 +87,17 @@ public class InternalClusterInfoService implements ClusterInfoService, LocalNode
     private volatile ImmutableOpenMap<String, Long> shardSizes;
     private volatile boolean isMaster = false;
     private volatile boolean enabled;
+    private volatile boolean incrementalReportsEnabled;
     private volatile TimeValue fetchTimeout;
     private final ClusterService clusterService;
     private final ThreadPool threadPool;
     private final NodeClient client;
     private final Consumer<ClusterInfo> listener;
 
+    // the shard copies that data nodes reported incrementally per node id, and the number of copies per shard identifier
+    private final Map<String, Map<ShardRouting, DiskUsageReporter.ShardUsage>> reportedShards = new HashMap<>();
+    private final Map<String, Integer> reportedShardIdentifiers = new HashMap<>();
+
     public InternalClusterInfoService(Settings settings, ClusterService clusterService, ThreadPool threadPool, NodeClient client,
                                       Consumer<ClusterInfo> listener) {
         this.leastAvailableSpaceUsages = ImmutableOpenMap.of();
@@ -99,11 +110,14 @@ public class InternalClusterInfoService implements ClusterInfoService, LocalNode
         this.updateFrequency = INTERNAL_CLUSTER_INFO_UPDATE_INTERVAL_SETTING.get(settings);
         this.fetchTimeout = INTERNAL_CLUSTER_INFO_TIMEOUT_SETTING.get(settings);
         this.enabled = DiskThresholdSettings.CLUSTER_ROUTING_ALLOCATION_DISK_THRESHOLD_ENABLED_SETTING.get(settings);
+        this.incrementalReportsEnabled = DiskUsageReporter.INCREMENTAL_REPORTS_ENABLED_SETTING.get(settings);
         ClusterSettings clusterSettings = clusterService.getClusterSettings();
         clusterSettings.addSettingsUpdateConsumer(INTERNAL_CLUSTER_INFO_TIMEOUT_SETTING, this::setFetchTimeout);
         clusterSettings.addSettingsUpdateConsumer(INTERNAL_CLUSTER_INFO_UPDATE_INTERVAL_SETTING, this::setUpdateFrequency);
         clusterSettings.addSettingsUpdateConsumer(DiskThresholdSettings.CLUSTER_ROUTING_ALLOCATION_DISK_THRESHOLD_ENABLED_SETTING,
                                                   this::setEnabled);
+        clusterSettings.addSettingsUpdateConsumer(DiskUsageReporter.INCREMENTAL_REPORTS_ENABLED_SETTING,
+                                                  this::setIncrementalReportsEnabled);
 
         // Add InternalClusterInfoService to listen for Master changes
         this.clusterService.addLocalNodeMasterListener(this);
@@ -116,6 +130,12 @@ public class InternalClusterInfoService implements ClusterInfoService, LocalNode
         this.enabled = enabled;
     }
 
+    private void setIncrementalReportsEnabled(boolean incrementalReportsEnabled) {
+        this.incrementalReportsEnabled = incrementalReportsEnabled;
+        // reported and fetched infos don't mix well, start over from whatever source is used from now on
+        clearReportedShards(incrementalReportsEnabled);
+    }
+
     private void setFetchTimeout(TimeValue fetchTimeout) {
         this.fetchTimeout = fetchTimeout;
     }
@@ -127,6 +147,8 @@ public class InternalClusterInfoService implements ClusterInfoService, LocalNode
     @Override
     public void onMaster() {
         this.isMaster = true;
+        // infos from a previous term as master may be stale and data nodes will report everything again anyway
+        clearReportedShards(incrementalReportsActive(clusterService.state()));
         if (logger.isTraceEnabled()) {
             logger.trace("I have been elected master, scheduling a ClusterInfoUpdateJob");
         }
@@ -156,6 +178,13 @@ public class InternalClusterInfoService implements ClusterInfoService, LocalNode
 
     @Override
     public void clusterChanged(ClusterChangedEvent event) {
+        final boolean incrementalReportsActive = incrementalReportsActive(event.state());
+        final boolean incrementalReportsFlipped = incrementalReportsActive != incrementalReportsActive(event.previousState());
+        if (this.isMaster && incrementalReportsFlipped) {
+            // the minimum node version crossed the version that supports incremental reports, start over from the new source
+            clearReportedShards(incrementalReportsActive);
+        }
+
         if (!this.enabled) {
             return;
         }
@@ -169,7 +198,13 @@ public class InternalClusterInfoService implements ClusterInfoService, LocalNode
             }
         }
 
-        if (this.isMaster && dataNodeAdded && event.state().getNodes().getDataNodes().size() > 1) {
+        if (this.isMaster && incrementalReportsActive == false && incrementalReportsFlipped) {
+            if (logger.isDebugEnabled()) {
+                logger.debug("incremental disk usage reports are no longer supported by all nodes, retrieving new cluster info");
+            }
+            threadPool.executor(executorName()).execute(() -> maybeRefresh());
+        } else if (this.isMaster && dataNodeAdded && event.state().getNodes().getDataNodes().size() > 1
+            && incrementalReportsActive == false) {
             if (logger.isDebugEnabled()) {
                 logger.debug("data node was added, retrieving new cluster info");
             }
@@ -182,6 +217,7 @@ public class InternalClusterInfoService implements ClusterInfoService, LocalNode
                     if (logger.isTraceEnabled()) {
                         logger.trace("Removing node from cluster info: {}", removedNode.getId());
                     }
+                    removeReportedShards(removedNode.getId());
                     if (leastAvailableSpaceUsages.containsKey(removedNode.getId())) {
                         ImmutableOpenMap.Builder<String, DiskUsage> newMaxUsages = ImmutableOpenMap.builder(leastAvailableSpaceUsages);
                         newMaxUsages.remove(removedNode.getId());
@@ -269,8 +305,12 @@ public class InternalClusterInfoService implements ClusterInfoService, LocalNode
 
     private void maybeRefresh() {
         // Short-circuit if not enabled
-        if (enabled) {
+        if (enabled && incrementalReportsActive(clusterService.state()) == false) {
             refresh();
+        } else if (enabled) {
+            if (logger.isTraceEnabled()) {
+                logger.trace("Skipping ClusterInfoUpdatedJob since data nodes report their disk usage incrementally");
+            }
         } else {
             if (logger.isTraceEnabled()) {
                 logger.trace("Skipping ClusterInfoUpdatedJob since it is disabled");
@@ -374,6 +414,122 @@ public class InternalClusterInfoService implements ClusterInfoService, LocalNode
         return clusterInfo;
     }
 
+    /**
+     * Whether the data nodes push their disk usage to the master, which requires all nodes to support it.
+     */
+    private boolean incrementalReportsActive(ClusterState state) {
+        return incrementalReportsEnabled && state.nodes().getMinNodeVersion().onOrAfter(Version.V_6_8_24);
+    }
+
+    /**
+     * Applies an incremental disk usage report of a data node to the {@link ClusterInfo} and notifies the listener.
+     */
+    public void onDiskUsageReport(DiskUsageReporter.Report report) {
+        if (isMaster == false) {
+            throw new NotMasterException("can't process disk usage report of node [" + report.getNodeId() + "], not the master");
+        }
+        final ClusterState state = clusterService.state();
+        if (incrementalReportsActive(state) == false) {
+            // the infos are fetched by refreshes which replace them wholesale, the node sends a full report once this is rejected
+            throw new IllegalStateException("can't process disk usage report of node [" + report.getNodeId()
+                + "], incremental disk usage reports are disabled or not supported by all nodes");
+        }
+        final DiscoveryNode node = state.nodes().get(report.getNodeId());
+        if (node == null) {
+            logger.debug("ignoring disk usage report of node [{}] which is no longer part of the cluster", report.getNodeId());
+            return;
+        }
+        final ClusterInfo clusterInfo;
+        synchronized (reportedShards) {
+            if (report.isFull() == false && reportedShards.containsKey(node.getId()) == false) {
+                // the reported infos were cleared since the last report, e.g. by a re-election of this node or a toggle of the
+                // setting, and the node doesn't know it: make it start over with a full report
+                throw new IllegalStateException("can't process incremental disk usage report of node [" + report.getNodeId()
+                    + "], no full report was received from it");
+            }
+            final ImmutableOpenMap.Builder<String, Long> newShardSizes = ImmutableOpenMap.builder(shardSizes);
+            final ImmutableOpenMap.Builder<ShardRouting, String> newShardRoutingToDataPath =
+                ImmutableOpenMap.builder(shardRoutingToDataPath);
+            final Map<ShardRouting, DiskUsageReporter.ShardUsage> nodeShards =
+                reportedShards.computeIfAbsent(node.getId(), k -> new HashMap<>());
+            final List<ShardRouting> removedShards = report.isFull() ? new ArrayList<>(nodeShards.keySet()) : report.getRemovedShards();
+            for (ShardRouting shardRouting : removedShards) {
+                removeReportedShard(nodeShards, shardRouting, newShardSizes, newShardRoutingToDataPath);
+            }
+            for (DiskUsageReporter.ShardUsage shardUsage : report.getShards()) {
+                final String shardIdentifier = ClusterInfo.shardIdentifierFromRouting(shardUsage.getShardRouting());
+                if (nodeShards.put(shardUsage.getShardRouting(), shardUsage) == null) {
+                    reportedShardIdentifiers.merge(shardIdentifier, 1, Integer::sum);
+                }
+                newShardSizes.put(shardIdentifier, shardUsage.getSizeInBytes());
+                newShardRoutingToDataPath.put(shardUsage.getShardRouting(), shardUsage.getDataPath());
+            }
+            shardSizes = newShardSizes.build();
+            shardRoutingToDataPath = newShardRoutingToDataPath.build();
+
+            if (report.getFsInfo() != null) {
+                final ImmutableOpenMap.Builder<String, DiskUsage> newLeastAvailableUsages =
+                    ImmutableOpenMap.builder(leastAvailableSpaceUsages);
+                final ImmutableOpenMap.Builder<String, DiskUsage> newMostAvailableUsages =
+                    ImmutableOpenMap.builder(mostAvailableSpaceUsages);
+                newLeastAvailableUsages.remove(node.getId());
+                newMostAvailableUsages.remove(node.getId());
+                fillDiskUsage(logger, node, report.getFsInfo(), newLeastAvailableUsages, newMostAvailableUsages);
+                leastAvailableSpaceUsages = newLeastAvailableUsages.build();
+                mostAvailableSpaceUsages = newMostAvailableUsages.build();
+            }
+            clusterInfo = getClusterInfo();
+        }
+        try {
+            listener.accept(clusterInfo);
+        } catch (Exception e) {
+            logger.info("Failed executing ClusterInfoService listener", e);
+        }
+    }
+
+    private void removeReportedShards(String nodeId) {
+        synchronized (reportedShards) {
+            final Map<ShardRouting, DiskUsageReporter.ShardUsage> nodeShards = reportedShards.remove(nodeId);
+            if (nodeShards != null) {
+                final ImmutableOpenMap.Builder<String, Long> newShardSizes = ImmutableOpenMap.builder(shardSizes);
+                final ImmutableOpenMap.Builder<ShardRouting, String> newShardRoutingToDataPath =
+                    ImmutableOpenMap.builder(shardRoutingToDataPath);
+                for (ShardRouting shardRouting : new ArrayList<>(nodeShards.keySet())) {
+                    removeReportedShard(nodeShards, shardRouting, newShardSizes, newShardRoutingToDataPath);
+                }
+                shardSizes = newShardSizes.build();
+                shardRoutingToDataPath = newShardRoutingToDataPath.build();
+            }
+        }
+    }
+
+    private void removeReportedShard(Map<ShardRouting, DiskUsageReporter.ShardUsage> nodeShards, ShardRouting shardRouting,
+                                     ImmutableOpenMap.Builder<String, Long> newShardSizes,
+                                     ImmutableOpenMap.Builder<ShardRouting, String> newShardRoutingToDataPath) {
+        assert Thread.holdsLock(reportedShards);
+        if (nodeShards.remove(shardRouting) != null) {
+            newShardRoutingToDataPath.remove(shardRouting);
+            final String shardIdentifier = ClusterInfo.shardIdentifierFromRouting(shardRouting);
+            // the size is shared by all copies with the same identifier, only drop it with the last one
+            if (reportedShardIdentifiers.merge(shardIdentifier, -1, (count, delta) -> count + delta == 0 ? null : count + delta) == null) {
+                newShardSizes.remove(shardIdentifier);
+            }
+        }
+    }
+
+    private void clearReportedShards(boolean clearClusterInfo) {
+        synchronized (reportedShards) {
+            reportedShards.clear();
+            reportedShardIdentifiers.clear();
+            if (clearClusterInfo) {
+                leastAvailableSpaceUsages = ImmutableOpenMap.of();
+                mostAvailableSpaceUsages = ImmutableOpenMap.of();
+                shardSizes = ImmutableOpenMap.of();
+                shardRoutingToDataPath = ImmutableOpenMap.of();
+            }
+        }
+    }
+
     static void buildShardLevelInfo(Logger logger, ShardStats[] stats, ImmutableOpenMap.Builder<String, Long> newShardSizes,
                                     ImmutableOpenMap.Builder<ShardRouting, String> newShardRoutingToDataPath, ClusterState state) {
         for (ShardStats s : stats) {
@@ -394,47 +550,55 @@ public class InternalClusterInfoService implements ClusterInfoService, LocalNode
             if (nodeStats.getFs() == null) {
                 logger.warn("Unable to retrieve node FS stats for {}", nodeStats.getNode().getName());
             } else {
-                FsInfo.Path leastAvailablePath = null;
-                FsInfo.Path mostAvailablePath = null;
-                for (FsInfo.Path info : nodeStats.getFs()) {
-                    if (leastAvailablePath == null) {
-                        assert mostAvailablePath == null;
-                        mostAvailablePath = leastAvailablePath = info;
-                    } else if (leastAvailablePath.getAvailable().getBytes() > info.getAvailable().getBytes()) {
-                        leastAvailablePath = info;
-                    } else if (mostAvailablePath.getAvailable().getBytes() < info.getAvailable().getBytes()) {
-                        mostAvailablePath = info;
-                    }
-                }
-                String nodeId = nodeStats.getNode().getId();
-                String nodeName = nodeStats.getNode().getName();
-                if (logger.isTraceEnabled()) {
-                    logger.trace("node: [{}], most available: total disk: {}," +
-                            " available disk: {} / least available: total disk: {}, available disk: {}",
-                            nodeId, mostAvailablePath.getTotal(), leastAvailablePath.getAvailable(),
-                            leastAvailablePath.getTotal(), leastAvailablePath.getAvailable());
-                }
-                if (leastAvailablePath.getTotal().getBytes() < 0) {
-                    if (logger.isTraceEnabled()) {
-                        logger.trace("node: [{}] least available path has less than 0 total bytes of disk [{}], skipping",
-                                nodeId, leastAvailablePath.getTotal().getBytes());
-                    }
-                } else {
-                    newLeastAvaiableUsages.put(nodeId, new DiskUsage(nodeId, nodeName, leastAvailablePath.getPath(),
-                        leastAvailablePath.getTotal().getBytes(), leastAvailablePath.getAvailable().getBytes()));
-                }
-                if (mostAvailablePath.getTotal().getBytes() < 0) {
-                    if (logger.isTraceEnabled()) {
-                        logger.trace("node: [{}] most available path has less than 0 total bytes of disk [{}], skipping",
-                                nodeId, mostAvailablePath.getTotal().getBytes());
-                    }
-                } else {
-                    newMostAvaiableUsages.put(nodeId, new DiskUsage(nodeId, nodeName, mostAvailablePath.getPath(),
-                        mostAvailablePath.getTotal().getBytes(), mostAvailablePath.getAvailable().getBytes()));
-                }
+                fillDiskUsage(logger, nodeStats.getNode(), nodeStats.getFs(), newLeastAvaiableUsages, newMostAvaiableUsages);
+            }
+        }
+    }
 
+    static void fillDiskUsage(Logger logger, DiscoveryNode node, FsInfo fsInfo,
+            ImmutableOpenMap.Builder<String, DiskUsage> newLeastAvaiableUsages,
+            ImmutableOpenMap.Builder<String, DiskUsage> newMostAvaiableUsages) {
+        FsInfo.Path leastAvailablePath = null;
+        FsInfo.Path mostAvailablePath = null;
+        for (FsInfo.Path info : fsInfo) {
+            if (leastAvailablePath == null) {
+                assert mostAvailablePath == null;
+                mostAvailablePath = leastAvailablePath = info;
+            } else if (leastAvailablePath.getAvailable().getBytes() > info.getAvailable().getBytes()) {
+                leastAvailablePath = info;
+            } else if (mostAvailablePath.getAvailable().getBytes() < info.getAvailable().getBytes()) {
+                mostAvailablePath = info;
             }
         }
+        if (leastAvailablePath == null) {
+            return;
+        }
+        String nodeId = node.getId();
+        String nodeName = node.getName();
+        if (logger.isTraceEnabled()) {
+            logger.trace("node: [{}], most available: total disk: {}," +
+                    " available disk: {} / least available: total disk: {}, available disk: {}",
+                    nodeId, mostAvailablePath.getTotal(), leastAvailablePath.getAvailable(),
+                    leastAvailablePath.getTotal(), leastAvailablePath.getAvailable());
+        }
+        if (leastAvailablePath.getTotal().getBytes() < 0) {
+            if (logger.isTraceEnabled()) {
+                logger.trace("node: [{}] least available path has less than 0 total bytes of disk [{}], skipping",
+                        nodeId, leastAvailablePath.getTotal().getBytes());
+            }
+        } else {
+            newLeastAvaiableUsages.put(nodeId, new DiskUsage(nodeId, nodeName, leastAvailablePath.getPath(),
+                leastAvailablePath.getTotal().getBytes(), leastAvailablePath.getAvailable().getBytes()));
+        }
+        if (mostAvailablePath.getTotal().getBytes() < 0) {
+            if (logger.isTraceEnabled()) {
+                logger.trace("node: [{}] most available path has less than 0 total bytes of disk [{}], skipping",
+                        nodeId, mostAvailablePath.getTotal().getBytes());
+            }
+        } else {
+            newMostAvaiableUsages.put(nodeId, new DiskUsage(nodeId, nodeName, mostAvailablePath.getPath(),
+                mostAvailablePath.getTotal().getBytes(), mostAvailablePath.getAvailable().getBytes()));
+        }
     }
 
 
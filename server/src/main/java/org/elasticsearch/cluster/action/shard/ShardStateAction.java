@@ -373,6 +373,11 @@ public class ShardStateAction {
             return allocationService.applyFailedShards(currentState, failedShards, staleShards);
         }
 
+        @Override
+        public boolean allowsCoalescing() {
+            return true;
+        }
+
         @Override
         public void clusterStatePublished(ClusterChangedEvent clusterChangedEvent) {
             int numberOfUnassignedShards = clusterChangedEvent.state().getRoutingNodes().unassigned().size();
@@ -522,6 +527,11 @@ public class ShardStateAction {
             this.logger = logger;
         }
 
+        @Override
+        public boolean allowsCoalescing() {
+            return true;
+        }
+
         @Override
         public ClusterTasksResult<StartedShardEntry> execute(ClusterState currentState, List<StartedShardEntry> tasks) throws Exception {
             ClusterTasksResult.Builder<StartedShardEntry> builder = ClusterTasksResult.builder();
@@ -32,6 +32,7 @@ import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.time.DateFormatter;
 import org.elasticsearch.common.time.DateFormatters;
 import org.elasticsearch.common.time.DateMathParser;
+import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
 import org.elasticsearch.common.util.set.Sets;
 import org.elasticsearch.index.Index;
 import org.elasticsearch.index.IndexNotFoundException;
@@ -57,8 +58,15 @@ import java.util.stream.Collectors;
 import java.util.stream.StreamSupport;
 
 public class IndexNameExpressionResolver {
+
+    /**
+     * The maximum number of index expressions whose concrete indices are cached for the most recently seen metadata.
+     */
+    static final int MAX_CACHED_RESOLUTIONS = 1024;
+
     private final List<ExpressionResolver> expressionResolvers;
     private final DateMathExpressionResolver dateMathExpressionResolver;
+    private volatile ResolutionCache resolutionCache = new ResolutionCache(null);
 
     public IndexNameExpressionResolver(Settings settings) {
         dateMathExpressionResolver = new DateMathExpressionResolver(settings);
@@ -153,6 +161,25 @@ public class IndexNameExpressionResolver {
         if (indexExpressions == null || indexExpressions.length == 0) {
             indexExpressions = new String[]{MetaData.ALL};
         }
+        final ResolutionKey key = ResolutionKey.of(context, indexExpressions);
+        if (key == null) {
+            return resolveConcreteIndices(context, indexExpressions);
+        }
+        final MetaData metaData = context.getState().metaData();
+        ResolutionCache cache = resolutionCache;
+        if (cache.metaData != metaData) {
+            cache = new ResolutionCache(metaData);
+            resolutionCache = cache;
+        }
+        Index[] concreteIndices = cache.get(key);
+        if (concreteIndices == null) {
+            concreteIndices = resolveConcreteIndices(context, indexExpressions);
+            cache.put(key, concreteIndices);
+        }
+        return concreteIndices.clone();
+    }
+
+    private Index[] resolveConcreteIndices(Context context, String[] indexExpressions) {
         MetaData metaData = context.getState().metaData();
         IndicesOptions options = context.getOptions();
         final boolean failClosed = options.forbidClosedIndices() && options.ignoreUnavailable() == false;
@@ -565,6 +592,83 @@ public class IndexNameExpressionResolver {
         return false;
     }
 
+    /**
+     * Caches the concrete indices that index expressions resolve to against a single {@link MetaData} instance. The cache is
+     * replaced as a whole as soon as expressions are resolved against another instance, so entries never outlive the metadata
+     * they were computed from. Since a new metadata instance is built whenever indices or aliases change, no version checks
+     * are needed.
+     */
+    private static final class ResolutionCache {
+        private final MetaData metaData;
+        private final Map<ResolutionKey, Index[]> resolutions = ConcurrentCollections.newConcurrentMap();
+
+        ResolutionCache(@Nullable MetaData metaData) {
+            this.metaData = metaData;
+        }
+
+        Index[] get(ResolutionKey key) {
+            return resolutions.get(key);
+        }
+
+        void put(ResolutionKey key, Index[] concreteIndices) {
+            if (resolutions.size() < MAX_CACHED_RESOLUTIONS) {
+                resolutions.putIfAbsent(key, concreteIndices);
+            }
+        }
+    }
+
+    /**
+     * Everything besides the metadata that the concrete indices of a list of index expressions depend on.
+     */
+    private static final class ResolutionKey {
+        private final List<String> expressions;
+        private final IndicesOptions options;
+        private final boolean preserveAliases;
+        private final boolean resolveToWriteIndex;
+
+        private ResolutionKey(List<String> expressions, IndicesOptions options, boolean preserveAliases, boolean resolveToWriteIndex) {
+            this.expressions = expressions;
+            this.options = options;
+            this.preserveAliases = preserveAliases;
+            this.resolveToWriteIndex = resolveToWriteIndex;
+        }
+
+        /**
+         * Returns the key for the given expressions, or {@code null} if their resolution can't be cached because it depends on
+         * the time of the request, which is the case for date math expressions.
+         */
+        @Nullable
+        static ResolutionKey of(Context context, String[] indexExpressions) {
+            for (String expression : indexExpressions) {
+                if (expression == null || expression.startsWith(DateMathExpressionResolver.EXPRESSION_LEFT_BOUND)) {
+                    return null;
+                }
+            }
+            return new ResolutionKey(Arrays.asList(indexExpressions.clone()), context.getOptions(), context.isPreserveAliases(),
+                context.isResolveToWriteIndex());
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            ResolutionKey that = (ResolutionKey) o;
+            return preserveAliases == that.preserveAliases
+                && resolveToWriteIndex == that.resolveToWriteIndex
+                && expressions.equals(that.expressions)
+                && options.equals(that.options);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(expressions, options, preserveAliases, resolveToWriteIndex);
+        }
+    }
+
     static final class Context {
 
         private final ClusterState state;
@@ -785,11 +889,7 @@ public class IndexNameExpressionResolver {
 
         private static Map<String, AliasOrIndex> suffixWildcard(Context context, MetaData metaData, String expression) {
             assert expression.length() >= 2 : "expression [" + expression + "] should have at least a length of 2";
-            String fromPrefix = expression.substring(0, expression.length() - 1);
-            char[] toPrefixCharArr = fromPrefix.toCharArray();
-            toPrefixCharArr[toPrefixCharArr.length - 1]++;
-            String toPrefix = new String(toPrefixCharArr);
-            SortedMap<String,AliasOrIndex> subMap = metaData.getAliasAndIndexLookup().subMap(fromPrefix, toPrefix);
+            SortedMap<String, AliasOrIndex> subMap = withPrefix(metaData, expression.substring(0, expression.length() - 1));
             if (context.getOptions().ignoreAliases()) {
                  return subMap.entrySet().stream()
                         .filter(entry -> entry.getValue().isAlias() == false)
@@ -800,7 +900,11 @@ public class IndexNameExpressionResolver {
 
         private static Map<String, AliasOrIndex> otherWildcard(Context context, MetaData metaData, String expression) {
             final String pattern = expression;
-            return metaData.getAliasAndIndexLookup()
+            // only names that start with the literal part of the pattern before its first wildcard can match
+            final String prefix = pattern.substring(0, pattern.indexOf('*'));
+            final SortedMap<String, AliasOrIndex> candidates = prefix.isEmpty() ?
+                metaData.getAliasAndIndexLookup() : withPrefix(metaData, prefix);
+            return candidates
                 .entrySet()
                 .stream()
                 .filter(e -> context.getOptions().ignoreAliases() == false || e.getValue().isAlias() == false)
@@ -808,6 +912,16 @@ public class IndexNameExpressionResolver {
                 .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
         }
 
+        /**
+         * Returns the indices and aliases whose names start with the given non-empty prefix.
+         */
+        private static SortedMap<String, AliasOrIndex> withPrefix(MetaData metaData, String prefix) {
+            char[] toPrefixCharArr = prefix.toCharArray();
+            toPrefixCharArr[toPrefixCharArr.length - 1]++;
+            String toPrefix = new String(toPrefixCharArr);
+            return metaData.getAliasAndIndexLookup().subMap(prefix, toPrefix);
+        }
+
         private static Set<String> expand(Context context, IndexMetaData.State excludeState, Map<String, AliasOrIndex> matches) {
             Set<String> expand = new HashSet<>();
             for (Map.Entry<String, AliasOrIndex> entry : matches.entrySet()) {
@@ -846,7 +960,7 @@ public class IndexNameExpressionResolver {
     static final class DateMathExpressionResolver implements ExpressionResolver {
 
         private static final DateFormatter DEFAULT_DATE_FORMATTER = DateFormatters.forPattern("uuuu.MM.dd");
-        private static final String EXPRESSION_LEFT_BOUND = "<";
+        static final String EXPRESSION_LEFT_BOUND = "<";
         private static final String EXPRESSION_RIGHT_BOUND = ">";
         private static final char LEFT_BOUND = '{';
         private static final char RIGHT_BOUND = '}';
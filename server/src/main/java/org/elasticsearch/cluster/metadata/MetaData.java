@@ -1086,6 +1086,8 @@ public class MetaData implements Iterable<IndexMetaData>, Diffable<MetaData>, To
             //    while these datastructures aren't even used.
             // 2) The aliasAndIndexLookup can be updated instead of rebuilding it all the time.
 
+            deduplicateMappings();
+
             final Set<String> allIndices = new HashSet<>(indices.size());
             final List<String> allOpenIndices = new ArrayList<>();
             final List<String> allClosedIndices = new ArrayList<>();
@@ -1134,6 +1136,41 @@ public class MetaData implements Iterable<IndexMetaData>, Diffable<MetaData>, To
                                 customs.build(), allIndicesArray, allOpenIndicesArray, allClosedIndicesArray, aliasAndIndexLookup);
         }
 
+        /**
+         * Makes indices with identical mappings, such as indices created from the same template, share a single
+         * {@link MappingMetaData} instance so that the mapping source is only held once on heap. Indices that already
+         * share an instance are found by identity, so this only rebuilds index metadata the first time a duplicate is seen.
+         */
+        private void deduplicateMappings() {
+            final Map<MappingMetaData, MappingMetaData> uniqueMappings = new HashMap<>();
+            List<IndexMetaData> deduplicated = null;
+            for (ObjectCursor<IndexMetaData> cursor : indices.values()) {
+                final IndexMetaData indexMetaData = cursor.value;
+                IndexMetaData.Builder indexMetaDataBuilder = null;
+                for (ObjectCursor<MappingMetaData> mappingCursor : indexMetaData.getMappings().values()) {
+                    final MappingMetaData mapping = mappingCursor.value;
+                    final MappingMetaData existing = uniqueMappings.putIfAbsent(mapping, mapping);
+                    if (existing != null && existing != mapping) {
+                        if (indexMetaDataBuilder == null) {
+                            indexMetaDataBuilder = IndexMetaData.builder(indexMetaData);
+                        }
+                        indexMetaDataBuilder.putMapping(existing);
+                    }
+                }
+                if (indexMetaDataBuilder != null) {
+                    if (deduplicated == null) {
+                        deduplicated = new ArrayList<>();
+                    }
+                    deduplicated.add(indexMetaDataBuilder.build());
+                }
+            }
+            if (deduplicated != null) {
+                for (IndexMetaData indexMetaData : deduplicated) {
+                    indices.put(indexMetaData.getIndex().getName(), indexMetaData);
+                }
+            }
+        }
+
         private SortedMap<String, AliasOrIndex> buildAliasAndIndexLookup() {
             SortedMap<String, AliasOrIndex> aliasAndIndexLookup = new TreeMap<>();
             for (ObjectCursor<IndexMetaData> cursor : indices.values()) {
@@ -19,6 +19,7 @@
 
 package org.elasticsearch.cluster.routing.allocation.allocator;
 
+import com.carrotsearch.hppc.ObjectFloatHashMap;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.apache.lucene.util.ArrayUtil;
@@ -239,6 +240,7 @@ public class BalancedShardsAllocator implements ShardsAllocator {
         private final float threshold;
         private final MetaData metaData;
         private final float avgShardsPerNode;
+        private final ObjectFloatHashMap<String> avgShardsPerNodeByIndex = new ObjectFloatHashMap<>();
         private final NodeSorter sorter;
 
         public Balancer(Logger logger, RoutingAllocation allocation, WeightFunction weight, float threshold) {
@@ -261,10 +263,17 @@ public class BalancedShardsAllocator implements ShardsAllocator {
         }
 
         /**
-         * Returns the average of shards per node for the given index
+         * Returns the average of shards per node for the given index. The average only depends on the metadata and the
+         * number of nodes, neither of which change during the lifetime of the balancer, so it is computed once per index.
          */
         public float avgShardsPerNode(String index) {
-            return ((float) metaData.index(index).getTotalNumberOfShards()) / nodes.size();
+            final int slot = avgShardsPerNodeByIndex.indexOf(index);
+            if (avgShardsPerNodeByIndex.indexExists(slot)) {
+                return avgShardsPerNodeByIndex.indexGet(slot);
+            }
+            final float avg = ((float) metaData.index(index).getTotalNumberOfShards()) / nodes.size();
+            avgShardsPerNodeByIndex.indexInsert(slot, index, avg);
+            return avg;
         }
 
         /**
@@ -596,8 +605,7 @@ public class BalancedShardsAllocator implements ShardsAllocator {
             final String[] indices = allocation.routingTable().indicesRouting().keys().toArray(String.class);
             final float[] deltas = new float[indices.length];
             for (int i = 0; i < deltas.length; i++) {
-                sorter.reset(indices[i]);
-                deltas[i] = sorter.delta();
+                deltas[i] = sorter.delta(indices[i]);
             }
             new IntroSorter() {
 
@@ -1248,5 +1256,23 @@ public class BalancedShardsAllocator implements ShardsAllocator {
         public float delta() {
             return weights[weights.length - 1] - weights[0];
         }
+
+        /**
+         * Recalculates the weights per node for the given index and returns the delta between the maximal and the minimal
+         * weight. Unlike {@link #reset(String)} followed by {@link #delta()} this does not sort the nodes, which makes it
+         * linear in the number of nodes.
+         */
+        public float delta(String index) {
+            this.index = index;
+            float min = Float.POSITIVE_INFINITY;
+            float max = Float.NEGATIVE_INFINITY;
+            for (int i = 0; i < modelNodes.length; i++) {
+                final float weight = weight(modelNodes[i]);
+                weights[i] = weight;
+                min = Math.min(min, weight);
+                max = Math.max(max, weight);
+            }
+            return max - min;
+        }
     }
 }
@@ -0,0 +1,169 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.cluster.routing.allocation.decider;
+
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.io.stream.Writeable;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.common.xcontent.ToXContentFragment;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The cumulative number of calls to, and time spent in, each {@link AllocationDecider} of an {@link AllocationDeciders}
+ * instance. Time is only recorded while {@link AllocationDeciders#TIMING_ENABLED_SETTING} is enabled.
+ */
+public final class AllocationDeciderStats implements Writeable, ToXContentFragment {
+
+    private final boolean timingEnabled;
+    private final List<DeciderStats> deciderStats;
+
+    public AllocationDeciderStats(boolean timingEnabled, List<DeciderStats> deciderStats) {
+        this.timingEnabled = timingEnabled;
+        this.deciderStats = Collections.unmodifiableList(deciderStats);
+    }
+
+    public AllocationDeciderStats(StreamInput in) throws IOException {
+        timingEnabled = in.readBoolean();
+        deciderStats = Collections.unmodifiableList(in.readList(DeciderStats::new));
+    }
+
+    @Override
+    public void writeTo(StreamOutput out) throws IOException {
+        out.writeBoolean(timingEnabled);
+        out.writeList(deciderStats);
+    }
+
+    /**
+     * Returns whether the time spent in the deciders is currently being recorded.
+     */
+    public boolean isTimingEnabled() {
+        return timingEnabled;
+    }
+
+    /**
+     * Returns the stats of each decider, in the order in which the deciders are consulted.
+     */
+    public List<DeciderStats> getDeciderStats() {
+        return deciderStats;
+    }
+
+    @Override
+    public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+        builder.startObject("decider_stats");
+        builder.field("timing_enabled", timingEnabled);
+        builder.startObject("deciders");
+        for (DeciderStats stats : deciderStats) {
+            stats.toXContent(builder, params);
+        }
+        builder.endObject();
+        return builder.endObject();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        AllocationDeciderStats that = (AllocationDeciderStats) o;
+        return timingEnabled == that.timingEnabled && deciderStats.equals(that.deciderStats);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(timingEnabled, deciderStats);
+    }
+
+    /**
+     * The stats of a single {@link AllocationDecider}.
+     */
+    public static final class DeciderStats implements Writeable, ToXContentFragment {
+
+        private final String name;
+        private final long count;
+        private final long timeInNanos;
+
+        public DeciderStats(String name, long count, long timeInNanos) {
+            this.name = name;
+            this.count = count;
+            this.timeInNanos = timeInNanos;
+        }
+
+        public DeciderStats(StreamInput in) throws IOException {
+            name = in.readString();
+            count = in.readVLong();
+            timeInNanos = in.readVLong();
+        }
+
+        @Override
+        public void writeTo(StreamOutput out) throws IOException {
+            out.writeString(name);
+            out.writeVLong(count);
+            out.writeVLong(timeInNanos);
+        }
+
+        /**
+         * Returns the name of the decider.
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Returns the number of timed calls to the decider.
+         */
+        public long getCount() {
+            return count;
+        }
+
+        /**
+         * Returns the cumulative time spent in the decider in nanoseconds.
+         */
+        public long getTimeInNanos() {
+            return timeInNanos;
+        }
+
+        @Override
+        public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+            builder.startObject(name);
+            builder.field("count", count);
+            builder.humanReadableField("time_in_nanos", "time", new TimeValue(timeInNanos, TimeUnit.NANOSECONDS));
+            return builder.endObject();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            DeciderStats that = (DeciderStats) o;
+            return count == that.count && timeInNanos == that.timeInNanos && name.equals(that.name);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(name, count, timeInNanos);
+        }
+    }
+}
@@ -25,9 +25,15 @@ import org.elasticsearch.cluster.metadata.IndexMetaData;
 import org.elasticsearch.cluster.routing.RoutingNode;
 import org.elasticsearch.cluster.routing.ShardRouting;
 import org.elasticsearch.cluster.routing.allocation.RoutingAllocation;
+import org.elasticsearch.common.metrics.CounterMetric;
+import org.elasticsearch.common.settings.Setting;
+import org.elasticsearch.common.settings.Setting.Property;
 
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 import static org.elasticsearch.cluster.routing.allocation.RoutingAllocation.DebugMode.EXCLUDE_YES_DECISIONS;
 
@@ -39,17 +45,70 @@ public class AllocationDeciders extends AllocationDecider {
 
     private static final Logger logger = LogManager.getLogger(AllocationDeciders.class);
 
-    private final Collection<AllocationDecider> allocations;
+    /**
+     * Whether the number of calls to and the time spent in each decider should be recorded. Reading the clock around every
+     * decider call is not free on large clusters, which is why this is disabled by default.
+     */
+    public static final Setting<Boolean> TIMING_ENABLED_SETTING =
+        Setting.boolSetting("cluster.routing.allocation.deciders.timing.enabled", false, Property.Dynamic, Property.NodeScope);
+
+    private final AllocationDecider[] allocations;
+    private final CounterMetric[] counts;
+    private final CounterMetric[] timesInNanos;
+    private volatile boolean timingEnabled;
 
     public AllocationDeciders(Collection<AllocationDecider> allocations) {
-        this.allocations = Collections.unmodifiableCollection(allocations);
+        this.allocations = allocations.toArray(new AllocationDecider[0]);
+        this.counts = new CounterMetric[this.allocations.length];
+        this.timesInNanos = new CounterMetric[this.allocations.length];
+        for (int i = 0; i < this.allocations.length; i++) {
+            counts[i] = new CounterMetric();
+            timesInNanos[i] = new CounterMetric();
+        }
+    }
+
+    public void setTimingEnabled(boolean timingEnabled) {
+        this.timingEnabled = timingEnabled;
+    }
+
+    /**
+     * Returns the cumulative number of calls to and time spent in each decider since timing was first enabled. Deciders are
+     * keyed by their fully qualified class name, and the stats of deciders of the same class are merged.
+     */
+    public AllocationDeciderStats stats() {
+        final Map<String, long[]> statsByName = new LinkedHashMap<>();
+        for (int i = 0; i < allocations.length; i++) {
+            final long[] stats = statsByName.computeIfAbsent(allocations[i].getClass().getName(), name -> new long[2]);
+            stats[0] += counts[i].count();
+            stats[1] += timesInNanos[i].count();
+        }
+        final List<AllocationDeciderStats.DeciderStats> stats = new ArrayList<>(statsByName.size());
+        for (Map.Entry<String, long[]> entry : statsByName.entrySet()) {
+            stats.add(new AllocationDeciderStats.DeciderStats(entry.getKey(), entry.getValue()[0], entry.getValue()[1]));
+        }
+        return new AllocationDeciderStats(timingEnabled, stats);
+    }
+
+    private long startTiming(boolean timed) {
+        return timed ? System.nanoTime() : 0L;
+    }
+
+    private void stopTiming(boolean timed, int decider, long startNanos) {
+        if (timed) {
+            counts[decider].inc();
+            timesInNanos[decider].inc(Math.max(0L, System.nanoTime() - startNanos));
+        }
     }
 
     @Override
     public Decision canRebalance(ShardRouting shardRouting, RoutingAllocation allocation) {
         Decision.Multi ret = new Decision.Multi();
-        for (AllocationDecider allocationDecider : allocations) {
+        final boolean timed = timingEnabled;
+        for (int i = 0; i < allocations.length; i++) {
+            final AllocationDecider allocationDecider = allocations[i];
+            final long startNanos = startTiming(timed);
             Decision decision = allocationDecider.canRebalance(shardRouting, allocation);
+            stopTiming(timed, i, startNanos);
             // short track if a NO is returned.
             if (decision == Decision.NO) {
                 if (!allocation.debugDecision()) {
@@ -71,8 +130,12 @@ public class AllocationDeciders extends AllocationDecider {
             return Decision.NO;
         }
         Decision.Multi ret = new Decision.Multi();
-        for (AllocationDecider allocationDecider : allocations) {
+        final boolean timed = timingEnabled;
+        for (int i = 0; i < allocations.length; i++) {
+            final AllocationDecider allocationDecider = allocations[i];
+            final long startNanos = startTiming(timed);
             Decision decision = allocationDecider.canAllocate(shardRouting, node, allocation);
+            stopTiming(timed, i, startNanos);
             // short track if a NO is returned.
             if (decision == Decision.NO) {
                 if (logger.isTraceEnabled()) {
@@ -104,8 +167,12 @@ public class AllocationDeciders extends AllocationDecider {
             return Decision.NO;
         }
         Decision.Multi ret = new Decision.Multi();
-        for (AllocationDecider allocationDecider : allocations) {
+        final boolean timed = timingEnabled;
+        for (int i = 0; i < allocations.length; i++) {
+            final AllocationDecider allocationDecider = allocations[i];
+            final long startNanos = startTiming(timed);
             Decision decision = allocationDecider.canRemain(shardRouting, node, allocation);
+            stopTiming(timed, i, startNanos);
             // short track if a NO is returned.
             if (decision == Decision.NO) {
                 if (logger.isTraceEnabled()) {
@@ -128,8 +195,12 @@ public class AllocationDeciders extends AllocationDecider {
     @Override
     public Decision canAllocate(IndexMetaData indexMetaData, RoutingNode node, RoutingAllocation allocation) {
         Decision.Multi ret = new Decision.Multi();
-        for (AllocationDecider allocationDecider : allocations) {
+        final boolean timed = timingEnabled;
+        for (int i = 0; i < allocations.length; i++) {
+            final AllocationDecider allocationDecider = allocations[i];
+            final long startNanos = startTiming(timed);
             Decision decision = allocationDecider.canAllocate(indexMetaData, node, allocation);
+            stopTiming(timed, i, startNanos);
             // short track if a NO is returned.
             if (decision == Decision.NO) {
                 if (!allocation.debugDecision()) {
@@ -148,8 +219,12 @@ public class AllocationDeciders extends AllocationDecider {
     @Override
     public Decision canAllocate(ShardRouting shardRouting, RoutingAllocation allocation) {
         Decision.Multi ret = new Decision.Multi();
-        for (AllocationDecider allocationDecider : allocations) {
+        final boolean timed = timingEnabled;
+        for (int i = 0; i < allocations.length; i++) {
+            final AllocationDecider allocationDecider = allocations[i];
+            final long startNanos = startTiming(timed);
             Decision decision = allocationDecider.canAllocate(shardRouting, allocation);
+            stopTiming(timed, i, startNanos);
             // short track if a NO is returned.
             if (decision == Decision.NO) {
                 if (!allocation.debugDecision()) {
@@ -168,8 +243,12 @@ public class AllocationDeciders extends AllocationDecider {
     @Override
     public Decision canAllocate(RoutingNode node, RoutingAllocation allocation) {
         Decision.Multi ret = new Decision.Multi();
-        for (AllocationDecider allocationDecider : allocations) {
+        final boolean timed = timingEnabled;
+        for (int i = 0; i < allocations.length; i++) {
+            final AllocationDecider allocationDecider = allocations[i];
+            final long startNanos = startTiming(timed);
             Decision decision = allocationDecider.canAllocate(node, allocation);
+            stopTiming(timed, i, startNanos);
             // short track if a NO is returned.
             if (decision == Decision.NO) {
                 if (!allocation.debugDecision()) {
@@ -188,8 +267,12 @@ public class AllocationDeciders extends AllocationDecider {
     @Override
     public Decision canRebalance(RoutingAllocation allocation) {
         Decision.Multi ret = new Decision.Multi();
-        for (AllocationDecider allocationDecider : allocations) {
+        final boolean timed = timingEnabled;
+        for (int i = 0; i < allocations.length; i++) {
+            final AllocationDecider allocationDecider = allocations[i];
+            final long startNanos = startTiming(timed);
             Decision decision = allocationDecider.canRebalance(allocation);
+            stopTiming(timed, i, startNanos);
             // short track if a NO is returned.
             if (decision == Decision.NO) {
                 if (!allocation.debugDecision()) {
@@ -213,8 +296,12 @@ public class AllocationDeciders extends AllocationDecider {
             return Decision.NO;
         }
         Decision.Multi ret = new Decision.Multi();
-        for (AllocationDecider decider : allocations) {
+        final boolean timed = timingEnabled;
+        for (int i = 0; i < allocations.length; i++) {
+            final AllocationDecider decider = allocations[i];
+            final long startNanos = startTiming(timed);
             Decision decision = decider.canForceAllocatePrimary(shardRouting, node, allocation);
+            stopTiming(timed, i, startNanos);
             // short track if a NO is returned.
             if (decision == Decision.NO) {
                 if (logger.isTraceEnabled()) {
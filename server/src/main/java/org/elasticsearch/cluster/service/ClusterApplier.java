@@ -44,6 +44,11 @@ public interface ClusterApplier {
      */
     ClusterState.Builder newClusterStateBuilder();
 
+    /**
+     * Returns statistics about the time it took to call the cluster state appliers and listeners.
+     */
+    ClusterApplierStats stats();
+
     /**
      * Listener for results of cluster state application
      */
@@ -47,21 +47,26 @@ import org.elasticsearch.common.util.iterable.Iterables;
 import org.elasticsearch.threadpool.Scheduler;
 import org.elasticsearch.threadpool.ThreadPool;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Queue;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.Supplier;
-import java.util.stream.Stream;
 
+import static org.elasticsearch.cluster.service.ClusterService.CLUSTER_SERVICE_PARALLEL_LISTENER_THREADS_SETTING;
 import static org.elasticsearch.cluster.service.ClusterService.CLUSTER_SERVICE_SLOW_TASK_LOGGING_THRESHOLD_SETTING;
 import static org.elasticsearch.common.util.concurrent.EsExecutors.daemonThreadFactory;
 
@@ -70,6 +75,13 @@ public class ClusterApplierService extends AbstractLifecycleComponent implements
 
     public static final String CLUSTER_UPDATE_THREAD_NAME = "clusterApplierService#updateTask";
 
+    /**
+     * The name of the threads that call the cluster state listeners if
+     * {@link ClusterService#CLUSTER_SERVICE_PARALLEL_LISTENER_THREADS_SETTING} is set. It contains {@link #CLUSTER_UPDATE_THREAD_NAME}
+     * as listeners still hold up the application of the next cluster state.
+     */
+    public static final String CLUSTER_LISTENER_THREAD_NAME = CLUSTER_UPDATE_THREAD_NAME + "#listener";
+
     private final ClusterSettings clusterSettings;
     protected final ThreadPool threadPool;
 
@@ -77,6 +89,10 @@ public class ClusterApplierService extends AbstractLifecycleComponent implements
 
     private volatile PrioritizedEsThreadPoolExecutor threadPoolExecutor;
 
+    private final int parallelListenerThreads;
+
+    private volatile ExecutorService listenerExecutor;
+
     /**
      * Those 3 state listeners are changing infrequently - CopyOnWriteArrayList is just fine
      */
@@ -92,6 +108,9 @@ public class ClusterApplierService extends AbstractLifecycleComponent implements
 
     private final LocalNodeMasterListeners localNodeMasterListeners;
 
+    private final Map<String, LatencyTracker> applierStats = ConcurrentCollections.newConcurrentMap();
+    private final Map<String, LatencyTracker> listenerStats = ConcurrentCollections.newConcurrentMap();
+
     private final Queue<NotifyTimeout> onGoingTimeouts = ConcurrentCollections.newQueue();
 
     private final AtomicReference<ClusterState> state; // last applied state
@@ -107,6 +126,7 @@ public class ClusterApplierService extends AbstractLifecycleComponent implements
         this.threadPool = threadPool;
         this.state = new AtomicReference<>();
         this.slowTaskLoggingThreshold = CLUSTER_SERVICE_SLOW_TASK_LOGGING_THRESHOLD_SETTING.get(settings);
+        this.parallelListenerThreads = CLUSTER_SERVICE_PARALLEL_LISTENER_THREADS_SETTING.get(settings);
         this.localNodeMasterListeners = new LocalNodeMasterListeners(threadPool);
         this.stateBuilderSupplier = stateBuilderSupplier;
         this.nodeName = nodeName;
@@ -140,6 +160,14 @@ public class ClusterApplierService extends AbstractLifecycleComponent implements
                 daemonThreadFactory(nodeName, CLUSTER_UPDATE_THREAD_NAME),
                 threadPool.getThreadContext(),
                 threadPool.scheduler());
+        if (parallelListenerThreads > 0) {
+            listenerExecutor = EsExecutors.newFixed(
+                    nodeName + "/" + CLUSTER_LISTENER_THREAD_NAME,
+                    parallelListenerThreads,
+                    -1,
+                    daemonThreadFactory(nodeName, CLUSTER_LISTENER_THREAD_NAME),
+                    threadPool.getThreadContext());
+        }
     }
 
     class UpdateTask extends SourcePrioritizedRunnable implements Function<ClusterState, ClusterState> {
@@ -176,6 +204,9 @@ public class ClusterApplierService extends AbstractLifecycleComponent implements
             }
         }
         ThreadPool.terminate(threadPoolExecutor, 10, TimeUnit.SECONDS);
+        if (listenerExecutor != null) {
+            ThreadPool.terminate(listenerExecutor, 10, TimeUnit.SECONDS);
+        }
         // close timeout listeners that did not have an ongoing timeout
         timeoutClusterStateListeners.forEach(TimeoutClusterStateListener::onClose);
         removeListener(localNodeMasterListeners);
@@ -479,24 +510,100 @@ public class ClusterApplierService extends AbstractLifecycleComponent implements
 
     private void callClusterStateAppliers(ClusterChangedEvent clusterChangedEvent) {
         clusterStateAppliers.forEach(applier -> {
+            final long startTimeNS = currentTimeInNanos();
             try {
                 logger.trace("calling [{}] with change to version [{}]", applier, clusterChangedEvent.state().version());
                 applier.applyClusterState(clusterChangedEvent);
             } catch (Exception ex) {
                 logger.warn("failed to notify ClusterStateApplier", ex);
             }
+            recordTime(applierStats, "applier", applier, startTimeNS, clusterChangedEvent);
         });
     }
 
     private void callClusterStateListeners(ClusterChangedEvent clusterChangedEvent) {
-        Stream.concat(clusterStateListeners.stream(), timeoutClusterStateListeners.stream()).forEach(listener -> {
+        final ExecutorService listenerExecutor = this.listenerExecutor;
+        if (listenerExecutor == null) {
+            clusterStateListeners.forEach(listener -> callClusterStateListener(listener, clusterChangedEvent));
+        } else {
+            callClusterStateListenersInParallel(listenerExecutor, clusterChangedEvent);
+        }
+        timeoutClusterStateListeners.forEach(listener -> callClusterStateListener(listener, clusterChangedEvent));
+    }
+
+    /**
+     * Calls the cluster state listeners on the listener threads and waits for all of them to return, so that each listener still
+     * sees all cluster states in order. Listeners are not called in any particular order relative to each other.
+     */
+    private void callClusterStateListenersInParallel(ExecutorService listenerExecutor, ClusterChangedEvent clusterChangedEvent) {
+        final List<ClusterStateListener> listeners = new ArrayList<>(clusterStateListeners);
+        final CountDownLatch latch = new CountDownLatch(listeners.size());
+        for (ClusterStateListener listener : listeners) {
+            final Runnable runnable = () -> {
+                try {
+                    callClusterStateListener(listener, clusterChangedEvent);
+                } finally {
+                    latch.countDown();
+                }
+            };
             try {
-                logger.trace("calling [{}] with change to version [{}]", listener, clusterChangedEvent.state().version());
-                listener.clusterChanged(clusterChangedEvent);
-            } catch (Exception ex) {
-                logger.warn("failed to notify ClusterStateListener", ex);
+                listenerExecutor.execute(runnable);
+            } catch (EsRejectedExecutionException e) {
+                // we are shutting down, notify the listener on this thread instead
+                runnable.run();
             }
-        });
+        }
+        // the next cluster state must not be applied before all listeners saw this one, so keep waiting if interrupted
+        boolean interrupted = false;
+        while (true) {
+            try {
+                latch.await();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+                logger.debug("interrupted while waiting for cluster state listeners to be notified of version [{}]",
+                    clusterChangedEvent.state().version());
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void callClusterStateListener(ClusterStateListener listener, ClusterChangedEvent clusterChangedEvent) {
+        final long startTimeNS = currentTimeInNanos();
+        try {
+            logger.trace("calling [{}] with change to version [{}]", listener, clusterChangedEvent.state().version());
+            listener.clusterChanged(clusterChangedEvent);
+        } catch (Exception ex) {
+            logger.warn("failed to notify ClusterStateListener", ex);
+        }
+        recordTime(listenerStats, "listener", listener, startTimeNS, clusterChangedEvent);
+    }
+
+    private void recordTime(Map<String, LatencyTracker> stats, String kind, Object applierOrListener, long startTimeNS,
+                            ClusterChangedEvent clusterChangedEvent) {
+        final TimeValue executionTime = TimeValue.timeValueMillis(Math.max(0, TimeValue.nsecToMSec(currentTimeInNanos() - startTimeNS)));
+        final String name = LatencyTracker.nameOf(applierOrListener);
+        stats.computeIfAbsent(name, k -> new LatencyTracker()).record(executionTime.getMillis());
+        if (executionTime.getMillis() > slowTaskLoggingThreshold.getMillis()) {
+            logger.warn("cluster state {} [{}] took [{}] to process version [{}] from [{}], above the warn threshold of {}", kind,
+                name, executionTime, clusterChangedEvent.state().version(), clusterChangedEvent.source(), slowTaskLoggingThreshold);
+        }
+    }
+
+    @Override
+    public ClusterApplierStats stats() {
+        return new ClusterApplierStats(recordings(applierStats), recordings(listenerStats));
+    }
+
+    private static List<ClusterApplierStats.Recording> recordings(Map<String, LatencyTracker> stats) {
+        final List<ClusterApplierStats.Recording> recordings = new ArrayList<>(stats.size());
+        for (Map.Entry<String, LatencyTracker> entry : stats.entrySet()) {
+            recordings.add(new ClusterApplierStats.Recording(entry.getKey(), entry.getValue().stats()));
+        }
+        recordings.sort(Comparator.comparing(ClusterApplierStats.Recording::getName));
+        return recordings;
     }
 
     private static class SafeClusterApplyListener implements ClusterApplyListener {
@@ -0,0 +1,144 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.cluster.service;
+
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.io.stream.Writeable;
+import org.elasticsearch.common.xcontent.ToXContentFragment;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Statistics about the time it took the {@link ClusterApplierService} to call each cluster state applier and listener.
+ */
+public class ClusterApplierStats implements Writeable, ToXContentFragment {
+
+    private final List<Recording> appliers;
+    private final List<Recording> listeners;
+
+    public ClusterApplierStats(List<Recording> appliers, List<Recording> listeners) {
+        this.appliers = Collections.unmodifiableList(appliers);
+        this.listeners = Collections.unmodifiableList(listeners);
+    }
+
+    public ClusterApplierStats(StreamInput in) throws IOException {
+        appliers = Collections.unmodifiableList(in.readList(Recording::new));
+        listeners = Collections.unmodifiableList(in.readList(Recording::new));
+    }
+
+    @Override
+    public void writeTo(StreamOutput out) throws IOException {
+        out.writeList(appliers);
+        out.writeList(listeners);
+    }
+
+    public List<Recording> getAppliers() {
+        return appliers;
+    }
+
+    public List<Recording> getListeners() {
+        return listeners;
+    }
+
+    @Override
+    public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+        builder.startObject("cluster_applier");
+        builder.startObject("appliers");
+        for (Recording recording : appliers) {
+            recording.getTime().toXContent(recording.getName(), builder);
+        }
+        builder.endObject();
+        builder.startObject("listeners");
+        for (Recording recording : listeners) {
+            recording.getTime().toXContent(recording.getName(), builder);
+        }
+        builder.endObject();
+        return builder.endObject();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        ClusterApplierStats that = (ClusterApplierStats) o;
+        return appliers.equals(that.appliers) && listeners.equals(that.listeners);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(appliers, listeners);
+    }
+
+    /**
+     * The time spent in a single kind of applier or listener.
+     */
+    public static class Recording implements Writeable {
+
+        private final String name;
+        private final MasterServiceStats.LatencyHistogram time;
+
+        public Recording(String name, MasterServiceStats.LatencyHistogram time) {
+            this.name = name;
+            this.time = time;
+        }
+
+        public Recording(StreamInput in) throws IOException {
+            name = in.readString();
+            time = new MasterServiceStats.LatencyHistogram(in);
+        }
+
+        @Override
+        public void writeTo(StreamOutput out) throws IOException {
+            out.writeString(name);
+            time.writeTo(out);
+        }
+
+        /**
+         * Returns the name of the class of the applier or listener.
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Returns the time it took to call the applier or listener with a new cluster state.
+         */
+        public MasterServiceStats.LatencyHistogram getTime() {
+            return time;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Recording that = (Recording) o;
+            return name.equals(that.name) && time.equals(that.time);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(name, time);
+        }
+    }
+}
@@ -56,6 +56,20 @@ public class ClusterService extends AbstractLifecycleComponent {
             Setting.positiveTimeSetting("cluster.service.slow_task_logging_threshold", TimeValue.timeValueSeconds(30),
                     Property.Dynamic, Property.NodeScope);
 
+    /**
+     * The maximum number of batches of different task executors that may be executed and published together. Only executors
+     * that explicitly allow it are coalesced, see {@link org.elasticsearch.cluster.ClusterStateTaskExecutor#allowsCoalescing()}.
+     */
+    public static final Setting<Integer> CLUSTER_SERVICE_MAX_COALESCED_BATCHES_SETTING =
+            Setting.intSetting("cluster.service.max_coalesced_batches", 1, 1, Property.Dynamic, Property.NodeScope);
+
+    /**
+     * The number of threads on which cluster state listeners are called in parallel once all appliers have applied a new cluster
+     * state. Defaults to {@code 0}, which calls the listeners one after the other on the cluster state update thread.
+     */
+    public static final Setting<Integer> CLUSTER_SERVICE_PARALLEL_LISTENER_THREADS_SETTING =
+            Setting.intSetting("cluster.service.parallel_listener_threads", 0, 0, Property.NodeScope);
+
     public static final org.elasticsearch.common.settings.Setting.AffixSetting<String> USER_DEFINED_META_DATA =
         Setting.prefixKeySetting("cluster.metadata.", (key) -> Setting.simpleString(key, Property.Dynamic, Property.NodeScope));
 
@@ -84,6 +98,8 @@ public class ClusterService extends AbstractLifecycleComponent {
         this.clusterName = ClusterName.CLUSTER_NAME_SETTING.get(settings);
         this.clusterSettings.addSettingsUpdateConsumer(CLUSTER_SERVICE_SLOW_TASK_LOGGING_THRESHOLD_SETTING,
             this::setSlowTaskLoggingThreshold);
+        this.clusterSettings.addSettingsUpdateConsumer(CLUSTER_SERVICE_MAX_COALESCED_BATCHES_SETTING,
+            masterService::setMaxCoalescedBatches);
         // Add a no-op update consumer so changes are logged
         this.clusterSettings.addAffixUpdateConsumer(USER_DEFINED_META_DATA, (first, second) -> {}, (first, second) -> {});
         this.initialClusterStateCustoms = initialClusterStateCustoms;
@@ -0,0 +1,67 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.cluster.service;
+
+import org.elasticsearch.common.metrics.CounterMetric;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Records latencies into the buckets of a {@link MasterServiceStats.LatencyHistogram}. Safe for concurrent use.
+ */
+class LatencyTracker {
+    private final CounterMetric count = new CounterMetric();
+    private final CounterMetric totalTimeInMillis = new CounterMetric();
+    private final AtomicLong maxTimeInMillis = new AtomicLong();
+    private final CounterMetric[] bucketCounts;
+
+    LatencyTracker() {
+        bucketCounts = new CounterMetric[MasterServiceStats.LatencyHistogram.BUCKET_UPPER_BOUNDS_IN_MILLIS.length + 1];
+        for (int i = 0; i < bucketCounts.length; i++) {
+            bucketCounts[i] = new CounterMetric();
+        }
+    }
+
+    void record(long timeInMillis) {
+        count.inc();
+        totalTimeInMillis.inc(timeInMillis);
+        maxTimeInMillis.accumulateAndGet(timeInMillis, Math::max);
+        bucketCounts[MasterServiceStats.LatencyHistogram.bucket(timeInMillis)].inc();
+    }
+
+    MasterServiceStats.LatencyHistogram stats() {
+        final long[] counts = new long[bucketCounts.length];
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = bucketCounts[i].count();
+        }
+        return new MasterServiceStats.LatencyHistogram(count.count(), totalTimeInMillis.count(), maxTimeInMillis.get(), counts);
+    }
+
+    /**
+     * Returns a short name for the class of the given object under which its latencies are reported. Anonymous classes are named
+     * after their enclosing class and lambdas after the class that declares them.
+     */
+    static String nameOf(Object object) {
+        final Class<?> clazz = object.getClass();
+        final String simpleName = clazz.getSimpleName();
+        final String name = simpleName.isEmpty() ? clazz.getName().substring(clazz.getName().lastIndexOf('.') + 1) : simpleName;
+        final int lambda = name.indexOf("$$Lambda");
+        return lambda >= 0 ? name.substring(0, lambda) : name;
+    }
+}
@@ -39,9 +39,11 @@ import org.elasticsearch.cluster.routing.RoutingTable;
 import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.Priority;
 import org.elasticsearch.common.component.AbstractLifecycleComponent;
+import org.elasticsearch.common.metrics.CounterMetric;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.text.Text;
 import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
 import org.elasticsearch.common.util.concurrent.CountDown;
 import org.elasticsearch.common.util.concurrent.EsExecutors;
 import org.elasticsearch.common.util.concurrent.EsRejectedExecutionException;
@@ -51,8 +53,12 @@ import org.elasticsearch.discovery.Discovery;
 import org.elasticsearch.threadpool.Scheduler;
 import org.elasticsearch.threadpool.ThreadPool;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
@@ -62,6 +68,7 @@ import java.util.function.BiConsumer;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
+import static org.elasticsearch.cluster.service.ClusterService.CLUSTER_SERVICE_MAX_COALESCED_BATCHES_SETTING;
 import static org.elasticsearch.cluster.service.ClusterService.CLUSTER_SERVICE_SLOW_TASK_LOGGING_THRESHOLD_SETTING;
 import static org.elasticsearch.common.util.concurrent.EsExecutors.daemonThreadFactory;
 
@@ -78,6 +85,10 @@ public class MasterService extends AbstractLifecycleComponent {
 
     private volatile TimeValue slowTaskLoggingThreshold;
 
+    private volatile int maxCoalescedBatches;
+
+    private final Map<String, ExecutorStatsTracker> executorStats = ConcurrentCollections.newConcurrentMap();
+
     protected final ThreadPool threadPool;
 
     private volatile PrioritizedEsThreadPoolExecutor threadPoolExecutor;
@@ -87,6 +98,7 @@ public class MasterService extends AbstractLifecycleComponent {
         this.nodeName = nodeName;
         // TODO: introduce a dedicated setting for master service
         this.slowTaskLoggingThreshold = CLUSTER_SERVICE_SLOW_TASK_LOGGING_THRESHOLD_SETTING.get(settings);
+        this.maxCoalescedBatches = CLUSTER_SERVICE_MAX_COALESCED_BATCHES_SETTING.get(settings);
         this.threadPool = threadPool;
     }
 
@@ -94,6 +106,10 @@ public class MasterService extends AbstractLifecycleComponent {
         this.slowTaskLoggingThreshold = slowTaskLoggingThreshold;
     }
 
+    public void setMaxCoalescedBatches(int maxCoalescedBatches) {
+        this.maxCoalescedBatches = maxCoalescedBatches;
+    }
+
     public synchronized void setClusterStatePublisher(BiConsumer<ClusterChangedEvent, Discovery.AckListener> publisher) {
         clusterStatePublisher = publisher;
     }
@@ -135,6 +151,29 @@ public class MasterService extends AbstractLifecycleComponent {
             runTasks(new TaskInputs(taskExecutor, updateTasks, tasksSummary));
         }
 
+        @Override
+        protected boolean canCoalesce(Object batchingKey) {
+            final ClusterStateTaskExecutor<?> taskExecutor = (ClusterStateTaskExecutor<?>) batchingKey;
+            return taskExecutor.allowsCoalescing() && taskExecutor.runOnlyOnMaster();
+        }
+
+        @Override
+        protected int maxCoalescedBatches() {
+            return maxCoalescedBatches;
+        }
+
+        @Override
+        protected void runCoalesced(Map<Object, List<? extends BatchedTask>> batches, String tasksSummary) {
+            final Map<ClusterStateTaskExecutor<Object>, List<Object>> tasksPerExecutor = new LinkedHashMap<>();
+            final List<UpdateTask> updateTasks = new ArrayList<>();
+            for (Map.Entry<Object, List<? extends BatchedTask>> entry : batches.entrySet()) {
+                tasksPerExecutor.put((ClusterStateTaskExecutor<Object>) entry.getKey(),
+                    entry.getValue().stream().map(BatchedTask::getTask).collect(Collectors.toList()));
+                updateTasks.addAll((List<UpdateTask>) entry.getValue());
+            }
+            runTasks(new TaskInputs(new CoalescedTaskExecutor(tasksPerExecutor), updateTasks, tasksSummary));
+        }
+
         class UpdateTask extends BatchedTask {
             final ClusterStateTaskListener listener;
 
@@ -197,7 +236,10 @@ public class MasterService extends AbstractLifecycleComponent {
         }
 
         long startTimeNS = currentTimeInNanos();
+        final Map<Object, List<Batcher.UpdateTask>> tasksPerExecutor = tasksPerExecutor(taskInputs);
+        onTasksDequeued(tasksPerExecutor);
         TaskOutputs taskOutputs = calculateTaskOutputs(taskInputs, previousClusterState, startTimeNS);
+        onTasksComputed(tasksPerExecutor, currentTimeInNanos() - startTimeNS);
         taskOutputs.notifyFailedTasks();
 
         if (taskOutputs.clusterStateUnchanged()) {
@@ -224,6 +266,7 @@ public class MasterService extends AbstractLifecycleComponent {
                 }
 
                 logger.debug("publishing cluster state version [{}]", newClusterState.version());
+                final long publishStartTimeNS = currentTimeInNanos();
                 try {
                     clusterStatePublisher.accept(clusterChangedEvent, taskOutputs.createAckListener(threadPool, newClusterState));
                 } catch (Discovery.FailedToCommitClusterStateException t) {
@@ -243,6 +286,7 @@ public class MasterService extends AbstractLifecycleComponent {
                             "exception thrown while notifying executor of new cluster state publication [{}]",
                             summary), e);
                 }
+                onTasksPublished(tasksPerExecutor, currentTimeInNanos() - publishStartTimeNS);
                 TimeValue executionTime = TimeValue.timeValueMillis(Math.max(0, TimeValue.nsecToMSec(currentTimeInNanos() - startTimeNS)));
                 logger.debug("processing [{}]: took [{}] done publishing updated cluster state (version: {}, uuid: {})", summary,
                     executionTime, newClusterState.version(),
@@ -266,6 +310,73 @@ public class MasterService extends AbstractLifecycleComponent {
         }
     }
 
+    private static Map<Object, List<Batcher.UpdateTask>> tasksPerExecutor(TaskInputs taskInputs) {
+        final Map<Object, List<Batcher.UpdateTask>> tasksPerExecutor = new HashMap<>();
+        for (Batcher.UpdateTask updateTask : taskInputs.updateTasks) {
+            tasksPerExecutor.computeIfAbsent(updateTask.batchingKey, k -> new ArrayList<>()).add(updateTask);
+        }
+        return tasksPerExecutor;
+    }
+
+    private ExecutorStatsTracker executorStatsTracker(String executorName) {
+        return executorStats.computeIfAbsent(executorName, k -> new ExecutorStatsTracker());
+    }
+
+    private void onTasksDequeued(Map<Object, List<Batcher.UpdateTask>> tasksPerExecutor) {
+        final boolean coalesced = tasksPerExecutor.size() > 1;
+        for (Map.Entry<Object, List<Batcher.UpdateTask>> entry : tasksPerExecutor.entrySet()) {
+            final ExecutorStatsTracker tracker = executorStatsTracker(LatencyTracker.nameOf(entry.getKey()));
+            tracker.batches.inc();
+            tracker.tasks.inc(entry.getValue().size());
+            if (coalesced) {
+                tracker.coalescedBatches.inc();
+            }
+            for (Batcher.UpdateTask updateTask : entry.getValue()) {
+                tracker.queueTime.record(updateTask.getAgeInMillis());
+            }
+        }
+    }
+
+    private void onTasksComputed(Map<Object, List<Batcher.UpdateTask>> tasksPerExecutor, long computeTimeNS) {
+        final long computeTimeInMillis = TimeValue.nsecToMSec(Math.max(0L, computeTimeNS));
+        for (Object executor : tasksPerExecutor.keySet()) {
+            executorStatsTracker(LatencyTracker.nameOf(executor)).computeTime.record(computeTimeInMillis);
+        }
+    }
+
+    private void onTasksPublished(Map<Object, List<Batcher.UpdateTask>> tasksPerExecutor, long publishTimeNS) {
+        final long publishTimeInMillis = TimeValue.nsecToMSec(Math.max(0L, publishTimeNS));
+        for (Object executor : tasksPerExecutor.keySet()) {
+            executorStatsTracker(LatencyTracker.nameOf(executor)).publishTime.record(publishTimeInMillis);
+        }
+    }
+
+    /**
+     * Returns the stats of the batches that this master service executed, per task executor.
+     */
+    public MasterServiceStats stats() {
+        final List<MasterServiceStats.ExecutorStats> stats = new ArrayList<>(executorStats.size());
+        for (Map.Entry<String, ExecutorStatsTracker> entry : executorStats.entrySet()) {
+            stats.add(entry.getValue().stats(entry.getKey()));
+        }
+        stats.sort(Comparator.comparing(MasterServiceStats.ExecutorStats::getName));
+        return new MasterServiceStats(stats);
+    }
+
+    private static class ExecutorStatsTracker {
+        final CounterMetric batches = new CounterMetric();
+        final CounterMetric tasks = new CounterMetric();
+        final CounterMetric coalescedBatches = new CounterMetric();
+        final LatencyTracker queueTime = new LatencyTracker();
+        final LatencyTracker computeTime = new LatencyTracker();
+        final LatencyTracker publishTime = new LatencyTracker();
+
+        MasterServiceStats.ExecutorStats stats(String name) {
+            return new MasterServiceStats.ExecutorStats(name, batches.count(), tasks.count(), coalescedBatches.count(),
+                queueTime.stats(), computeTime.stats(), publishTime.stats());
+        }
+    }
+
     public TaskOutputs calculateTaskOutputs(TaskInputs taskInputs, ClusterState previousClusterState, long startTimeNS) {
         ClusterTasksResult<Object> clusterTasksResult = executeTasks(taskInputs, startTimeNS, previousClusterState);
         ClusterState newClusterState = patchVersions(previousClusterState, clusterTasksResult);
@@ -691,6 +802,73 @@ public class MasterService extends AbstractLifecycleComponent {
         }).collect(Collectors.toList());
     }
 
+    /**
+     * Executes the batches of several executors that allow coalescing one after the other, so that a single cluster state is
+     * published for all of them. An executor that throws fails its own tasks and leaves the state untouched for the next one.
+     */
+    private static class CoalescedTaskExecutor implements ClusterStateTaskExecutor<Object> {
+
+        private final Map<ClusterStateTaskExecutor<Object>, List<Object>> tasksPerExecutor;
+
+        CoalescedTaskExecutor(Map<ClusterStateTaskExecutor<Object>, List<Object>> tasksPerExecutor) {
+            this.tasksPerExecutor = tasksPerExecutor;
+        }
+
+        @Override
+        public ClusterTasksResult<Object> execute(ClusterState currentState, List<Object> tasks) {
+            final ClusterTasksResult.Builder<Object> builder = ClusterTasksResult.builder();
+            ClusterState state = currentState;
+            for (Map.Entry<ClusterStateTaskExecutor<Object>, List<Object>> entry : tasksPerExecutor.entrySet()) {
+                final ClusterTasksResult<Object> result;
+                try {
+                    result = entry.getKey().execute(state, entry.getValue());
+                } catch (Exception e) {
+                    logger.debug(() -> new ParameterizedMessage("failed to execute coalesced tasks of [{}]",
+                        LatencyTracker.nameOf(entry.getKey())), e);
+                    builder.failures(entry.getValue(), e);
+                    continue;
+                }
+                for (Object task : entry.getValue()) {
+                    final ClusterStateTaskExecutor.TaskResult taskResult = result.executionResults.get(task);
+                    if (taskResult == null) {
+                        // leave it to the caller to detect the missing result
+                        continue;
+                    }
+                    if (taskResult.isSuccess()) {
+                        builder.success(task);
+                    } else {
+                        builder.failure(task, taskResult.getFailure());
+                    }
+                }
+                state = result.resultingState;
+            }
+            return builder.build(state);
+        }
+
+        @Override
+        public boolean runOnlyOnMaster() {
+            return true;
+        }
+
+        @Override
+        public void clusterStatePublished(ClusterChangedEvent clusterChangedEvent) {
+            for (ClusterStateTaskExecutor<Object> executor : tasksPerExecutor.keySet()) {
+                try {
+                    executor.clusterStatePublished(clusterChangedEvent);
+                } catch (Exception e) {
+                    logger.error(() -> new ParameterizedMessage(
+                        "exception thrown while notifying [{}] of new cluster state publication", LatencyTracker.nameOf(executor)), e);
+                }
+            }
+        }
+
+        @Override
+        public String describeTasks(List<Object> tasks) {
+            return tasksPerExecutor.entrySet().stream().map(entry -> entry.getKey().describeTasks(entry.getValue()))
+                .filter(description -> description.isEmpty() == false).collect(Collectors.joining(", "));
+        }
+    }
+
     /**
      * Represents a set of tasks to be processed together with their executor
      */
@@ -0,0 +1,318 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.cluster.service;
+
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.io.stream.Writeable;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.common.xcontent.ToXContentFragment;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Statistics about the cluster state update tasks that the {@link MasterService} executed, per task executor.
+ */
+public class MasterServiceStats implements Writeable, ToXContentFragment {
+
+    private final List<ExecutorStats> executorStats;
+
+    public MasterServiceStats(List<ExecutorStats> executorStats) {
+        this.executorStats = Collections.unmodifiableList(executorStats);
+    }
+
+    public MasterServiceStats(StreamInput in) throws IOException {
+        executorStats = Collections.unmodifiableList(in.readList(ExecutorStats::new));
+    }
+
+    @Override
+    public void writeTo(StreamOutput out) throws IOException {
+        out.writeList(executorStats);
+    }
+
+    public List<ExecutorStats> getExecutorStats() {
+        return executorStats;
+    }
+
+    @Override
+    public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+        builder.startObject("master_service");
+        builder.startObject("executors");
+        for (ExecutorStats stats : executorStats) {
+            stats.toXContent(builder, params);
+        }
+        builder.endObject();
+        return builder.endObject();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        return executorStats.equals(((MasterServiceStats) o).executorStats);
+    }
+
+    @Override
+    public int hashCode() {
+        return executorStats.hashCode();
+    }
+
+    /**
+     * The stats of the batches run by a single kind of task executor.
+     */
+    public static class ExecutorStats implements Writeable, ToXContentFragment {
+
+        private final String name;
+        private final long batches;
+        private final long tasks;
+        private final long coalescedBatches;
+        private final LatencyHistogram queueTime;
+        private final LatencyHistogram computeTime;
+        private final LatencyHistogram publishTime;
+
+        public ExecutorStats(String name, long batches, long tasks, long coalescedBatches, LatencyHistogram queueTime,
+                             LatencyHistogram computeTime, LatencyHistogram publishTime) {
+            this.name = name;
+            this.batches = batches;
+            this.tasks = tasks;
+            this.coalescedBatches = coalescedBatches;
+            this.queueTime = queueTime;
+            this.computeTime = computeTime;
+            this.publishTime = publishTime;
+        }
+
+        public ExecutorStats(StreamInput in) throws IOException {
+            name = in.readString();
+            batches = in.readVLong();
+            tasks = in.readVLong();
+            coalescedBatches = in.readVLong();
+            queueTime = new LatencyHistogram(in);
+            computeTime = new LatencyHistogram(in);
+            publishTime = new LatencyHistogram(in);
+        }
+
+        @Override
+        public void writeTo(StreamOutput out) throws IOException {
+            out.writeString(name);
+            out.writeVLong(batches);
+            out.writeVLong(tasks);
+            out.writeVLong(coalescedBatches);
+            queueTime.writeTo(out);
+            computeTime.writeTo(out);
+            publishTime.writeTo(out);
+        }
+
+        /**
+         * Returns the name of the task executor.
+         */
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * Returns the number of batches of this executor that were executed.
+         */
+        public long getBatches() {
+            return batches;
+        }
+
+        /**
+         * Returns the number of tasks of this executor that were executed.
+         */
+        public long getTasks() {
+            return tasks;
+        }
+
+        /**
+         * Returns the number of batches of this executor that were executed together with batches of other executors.
+         */
+        public long getCoalescedBatches() {
+            return coalescedBatches;
+        }
+
+        /**
+         * Returns the time that the tasks of this executor spent waiting in the queue.
+         */
+        public LatencyHistogram getQueueTime() {
+            return queueTime;
+        }
+
+        /**
+         * Returns the time it took to compute the new cluster state of the batches of this executor.
+         */
+        public LatencyHistogram getComputeTime() {
+            return computeTime;
+        }
+
+        /**
+         * Returns the time it took to publish the new cluster state of the batches of this executor.
+         */
+        public LatencyHistogram getPublishTime() {
+            return publishTime;
+        }
+
+        @Override
+        public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+            builder.startObject(name);
+            builder.field("batches", batches);
+            builder.field("tasks", tasks);
+            builder.field("coalesced_batches", coalescedBatches);
+            builder.startObject("latency");
+            queueTime.toXContent("queue", builder);
+            computeTime.toXContent("compute", builder);
+            publishTime.toXContent("publish", builder);
+            builder.endObject();
+            return builder.endObject();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            ExecutorStats that = (ExecutorStats) o;
+            return batches == that.batches
+                && tasks == that.tasks
+                && coalescedBatches == that.coalescedBatches
+                && name.equals(that.name)
+                && queueTime.equals(that.queueTime)
+                && computeTime.equals(that.computeTime)
+                && publishTime.equals(that.publishTime);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(name, batches, tasks, coalescedBatches, queueTime, computeTime, publishTime);
+        }
+    }
+
+    /**
+     * A histogram of latencies with fixed, exponentially growing buckets.
+     */
+    public static class LatencyHistogram implements Writeable {
+
+        /**
+         * The exclusive upper bounds of all buckets but the last one, which holds all larger latencies.
+         */
+        static final long[] BUCKET_UPPER_BOUNDS_IN_MILLIS = new long[] { 1, 10, 100, 1000, 10000, 60000 };
+
+        private final long count;
+        private final long totalTimeInMillis;
+        private final long maxTimeInMillis;
+        private final long[] bucketCounts;
+
+        public LatencyHistogram(long count, long totalTimeInMillis, long maxTimeInMillis, long[] bucketCounts) {
+            if (bucketCounts.length != BUCKET_UPPER_BOUNDS_IN_MILLIS.length + 1) {
+                throw new IllegalArgumentException("expected [" + (BUCKET_UPPER_BOUNDS_IN_MILLIS.length + 1) + "] buckets but got ["
+                    + bucketCounts.length + "]");
+            }
+            this.count = count;
+            this.totalTimeInMillis = totalTimeInMillis;
+            this.maxTimeInMillis = maxTimeInMillis;
+            this.bucketCounts = bucketCounts;
+        }
+
+        public LatencyHistogram(StreamInput in) throws IOException {
+            count = in.readVLong();
+            totalTimeInMillis = in.readVLong();
+            maxTimeInMillis = in.readVLong();
+            bucketCounts = in.readVLongArray();
+        }
+
+        @Override
+        public void writeTo(StreamOutput out) throws IOException {
+            out.writeVLong(count);
+            out.writeVLong(totalTimeInMillis);
+            out.writeVLong(maxTimeInMillis);
+            out.writeVLongArray(bucketCounts);
+        }
+
+        /**
+         * Returns the index of the bucket that the given latency falls into.
+         */
+        static int bucket(long timeInMillis) {
+            for (int i = 0; i < BUCKET_UPPER_BOUNDS_IN_MILLIS.length; i++) {
+                if (timeInMillis < BUCKET_UPPER_BOUNDS_IN_MILLIS[i]) {
+                    return i;
+                }
+            }
+            return BUCKET_UPPER_BOUNDS_IN_MILLIS.length;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getTotalTimeInMillis() {
+            return totalTimeInMillis;
+        }
+
+        public long getMaxTimeInMillis() {
+            return maxTimeInMillis;
+        }
+
+        /**
+         * Returns the number of latencies in each bucket, see {@link #BUCKET_UPPER_BOUNDS_IN_MILLIS}.
+         */
+        public long[] getBucketCounts() {
+            return bucketCounts;
+        }
+
+        void toXContent(String name, XContentBuilder builder) throws IOException {
+            builder.startObject(name);
+            builder.field("count", count);
+            builder.humanReadableField("total_time_in_millis", "total_time", new TimeValue(totalTimeInMillis));
+            builder.humanReadableField("max_time_in_millis", "max_time", new TimeValue(maxTimeInMillis));
+            builder.startArray("histogram");
+            for (int i = 0; i < bucketCounts.length; i++) {
+                builder.startObject();
+                if (i < BUCKET_UPPER_BOUNDS_IN_MILLIS.length) {
+                    builder.field("lt_millis", BUCKET_UPPER_BOUNDS_IN_MILLIS[i]);
+                } else {
+                    builder.field("ge_millis", BUCKET_UPPER_BOUNDS_IN_MILLIS[i - 1]);
+                }
+                builder.field("count", bucketCounts[i]);
+                builder.endObject();
+            }
+            builder.endArray();
+            builder.endObject();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            LatencyHistogram that = (LatencyHistogram) o;
+            return count == that.count
+                && totalTimeInMillis == that.totalTimeInMillis
+                && maxTimeInMillis == that.maxTimeInMillis
+                && Arrays.equals(bucketCounts, that.bucketCounts);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(count, totalTimeInMillis, maxTimeInMillis, Arrays.hashCode(bucketCounts));
+        }
+    }
+}
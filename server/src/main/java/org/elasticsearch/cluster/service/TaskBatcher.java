@@ -28,8 +28,10 @@ import org.elasticsearch.common.util.concurrent.PrioritizedEsThreadPoolExecutor;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
@@ -47,6 +49,8 @@ public abstract class TaskBatcher {
     private final PrioritizedEsThreadPoolExecutor threadExecutor;
     // package visible for tests
     final Map<Object, LinkedHashSet<BatchedTask>> tasksPerBatchingKey = new HashMap<>();
+    // the order in which tasks were submitted, to order pending batches of the same priority like the executor does
+    private long insertionOrder;
 
     public TaskBatcher(Logger logger, PrioritizedEsThreadPoolExecutor threadExecutor) {
         this.logger = logger;
@@ -78,6 +82,9 @@ public abstract class TaskBatcher {
                         Collections.singletonList(existing)) + "] with source [" + duplicateTask.source + "] is already queued");
                 }
             }
+            for (BatchedTask task : tasks) {
+                task.insertionOrder = insertionOrder++;
+            }
             existingTasks.addAll(tasks);
         }
 
@@ -125,39 +132,132 @@ public abstract class TaskBatcher {
         // to give other tasks with different batching key a chance to execute.
         if (updateTask.processed.get() == false) {
             final List<BatchedTask> toExecute = new ArrayList<>();
-            final Map<String, List<BatchedTask>> processTasksBySource = new HashMap<>();
+            // batches of other batching keys that are pulled forward to run together with this one, in the order they were found
+            final Map<Object, List<BatchedTask>> coalesced = new LinkedHashMap<>();
             synchronized (tasksPerBatchingKey) {
                 LinkedHashSet<BatchedTask> pending = tasksPerBatchingKey.remove(updateTask.batchingKey);
                 if (pending != null) {
-                    for (BatchedTask task : pending) {
-                        if (task.processed.getAndSet(true) == false) {
-                            logger.trace("will process {}", task);
-                            toExecute.add(task);
-                            processTasksBySource.computeIfAbsent(task.source, s -> new ArrayList<>()).add(task);
-                        } else {
-                            logger.trace("skipping {}, already processed", task);
+                    markAsProcessed(pending, toExecute);
+                }
+                final int maxCoalescedBatches = maxCoalescedBatches();
+                if (toExecute.isEmpty() == false && maxCoalescedBatches > 1 && canCoalesce(updateTask.batchingKey)) {
+                    // pull forward the batches that the executor would run next, by priority and then in submission order,
+                    // and stop at the first one that cannot be coalesced so that no batch overtakes another pending batch
+                    for (Map.Entry<Object, LinkedHashSet<BatchedTask>> entry : pendingBatchesInExecutionOrder()) {
+                        if (coalesced.size() + 1 >= maxCoalescedBatches || canCoalesce(entry.getKey()) == false) {
+                            break;
+                        }
+                        tasksPerBatchingKey.remove(entry.getKey());
+                        final List<BatchedTask> coalescedTasks = new ArrayList<>();
+                        markAsProcessed(entry.getValue(), coalescedTasks);
+                        if (coalescedTasks.isEmpty() == false) {
+                            coalesced.put(entry.getKey(), coalescedTasks);
                         }
                     }
                 }
             }
 
             if (toExecute.isEmpty() == false) {
-                final String tasksSummary = processTasksBySource.entrySet().stream().map(entry -> {
-                    String tasks = updateTask.describeTasks(entry.getValue());
-                    return tasks.isEmpty() ? entry.getKey() : entry.getKey() + "[" + tasks + "]";
-                }).reduce((s1, s2) -> s1 + ", " + s2).orElse("");
+                final String tasksSummary = summarize(updateTask, toExecute);
+                if (coalesced.isEmpty()) {
+                    run(updateTask.batchingKey, toExecute, tasksSummary);
+                } else {
+                    final Map<Object, List<? extends BatchedTask>> batches = new LinkedHashMap<>();
+                    final StringBuilder summary = new StringBuilder(tasksSummary);
+                    batches.put(updateTask.batchingKey, toExecute);
+                    for (Map.Entry<Object, List<BatchedTask>> entry : coalesced.entrySet()) {
+                        batches.put(entry.getKey(), entry.getValue());
+                        summary.append(", ").append(summarize(entry.getValue().get(0), entry.getValue()));
+                    }
+                    logger.trace("coalesced [{}] batches: {}", batches.size(), summary);
+                    runCoalesced(batches, summary.toString());
+                }
+            }
+        }
+    }
 
-                run(updateTask.batchingKey, toExecute, tasksSummary);
+    /**
+     * Returns the pending batches ordered by their first unprocessed task, which is the task that makes the executor run
+     * the batch: tasks of a higher priority first and tasks of the same priority in the order they were submitted.
+     */
+    private List<Map.Entry<Object, LinkedHashSet<BatchedTask>>> pendingBatchesInExecutionOrder() {
+        assert Thread.holdsLock(tasksPerBatchingKey);
+        final Map<Object, BatchedTask> firstTasks = new HashMap<>();
+        final List<Map.Entry<Object, LinkedHashSet<BatchedTask>>> batches = new ArrayList<>();
+        for (Map.Entry<Object, LinkedHashSet<BatchedTask>> entry : tasksPerBatchingKey.entrySet()) {
+            BatchedTask first = null;
+            for (BatchedTask task : entry.getValue()) {
+                if (task.processed.get() == false && (first == null || EXECUTION_ORDER.compare(task, first) < 0)) {
+                    first = task;
+                }
+            }
+            if (first != null) {
+                firstTasks.put(entry.getKey(), first);
+                batches.add(entry);
+            }
+        }
+        batches.sort((a, b) -> EXECUTION_ORDER.compare(firstTasks.get(a.getKey()), firstTasks.get(b.getKey())));
+        return batches;
+    }
+
+    private static final Comparator<BatchedTask> EXECUTION_ORDER =
+        Comparator.comparing(BatchedTask::priority).thenComparingLong(task -> task.insertionOrder);
+
+    private void markAsProcessed(Iterable<BatchedTask> pending, List<BatchedTask> toExecute) {
+        assert Thread.holdsLock(tasksPerBatchingKey);
+        for (BatchedTask task : pending) {
+            if (task.processed.getAndSet(true) == false) {
+                logger.trace("will process {}", task);
+                toExecute.add(task);
+            } else {
+                logger.trace("skipping {}, already processed", task);
             }
         }
     }
 
+    private static String summarize(BatchedTask describingTask, List<? extends BatchedTask> tasks) {
+        final Map<String, List<BatchedTask>> processTasksBySource = new HashMap<>();
+        for (BatchedTask task : tasks) {
+            processTasksBySource.computeIfAbsent(task.source, s -> new ArrayList<>()).add(task);
+        }
+        return processTasksBySource.entrySet().stream().map(entry -> {
+            String description = describingTask.describeTasks(entry.getValue());
+            return description.isEmpty() ? entry.getKey() : entry.getKey() + "[" + description + "]";
+        }).reduce((s1, s2) -> s1 + ", " + s2).orElse("");
+    }
+
     /**
      * Action to be implemented by the specific batching implementation
      * All tasks have the given batching key.
      */
     protected abstract void run(Object batchingKey, List<? extends BatchedTask> tasks, String tasksSummary);
 
+    /**
+     * Whether batches with the given batching key may be run together with batches of other batching keys for which this
+     * method also returns {@code true}. Defaults to {@code false}.
+     */
+    protected boolean canCoalesce(Object batchingKey) {
+        return false;
+    }
+
+    /**
+     * The maximum number of batches, each with its own batching key, that may be run together. Defaults to {@code 1}, which
+     * disables coalescing.
+     */
+    protected int maxCoalescedBatches() {
+        return 1;
+    }
+
+    /**
+     * Runs several batches together, see {@link #canCoalesce(Object)}. The first batch is the one whose task was picked by
+     * the executor, the others are batches that were pending at the time. The default implementation runs them one by one.
+     */
+    protected void runCoalesced(Map<Object, List<? extends BatchedTask>> batches, String tasksSummary) {
+        for (Map.Entry<Object, List<? extends BatchedTask>> entry : batches.entrySet()) {
+            run(entry.getKey(), entry.getValue(), summarize(entry.getValue().get(0), entry.getValue()));
+        }
+    }
+
     /**
      * Represents a runnable task that supports batching.
      * Implementors of TaskBatcher can subclass this to add a payload to the task.
@@ -176,6 +276,10 @@ public abstract class TaskBatcher {
          * the task object that is wrapped
          */
         protected final Object task;
+        /**
+         * the position of the task in the submission order, set when the task is submitted
+         */
+        private long insertionOrder;
 
         protected BatchedTask(Priority priority, String source, Object batchingKey, Object task) {
             super(priority, source);
@@ -48,11 +48,29 @@ public class DeflateCompressor implements Compressor {
     // a XContent
     private static final byte[] HEADER = new byte[]{'D', 'F', 'L', '\0'};
     // 3 is a good trade-off between speed and compression ratio
-    private static final int LEVEL = 3;
+    public static final int DEFAULT_LEVEL = 3;
     // We use buffering on the input and output of in/def-laters in order to
     // limit the number of JNI calls
     private static final int BUFFER_SIZE = 4096;
 
+    private final int level;
+
+    public DeflateCompressor() {
+        this(DEFAULT_LEVEL);
+    }
+
+    /**
+     * Creates a compressor that deflates at the given level. The level only affects the trade-off between speed and
+     * compression ratio, streams written at any level can be read by any {@link DeflateCompressor}.
+     */
+    public DeflateCompressor(int level) {
+        if (level < Deflater.NO_COMPRESSION || level > Deflater.BEST_COMPRESSION) {
+            throw new IllegalArgumentException("compression level must be between [" + Deflater.NO_COMPRESSION + "] and ["
+                + Deflater.BEST_COMPRESSION + "] but was [" + level + "]");
+        }
+        this.level = level;
+    }
+
     @Override
     public boolean isCompressed(BytesReference bytes) {
         if (bytes.length() < HEADER.length) {
@@ -105,7 +123,7 @@ public class DeflateCompressor implements Compressor {
     public StreamOutput streamOutput(StreamOutput out) throws IOException {
         out.writeBytes(HEADER);
         final boolean nowrap = true;
-        final Deflater deflater = new Deflater(LEVEL, nowrap);
+        final Deflater deflater = new Deflater(level, nowrap);
         final boolean syncFlush = true;
         DeflaterOutputStream deflaterOutputStream = new DeflaterOutputStream(out, deflater, BUFFER_SIZE, syncFlush);
         OutputStream compressedOut = new BufferedOutputStream(deflaterOutputStream, BUFFER_SIZE);
@@ -20,6 +20,7 @@
 package org.elasticsearch.common.io.stream;
 
 import org.elasticsearch.Version;
+import org.elasticsearch.common.lease.Releasable;
 
 import java.io.EOFException;
 import java.io.IOException;
@@ -75,6 +76,16 @@ public abstract class FilterStreamInput extends StreamInput {
         delegate.setVersion(version);
     }
 
+    @Override
+    public Releasable startStringDictionary() {
+        return delegate.startStringDictionary();
+    }
+
+    @Override
+    public String readSharedString() throws IOException {
+        return delegate.readSharedString();
+    }
+
     @Override
     protected void ensureCanReadBytes(int length) throws EOFException {
         delegate.ensureCanReadBytes(length);
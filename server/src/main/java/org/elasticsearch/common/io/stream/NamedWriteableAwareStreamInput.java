@@ -35,7 +35,7 @@ public class NamedWriteableAwareStreamInput extends FilterStreamInput {
 
     @Override
     public <C extends NamedWriteable> C readNamedWriteable(Class<C> categoryClass) throws IOException {
-        String name = readString();
+        String name = readSharedString();
         return readNamedWriteable(categoryClass, name);
     }
 
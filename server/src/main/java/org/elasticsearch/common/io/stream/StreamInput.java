@@ -35,6 +35,7 @@ import org.elasticsearch.common.Strings;
 import org.elasticsearch.common.bytes.BytesArray;
 import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.geo.GeoPoint;
+import org.elasticsearch.common.lease.Releasable;
 import org.elasticsearch.common.text.Text;
 import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.common.util.concurrent.EsRejectedExecutionException;
@@ -405,6 +406,49 @@ public abstract class StreamInput extends InputStream {
         return spare.toString();
     }
 
+    private List<String> stringDictionary;
+    private int stringDictionaryRefCount;
+
+    /**
+     * Starts a string dictionary scope on this stream that resolves the back-references written by
+     * {@link StreamOutput#writeSharedString(String)}. The scope must be opened at exactly the same position as it was opened via
+     * {@link StreamOutput#startStringDictionary()} on the writing side.
+     *
+     * @return a releasable that ends the scope once closed
+     */
+    public Releasable startStringDictionary() {
+        if (stringDictionaryRefCount++ == 0) {
+            stringDictionary = new ArrayList<>();
+        }
+        return () -> {
+            assert stringDictionaryRefCount > 0 : "string dictionary scope closed more often than it was opened";
+            if (--stringDictionaryRefCount == 0) {
+                stringDictionary = null;
+            }
+        };
+    }
+
+    /**
+     * Reads a string written by {@link StreamOutput#writeSharedString(String)}. Outside of a
+     * {@link #startStringDictionary() string dictionary scope} this is equivalent to {@link #readString()}.
+     */
+    public String readSharedString() throws IOException {
+        if (stringDictionary == null) {
+            return readString();
+        }
+        final int ref = readVInt();
+        if (ref == 0) {
+            final String str = readString();
+            stringDictionary.add(str);
+            return str;
+        }
+        if (ref > stringDictionary.size()) {
+            throw new IOException("Invalid string dictionary reference [" + ref + "], dictionary has [" + stringDictionary.size()
+                + "] entries");
+        }
+        return stringDictionary.get(ref - 1);
+    }
+
 
     public final float readFloat() throws IOException {
         return Float.intBitsToFloat(readInt());
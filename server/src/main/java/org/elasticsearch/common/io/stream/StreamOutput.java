@@ -36,6 +36,7 @@ import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.geo.GeoPoint;
 import org.elasticsearch.common.io.stream.Writeable.Writer;
+import org.elasticsearch.common.lease.Releasable;
 import org.elasticsearch.common.text.Text;
 import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.common.util.concurrent.EsRejectedExecutionException;
@@ -402,6 +403,48 @@ public abstract class StreamOutput extends OutputStream {
         writeBytes(buffer, offset);
     }
 
+    private Map<String, Integer> stringDictionary;
+    private int stringDictionaryRefCount;
+
+    /**
+     * Starts a string dictionary scope on this stream. Within the scope, strings written with {@link #writeSharedString(String)} are
+     * written in full only the first time they are seen and as a back-reference to the first occurrence afterwards. Scopes can be
+     * nested, in which case they share the dictionary of the outermost scope. The reading side must open a scope at exactly the same
+     * position via {@link StreamInput#startStringDictionary()}.
+     *
+     * @return a releasable that ends the scope once closed
+     */
+    public Releasable startStringDictionary() {
+        if (stringDictionaryRefCount++ == 0) {
+            stringDictionary = new HashMap<>();
+        }
+        return () -> {
+            assert stringDictionaryRefCount > 0 : "string dictionary scope closed more often than it was opened";
+            if (--stringDictionaryRefCount == 0) {
+                stringDictionary = null;
+            }
+        };
+    }
+
+    /**
+     * Writes a string that is likely to be repeated within the current string dictionary scope, such as an index name or a field name.
+     * Outside of a {@link #startStringDictionary() string dictionary scope} this is equivalent to {@link #writeString(String)}.
+     */
+    public void writeSharedString(String str) throws IOException {
+        if (stringDictionary == null) {
+            writeString(str);
+            return;
+        }
+        final Integer ref = stringDictionary.get(str);
+        if (ref == null) {
+            writeVInt(0);
+            writeString(str);
+            stringDictionary.put(str, stringDictionary.size() + 1);
+        } else {
+            writeVInt(ref);
+        }
+    }
+
     public void writeFloat(float v) throws IOException {
         writeInt(Float.floatToIntBits(v));
     }
@@ -1004,7 +1047,7 @@ public abstract class StreamOutput extends OutputStream {
      * Writes a {@link NamedWriteable} to the current stream, by first writing its name and then the object itself
      */
     public void writeNamedWriteable(NamedWriteable namedWriteable) throws IOException {
-        writeString(namedWriteable.getWriteableName());
+        writeSharedString(namedWriteable.getWriteableName());
         namedWriteable.writeTo(this);
     }
 
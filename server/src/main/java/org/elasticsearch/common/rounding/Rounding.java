@@ -28,6 +28,9 @@ import org.joda.time.DateTimeZone;
 import org.joda.time.IllegalInstantException;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Objects;
 
 /**
@@ -51,6 +54,16 @@ public abstract class Rounding implements Writeable {
      */
     public abstract long nextRoundingValue(long value);
 
+    /**
+     * Prepares this rounding for values between {@code minUtcMillis} and {@code maxUtcMillis}, both inclusive. The prepared rounding
+     * returns the same values as {@link #round(long)}, but looks up the time zone offsets, or the rounded values themselves, for the
+     * whole range up front so that rounding a value in the range is mostly arithmetic or a binary search. Values outside of the range
+     * are rounded by this rounding.
+     */
+    public Prepared prepare(long minUtcMillis, long maxUtcMillis) {
+        return this::round;
+    }
+
     @Override
     public abstract boolean equals(Object obj);
 
@@ -103,10 +116,204 @@ public abstract class Rounding implements Writeable {
         }
     }
 
+    /**
+     * A rounding that was prepared for a range of values, see {@link #prepare(long, long)}.
+     */
+    @FunctionalInterface
+    public interface Prepared {
+
+        /**
+         * Rounds the given value.
+         */
+        long round(long utcMillis);
+    }
+
+    /**
+     * The maximum number of offset periods or rounded values that a prepared rounding precomputes.
+     */
+    static final int MAX_PREPARED_ENTRIES = 1024;
+
+    /**
+     * A {@link Prepared} rounding for units of a fixed length in local time. It knows the time zone offsets in effect over the
+     * prepared range, so that a value can be rounded by arithmetic as long as the rounded value falls into the same offset period as
+     * the value itself. Only values close to a transition fall back to the original rounding.
+     */
+    static final class OffsetTableRounding implements Prepared {
+
+        private final Rounding rounding;
+        private final long unitMillis;
+        private final long origin;
+        private final long minUtcMillis;
+        private final long maxUtcMillis;
+        // the start of each offset period, sorted
+        private final long[] periodStarts;
+        // rounded values in a period that are at least this value are known to be correct
+        private final long[] safeFrom;
+        private final int[] offsets;
+
+        private OffsetTableRounding(Rounding rounding, long unitMillis, long origin, long minUtcMillis, long maxUtcMillis,
+                                    long[] periodStarts, long[] safeFrom, int[] offsets) {
+            this.rounding = rounding;
+            this.unitMillis = unitMillis;
+            this.origin = origin;
+            this.minUtcMillis = minUtcMillis;
+            this.maxUtcMillis = maxUtcMillis;
+            this.periodStarts = periodStarts;
+            this.safeFrom = safeFrom;
+            this.offsets = offsets;
+        }
+
+        /**
+         * Builds the offset table for the given range, or returns {@code null} if the range spans too many offset changes.
+         *
+         * @param unitMillis the length of the rounding unit in local time
+         * @param origin     the local time that rounded values are aligned to, modulo the unit
+         */
+        static OffsetTableRounding build(Rounding rounding, DateTimeZone timeZone, long unitMillis, long origin,
+                                         long minUtcMillis, long maxUtcMillis) {
+            if (timeZone.isFixed()) {
+                return new OffsetTableRounding(rounding, unitMillis, origin, minUtcMillis, maxUtcMillis,
+                    new long[] { Long.MIN_VALUE }, new long[] { Long.MIN_VALUE }, new int[] { timeZone.getOffset(minUtcMillis) });
+            }
+            final List<Long> periodStarts = new ArrayList<>();
+            final List<Long> safeFrom = new ArrayList<>();
+            final List<Integer> offsets = new ArrayList<>();
+
+            // find the start of the period that the minimum falls into, skipping transitions that do not change the offset
+            int offset = timeZone.getOffset(minUtcMillis);
+            long instant = minUtcMillis;
+            long periodStart = Long.MIN_VALUE;
+            int previousOffset = offset;
+            while (true) {
+                final long previousTransition = timeZone.previousTransition(instant);
+                if (previousTransition == instant) {
+                    break;
+                }
+                // previousTransition() returns the last instant before the transition
+                final int offsetBefore = timeZone.getOffset(previousTransition);
+                if (offsetBefore != offset) {
+                    periodStart = previousTransition + 1;
+                    previousOffset = offsetBefore;
+                    break;
+                }
+                instant = previousTransition;
+            }
+            periodStarts.add(periodStart);
+            safeFrom.add(safeFrom(periodStart, previousOffset, offset));
+            offsets.add(offset);
+
+            long transition = minUtcMillis;
+            while (true) {
+                final long nextTransition = timeZone.nextTransition(transition);
+                if (nextTransition == transition || nextTransition > maxUtcMillis) {
+                    break;
+                }
+                final int nextOffset = timeZone.getOffset(nextTransition);
+                if (nextOffset != offset) {
+                    if (periodStarts.size() == MAX_PREPARED_ENTRIES) {
+                        return null;
+                    }
+                    periodStarts.add(nextTransition);
+                    safeFrom.add(safeFrom(nextTransition, offset, nextOffset));
+                    offsets.add(nextOffset);
+                    offset = nextOffset;
+                }
+                transition = nextTransition;
+            }
+            return new OffsetTableRounding(rounding, unitMillis, origin, minUtcMillis, maxUtcMillis,
+                periodStarts.stream().mapToLong(Long::longValue).toArray(),
+                safeFrom.stream().mapToLong(Long::longValue).toArray(),
+                offsets.stream().mapToInt(Integer::intValue).toArray());
+        }
+
+        private static long safeFrom(long periodStart, int previousOffset, int offset) {
+            if (periodStart == Long.MIN_VALUE) {
+                return Long.MIN_VALUE;
+            }
+            // when the clocks go back a local time right after the transition also occurred right before it, in which case rounding
+            // to a unit that starts at midnight picks the earlier instant, so leave that window to the original rounding
+            return periodStart + Math.abs((long) previousOffset - offset);
+        }
+
+        @Override
+        public long round(long utcMillis) {
+            if (utcMillis < minUtcMillis || utcMillis > maxUtcMillis) {
+                return rounding.round(utcMillis);
+            }
+            int period = 0;
+            if (periodStarts.length > 1) {
+                period = Arrays.binarySearch(periodStarts, utcMillis);
+                if (period < 0) {
+                    period = -period - 2;
+                }
+            }
+            final long offset = offsets[period];
+            final long rounded = Math.floorDiv(utcMillis + offset - origin, unitMillis) * unitMillis + origin - offset;
+            if (rounded >= safeFrom[period]) {
+                return rounded;
+            }
+            return rounding.round(utcMillis);
+        }
+    }
+
+    /**
+     * A {@link Prepared} rounding that knows all rounded values of the prepared range and rounds by binary search.
+     */
+    static final class ArrayRounding implements Prepared {
+
+        private final Rounding rounding;
+        private final long[] values;
+        private final long maxUtcMillis;
+
+        private ArrayRounding(Rounding rounding, long[] values, long maxUtcMillis) {
+            this.rounding = rounding;
+            this.values = values;
+            this.maxUtcMillis = maxUtcMillis;
+        }
+
+        /**
+         * Collects the rounded values of the given range, or returns {@code null} if there are too many of them.
+         */
+        static ArrayRounding build(Rounding rounding, long minUtcMillis, long maxUtcMillis) {
+            long[] values = new long[16];
+            int count = 0;
+            long rounded = rounding.round(minUtcMillis);
+            while (rounded <= maxUtcMillis) {
+                if (count == MAX_PREPARED_ENTRIES) {
+                    return null;
+                }
+                if (count == values.length) {
+                    values = Arrays.copyOf(values, count * 2);
+                }
+                values[count++] = rounded;
+                final long next = rounding.nextRoundingValue(rounded);
+                if (next <= rounded) {
+                    return null;
+                }
+                rounded = next;
+            }
+            return new ArrayRounding(rounding, Arrays.copyOf(values, count), maxUtcMillis);
+        }
+
+        @Override
+        public long round(long utcMillis) {
+            if (utcMillis < values[0] || utcMillis > maxUtcMillis) {
+                return rounding.round(utcMillis);
+            }
+            int index = Arrays.binarySearch(values, utcMillis);
+            if (index < 0) {
+                index = -index - 2;
+            }
+            return values[index];
+        }
+    }
+
     static class TimeUnitRounding extends Rounding {
 
         static final byte ID = 1;
 
+        private static final long DAY_MILLIS = 24L * 60L * 60L * 1000L;
+
         private final DateTimeUnit unit;
         private final DateTimeField field;
         private final DateTimeZone timeZone;
@@ -229,6 +436,34 @@ public abstract class Rounding implements Writeable {
             }
         }
 
+        @Override
+        public Prepared prepare(long minUtcMillis, long maxUtcMillis) {
+            if (minUtcMillis > maxUtcMillis) {
+                return this::round;
+            }
+            final Prepared prepared;
+            switch (unit) {
+                case WEEK_OF_WEEKYEAR:
+                    // weeks start on Monday, three days before the epoch
+                    prepared = OffsetTableRounding.build(this, timeZone, 7 * DAY_MILLIS, -3 * DAY_MILLIS, minUtcMillis, maxUtcMillis);
+                    break;
+                case DAY_OF_MONTH:
+                    prepared = OffsetTableRounding.build(this, timeZone, DAY_MILLIS, 0, minUtcMillis, maxUtcMillis);
+                    break;
+                case HOUR_OF_DAY:
+                case MINUTES_OF_HOUR:
+                case SECOND_OF_MINUTE:
+                    prepared = OffsetTableRounding.build(this, timeZone, field.getDurationField().getUnitMillis(), 0,
+                        minUtcMillis, maxUtcMillis);
+                    break;
+                default:
+                    // months, quarters and years have no fixed length
+                    prepared = ArrayRounding.build(this, minUtcMillis, maxUtcMillis);
+                    break;
+            }
+            return prepared == null ? this::round : prepared;
+        }
+
         @Override
         public long nextRoundingValue(long utcMillis) {
             long floor = round(utcMillis);
@@ -321,6 +556,15 @@ public abstract class Rounding implements Writeable {
             return roundedUTC;
         }
 
+        @Override
+        public Prepared prepare(long minUtcMillis, long maxUtcMillis) {
+            if (minUtcMillis > maxUtcMillis) {
+                return this::round;
+            }
+            final Prepared prepared = OffsetTableRounding.build(this, timeZone, interval, 0, minUtcMillis, maxUtcMillis);
+            return prepared == null ? this::round : prepared;
+        }
+
         private static long roundKey(long value, long interval) {
             if (value < 0) {
                 return (value - interval + 1) / interval;
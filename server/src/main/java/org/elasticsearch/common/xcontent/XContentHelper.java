@@ -22,6 +22,7 @@ package org.elasticsearch.common.xcontent;
 import org.apache.lucene.util.BytesRef;
 import org.elasticsearch.ElasticsearchParseException;
 import org.elasticsearch.common.Strings;
+import org.elasticsearch.common.bytes.BytesArray;
 import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.collect.Tuple;
 import org.elasticsearch.common.compress.Compressor;
@@ -57,7 +58,8 @@ public class XContentHelper {
             final XContentType contentType = XContentFactory.xContentType(compressedInput);
             return XContentFactory.xContent(contentType).createParser(xContentRegistry, deprecationHandler, compressedInput);
         } else {
-            return XContentFactory.xContent(xContentType(bytes)).createParser(xContentRegistry, deprecationHandler, bytes.streamInput());
+            return createParserWithoutCompression(XContentFactory.xContent(xContentType(bytes)), xContentRegistry, deprecationHandler,
+                bytes);
         }
     }
 
@@ -75,10 +77,24 @@ public class XContentHelper {
             }
             return XContentFactory.xContent(xContentType).createParser(xContentRegistry, deprecationHandler, compressedInput);
         } else {
-            return xContentType.xContent().createParser(xContentRegistry, deprecationHandler, bytes.streamInput());
+            return createParserWithoutCompression(xContentType.xContent(), xContentRegistry, deprecationHandler, bytes);
         }
     }
 
+    /**
+     * Creates a parser over uncompressed bytes. Bytes that are backed by a single array are parsed in place, all other bytes are
+     * read page by page through their stream so they never need to be flattened into a single array.
+     */
+    private static XContentParser createParserWithoutCompression(XContent xContent, NamedXContentRegistry xContentRegistry,
+                                                                 DeprecationHandler deprecationHandler,
+                                                                 BytesReference bytes) throws IOException {
+        if (bytes instanceof BytesArray) {
+            final BytesArray array = (BytesArray) bytes;
+            return xContent.createParser(xContentRegistry, deprecationHandler, array.array(), array.offset(), array.length());
+        }
+        return xContent.createParser(xContentRegistry, deprecationHandler, bytes.streamInput());
+    }
+
     /**
      * Converts the given bytes into a map that is optionally ordered.
      * @deprecated this method relies on auto-detection of content type. Use {@link #convertToMap(BytesReference, boolean, XContentType)}
@@ -99,6 +115,13 @@ public class XContentHelper {
             final XContentType contentType;
             InputStream input;
             Compressor compressor = CompressorFactory.compressor(bytes);
+            if (compressor == null && xContentType != null) {
+                // It is safe to use EMPTY here because this never uses namedObject
+                try (XContentParser parser = createParserWithoutCompression(xContentType.xContent(), NamedXContentRegistry.EMPTY,
+                        DeprecationHandler.THROW_UNSUPPORTED_OPERATION, bytes)) {
+                    return new Tuple<>(xContentType, ordered ? parser.mapOrdered() : parser.map());
+                }
+            }
             if (compressor != null) {
                 InputStream compressedStreamInput = compressor.streamInput(bytes.streamInput());
                 if (compressedStreamInput.markSupported() == false) {
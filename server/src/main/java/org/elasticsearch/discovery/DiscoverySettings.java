@@ -21,6 +21,9 @@ package org.elasticsearch.discovery;
 
 import org.elasticsearch.cluster.block.ClusterBlock;
 import org.elasticsearch.cluster.block.ClusterBlockLevel;
+import org.elasticsearch.common.compress.Compressor;
+import org.elasticsearch.common.compress.CompressorFactory;
+import org.elasticsearch.common.compress.DeflateCompressor;
 import org.elasticsearch.common.settings.ClusterSettings;
 import org.elasticsearch.common.settings.Setting;
 import org.elasticsearch.common.settings.Setting.Property;
@@ -29,6 +32,7 @@ import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.rest.RestStatus;
 
 import java.util.EnumSet;
+import java.util.zip.Deflater;
 
 /**
  * Exposes common discovery settings that may be supported by all the different discovery implementations
@@ -61,6 +65,13 @@ public class DiscoverySettings {
             Property.Dynamic, Property.NodeScope);
     public static final Setting<Boolean> PUBLISH_DIFF_ENABLE_SETTING =
         Setting.boolSetting("discovery.zen.publish_diff.enable", true, Property.Dynamic, Property.NodeScope);
+    /**
+     * sets the deflate level used to compress published cluster states and diffs. lower levels trade a larger payload for
+     * less time spent serializing on the master. nodes can decompress states published at any level.
+     */
+    public static final Setting<Integer> PUBLISH_COMPRESSION_LEVEL_SETTING =
+        Setting.intSetting("discovery.zen.publish_compression_level", DeflateCompressor.DEFAULT_LEVEL,
+            Deflater.NO_COMPRESSION, Deflater.BEST_COMPRESSION, Property.Dynamic, Property.NodeScope);
     public static final Setting<TimeValue> INITIAL_STATE_TIMEOUT_SETTING =
         Setting.positiveTimeSetting("discovery.initial_state_timeout", TimeValue.timeValueSeconds(30), Property.NodeScope);
 
@@ -69,16 +80,19 @@ public class DiscoverySettings {
 
     private volatile TimeValue commitTimeout;
     private volatile boolean publishDiff;
+    private volatile Compressor publishCompressor;
 
     public DiscoverySettings(Settings settings, ClusterSettings clusterSettings) {
         clusterSettings.addSettingsUpdateConsumer(NO_MASTER_BLOCK_SETTING, this::setNoMasterBlock);
         clusterSettings.addSettingsUpdateConsumer(PUBLISH_DIFF_ENABLE_SETTING, this::setPublishDiff);
         clusterSettings.addSettingsUpdateConsumer(COMMIT_TIMEOUT_SETTING, this::setCommitTimeout);
         clusterSettings.addSettingsUpdateConsumer(PUBLISH_TIMEOUT_SETTING, this::setPublishTimeout);
+        clusterSettings.addSettingsUpdateConsumer(PUBLISH_COMPRESSION_LEVEL_SETTING, this::setPublishCompressionLevel);
         this.noMasterBlock = NO_MASTER_BLOCK_SETTING.get(settings);
         this.publishTimeout = PUBLISH_TIMEOUT_SETTING.get(settings);
         this.commitTimeout = COMMIT_TIMEOUT_SETTING.get(settings);
         this.publishDiff = PUBLISH_DIFF_ENABLE_SETTING.get(settings);
+        setPublishCompressionLevel(PUBLISH_COMPRESSION_LEVEL_SETTING.get(settings));
     }
 
     /**
@@ -114,6 +128,18 @@ public class DiscoverySettings {
 
     public boolean getPublishDiff() { return publishDiff;}
 
+    private void setPublishCompressionLevel(int publishCompressionLevel) {
+        this.publishCompressor = publishCompressionLevel == DeflateCompressor.DEFAULT_LEVEL
+            ? CompressorFactory.COMPRESSOR : new DeflateCompressor(publishCompressionLevel);
+    }
+
+    /**
+     * Returns the compressor to use for published cluster states and diffs
+     */
+    public Compressor getPublishCompressor() {
+        return publishCompressor;
+    }
+
     private static ClusterBlock parseNoMasterBlock(String value) {
         switch (value) {
             case "all":
@@ -96,7 +96,7 @@ public class SingleNodeDiscovery extends AbstractLifecycleComponent implements D
 
     @Override
     public DiscoveryStats stats() {
-        return new DiscoveryStats(null, null);
+        return new DiscoveryStats(null, null, clusterApplier.stats());
     }
 
     @Override
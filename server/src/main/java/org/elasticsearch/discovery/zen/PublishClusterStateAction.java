@@ -101,6 +101,10 @@ public class PublishClusterStateAction {
     private final AtomicLong fullClusterStateReceivedCount = new AtomicLong();
     private final AtomicLong incompatibleClusterStateDiffReceivedCount = new AtomicLong();
     private final AtomicLong compatibleClusterStateDiffReceivedCount = new AtomicLong();
+    private final AtomicLong fullClusterStateSerializedCount = new AtomicLong();
+    private final AtomicLong clusterStateDiffSerializedCount = new AtomicLong();
+    private final AtomicLong serializationTimeInNanos = new AtomicLong();
+    private final AtomicLong serializedSizeInBytes = new AtomicLong();
 
     public PublishClusterStateAction(
             TransportService transportService,
@@ -239,7 +243,7 @@ public class PublishClusterStateAction {
                 if (sendFullVersion || !previousState.nodes().nodeExists(node)) {
                     // will send a full reference
                     if (serializedStates.containsKey(node.getVersion()) == false) {
-                        serializedStates.put(node.getVersion(), serializeFullClusterState(clusterState, node.getVersion()));
+                        serializedStates.put(node.getVersion(), serializeFullClusterStateForPublication(clusterState, node.getVersion()));
                     }
                 } else {
                     // will send a diff
@@ -247,7 +251,7 @@ public class PublishClusterStateAction {
                         diff = clusterState.diff(previousState);
                     }
                     if (serializedDiffs.containsKey(node.getVersion()) == false) {
-                        serializedDiffs.put(node.getVersion(), serializeDiffClusterState(diff, node.getVersion()));
+                        serializedDiffs.put(node.getVersion(), serializeDiffClusterStateForPublication(diff, node.getVersion()));
                     }
                 }
             } catch (IOException e) {
@@ -261,7 +265,7 @@ public class PublishClusterStateAction {
         BytesReference bytes = serializedStates.get(node.getVersion());
         if (bytes == null) {
             try {
-                bytes = serializeFullClusterState(clusterState, node.getVersion());
+                bytes = serializeFullClusterStateForPublication(clusterState, node.getVersion());
                 serializedStates.put(node.getVersion(), bytes);
             } catch (Exception e) {
                 logger.warn(() -> new ParameterizedMessage("failed to serialize cluster_state before publishing it to node {}", node), e);
@@ -350,9 +354,34 @@ public class PublishClusterStateAction {
     }
 
 
+    private BytesReference serializeFullClusterStateForPublication(ClusterState clusterState, Version nodeVersion) throws IOException {
+        final long startTimeInNanos = System.nanoTime();
+        final BytesReference bytes = serializeFullClusterState(clusterState, nodeVersion, discoverySettings.getPublishCompressor());
+        onSerialized(fullClusterStateSerializedCount, startTimeInNanos, bytes);
+        return bytes;
+    }
+
+    private BytesReference serializeDiffClusterStateForPublication(Diff diff, Version nodeVersion) throws IOException {
+        final long startTimeInNanos = System.nanoTime();
+        final BytesReference bytes = serializeDiffClusterState(diff, nodeVersion, discoverySettings.getPublishCompressor());
+        onSerialized(clusterStateDiffSerializedCount, startTimeInNanos, bytes);
+        return bytes;
+    }
+
+    private void onSerialized(AtomicLong serializedCount, long startTimeInNanos, BytesReference bytes) {
+        serializedCount.incrementAndGet();
+        serializationTimeInNanos.addAndGet(Math.max(0L, System.nanoTime() - startTimeInNanos));
+        serializedSizeInBytes.addAndGet(bytes.length());
+    }
+
     public static BytesReference serializeFullClusterState(ClusterState clusterState, Version nodeVersion) throws IOException {
+        return serializeFullClusterState(clusterState, nodeVersion, CompressorFactory.COMPRESSOR);
+    }
+
+    public static BytesReference serializeFullClusterState(ClusterState clusterState, Version nodeVersion,
+                                                           Compressor compressor) throws IOException {
         BytesStreamOutput bStream = new BytesStreamOutput();
-        try (StreamOutput stream = CompressorFactory.COMPRESSOR.streamOutput(bStream)) {
+        try (StreamOutput stream = compressor.streamOutput(bStream)) {
             stream.setVersion(nodeVersion);
             stream.writeBoolean(true);
             clusterState.writeTo(stream);
@@ -361,8 +390,12 @@ public class PublishClusterStateAction {
     }
 
     public static BytesReference serializeDiffClusterState(Diff diff, Version nodeVersion) throws IOException {
+        return serializeDiffClusterState(diff, nodeVersion, CompressorFactory.COMPRESSOR);
+    }
+
+    public static BytesReference serializeDiffClusterState(Diff diff, Version nodeVersion, Compressor compressor) throws IOException {
         BytesStreamOutput bStream = new BytesStreamOutput();
-        try (StreamOutput stream = CompressorFactory.COMPRESSOR.streamOutput(bStream)) {
+        try (StreamOutput stream = compressor.streamOutput(bStream)) {
             stream.setVersion(nodeVersion);
             stream.writeBoolean(false);
             diff.writeTo(stream);
@@ -656,6 +689,10 @@ public class PublishClusterStateAction {
         return new PublishClusterStateStats(
             fullClusterStateReceivedCount.get(),
             incompatibleClusterStateDiffReceivedCount.get(),
-            compatibleClusterStateDiffReceivedCount.get());
+            compatibleClusterStateDiffReceivedCount.get(),
+            fullClusterStateSerializedCount.get(),
+            clusterStateDiffSerializedCount.get(),
+            TimeUnit.NANOSECONDS.toMillis(serializationTimeInNanos.get()),
+            serializedSizeInBytes.get());
     }
 }
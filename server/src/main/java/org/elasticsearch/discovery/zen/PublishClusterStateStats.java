@@ -19,9 +19,12 @@
 
 package org.elasticsearch.discovery.zen;
 
+import org.elasticsearch.Version;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.io.stream.Writeable;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.common.xcontent.ToXContentObject;
 import org.elasticsearch.common.xcontent.XContentBuilder;
 
@@ -35,24 +38,51 @@ public class PublishClusterStateStats implements Writeable, ToXContentObject {
     private final long fullClusterStateReceivedCount;
     private final long incompatibleClusterStateDiffReceivedCount;
     private final long compatibleClusterStateDiffReceivedCount;
+    private final long fullClusterStateSerializedCount;
+    private final long clusterStateDiffSerializedCount;
+    private final long serializationTimeInMillis;
+    private final long serializedSizeInBytes;
 
     /**
      * @param fullClusterStateReceivedCount the number of times this node has received a full copy of the cluster state from the master.
      * @param incompatibleClusterStateDiffReceivedCount the number of times this node has received a cluster-state diff from the master.
      * @param compatibleClusterStateDiffReceivedCount the number of times that received cluster-state diffs were compatible with
+     * @param fullClusterStateSerializedCount the number of times this node has serialized a full cluster state for publication.
+     * @param clusterStateDiffSerializedCount the number of times this node has serialized a cluster-state diff for publication.
+     * @param serializationTimeInMillis the total time this node has spent serializing and compressing states and diffs for publication.
+     * @param serializedSizeInBytes the total compressed size of the states and diffs this node has serialized for publication.
      */
     public PublishClusterStateStats(long fullClusterStateReceivedCount,
                                     long incompatibleClusterStateDiffReceivedCount,
-                                    long compatibleClusterStateDiffReceivedCount) {
+                                    long compatibleClusterStateDiffReceivedCount,
+                                    long fullClusterStateSerializedCount,
+                                    long clusterStateDiffSerializedCount,
+                                    long serializationTimeInMillis,
+                                    long serializedSizeInBytes) {
         this.fullClusterStateReceivedCount = fullClusterStateReceivedCount;
         this.incompatibleClusterStateDiffReceivedCount = incompatibleClusterStateDiffReceivedCount;
         this.compatibleClusterStateDiffReceivedCount = compatibleClusterStateDiffReceivedCount;
+        this.fullClusterStateSerializedCount = fullClusterStateSerializedCount;
+        this.clusterStateDiffSerializedCount = clusterStateDiffSerializedCount;
+        this.serializationTimeInMillis = serializationTimeInMillis;
+        this.serializedSizeInBytes = serializedSizeInBytes;
     }
 
     public PublishClusterStateStats(StreamInput in) throws IOException {
         fullClusterStateReceivedCount = in.readVLong();
         incompatibleClusterStateDiffReceivedCount = in.readVLong();
         compatibleClusterStateDiffReceivedCount = in.readVLong();
+        if (in.getVersion().onOrAfter(Version.V_6_8_24)) {
+            fullClusterStateSerializedCount = in.readVLong();
+            clusterStateDiffSerializedCount = in.readVLong();
+            serializationTimeInMillis = in.readVLong();
+            serializedSizeInBytes = in.readVLong();
+        } else {
+            fullClusterStateSerializedCount = 0;
+            clusterStateDiffSerializedCount = 0;
+            serializationTimeInMillis = 0;
+            serializedSizeInBytes = 0;
+        }
     }
 
     @Override
@@ -60,6 +90,12 @@ public class PublishClusterStateStats implements Writeable, ToXContentObject {
         out.writeVLong(fullClusterStateReceivedCount);
         out.writeVLong(incompatibleClusterStateDiffReceivedCount);
         out.writeVLong(compatibleClusterStateDiffReceivedCount);
+        if (out.getVersion().onOrAfter(Version.V_6_8_24)) {
+            out.writeVLong(fullClusterStateSerializedCount);
+            out.writeVLong(clusterStateDiffSerializedCount);
+            out.writeVLong(serializationTimeInMillis);
+            out.writeVLong(serializedSizeInBytes);
+        }
     }
 
     @Override
@@ -69,6 +105,11 @@ public class PublishClusterStateStats implements Writeable, ToXContentObject {
             builder.field("full_states", fullClusterStateReceivedCount);
             builder.field("incompatible_diffs", incompatibleClusterStateDiffReceivedCount);
             builder.field("compatible_diffs", compatibleClusterStateDiffReceivedCount);
+            builder.field("serialized_full_states", fullClusterStateSerializedCount);
+            builder.field("serialized_diffs", clusterStateDiffSerializedCount);
+            builder.humanReadableField("serialization_time_in_millis", "serialization_time",
+                new TimeValue(serializationTimeInMillis));
+            builder.humanReadableField("serialized_size_in_bytes", "serialized_size", new ByteSizeValue(serializedSizeInBytes));
         }
         builder.endObject();
         return builder;
@@ -80,11 +121,23 @@ public class PublishClusterStateStats implements Writeable, ToXContentObject {
 
     long getCompatibleClusterStateDiffReceivedCount() { return compatibleClusterStateDiffReceivedCount; }
 
+    long getFullClusterStateSerializedCount() { return fullClusterStateSerializedCount; }
+
+    long getClusterStateDiffSerializedCount() { return clusterStateDiffSerializedCount; }
+
+    long getSerializationTimeInMillis() { return serializationTimeInMillis; }
+
+    long getSerializedSizeInBytes() { return serializedSizeInBytes; }
+
     @Override
     public String toString() {
         return "PublishClusterStateStats(full=" + fullClusterStateReceivedCount
             + ", incompatible=" + incompatibleClusterStateDiffReceivedCount
             + ", compatible=" + compatibleClusterStateDiffReceivedCount
+            + ", serializedFull=" + fullClusterStateSerializedCount
+            + ", serializedDiffs=" + clusterStateDiffSerializedCount
+            + ", serializationTimeInMillis=" + serializationTimeInMillis
+            + ", serializedSizeInBytes=" + serializedSizeInBytes
             + ")";
     }
 }
@@ -0,0 +1,374 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.gateway;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.message.ParameterizedMessage;
+import org.elasticsearch.Version;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.FailedNodeException;
+import org.elasticsearch.action.support.nodes.BaseNodeResponse;
+import org.elasticsearch.action.support.nodes.BaseNodesResponse;
+import org.elasticsearch.cluster.node.DiscoveryNode;
+import org.elasticsearch.common.CheckedFunction;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.util.concurrent.AbstractRunnable;
+import org.elasticsearch.common.util.concurrent.CountDown;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.threadpool.ThreadPool;
+import org.elasticsearch.transport.TransportChannel;
+import org.elasticsearch.transport.TransportException;
+import org.elasticsearch.transport.TransportRequest;
+import org.elasticsearch.transport.TransportRequestHandler;
+import org.elasticsearch.transport.TransportResponse;
+import org.elasticsearch.transport.TransportResponseHandler;
+import org.elasticsearch.transport.TransportService;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.BiFunction;
+import java.util.function.Supplier;
+
+/**
+ * An {@link AsyncShardFetch.Lister} that collects the shards that are listed while allocating and, once {@link #flush()} is
+ * called, sends a single request per node for all of them rather than one request per shard. The receiving node lists the
+ * shards in parallel, using at most as many threads as the thread pool the listing runs on has. Nodes that do not support
+ * batched listing yet are sent one request per shard through the lister that this one wraps.
+ */
+public class BatchedShardLister<NodesResponse extends BaseNodesResponse<NodeResponse>, NodeResponse extends BaseNodeResponse>
+    implements AsyncShardFetch.Lister<NodesResponse, NodeResponse> {
+
+    private static final Logger logger = LogManager.getLogger(BatchedShardLister.class);
+
+    private final String actionName;
+    private final TransportService transportService;
+    private final ThreadPool threadPool;
+    private final String executor;
+    private final AsyncShardFetch.Lister<NodesResponse, NodeResponse> perShardLister;
+    private final Supplier<NodeResponse> nodeResponseSupplier;
+    private final BiFunction<List<NodeResponse>, List<FailedNodeException>, NodesResponse> nodesResponseFactory;
+    private final CheckedFunction<ShardId, NodeResponse, Exception> nodeOperation;
+
+    // the pending shard fetches, per node, in the order they were listed
+    private Map<DiscoveryNode, List<PendingFetch>> pendingFetches = new LinkedHashMap<>();
+
+    /**
+     * @param actionName           the name of the transport action that lists a batch of shards on a node
+     * @param executor             the thread pool the shards of a batch are listed on
+     * @param perShardLister       the lister used for nodes that do not support batched listing
+     * @param nodeResponseSupplier creates the node responses that are read from the wire
+     * @param nodesResponseFactory builds the response of a single listed shard out of the responses and failures of all its nodes
+     * @param nodeOperation        lists a single shard on the local node
+     */
+    public BatchedShardLister(String actionName, TransportService transportService, ThreadPool threadPool, String executor,
+                              AsyncShardFetch.Lister<NodesResponse, NodeResponse> perShardLister,
+                              Supplier<NodeResponse> nodeResponseSupplier,
+                              BiFunction<List<NodeResponse>, List<FailedNodeException>, NodesResponse> nodesResponseFactory,
+                              CheckedFunction<ShardId, NodeResponse, Exception> nodeOperation) {
+        this.actionName = actionName;
+        this.transportService = transportService;
+        this.threadPool = threadPool;
+        this.executor = executor;
+        this.perShardLister = perShardLister;
+        this.nodeResponseSupplier = nodeResponseSupplier;
+        this.nodesResponseFactory = nodesResponseFactory;
+        this.nodeOperation = nodeOperation;
+        transportService.registerRequestHandler(actionName, ThreadPool.Names.SAME, ShardsRequest::new, new ShardsRequestHandler());
+    }
+
+    @Override
+    public synchronized void list(ShardId shardId, DiscoveryNode[] nodes, ActionListener<NodesResponse> listener) {
+        final PendingFetch pendingFetch = new PendingFetch(shardId, nodes.length, listener);
+        for (DiscoveryNode node : nodes) {
+            pendingFetches.computeIfAbsent(node, n -> new ArrayList<>()).add(pendingFetch);
+        }
+    }
+
+    /**
+     * Sends the shard fetches that were listed since the last flush.
+     */
+    public void flush() {
+        final Map<DiscoveryNode, List<PendingFetch>> toSend;
+        synchronized (this) {
+            if (pendingFetches.isEmpty()) {
+                return;
+            }
+            toSend = pendingFetches;
+            pendingFetches = new LinkedHashMap<>();
+        }
+        for (Map.Entry<DiscoveryNode, List<PendingFetch>> entry : toSend.entrySet()) {
+            final DiscoveryNode node = entry.getKey();
+            final List<PendingFetch> fetches = entry.getValue();
+            if (node.getVersion().onOrAfter(Version.V_6_8_24)) {
+                sendBatch(node, fetches);
+            } else {
+                for (PendingFetch fetch : fetches) {
+                    perShardLister.list(fetch.shardId, new DiscoveryNode[] { node }, new ActionListener<NodesResponse>() {
+                        @Override
+                        public void onResponse(NodesResponse response) {
+                            if (response.hasFailures()) {
+                                fetch.onFailure(response.failures().get(0));
+                            } else if (response.getNodes().isEmpty()) {
+                                fetch.onFailure(new FailedNodeException(node.getId(), "no response from node [" + node + "]", null));
+                            } else {
+                                fetch.onResponse(response.getNodes().get(0));
+                            }
+                        }
+
+                        @Override
+                        public void onFailure(Exception e) {
+                            fetch.onFailure(new FailedNodeException(node.getId(), "total failure in fetching", e));
+                        }
+                    });
+                }
+            }
+        }
+    }
+
+    private void sendBatch(DiscoveryNode node, List<PendingFetch> fetches) {
+        final List<ShardId> shardIds = new ArrayList<>(fetches.size());
+        for (PendingFetch fetch : fetches) {
+            shardIds.add(fetch.shardId);
+        }
+        logger.trace("listing [{}] shards on node {}", shardIds.size(), node);
+        transportService.sendRequest(node, actionName, new ShardsRequest(shardIds), new TransportResponseHandler<ShardsResponse>() {
+            @Override
+            public ShardsResponse read(StreamInput in) throws IOException {
+                return new ShardsResponse(in);
+            }
+
+            @Override
+            public void handleResponse(ShardsResponse response) {
+                if (response.responses.size() != fetches.size()) {
+                    handleException(new TransportException("expected [" + fetches.size() + "] shard responses but got ["
+                        + response.responses.size() + "]"));
+                    return;
+                }
+                for (int i = 0; i < fetches.size(); i++) {
+                    final Exception failure = response.failures.get(i);
+                    if (failure == null) {
+                        fetches.get(i).onResponse(response.responses.get(i));
+                    } else {
+                        fetches.get(i).onFailure(new FailedNodeException(node.getId(), "Failed node [" + node.getId() + "]", failure));
+                    }
+                }
+            }
+
+            @Override
+            public void handleException(TransportException exp) {
+                for (PendingFetch fetch : fetches) {
+                    fetch.onFailure(new FailedNodeException(node.getId(), "Failed node [" + node.getId() + "]", exp));
+                }
+            }
+
+            @Override
+            public String executor() {
+                return ThreadPool.Names.SAME;
+            }
+        });
+    }
+
+    /**
+     * The fetch of a single shard from a set of nodes, completed once all nodes responded.
+     */
+    private class PendingFetch {
+        private final ShardId shardId;
+        private final CountDown countDown;
+        private final ActionListener<NodesResponse> listener;
+        private final List<NodeResponse> responses = new ArrayList<>();
+        private final List<FailedNodeException> failures = new ArrayList<>();
+
+        PendingFetch(ShardId shardId, int numberOfNodes, ActionListener<NodesResponse> listener) {
+            this.shardId = shardId;
+            this.countDown = new CountDown(numberOfNodes);
+            this.listener = listener;
+        }
+
+        void onResponse(NodeResponse response) {
+            synchronized (this) {
+                responses.add(response);
+            }
+            maybeComplete();
+        }
+
+        void onFailure(FailedNodeException failure) {
+            synchronized (this) {
+                failures.add(failure);
+            }
+            maybeComplete();
+        }
+
+        private void maybeComplete() {
+            if (countDown.countDown()) {
+                final NodesResponse nodesResponse;
+                synchronized (this) {
+                    nodesResponse = nodesResponseFactory.apply(responses, failures);
+                }
+                listener.onResponse(nodesResponse);
+            }
+        }
+    }
+
+    private class ShardsRequestHandler implements TransportRequestHandler<ShardsRequest> {
+
+        @Override
+        public void messageReceived(ShardsRequest request, TransportChannel channel) throws Exception {
+            final List<ShardId> shardIds = request.shardIds;
+            if (shardIds.isEmpty()) {
+                channel.sendResponse(new ShardsResponse(Collections.emptyList(), Collections.emptyList()));
+                return;
+            }
+            final AtomicReferenceArray<NodeResponse> responses = new AtomicReferenceArray<>(shardIds.size());
+            final AtomicReferenceArray<Exception> failures = new AtomicReferenceArray<>(shardIds.size());
+            final AtomicInteger nextShard = new AtomicInteger();
+            final CountDown countDown = new CountDown(shardIds.size());
+            final AtomicBoolean responded = new AtomicBoolean();
+            // each worker lists shards until there are none left, so that a batch never occupies more than the whole pool
+            final int workers = Math.max(1, Math.min(shardIds.size(), threadPool.info(executor).getMax()));
+            for (int i = 0; i < workers; i++) {
+                threadPool.executor(executor).execute(new AbstractRunnable() {
+                    @Override
+                    protected void doRun() throws Exception {
+                        for (int shard = nextShard.getAndIncrement(); shard < shardIds.size(); shard = nextShard.getAndIncrement()) {
+                            final ShardId shardId = shardIds.get(shard);
+                            try {
+                                responses.set(shard, nodeOperation.apply(shardId));
+                            } catch (Exception e) {
+                                logger.debug(() -> new ParameterizedMessage("{} failed to list shard", shardId), e);
+                                failures.set(shard, e);
+                            }
+                            if (countDown.countDown()) {
+                                final List<NodeResponse> responseList = new ArrayList<>(shardIds.size());
+                                final List<Exception> failureList = new ArrayList<>(shardIds.size());
+                                for (int j = 0; j < shardIds.size(); j++) {
+                                    responseList.add(responses.get(j));
+                                    failureList.add(failures.get(j));
+                                }
+                                if (responded.compareAndSet(false, true)) {
+                                    channel.sendResponse(new ShardsResponse(responseList, failureList));
+                                }
+                            }
+                        }
+                    }
+
+                    @Override
+                    public void onFailure(Exception e) {
+                        if (responded.compareAndSet(false, true)) {
+                            try {
+                                channel.sendResponse(e);
+                            } catch (Exception inner) {
+                                inner.addSuppressed(e);
+                                logger.warn("failed to send response for listing shards", inner);
+                            }
+                        }
+                    }
+                });
+            }
+        }
+    }
+
+    static class ShardsRequest extends TransportRequest {
+
+        private final List<ShardId> shardIds;
+
+        ShardsRequest(List<ShardId> shardIds) {
+            this.shardIds = shardIds;
+        }
+
+        ShardsRequest(StreamInput in) throws IOException {
+            super(in);
+            shardIds = in.readList(ShardId::readShardId);
+        }
+
+        @Override
+        public void readFrom(StreamInput in) {
+            throw new UnsupportedOperationException("usage of Streamable is to be replaced by Writeable");
+        }
+
+        @Override
+        public void writeTo(StreamOutput out) throws IOException {
+            super.writeTo(out);
+            out.writeVInt(shardIds.size());
+            for (ShardId shardId : shardIds) {
+                shardId.writeTo(out);
+            }
+        }
+    }
+
+    class ShardsResponse extends TransportResponse {
+
+        // index aligned with the shards of the request, exactly one of the response and the failure of a shard is set
+        private final List<NodeResponse> responses;
+        private final List<Exception> failures;
+
+        ShardsResponse(List<NodeResponse> responses, List<Exception> failures) {
+            this.responses = responses;
+            this.failures = failures;
+        }
+
+        ShardsResponse(StreamInput in) throws IOException {
+            super(in);
+            final int size = in.readVInt();
+            responses = new ArrayList<>(size);
+            failures = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                if (in.readBoolean()) {
+                    final NodeResponse response = nodeResponseSupplier.get();
+                    response.readFrom(in);
+                    responses.add(response);
+                    failures.add(null);
+                } else {
+                    responses.add(null);
+                    failures.add(in.readException());
+                }
+            }
+        }
+
+        @Override
+        public void readFrom(StreamInput in) {
+            throw new UnsupportedOperationException("usage of Streamable is to be replaced by Writeable");
+        }
+
+        @Override
+        public void writeTo(StreamOutput out) throws IOException {
+            super.writeTo(out);
+            out.writeVInt(responses.size());
+            for (int i = 0; i < responses.size(); i++) {
+                final Exception failure = failures.get(i);
+                if (failure == null) {
+                    out.writeBoolean(true);
+                    responses.get(i).writeTo(out);
+                } else {
+                    out.writeBoolean(false);
+                    out.writeException(failure);
+                }
+            }
+        }
+    }
+}
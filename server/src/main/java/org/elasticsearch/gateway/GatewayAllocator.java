@@ -49,6 +49,11 @@ public class GatewayAllocator {
     private final PrimaryShardAllocator primaryShardAllocator;
     private final ReplicaShardAllocator replicaShardAllocator;
 
+    private final BatchedShardLister<TransportNodesListGatewayStartedShards.NodesGatewayStartedShards,
+        TransportNodesListGatewayStartedShards.NodeGatewayStartedShards> startedLister;
+    private final BatchedShardLister<TransportNodesListShardStoreMetaData.NodesStoreFilesMetaData,
+        TransportNodesListShardStoreMetaData.NodeStoreFilesMetaData> storeLister;
+
     private final ConcurrentMap<ShardId, AsyncShardFetch<TransportNodesListGatewayStartedShards.NodeGatewayStartedShards>>
         asyncFetchStarted = ConcurrentCollections.newConcurrentMap();
     private final ConcurrentMap<ShardId, AsyncShardFetch<TransportNodesListShardStoreMetaData.NodeStoreFilesMetaData>>
@@ -58,8 +63,11 @@ public class GatewayAllocator {
     public GatewayAllocator(ClusterService clusterService, RoutingService routingService,
                             TransportNodesListGatewayStartedShards startedAction, TransportNodesListShardStoreMetaData storeAction) {
         this.routingService = routingService;
-        this.primaryShardAllocator = new InternalPrimaryShardAllocator(startedAction);
-        this.replicaShardAllocator = new InternalReplicaShardAllocator(storeAction);
+        // shards are listed in batches per node, which are sent once the allocation round that asked for them is done
+        this.startedLister = startedAction.batchedLister();
+        this.storeLister = storeAction.batchedLister();
+        this.primaryShardAllocator = new InternalPrimaryShardAllocator(startedLister);
+        this.replicaShardAllocator = new InternalReplicaShardAllocator(storeLister);
         clusterService.addStateApplier(event -> {
             boolean cleanCache = false;
             DiscoveryNode localNode = event.state().nodes().getLocalNode();
@@ -84,6 +92,8 @@ public class GatewayAllocator {
         this.routingService = null;
         this.primaryShardAllocator = null;
         this.replicaShardAllocator = null;
+        this.startedLister = null;
+        this.storeLister = null;
     }
 
     public int getNumberOfInFlightFetch() {
@@ -112,7 +122,20 @@ public class GatewayAllocator {
     }
 
     public void allocateUnassigned(final RoutingAllocation allocation) {
-        innerAllocatedUnassigned(allocation, primaryShardAllocator, replicaShardAllocator);
+        try {
+            innerAllocatedUnassigned(allocation, primaryShardAllocator, replicaShardAllocator);
+        } finally {
+            flushShardFetches();
+        }
+    }
+
+    private void flushShardFetches() {
+        if (startedLister != null) {
+            startedLister.flush();
+        }
+        if (storeLister != null) {
+            storeLister.flush();
+        }
     }
 
     // allow for testing infra to change shard allocators implementation
@@ -132,10 +155,14 @@ public class GatewayAllocator {
      * {@link AllocateUnassignedDecision#NOT_TAKEN} is returned.
      */
     public AllocateUnassignedDecision decideUnassignedShardAllocation(ShardRouting unassignedShard, RoutingAllocation routingAllocation) {
-        if (unassignedShard.primary()) {
-            return primaryShardAllocator.makeAllocationDecision(unassignedShard, routingAllocation, logger);
-        } else {
-            return replicaShardAllocator.makeAllocationDecision(unassignedShard, routingAllocation, logger);
+        try {
+            if (unassignedShard.primary()) {
+                return primaryShardAllocator.makeAllocationDecision(unassignedShard, routingAllocation, logger);
+            } else {
+                return replicaShardAllocator.makeAllocationDecision(unassignedShard, routingAllocation, logger);
+            }
+        } finally {
+            flushShardFetches();
         }
     }
 
@@ -154,9 +181,11 @@ public class GatewayAllocator {
 
     class InternalPrimaryShardAllocator extends PrimaryShardAllocator {
 
-        private final TransportNodesListGatewayStartedShards startedAction;
+        private final AsyncShardFetch.Lister<TransportNodesListGatewayStartedShards.NodesGatewayStartedShards,
+            TransportNodesListGatewayStartedShards.NodeGatewayStartedShards> startedAction;
 
-        InternalPrimaryShardAllocator(TransportNodesListGatewayStartedShards startedAction) {
+        InternalPrimaryShardAllocator(AsyncShardFetch.Lister<TransportNodesListGatewayStartedShards.NodesGatewayStartedShards,
+                                          TransportNodesListGatewayStartedShards.NodeGatewayStartedShards> startedAction) {
             this.startedAction = startedAction;
         }
 
@@ -178,9 +207,11 @@ public class GatewayAllocator {
 
     class InternalReplicaShardAllocator extends ReplicaShardAllocator {
 
-        private final TransportNodesListShardStoreMetaData storeAction;
+        private final AsyncShardFetch.Lister<TransportNodesListShardStoreMetaData.NodesStoreFilesMetaData,
+            TransportNodesListShardStoreMetaData.NodeStoreFilesMetaData> storeAction;
 
-        InternalReplicaShardAllocator(TransportNodesListShardStoreMetaData storeAction) {
+        InternalReplicaShardAllocator(AsyncShardFetch.Lister<TransportNodesListShardStoreMetaData.NodesStoreFilesMetaData,
+                                          TransportNodesListShardStoreMetaData.NodeStoreFilesMetaData> storeAction) {
             this.storeAction = storeAction;
         }
 
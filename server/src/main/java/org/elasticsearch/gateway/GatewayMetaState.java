@@ -34,6 +34,7 @@ import org.elasticsearch.cluster.routing.RoutingNode;
 import org.elasticsearch.cluster.routing.ShardRouting;
 import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.collect.ImmutableOpenMap;
+import org.elasticsearch.common.settings.Setting;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.env.NodeEnvironment;
@@ -62,8 +63,16 @@ public class GatewayMetaState implements ClusterStateApplier {
 
     private static final Logger logger = LogManager.getLogger(GatewayMetaState.class);
 
+    /**
+     * If enabled, each cluster state update is persisted by appending it to a metadata journal that is synced once, rather than by
+     * syncing the state file of every changed index individually. The state files are restored from the journal on startup.
+     */
+    public static final Setting<Boolean> METADATA_JOURNAL_ENABLED_SETTING =
+        Setting.boolSetting("gateway.metadata_journal.enabled", false, Setting.Property.NodeScope);
+
     private final NodeEnvironment nodeEnv;
     private final MetaStateService metaStateService;
+    private final boolean journalEnabled;
 
     @Nullable
     private volatile MetaData previousMetaData;
@@ -74,6 +83,7 @@ public class GatewayMetaState implements ClusterStateApplier {
                             MetaDataIndexUpgradeService metaDataIndexUpgradeService, MetaDataUpgrader metaDataUpgrader) throws IOException {
         this.nodeEnv = nodeEnv;
         this.metaStateService = metaStateService;
+        this.journalEnabled = METADATA_JOURNAL_ENABLED_SETTING.get(settings);
 
         if (DiscoveryNode.isDataNode(settings)) {
             ensureNoPre019ShardState(nodeEnv);
@@ -85,6 +95,11 @@ public class GatewayMetaState implements ClusterStateApplier {
         if (DiscoveryNode.isMasterNode(settings) || DiscoveryNode.isDataNode(settings)) {
             try {
                 ensureNoPre019State();
+                // the journal is replayed even if it is disabled now, it might hold the only durable copy of the latest state
+                final int recovered = metaStateService.recoverFromJournal();
+                if (recovered >= 0) {
+                    logger.debug("recovered metadata journal, [{}] index state files restored", recovered);
+                }
                 final MetaData metaData = metaStateService.loadFullState();
                 final MetaData upgradedMetaData = upgradeMetaData(metaData, metaDataIndexUpgradeService, metaDataUpgrader);
                 // We finished global state validation and successfully checked all indices for backward compatibility
@@ -158,7 +173,8 @@ public class GatewayMetaState implements ClusterStateApplier {
                 }
             }
             // check if the global state changed?
-            if (previousMetaData == null || !MetaData.isGlobalStateEquals(previousMetaData, newMetaData)) {
+            final boolean globalStateChanged = previousMetaData == null || !MetaData.isGlobalStateEquals(previousMetaData, newMetaData);
+            if (globalStateChanged && journalEnabled == false) {
                 try {
                     metaStateService.writeGlobalState("changed", newMetaData);
                 } catch (Exception e) {
@@ -170,13 +186,22 @@ public class GatewayMetaState implements ClusterStateApplier {
             relevantIndices = getRelevantIndices(event.state(), event.previousState(), previouslyWrittenIndices);
             final Iterable<IndexMetaWriteInfo> writeInfo = resolveStatesToBeWritten(previouslyWrittenIndices, relevantIndices,
                 previousMetaData, event.state().metaData());
-            // check and write changes in indices
-            for (IndexMetaWriteInfo indexMetaWrite : writeInfo) {
+            if (journalEnabled) {
+                // a single journal append covers the global state and all changed indices
                 try {
-                    metaStateService.writeIndex(indexMetaWrite.reason, indexMetaWrite.newMetaData);
+                    metaStateService.writeJournaled(globalStateChanged ? newMetaData : null, writeInfo, relevantIndices);
                 } catch (Exception e) {
                     success = false;
                 }
+            } else {
+                // check and write changes in indices
+                for (IndexMetaWriteInfo indexMetaWrite : writeInfo) {
+                    try {
+                        metaStateService.writeIndex(indexMetaWrite.reason, indexMetaWrite.newMetaData);
+                    } catch (Exception e) {
+                        success = false;
+                    }
+                }
             }
         }
 
@@ -31,7 +31,9 @@ import org.apache.lucene.store.IndexInput;
 import org.apache.lucene.store.OutputStreamIndexOutput;
 import org.apache.lucene.store.SimpleFSDirectory;
 import org.elasticsearch.ExceptionsHelper;
+import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.collect.Tuple;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
 import org.elasticsearch.common.lucene.store.IndexOutputOutputStream;
 import org.elasticsearch.common.lucene.store.InputStreamIndexInput;
 import org.elasticsearch.common.xcontent.LoggingDeprecationHandler;
@@ -96,6 +98,15 @@ public abstract class MetaDataStateFormat<T> {
      * @throws IOException if an IOException occurs
      */
     public final void write(final T state, final Path... locations) throws IOException {
+        write(state, true, locations);
+    }
+
+    /**
+     * Writes the given state to the given directories like {@link #write(Object, Path...)}, optionally without syncing the written
+     * files and directories. Skipping the fsync is only safe if the state is made durable by other means, such as the
+     * {@link MetaStateJournal}, since after a crash the state file might be missing or unreadable.
+     */
+    final void write(final T state, final boolean fsync, final Path... locations) throws IOException {
         if (locations == null) {
             throw new IllegalArgumentException("Locations must not be null");
         }
@@ -130,9 +141,13 @@ public abstract class MetaDataStateFormat<T> {
                 }
                 CodecUtil.writeFooter(out);
             }
-            IOUtils.fsync(tmpStatePath, false); // fsync the state file
+            if (fsync) {
+                IOUtils.fsync(tmpStatePath, false); // fsync the state file
+            }
             Files.move(tmpStatePath, finalStatePath, StandardCopyOption.ATOMIC_MOVE);
-            IOUtils.fsync(stateLocation, true);
+            if (fsync) {
+                IOUtils.fsync(stateLocation, true);
+            }
             logger.trace("written state to {}", finalStatePath);
             for (int i = 1; i < locations.length; i++) {
                 stateLocation = locations[i].resolve(STATE_DIR_NAME);
@@ -141,10 +156,14 @@ public abstract class MetaDataStateFormat<T> {
                 Path finalPath = stateLocation.resolve(fileName);
                 try {
                     Files.copy(finalStatePath, tmpPath);
-                    IOUtils.fsync(tmpPath, false); // fsync the state file
+                    if (fsync) {
+                        IOUtils.fsync(tmpPath, false); // fsync the state file
+                    }
                     // we are on the same FileSystem / Partition here we can do an atomic move
                     Files.move(tmpPath, finalPath, StandardCopyOption.ATOMIC_MOVE);
-                    IOUtils.fsync(stateLocation, true);
+                    if (fsync) {
+                        IOUtils.fsync(stateLocation, true);
+                    }
                     logger.trace("copied state to {}", finalPath);
                 } finally {
                     Files.deleteIfExists(tmpPath);
@@ -158,6 +177,32 @@ public abstract class MetaDataStateFormat<T> {
         cleanupOldFiles(prefix, fileName, locations);
     }
 
+    /**
+     * Serializes the given state in the same format as the content of a state file, without header and footer.
+     */
+    final BytesReference toBytes(final T state) throws IOException {
+        try (BytesStreamOutput out = new BytesStreamOutput()) {
+            try (XContentBuilder builder = newXContentBuilder(FORMAT, out)) {
+                builder.startObject();
+                {
+                    toXContent(builder, state);
+                }
+                builder.endObject();
+            }
+            return out.bytes();
+        }
+    }
+
+    /**
+     * Reads a state that was serialized by {@link #toBytes(Object)}.
+     */
+    final T fromBytes(final NamedXContentRegistry namedXContentRegistry, final BytesReference bytes) throws IOException {
+        try (XContentParser parser = XContentFactory.xContent(FORMAT)
+                .createParser(namedXContentRegistry, LoggingDeprecationHandler.INSTANCE, bytes.streamInput())) {
+            return fromXContent(parser);
+        }
+    }
+
     protected XContentBuilder newXContentBuilder(XContentType type, OutputStream stream ) throws IOException {
         return XContentFactory.contentBuilder(type, stream);
     }
@@ -0,0 +1,429 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.gateway;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.message.ParameterizedMessage;
+import org.apache.lucene.codecs.CodecUtil;
+import org.apache.lucene.store.InputStreamDataInput;
+import org.apache.lucene.store.OutputStreamDataOutput;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.cluster.metadata.IndexMetaData;
+import org.elasticsearch.cluster.metadata.MetaData;
+import org.elasticsearch.common.Nullable;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.collect.Tuple;
+import org.elasticsearch.common.io.Channels;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.unit.ByteSizeUnit;
+import org.elasticsearch.common.xcontent.NamedXContentRegistry;
+import org.elasticsearch.core.internal.io.IOUtils;
+import org.elasticsearch.env.NodeEnvironment;
+import org.elasticsearch.index.Index;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.LongPredicate;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+
+/**
+ * An append-only journal of the metadata that a node persists. Each cluster state update is appended as a single checksummed record
+ * that holds the changed global state, the changed index states and the indices that are no longer persisted, and the journal is
+ * synced once per data path, regardless of how many indices changed. This allows {@link MetaStateService} to write the individual
+ * state files without syncing each of them. On startup {@link MetaStateService#recoverFromJournal()} replays the journal onto the
+ * state files, which remain the source of truth for everything else.
+ *
+ * A journal generation starts with a full snapshot of the journaled state and is replaced by a new generation once the records that
+ * were appended since outgrow the snapshot, or after an append failed.
+ */
+final class MetaStateJournal {
+
+    private static final Logger logger = LogManager.getLogger(MetaStateJournal.class);
+
+    static final String JOURNAL_FILE_PREFIX = "journal-";
+    static final String JOURNAL_FILE_EXTENSION = ".log";
+
+    private static final String JOURNAL_CODEC = "metadata_journal";
+    private static final int JOURNAL_VERSION = 1;
+    private static final long MIN_COMPACTION_SIZE_IN_BYTES = ByteSizeUnit.MB.toBytes(1);
+    private static final Pattern JOURNAL_FILE_PATTERN =
+        Pattern.compile(Pattern.quote(JOURNAL_FILE_PREFIX) + "(\\d+)" + Pattern.quote(JOURNAL_FILE_EXTENSION));
+
+    private final NodeEnvironment nodeEnv;
+    private final NamedXContentRegistry namedXContentRegistry;
+
+    // the state covered by the current generation, only updated once a record is durable
+    private MetaData globalMetaData;
+    private final Map<String, IndexMetaData> indices = new HashMap<>();
+    private long generation = -1;
+    private long sizeInBytes;
+    private long snapshotSizeInBytes;
+
+    MetaStateJournal(NodeEnvironment nodeEnv, NamedXContentRegistry namedXContentRegistry) {
+        this.nodeEnv = nodeEnv;
+        this.namedXContentRegistry = namedXContentRegistry;
+    }
+
+    /**
+     * Appends a cluster state update to the journal and syncs it.
+     *
+     * @param globalMetaData the new global state, or {@code null} if it did not change
+     * @param changedIndices the index states that changed
+     * @param persistedIndices all indices whose state is persisted on this node; journaled indices that are not part of this set are
+     *                         removed from the journal once their state files were synced
+     */
+    synchronized void append(@Nullable MetaData globalMetaData, Collection<IndexMetaData> changedIndices,
+                             Set<Index> persistedIndices) throws IOException {
+        final Set<String> persistedIndexUUIDs = new HashSet<>(persistedIndices.size());
+        for (Index index : persistedIndices) {
+            persistedIndexUUIDs.add(index.getUUID());
+        }
+        final List<IndexMetaData> removedIndices = new ArrayList<>();
+        for (IndexMetaData indexMetaData : indices.values()) {
+            if (persistedIndexUUIDs.contains(indexMetaData.getIndexUUID()) == false) {
+                removedIndices.add(indexMetaData);
+            }
+        }
+        // the journal stops covering these indices, so whatever is left of their state files has to be durable by now
+        for (IndexMetaData removedIndex : removedIndices) {
+            syncStateFiles(nodeEnv.indexPaths(removedIndex.getIndex()));
+        }
+
+        final MetaData newGlobalMetaData = globalMetaData == null ? this.globalMetaData : globalMetaData;
+        final Map<String, IndexMetaData> newIndices = new HashMap<>(indices);
+        for (IndexMetaData removedIndex : removedIndices) {
+            newIndices.remove(removedIndex.getIndexUUID());
+        }
+        for (IndexMetaData changedIndex : changedIndices) {
+            newIndices.put(changedIndex.getIndexUUID(), changedIndex);
+        }
+
+        boolean success = false;
+        try {
+            if (generation < 0 || sizeInBytes > Math.max(MIN_COMPACTION_SIZE_IN_BYTES, 2 * snapshotSizeInBytes)) {
+                if (newGlobalMetaData == null) {
+                    throw new IllegalStateException("a new metadata journal generation requires the global state");
+                }
+                startGeneration(newGlobalMetaData, newIndices.values());
+            } else {
+                final List<String> removedIndexUUIDs = new ArrayList<>(removedIndices.size());
+                for (IndexMetaData removedIndex : removedIndices) {
+                    removedIndexUUIDs.add(removedIndex.getIndexUUID());
+                }
+                appendRecord(toRecord(false, globalMetaData, changedIndices, removedIndexUUIDs));
+            }
+            this.globalMetaData = newGlobalMetaData;
+            indices.clear();
+            indices.putAll(newIndices);
+            success = true;
+        } finally {
+            if (success == false) {
+                // the current generation might end with a partial record, start over with a full snapshot
+                generation = -1;
+            }
+        }
+    }
+
+    /**
+     * Records that the state files of an index are about to be deleted, so that replaying the journal does not restore an index
+     * whose folder was deleted before the cluster state update that removed it was appended.
+     */
+    synchronized void removeIndex(Index index) throws IOException {
+        // the next generation must not include the index either, even if the record below cannot be appended
+        final boolean journaled = indices.remove(index.getUUID()) != null;
+        if (generation >= 0) {
+            if (journaled == false) {
+                return;
+            }
+            try {
+                appendRecord(toRecord(false, null, Collections.emptyList(), Collections.singletonList(index.getUUID())));
+                return;
+            } catch (IOException | RuntimeException e) {
+                logger.warn(() -> new ParameterizedMessage("failed to append the removal of {} to the metadata journal, " +
+                    "starting a new generation", index), e);
+                generation = -1;
+            }
+        }
+        // a failed append leaves the last generation on disk, which might still list the index
+        if (globalMetaData == null) {
+            deleteGenerations(gen -> true);
+        } else {
+            startGeneration(globalMetaData, indices.values());
+        }
+    }
+
+    /**
+     * Reads the latest journal generation.
+     *
+     * @return the journaled global state and index states, or {@code null} if there is no journal
+     */
+    @Nullable
+    synchronized Tuple<MetaData, List<IndexMetaData>> load() throws IOException {
+        final long maxGeneration = findMaxGeneration();
+        if (maxGeneration < 0) {
+            return null;
+        }
+        final String fileName = fileName(maxGeneration);
+        final List<Exception> exceptions = new ArrayList<>();
+        for (Path dataPath : nodeEnv.nodeDataPaths()) {
+            final Path file = dataPath.resolve(MetaDataStateFormat.STATE_DIR_NAME).resolve(fileName);
+            if (Files.exists(file) == false) {
+                continue;
+            }
+            try {
+                return read(file);
+            } catch (Exception e) {
+                logger.debug(() -> new ParameterizedMessage("{}: failed to read metadata journal, ignoring...", file), e);
+                exceptions.add(e);
+            }
+        }
+        final IllegalStateException e = new IllegalStateException("could not read metadata journal [" + fileName + "]");
+        exceptions.forEach(e::addSuppressed);
+        throw e;
+    }
+
+    /**
+     * Removes all journal generations. The next append starts a new generation.
+     */
+    synchronized void deleteAll() throws IOException {
+        deleteGenerations(gen -> true);
+        generation = -1;
+        globalMetaData = null;
+        indices.clear();
+    }
+
+    private Tuple<MetaData, List<IndexMetaData>> read(Path file) throws IOException {
+        MetaData globalMetaData = null;
+        final Map<String, IndexMetaData> indices = new HashMap<>();
+        final long fileSize = Files.size(file);
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(file));
+             DataInputStream dataInput = new DataInputStream(in)) {
+            CodecUtil.checkHeader(new InputStreamDataInput(in), JOURNAL_CODEC, JOURNAL_VERSION, JOURNAL_VERSION);
+            long position = CodecUtil.headerLength(JOURNAL_CODEC);
+            boolean first = true;
+            while (position < fileSize) {
+                final byte[] record;
+                try {
+                    final int length = dataInput.readInt();
+                    if (length < 0 || length > fileSize - position) {
+                        throw new EOFException("invalid record length [" + length + "]");
+                    }
+                    record = new byte[length];
+                    dataInput.readFully(record);
+                    final long checksum = dataInput.readLong();
+                    if (checksum != checksum(new BytesRef(record))) {
+                        throw new EOFException("checksum mismatch");
+                    }
+                    position += Integer.BYTES + length + Long.BYTES;
+                } catch (EOFException e) {
+                    if (first) {
+                        throw new CorruptStateException(e);
+                    }
+                    // only the last record can be incomplete since every record is synced before the next one is appended
+                    logger.warn(() -> new ParameterizedMessage("ignoring incomplete record at the end of metadata journal [{}]", file), e);
+                    break;
+                }
+                try (StreamInput recordInput = StreamInput.wrap(record)) {
+                    final boolean snapshot = recordInput.readBoolean();
+                    if (first && snapshot == false) {
+                        throw new CorruptStateException("metadata journal [" + file + "] does not start with a snapshot");
+                    }
+                    if (recordInput.readBoolean()) {
+                        globalMetaData = MetaData.FORMAT.fromBytes(namedXContentRegistry, recordInput.readBytesReference());
+                    }
+                    final int changedIndices = recordInput.readVInt();
+                    for (int i = 0; i < changedIndices; i++) {
+                        final IndexMetaData indexMetaData =
+                            IndexMetaData.FORMAT.fromBytes(namedXContentRegistry, recordInput.readBytesReference());
+                        indices.put(indexMetaData.getIndexUUID(), indexMetaData);
+                    }
+                    final int removedIndices = recordInput.readVInt();
+                    for (int i = 0; i < removedIndices; i++) {
+                        indices.remove(recordInput.readString());
+                    }
+                }
+                first = false;
+            }
+        }
+        logger.trace("read metadata journal [{}] with [{}] indices", file, indices.size());
+        return Tuple.tuple(globalMetaData, new ArrayList<>(indices.values()));
+    }
+
+    private BytesReference toRecord(boolean snapshot, @Nullable MetaData globalMetaData, Collection<IndexMetaData> changedIndices,
+                                    Collection<String> removedIndexUUIDs) throws IOException {
+        try (BytesStreamOutput out = new BytesStreamOutput()) {
+            out.writeBoolean(snapshot);
+            if (globalMetaData == null) {
+                out.writeBoolean(false);
+            } else {
+                out.writeBoolean(true);
+                out.writeBytesReference(MetaData.FORMAT.toBytes(globalMetaData));
+            }
+            out.writeVInt(changedIndices.size());
+            for (IndexMetaData indexMetaData : changedIndices) {
+                out.writeBytesReference(IndexMetaData.FORMAT.toBytes(indexMetaData));
+            }
+            out.writeVInt(removedIndexUUIDs.size());
+            for (String removedIndexUUID : removedIndexUUIDs) {
+                out.writeString(removedIndexUUID);
+            }
+            final BytesReference record = out.bytes();
+            try (BytesStreamOutput framed = new BytesStreamOutput(record.length() + 12)) {
+                framed.writeInt(record.length());
+                record.writeTo(framed);
+                framed.writeLong(checksum(record.toBytesRef()));
+                return framed.bytes();
+            }
+        }
+    }
+
+    private void startGeneration(MetaData globalMetaData, Collection<IndexMetaData> indices) throws IOException {
+        final long newGeneration = findMaxGeneration() + 1;
+        final String fileName = fileName(newGeneration);
+        final byte[] bytes;
+        try (BytesStreamOutput out = new BytesStreamOutput()) {
+            CodecUtil.writeHeader(new OutputStreamDataOutput(out), JOURNAL_CODEC, JOURNAL_VERSION);
+            toRecord(true, globalMetaData, indices, Collections.emptyList()).writeTo(out);
+            bytes = BytesReference.toBytes(out.bytes());
+        }
+        for (Path dataPath : nodeEnv.nodeDataPaths()) {
+            final Path stateLocation = dataPath.resolve(MetaDataStateFormat.STATE_DIR_NAME);
+            Files.createDirectories(stateLocation);
+            final Path tmpPath = stateLocation.resolve(fileName + ".tmp");
+            try {
+                try (FileChannel channel = FileChannel.open(tmpPath, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                        StandardOpenOption.WRITE)) {
+                    Channels.writeToChannel(bytes, channel);
+                    channel.force(true);
+                }
+                Files.move(tmpPath, stateLocation.resolve(fileName), StandardCopyOption.ATOMIC_MOVE);
+                IOUtils.fsync(stateLocation, true);
+            } finally {
+                Files.deleteIfExists(tmpPath);
+            }
+        }
+        logger.trace("started metadata journal generation [{}] with [{}] indices", newGeneration, indices.size());
+        deleteGenerations(gen -> gen < newGeneration);
+        generation = newGeneration;
+        sizeInBytes = bytes.length;
+        snapshotSizeInBytes = bytes.length;
+    }
+
+    private void appendRecord(BytesReference record) throws IOException {
+        final byte[] bytes = BytesReference.toBytes(record);
+        final String fileName = fileName(generation);
+        for (Path dataPath : nodeEnv.nodeDataPaths()) {
+            final Path file = dataPath.resolve(MetaDataStateFormat.STATE_DIR_NAME).resolve(fileName);
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+                Channels.writeToChannel(bytes, channel);
+                channel.force(true);
+            }
+        }
+        sizeInBytes += bytes.length;
+    }
+
+    private static void syncStateFiles(Path[] indexPaths) throws IOException {
+        for (Path indexPath : indexPaths) {
+            final Path stateLocation = indexPath.resolve(MetaDataStateFormat.STATE_DIR_NAME);
+            try {
+                try (DirectoryStream<Path> stream = Files.newDirectoryStream(stateLocation)) {
+                    for (Path stateFile : stream) {
+                        if (Files.isRegularFile(stateFile)) {
+                            IOUtils.fsync(stateFile, false);
+                        }
+                    }
+                }
+                IOUtils.fsync(stateLocation, true);
+            } catch (NoSuchFileException | FileNotFoundException e) {
+                // the index folder was deleted, nothing to sync
+            }
+        }
+    }
+
+    private long findMaxGeneration() throws IOException {
+        long maxGeneration = -1;
+        for (Path dataPath : nodeEnv.nodeDataPaths()) {
+            for (Path file : journalFiles(dataPath)) {
+                final Matcher matcher = JOURNAL_FILE_PATTERN.matcher(file.getFileName().toString());
+                if (matcher.matches()) {
+                    maxGeneration = Math.max(maxGeneration, Long.parseLong(matcher.group(1)));
+                }
+            }
+        }
+        return maxGeneration;
+    }
+
+    private void deleteGenerations(LongPredicate toDelete) throws IOException {
+        for (Path dataPath : nodeEnv.nodeDataPaths()) {
+            for (Path file : journalFiles(dataPath)) {
+                final Matcher matcher = JOURNAL_FILE_PATTERN.matcher(file.getFileName().toString());
+                if (matcher.matches() == false || toDelete.test(Long.parseLong(matcher.group(1)))) {
+                    Files.deleteIfExists(file);
+                    logger.trace("deleted metadata journal file [{}]", file);
+                }
+            }
+        }
+    }
+
+    private static List<Path> journalFiles(Path dataPath) throws IOException {
+        final List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream =
+                 Files.newDirectoryStream(dataPath.resolve(MetaDataStateFormat.STATE_DIR_NAME), JOURNAL_FILE_PREFIX + "*")) {
+            for (Path file : stream) {
+                files.add(file);
+            }
+        } catch (NoSuchFileException | FileNotFoundException e) {
+            // no _state directory -- move on
+        }
+        return files;
+    }
+
+    private static String fileName(long generation) {
+        return JOURNAL_FILE_PREFIX + generation + JOURNAL_FILE_EXTENSION;
+    }
+
+    private static long checksum(BytesRef bytes) {
+        final CRC32 crc32 = new CRC32();
+        crc32.update(bytes.bytes, bytes.offset, bytes.length);
+        return crc32.getValue();
+    }
+}
@@ -22,9 +22,11 @@ package org.elasticsearch.gateway;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.apache.logging.log4j.message.ParameterizedMessage;
+import org.elasticsearch.ExceptionsHelper;
 import org.elasticsearch.cluster.metadata.IndexMetaData;
 import org.elasticsearch.cluster.metadata.MetaData;
 import org.elasticsearch.common.Nullable;
+import org.elasticsearch.common.collect.Tuple;
 import org.elasticsearch.common.xcontent.NamedXContentRegistry;
 import org.elasticsearch.env.NodeEnvironment;
 import org.elasticsearch.index.Index;
@@ -32,6 +34,7 @@ import org.elasticsearch.index.Index;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
 import java.util.function.Predicate;
 
 /**
@@ -43,10 +46,12 @@ public class MetaStateService {
 
     private final NodeEnvironment nodeEnv;
     private final NamedXContentRegistry namedXContentRegistry;
+    private final MetaStateJournal journal;
 
     public MetaStateService(NodeEnvironment nodeEnv, NamedXContentRegistry namedXContentRegistry) {
         this.nodeEnv = nodeEnv;
         this.namedXContentRegistry = namedXContentRegistry;
+        this.journal = new MetaStateJournal(nodeEnv, namedXContentRegistry);
     }
 
     /**
@@ -118,10 +123,14 @@ public class MetaStateService {
      * This method is public for testing purposes.
      */
     public void writeIndex(String reason, IndexMetaData indexMetaData) throws IOException {
+        writeIndex(reason, indexMetaData, true);
+    }
+
+    private void writeIndex(String reason, IndexMetaData indexMetaData, boolean fsync) throws IOException {
         final Index index = indexMetaData.getIndex();
         logger.trace("[{}] writing state, reason [{}]", index, reason);
         try {
-            IndexMetaData.FORMAT.write(indexMetaData,
+            IndexMetaData.FORMAT.write(indexMetaData, fsync,
                 nodeEnv.indexPaths(indexMetaData.getIndex()));
             logger.trace("[{}] state written", index);
         } catch (Exception ex) {
@@ -134,13 +143,99 @@ public class MetaStateService {
      * Writes the global state, *without* the indices states.
      */
     void writeGlobalState(String reason, MetaData metaData) throws IOException {
+        writeGlobalState(reason, metaData, true);
+    }
+
+    private void writeGlobalState(String reason, MetaData metaData, boolean fsync) throws IOException {
         logger.trace("[_global] writing state, reason [{}]",  reason);
         try {
-            MetaData.FORMAT.write(metaData, nodeEnv.nodeDataPaths());
+            MetaData.FORMAT.write(metaData, fsync, nodeEnv.nodeDataPaths());
             logger.trace("[_global] state written");
         } catch (Exception ex) {
             logger.warn("[_global]: failed to write global state", ex);
             throw new IOException("failed to write global state", ex);
         }
     }
+
+    /**
+     * Writes the global state, if it changed, and the changed index states as a single update: the changes are appended to the
+     * {@link MetaStateJournal}, which is synced once, after which the state files are written without syncing each of them.
+     *
+     * @param globalMetaData the new global state, or {@code null} if it did not change
+     * @param indices the index states to write
+     * @param persistedIndices all indices whose state is persisted on this node
+     */
+    void writeJournaled(@Nullable MetaData globalMetaData, Iterable<GatewayMetaState.IndexMetaWriteInfo> indices,
+                        Set<Index> persistedIndices) throws IOException {
+        final List<IndexMetaData> changedIndices = new ArrayList<>();
+        for (GatewayMetaState.IndexMetaWriteInfo indexMetaWrite : indices) {
+            changedIndices.add(indexMetaWrite.getNewMetaData());
+        }
+        try {
+            journal.append(globalMetaData, changedIndices, persistedIndices);
+        } catch (Exception ex) {
+            logger.warn("failed to append to metadata journal", ex);
+            throw new IOException("failed to append to metadata journal", ex);
+        }
+        IOException failure = null;
+        if (globalMetaData != null) {
+            try {
+                writeGlobalState("changed", globalMetaData, false);
+            } catch (IOException ex) {
+                failure = ex;
+            }
+        }
+        for (GatewayMetaState.IndexMetaWriteInfo indexMetaWrite : indices) {
+            try {
+                writeIndex(indexMetaWrite.getReason(), indexMetaWrite.getNewMetaData(), false);
+            } catch (IOException ex) {
+                failure = ExceptionsHelper.useOrSuppress(failure, ex);
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Records the deletion of an index in the {@link MetaStateJournal}. Must be called before the state files of the index are
+     * deleted, which may happen before the cluster state update that removes the index is persisted.
+     */
+    public void beforeIndexStateDeleted(Index index) throws IOException {
+        journal.removeIndex(index);
+    }
+
+    /**
+     * Replays the {@link MetaStateJournal}, if there is one, onto the state files and removes it. Every index state file that is
+     * missing, unreadable or differs from the journal is rewritten and synced, as is the global state.
+     *
+     * @return the number of index state files that had to be rewritten, or -1 if there was no journal
+     */
+    int recoverFromJournal() throws IOException {
+        final Tuple<MetaData, List<IndexMetaData>> journaled = journal.load();
+        if (journaled == null) {
+            return -1;
+        }
+        if (journaled.v1() != null) {
+            writeGlobalState("journal recovery", journaled.v1());
+        }
+        int rewritten = 0;
+        for (IndexMetaData indexMetaData : journaled.v2()) {
+            IndexMetaData onDisk;
+            try {
+                onDisk = loadIndexState(indexMetaData.getIndex());
+            } catch (Exception e) {
+                logger.debug(() -> new ParameterizedMessage("[{}] failed to read state, restoring it from the metadata journal",
+                    indexMetaData.getIndex()), e);
+                onDisk = null;
+            }
+            if (indexMetaData.equals(onDisk) == false) {
+                writeIndex("journal recovery", indexMetaData);
+                rewritten++;
+            }
+        }
+        // all journaled state is durable in the state files now
+        journal.deleteAll();
+        return rewritten;
+    }
 }
@@ -72,6 +72,7 @@ public class TransportNodesListGatewayStartedShards extends
     private final NodeEnvironment nodeEnv;
     private final IndicesService indicesService;
     private final NamedXContentRegistry namedXContentRegistry;
+    private final BatchedShardLister<NodesGatewayStartedShards, NodeGatewayStartedShards> batchedLister;
 
     @Inject
     public TransportNodesListGatewayStartedShards(Settings settings, ThreadPool threadPool,
@@ -87,6 +88,17 @@ public class TransportNodesListGatewayStartedShards extends
         this.nodeEnv = env;
         this.indicesService = indicesService;
         this.namedXContentRegistry = namedXContentRegistry;
+        this.batchedLister = new BatchedShardLister<>(ACTION_NAME + "[batch]", transportService, threadPool,
+            ThreadPool.Names.FETCH_SHARD_STARTED, this, NodeGatewayStartedShards::new,
+            (responses, failures) -> new NodesGatewayStartedShards(clusterService.getClusterName(), responses, failures),
+            this::nodeOperation);
+    }
+
+    /**
+     * A lister that lists all shards that are requested from the same node between two flushes in a single request.
+     */
+    public BatchedShardLister<NodesGatewayStartedShards, NodeGatewayStartedShards> batchedLister() {
+        return batchedLister;
     }
 
     @Override
@@ -113,11 +125,14 @@ public class TransportNodesListGatewayStartedShards extends
 
     @Override
     protected NodeGatewayStartedShards nodeOperation(NodeRequest request) {
+        return nodeOperation(request.getShardId());
+    }
+
+    private NodeGatewayStartedShards nodeOperation(ShardId shardId) {
         try {
-            final ShardId shardId = request.getShardId();
             logger.trace("{} loading local shard state info", shardId);
             ShardStateMetaData shardStateMetaData = ShardStateMetaData.FORMAT.loadLatestState(logger, namedXContentRegistry,
-                nodeEnv.availableShardPaths(request.shardId));
+                nodeEnv.availableShardPaths(shardId));
             if (shardStateMetaData != null) {
                 IndexMetaData metaData = clusterService.state().metaData().index(shardId.getIndex());
                 if (metaData == null) {
@@ -129,7 +144,7 @@ public class TransportNodesListGatewayStartedShards extends
                 }
                 if (metaData == null) {
                     ElasticsearchException e = new ElasticsearchException("failed to find local IndexMetaData");
-                    e.setShard(request.shardId);
+                    e.setShard(shardId);
                     throw e;
                 }
 
@@ -0,0 +1,195 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.index;
+
+import org.elasticsearch.common.lease.Releasable;
+import org.elasticsearch.common.settings.Setting;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.common.util.concurrent.EsRejectedExecutionException;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Tracks the number of bytes of indexing requests that are in flight on this node, split by the stage of the write
+ * (coordinating, primary and replica), and rejects new requests once the outstanding bytes exceed
+ * {@link #MAX_INDEXING_BYTES}. Rejecting on bytes rather than on the length of the write queue bounds the heap used by
+ * indexing requests regardless of how large the individual bulk requests are.
+ */
+public class IndexingPressure {
+
+    public static final Setting<ByteSizeValue> MAX_INDEXING_BYTES =
+        Setting.memorySizeSetting("indexing_pressure.memory.limit", "10%", Setting.Property.NodeScope);
+
+    private final AtomicLong currentCombinedCoordinatingAndPrimaryBytes = new AtomicLong(0);
+    private final AtomicLong currentCoordinatingBytes = new AtomicLong(0);
+    private final AtomicLong currentPrimaryBytes = new AtomicLong(0);
+    private final AtomicLong currentReplicaBytes = new AtomicLong(0);
+
+    private final AtomicLong totalCombinedCoordinatingAndPrimaryBytes = new AtomicLong(0);
+    private final AtomicLong totalCoordinatingBytes = new AtomicLong(0);
+    private final AtomicLong totalPrimaryBytes = new AtomicLong(0);
+    private final AtomicLong totalReplicaBytes = new AtomicLong(0);
+
+    private final AtomicLong coordinatingRejections = new AtomicLong(0);
+    private final AtomicLong primaryRejections = new AtomicLong(0);
+    private final AtomicLong replicaRejections = new AtomicLong(0);
+
+    private final long primaryAndCoordinatingLimits;
+    private final long replicaLimits;
+
+    public IndexingPressure(Settings settings) {
+        this.primaryAndCoordinatingLimits = MAX_INDEXING_BYTES.get(settings).getBytes();
+        this.replicaLimits = (long) (this.primaryAndCoordinatingLimits * 1.5);
+    }
+
+    /**
+     * Accounts for the bytes of a request that is being coordinated by this node. The returned {@link Releasable} must be
+     * released exactly once when the request completes.
+     *
+     * @throws EsRejectedExecutionException if the bytes would push the node over its limit and {@code forceExecution} is not set
+     */
+    public Releasable markCoordinatingOperationStarted(long bytes, boolean forceExecution) {
+        if (bytes == 0) {
+            return () -> {};
+        }
+        long combinedBytes = this.currentCombinedCoordinatingAndPrimaryBytes.addAndGet(bytes);
+        if (forceExecution == false && combinedBytes > primaryAndCoordinatingLimits) {
+            long bytesWithoutOperation = combinedBytes - bytes;
+            this.currentCombinedCoordinatingAndPrimaryBytes.getAndAdd(-bytes);
+            this.coordinatingRejections.getAndIncrement();
+            throw new EsRejectedExecutionException("rejected execution of coordinating operation [" +
+                "coordinating_and_primary_bytes=" + bytesWithoutOperation + ", " +
+                "coordinating_operation_bytes=" + bytes + ", " +
+                "max_coordinating_and_primary_bytes=" + primaryAndCoordinatingLimits + "]", false);
+        }
+        currentCoordinatingBytes.getAndAdd(bytes);
+        totalCombinedCoordinatingAndPrimaryBytes.getAndAdd(bytes);
+        totalCoordinatingBytes.getAndAdd(bytes);
+        return releaseOnce(() -> {
+            this.currentCombinedCoordinatingAndPrimaryBytes.getAndAdd(-bytes);
+            this.currentCoordinatingBytes.getAndAdd(-bytes);
+        });
+    }
+
+    /**
+     * Accounts for the bytes of a request that is being executed on a primary shard on this node. Primary and coordinating
+     * bytes share the same limit.
+     *
+     * @throws EsRejectedExecutionException if the bytes would push the node over its limit and {@code forceExecution} is not set
+     */
+    public Releasable markPrimaryOperationStarted(long bytes, boolean forceExecution) {
+        if (bytes == 0) {
+            return () -> {};
+        }
+        long combinedBytes = this.currentCombinedCoordinatingAndPrimaryBytes.addAndGet(bytes);
+        if (forceExecution == false && combinedBytes > primaryAndCoordinatingLimits) {
+            long bytesWithoutOperation = combinedBytes - bytes;
+            this.currentCombinedCoordinatingAndPrimaryBytes.getAndAdd(-bytes);
+            this.primaryRejections.getAndIncrement();
+            throw new EsRejectedExecutionException("rejected execution of primary operation [" +
+                "coordinating_and_primary_bytes=" + bytesWithoutOperation + ", " +
+                "primary_operation_bytes=" + bytes + ", " +
+                "max_coordinating_and_primary_bytes=" + primaryAndCoordinatingLimits + "]", false);
+        }
+        currentPrimaryBytes.getAndAdd(bytes);
+        totalCombinedCoordinatingAndPrimaryBytes.getAndAdd(bytes);
+        totalPrimaryBytes.getAndAdd(bytes);
+        return releaseOnce(() -> {
+            this.currentCombinedCoordinatingAndPrimaryBytes.getAndAdd(-bytes);
+            this.currentPrimaryBytes.getAndAdd(-bytes);
+        });
+    }
+
+    /**
+     * Accounts for the bytes of a request that is being executed on a primary shard of the node that coordinates it. These
+     * bytes were already accounted for by {@link #markCoordinatingOperationStarted}, so they only count as primary bytes and
+     * are never rejected.
+     */
+    public Releasable markPrimaryOperationLocalToCoordinatingNodeStarted(long bytes) {
+        if (bytes == 0) {
+            return () -> {};
+        }
+        currentPrimaryBytes.getAndAdd(bytes);
+        totalPrimaryBytes.getAndAdd(bytes);
+        return releaseOnce(() -> this.currentPrimaryBytes.getAndAdd(-bytes));
+    }
+
+    /**
+     * Accounts for the bytes of a request that is being executed on a replica shard on this node. Replicas are allowed
+     * more headroom than primaries since rejecting a replica operation fails the replica shard. A forced operation that
+     * goes over the replica limit is still executed, but counts as a replica rejection in the stats.
+     *
+     * @throws EsRejectedExecutionException if the bytes would push the node over its replica limit and {@code forceExecution}
+     *                                      is not set
+     */
+    public Releasable markReplicaOperationStarted(long bytes, boolean forceExecution) {
+        if (bytes == 0) {
+            return () -> {};
+        }
+        long replicaWriteBytes = this.currentReplicaBytes.addAndGet(bytes);
+        if (replicaWriteBytes > replicaLimits) {
+            this.replicaRejections.getAndIncrement();
+        }
+        if (forceExecution == false && replicaWriteBytes > replicaLimits) {
+            long replicaBytesWithoutOperation = replicaWriteBytes - bytes;
+            this.currentReplicaBytes.getAndAdd(-bytes);
+            throw new EsRejectedExecutionException("rejected execution of replica operation [" +
+                "replica_bytes=" + replicaBytesWithoutOperation + ", " +
+                "replica_operation_bytes=" + bytes + ", " +
+                "max_replica_bytes=" + replicaLimits + "]", false);
+        }
+        totalReplicaBytes.getAndAdd(bytes);
+        return releaseOnce(() -> this.currentReplicaBytes.getAndAdd(-bytes));
+    }
+
+    private static Releasable releaseOnce(Runnable release) {
+        final AtomicBoolean released = new AtomicBoolean(false);
+        return () -> {
+            if (released.compareAndSet(false, true)) {
+                release.run();
+            }
+        };
+    }
+
+    public long getCurrentCombinedCoordinatingAndPrimaryBytes() {
+        return currentCombinedCoordinatingAndPrimaryBytes.get();
+    }
+
+    public long getCurrentCoordinatingBytes() {
+        return currentCoordinatingBytes.get();
+    }
+
+    public long getCurrentPrimaryBytes() {
+        return currentPrimaryBytes.get();
+    }
+
+    public long getCurrentReplicaBytes() {
+        return currentReplicaBytes.get();
+    }
+
+    public IndexingPressureStats stats() {
+        return new IndexingPressureStats(totalCombinedCoordinatingAndPrimaryBytes.get(), totalCoordinatingBytes.get(),
+            totalPrimaryBytes.get(), totalReplicaBytes.get(), currentCombinedCoordinatingAndPrimaryBytes.get(),
+            currentCoordinatingBytes.get(), currentPrimaryBytes.get(), currentReplicaBytes.get(), coordinatingRejections.get(),
+            primaryRejections.get(), replicaRejections.get(), primaryAndCoordinatingLimits);
+    }
+}
@@ -51,6 +51,7 @@ import org.apache.lucene.util.BytesRef;
 import org.apache.lucene.util.BytesRefBuilder;
 import org.apache.lucene.util.Version;
 import org.elasticsearch.ExceptionsHelper;
+import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.UUIDs;
 import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.io.Streams;
@@ -437,9 +438,25 @@ public class Store extends AbstractIndexShardComponent implements Closeable, Ref
      */
     public static MetadataSnapshot readMetadataSnapshot(Path indexLocation, ShardId shardId, NodeEnvironment.ShardLocker shardLocker,
                                                         Logger logger) throws IOException {
+        return readMetadataSnapshot(indexLocation, shardId, shardLocker, logger, null);
+    }
+
+    /**
+     * Like {@link #readMetadataSnapshot(Path, ShardId, NodeEnvironment.ShardLocker, Logger)}, but returns the given previously
+     * read snapshot if the last commit of the index is still the one it was read from, which saves reading the checksums of
+     * all files again.
+     *
+     * @throws IOException if the index we try to read is corrupted
+     */
+    public static MetadataSnapshot readMetadataSnapshot(Path indexLocation, ShardId shardId, NodeEnvironment.ShardLocker shardLocker,
+                                                        Logger logger, @Nullable MetadataSnapshot previous) throws IOException {
         try (ShardLock lock = shardLocker.lock(shardId, TimeUnit.SECONDS.toMillis(5));
              Directory dir = new SimpleFSDirectory(indexLocation)) {
             failIfCorrupted(dir, shardId);
+            if (previous != null && previous.isLastCommit(dir)) {
+                logger.trace("{} reusing previously read metadata snapshot", shardId);
+                return previous;
+            }
             return new MetadataSnapshot(null, dir, logger);
         } catch (IndexNotFoundException ex) {
             // that's fine - happens all the time no need to log
@@ -1061,6 +1078,29 @@ public class Store extends AbstractIndexShardComponent implements Closeable, Ref
             return metadata.containsKey(existingFile);
         }
 
+        /**
+         * Returns whether this snapshot was read from the last commit in the given directory. Only the segments file is checked,
+         * since all other files of a commit are written once and never change.
+         */
+        boolean isLastCommit(Directory directory) {
+            final StoreFileMetaData segmentsFile = getSegmentsFile();
+            if (segmentsFile == null) {
+                return false;
+            }
+            try {
+                if (segmentsFile.name().equals(SegmentInfos.getLastCommitSegmentsFileName(directory.listAll())) == false) {
+                    return false;
+                }
+                try (IndexInput in = directory.openInput(segmentsFile.name(), IOContext.READONCE)) {
+                    return in.length() == segmentsFile.length()
+                        && segmentsFile.checksum().equals(digestToString(CodecUtil.retrieveChecksum(in)));
+                }
+            } catch (IOException e) {
+                // read the snapshot from scratch, which deals with whatever went wrong here
+                return false;
+            }
+        }
+
         /**
          * Returns the segments file that this metadata snapshot represents or null if the snapshot is empty.
          */
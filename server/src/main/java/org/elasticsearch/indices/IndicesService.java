@@ -762,6 +762,12 @@ public class IndicesService extends AbstractLifecycleComponent
 
     private void deleteIndexStoreIfDeletionAllowed(final String reason, final Index index, final IndexSettings indexSettings,
                                                    final IndexDeletionAllowedPredicate predicate) throws IOException {
+        try {
+            // the index state is wiped below whether or not the store can be deleted, a journal replay must not restore it
+            metaStateService.beforeIndexStateDeleted(index);
+        } catch (Exception ex) {
+            logger.warn(() -> new ParameterizedMessage("{} failed to record index deletion in the metadata journal", index), ex);
+        }
         boolean success = false;
         try {
             // we are trying to delete the index store here - not a big deal if the lock can't be obtained
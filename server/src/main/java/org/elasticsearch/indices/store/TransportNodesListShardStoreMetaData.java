@@ -34,15 +34,20 @@ import org.elasticsearch.cluster.metadata.IndexMetaData;
 import org.elasticsearch.cluster.metadata.IndexNameExpressionResolver;
 import org.elasticsearch.cluster.node.DiscoveryNode;
 import org.elasticsearch.cluster.service.ClusterService;
+import org.elasticsearch.common.cache.Cache;
+import org.elasticsearch.common.cache.CacheBuilder;
 import org.elasticsearch.common.inject.Inject;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.io.stream.Streamable;
+import org.elasticsearch.common.settings.Setting;
+import org.elasticsearch.common.settings.Setting.Property;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.common.xcontent.NamedXContentRegistry;
 import org.elasticsearch.env.NodeEnvironment;
 import org.elasticsearch.gateway.AsyncShardFetch;
+import org.elasticsearch.gateway.BatchedShardLister;
 import org.elasticsearch.index.IndexService;
 import org.elasticsearch.index.IndexSettings;
 import org.elasticsearch.index.shard.IndexShard;
@@ -68,10 +73,19 @@ public class TransportNodesListShardStoreMetaData extends TransportNodesAction<T
 
     public static final String ACTION_NAME = "internal:cluster/nodes/indices/shard/store";
 
+    /**
+     * The maximum number of files of which the metadata of shard copies that are not allocated to this node is kept around, so
+     * that listing them again does not need to read the checksums of all their files as long as they were not committed to.
+     */
+    public static final Setting<Integer> METADATA_CACHE_MAX_FILES_SETTING =
+        Setting.intSetting("indices.store.metadata_cache.max_files", 100_000, 0, Property.NodeScope);
+
     private final Settings settings;
     private final IndicesService indicesService;
     private final NodeEnvironment nodeEnv;
     private final NamedXContentRegistry namedXContentRegistry;
+    private final BatchedShardLister<NodesStoreFilesMetaData, NodeStoreFilesMetaData> batchedLister;
+    private final Cache<ShardId, Store.MetadataSnapshot> unallocatedMetaDataCache;
 
     @Inject
     public TransportNodesListShardStoreMetaData(Settings settings, ThreadPool threadPool,
@@ -85,6 +99,21 @@ public class TransportNodesListShardStoreMetaData extends TransportNodesAction<T
         this.indicesService = indicesService;
         this.nodeEnv = nodeEnv;
         this.namedXContentRegistry = namedXContentRegistry;
+        this.batchedLister = new BatchedShardLister<>(ACTION_NAME + "[batch]", transportService, threadPool,
+            ThreadPool.Names.FETCH_SHARD_STORE, this, NodeStoreFilesMetaData::new,
+            (responses, failures) -> new NodesStoreFilesMetaData(clusterService.getClusterName(), responses, failures),
+            this::nodeOperation);
+        this.unallocatedMetaDataCache = CacheBuilder.<ShardId, Store.MetadataSnapshot>builder()
+            .setMaximumWeight(METADATA_CACHE_MAX_FILES_SETTING.get(settings))
+            .weigher((shardId, metadataSnapshot) -> metadataSnapshot.size())
+            .build();
+    }
+
+    /**
+     * A lister that lists all shards that are requested from the same node between two flushes in a single request.
+     */
+    public BatchedShardLister<NodesStoreFilesMetaData, NodeStoreFilesMetaData> batchedLister() {
+        return batchedLister;
     }
 
     @Override
@@ -110,10 +139,14 @@ public class TransportNodesListShardStoreMetaData extends TransportNodesAction<T
 
     @Override
     protected NodeStoreFilesMetaData nodeOperation(NodeRequest request) {
+        return nodeOperation(request.shardId);
+    }
+
+    private NodeStoreFilesMetaData nodeOperation(ShardId shardId) {
         try {
-            return new NodeStoreFilesMetaData(clusterService.localNode(), listStoreMetaData(request.shardId));
+            return new NodeStoreFilesMetaData(clusterService.localNode(), listStoreMetaData(shardId));
         } catch (IOException e) {
-            throw new ElasticsearchException("Failed to list store metadata for shard [" + request.shardId + "]", e);
+            throw new ElasticsearchException("Failed to list store metadata for shard [" + shardId + "]", e);
         }
     }
 
@@ -126,6 +159,7 @@ public class TransportNodesListShardStoreMetaData extends TransportNodesAction<T
             if (indexService != null) {
                 IndexShard indexShard = indexService.getShardOrNull(shardId.id());
                 if (indexShard != null) {
+                    unallocatedMetaDataCache.invalidate(shardId);
                     try {
                         final StoreFilesMetaData storeFilesMetaData = new StoreFilesMetaData(shardId, indexShard.snapshotStoreMetadata());
                         exists = true;
@@ -156,14 +190,21 @@ public class TransportNodesListShardStoreMetaData extends TransportNodesAction<T
                 new IndexSettings(metaData, settings);
             final ShardPath shardPath = ShardPath.loadShardPath(logger, nodeEnv, shardId, indexSettings);
             if (shardPath == null) {
+                unallocatedMetaDataCache.invalidate(shardId);
                 return new StoreFilesMetaData(shardId, Store.MetadataSnapshot.EMPTY);
             }
             // note that this may fail if it can't get access to the shard lock. Since we check above there is an active shard, this means:
             // 1) a shard is being constructed, which means the master will not use a copy of this replica
             // 2) A shard is shutting down and has not cleared it's content within lock timeout. In this case the master may not
             //    reuse local resources.
-            return new StoreFilesMetaData(shardId, Store.readMetadataSnapshot(shardPath.resolveIndex(), shardId,
-                nodeEnv::shardLock, logger));
+            final Store.MetadataSnapshot metadataSnapshot = Store.readMetadataSnapshot(shardPath.resolveIndex(), shardId,
+                nodeEnv::shardLock, logger, unallocatedMetaDataCache.get(shardId));
+            if (metadataSnapshot.size() == 0) {
+                unallocatedMetaDataCache.invalidate(shardId);
+            } else {
+                unallocatedMetaDataCache.put(shardId, metadataSnapshot);
+            }
+            return new StoreFilesMetaData(shardId, metadataSnapshot);
         } finally {
             TimeValue took = new TimeValue(System.nanoTime() - startTimeNS, TimeUnit.NANOSECONDS);
             if (exists) {
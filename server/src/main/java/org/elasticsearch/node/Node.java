@@ -44,6 +44,7 @@ import org.elasticsearch.cluster.ClusterModule;
 import org.elasticsearch.cluster.ClusterName;
 import org.elasticsearch.cluster.ClusterState;
 import org.elasticsearch.cluster.ClusterStateObserver;
+import org.elasticsearch.cluster.DiskUsageReporter;
 import org.elasticsearch.cluster.InternalClusterInfoService;
 import org.elasticsearch.cluster.NodeConnectionsService;
 import org.elasticsearch.cluster.action.index.MappingUpdatedAction;
@@ -99,6 +100,7 @@ import org.elasticsearch.gateway.GatewayService;
 import org.elasticsearch.gateway.MetaStateService;
 import org.elasticsearch.http.HttpServerTransport;
 import org.elasticsearch.index.IndexSettings;
+import org.elasticsearch.index.IndexingPressure;
 import org.elasticsearch.index.analysis.AnalysisRegistry;
 import org.elasticsearch.index.engine.EngineFactory;
 import org.elasticsearch.index.store.IndexStore;
@@ -507,6 +509,17 @@ public abstract class Node implements Closeable {
             final TransportService transportService = newTransportService(settings, transport, threadPool,
                 networkModule.getTransportInterceptor(), localNodeFactory, settingsModule.getClusterSettings(), taskHeaders);
             final ResponseCollectorService responseCollectorService = new ResponseCollectorService(clusterService);
+            final DiskUsageReporter diskUsageReporter = new DiskUsageReporter(settings, clusterService, transportService, threadPool,
+                indicesService, monitorService.fsService(), report -> {
+                    if (clusterInfoService instanceof InternalClusterInfoService) {
+                        ((InternalClusterInfoService) clusterInfoService).onDiskUsageReport(report);
+                    } else {
+                        // rejecting the report makes the node send a full report again rather than diffs nobody applied
+                        throw new IllegalStateException("can't process disk usage report of node [" + report.getNodeId()
+                            + "], the cluster info service doesn't support disk usage reports");
+                    }
+                });
+            final IndexingPressure indexingPressure = new IndexingPressure(settings);
             final SearchTransportService searchTransportService =  new SearchTransportService(transportService,
                 SearchExecutionStatsCollector.makeWrapper(responseCollectorService));
             final Consumer<Binder> httpBind;
@@ -534,7 +547,7 @@ public abstract class Node implements Closeable {
             this.nodeService = new NodeService(settings, threadPool, monitorService, discoveryModule.getDiscovery(),
                 transportService, indicesService, pluginsService, circuitBreakerService, scriptModule.getScriptService(),
                 httpServerTransport, ingestService, clusterService, settingsModule.getSettingsFilter(), responseCollectorService,
-                searchTransportService);
+                searchTransportService, indexingPressure);
 
             final SearchService searchService = newSearchService(clusterService, indicesService,
                 threadPool, scriptModule.getScriptService(), bigArrays, searchModule.getFetchPhase(),
@@ -574,6 +587,7 @@ public abstract class Node implements Closeable {
                     b.bind(MetaDataUpgrader.class).toInstance(metaDataUpgrader);
                     b.bind(MetaStateService.class).toInstance(metaStateService);
                     b.bind(IndicesService.class).toInstance(indicesService);
+                    b.bind(IndexingPressure.class).toInstance(indexingPressure);
                     b.bind(AliasValidator.class).toInstance(aliasValidator);
                     b.bind(MetaDataCreateIndexService.class).toInstance(metaDataCreateIndexService);
                     b.bind(SearchService.class).toInstance(searchService);
@@ -599,6 +613,7 @@ public abstract class Node implements Closeable {
                     pluginComponents.stream().forEach(p -> b.bind((Class) p.getClass()).toInstance(p));
                     b.bind(PersistentTasksService.class).toInstance(persistentTasksService);
                     b.bind(PersistentTasksClusterService.class).toInstance(persistentTasksClusterService);
+                    b.bind(DiskUsageReporter.class).toInstance(diskUsageReporter);
                     b.bind(PersistentTasksExecutorRegistry.class).toInstance(registry);
                 }
             );
@@ -768,6 +783,7 @@ public abstract class Node implements Closeable {
         clusterService.start();
         assert clusterService.localNode().equals(localNodeFactory.getNode())
             : "clusterService has a different local node than the factory provided";
+        injector.getInstance(DiskUsageReporter.class).start();
         transportService.acceptIncomingRequests();
         discovery.startInitialJoin();
         // tribe nodes don't have a master so we shouldn't register an observer         s
@@ -845,6 +861,7 @@ public abstract class Node implements Closeable {
         injector.getInstance(Discovery.class).stop();
         // we close indices first, so operations won't be allowed on it
         injector.getInstance(RoutingService.class).stop();
+        injector.getInstance(DiskUsageReporter.class).stop();
         injector.getInstance(ClusterService.class).stop();
         injector.getInstance(NodeConnectionsService.class).stop();
         nodeService.getMonitorService().stop();
@@ -897,6 +914,7 @@ public abstract class Node implements Closeable {
         toClose.add(injector.getInstance(IndicesStore.class));
         toClose.add(() -> stopWatch.stop().start("routing"));
         toClose.add(injector.getInstance(RoutingService.class));
+        toClose.add(injector.getInstance(DiskUsageReporter.class));
         toClose.add(() -> stopWatch.stop().start("cluster"));
         toClose.add(injector.getInstance(ClusterService.class));
         toClose.add(() -> stopWatch.stop().start("node_connections_service"));
@@ -47,4 +47,13 @@ public interface RestHandler {
     default boolean supportsContentStream() {
         return false;
     }
+
+    /**
+     * Indicates if the RestHandler can handle a request whose content is backed by pooled network buffers. Such buffers are only
+     * guaranteed to stay valid until the response to the request has been sent, so a handler must not hold on to the content (or
+     * slices of it) beyond that point if it returns true. Handlers that return false receive a copy of the content instead.
+     */
+    default boolean allowsUnsafeBuffers() {
+        return false;
+    }
 }
@@ -169,6 +169,14 @@ public abstract class RestRequest implements ToXContent.Params {
 
     protected abstract BytesReference innerContent();
 
+    /**
+     * Makes sure that the content of this request is not backed by pooled network buffers that are released once the response to this
+     * request has been sent, copying it if necessary. Called before the request is passed to a handler that does not
+     * {@link RestHandler#allowsUnsafeBuffers() allow unsafe buffers}.
+     */
+    public void ensureSafeBuffers() {
+    }
+
     /**
      * @return content of the request body or throw an exception if the body or content type is missing
      */
@@ -101,4 +101,10 @@ public class RestBulkAction extends BaseRestHandler {
     public boolean supportsContentStream() {
         return true;
     }
+
+    @Override
+    public boolean allowsUnsafeBuffers() {
+        // the bulk items only reference slices of the content until the bulk response is sent
+        return true;
+    }
 }
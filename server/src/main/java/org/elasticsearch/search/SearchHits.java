@@ -25,6 +25,7 @@ import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.io.stream.Streamable;
+import org.elasticsearch.common.lease.Releasable;
 import org.elasticsearch.common.lucene.Lucene;
 import org.elasticsearch.common.xcontent.ToXContentFragment;
 import org.elasticsearch.common.xcontent.XContentBuilder;
@@ -224,11 +225,13 @@ public final class SearchHits implements Streamable, ToXContentFragment, Iterabl
         int size = in.readVInt();
         if (size == 0) {
             hits = EMPTY;
-        } else {
-            hits = new SearchHit[size];
-            for (int i = 0; i < hits.length; i++) {
-                hits[i] = SearchHit.readSearchHit(in);
+        } else if (in.getVersion().onOrAfter(Version.V_6_8_24)) {
+            // index names and field names are repeated for every hit, node ids are written as text and aren't deduplicated
+            try (Releasable ignored = in.startStringDictionary()) {
+                hits = readHits(in, size);
             }
+        } else {
+            hits = readHits(in, size);
         }
         if (in.getVersion().onOrAfter(Version.V_6_6_0)) {
             sortFields = in.readOptionalArray(Lucene::readSortField, SortField[]::new);
@@ -253,8 +256,12 @@ public final class SearchHits implements Streamable, ToXContentFragment, Iterabl
         out.writeFloat(maxScore);
         out.writeVInt(hits.length);
         if (hits.length > 0) {
-            for (SearchHit hit : hits) {
-                hit.writeTo(out);
+            if (out.getVersion().onOrAfter(Version.V_6_8_24)) {
+                try (Releasable ignored = out.startStringDictionary()) {
+                    writeHits(out);
+                }
+            } else {
+                writeHits(out);
             }
         }
         if (out.getVersion().onOrAfter(Version.V_6_6_0)) {
@@ -264,6 +271,20 @@ public final class SearchHits implements Streamable, ToXContentFragment, Iterabl
         }
     }
 
+    private static SearchHit[] readHits(StreamInput in, int size) throws IOException {
+        SearchHit[] hits = new SearchHit[size];
+        for (int i = 0; i < hits.length; i++) {
+            hits[i] = SearchHit.readSearchHit(in);
+        }
+        return hits;
+    }
+
+    private void writeHits(StreamOutput out) throws IOException {
+        for (SearchHit hit : hits) {
+            hit.writeTo(out);
+        }
+    }
+
     @Override
     public boolean equals(Object obj) {
         if (obj == null || getClass() != obj.getClass()) {
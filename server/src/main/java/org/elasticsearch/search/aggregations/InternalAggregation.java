@@ -26,6 +26,7 @@ import org.elasticsearch.common.util.BigArrays;
 import org.elasticsearch.common.xcontent.XContentBuilder;
 import org.elasticsearch.rest.action.search.RestSearchAction;
 import org.elasticsearch.script.ScriptService;
+import org.elasticsearch.search.aggregations.pipeline.BucketHelpers;
 import org.elasticsearch.search.aggregations.pipeline.PipelineAggregator;
 import org.elasticsearch.search.aggregations.support.AggregationPath;
 
@@ -105,14 +106,14 @@ public abstract class InternalAggregation implements Aggregation, NamedWriteable
      * Read from a stream.
      */
     protected InternalAggregation(StreamInput in) throws IOException {
-        name = in.readString();
+        name = in.readSharedString();
         metaData = in.readMap();
         pipelineAggregators = in.readNamedWriteableList(PipelineAggregator.class);
     }
 
     @Override
     public final void writeTo(StreamOutput out) throws IOException {
-        out.writeString(name);
+        out.writeSharedString(name);
         out.writeGenericValue(metaData);
         out.writeNamedWriteableList(pipelineAggregators);
         doWriteTo(out);
@@ -134,9 +135,7 @@ public abstract class InternalAggregation implements Aggregation, NamedWriteable
     public final InternalAggregation reduce(List<InternalAggregation> aggregations, ReduceContext reduceContext) {
         InternalAggregation aggResult = doReduce(aggregations, reduceContext);
         if (reduceContext.isFinalReduce()) {
-            for (PipelineAggregator pipelineAggregator : pipelineAggregators) {
-                aggResult = pipelineAggregator.reduce(aggResult, reduceContext);
-            }
+            aggResult = BucketHelpers.reducePipelines(aggResult, pipelineAggregators, reduceContext);
         }
         return aggResult;
     }
@@ -22,6 +22,7 @@ import org.elasticsearch.Version;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.io.stream.Streamable;
+import org.elasticsearch.common.lease.Releasable;
 import org.elasticsearch.search.aggregations.InternalAggregation.ReduceContext;
 import org.elasticsearch.search.aggregations.pipeline.PipelineAggregator;
 import org.elasticsearch.search.aggregations.pipeline.SiblingPipelineAggregator;
@@ -146,6 +147,17 @@ public final class InternalAggregations extends Aggregations implements Streamab
 
     @Override
     public void readFrom(StreamInput in) throws IOException {
+        if (in.getVersion().onOrAfter(Version.V_6_8_24)) {
+            // aggregation names and types are repeated for every bucket of a multi-bucket aggregation
+            try (Releasable ignored = in.startStringDictionary()) {
+                doReadFrom(in);
+            }
+        } else {
+            doReadFrom(in);
+        }
+    }
+
+    private void doReadFrom(StreamInput in) throws IOException {
         aggregations = in.readList(stream -> in.readNamedWriteable(InternalAggregation.class));
         if (aggregations.isEmpty()) {
             aggregationsAsMap = emptyMap();
@@ -159,8 +171,18 @@ public final class InternalAggregations extends Aggregations implements Streamab
     }
 
     @Override
-    @SuppressWarnings("unchecked")
     public void writeTo(StreamOutput out) throws IOException {
+        if (out.getVersion().onOrAfter(Version.V_6_8_24)) {
+            try (Releasable ignored = out.startStringDictionary()) {
+                doWriteTo(out);
+            }
+        } else {
+            doWriteTo(out);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void doWriteTo(StreamOutput out) throws IOException {
         out.writeNamedWriteableList((List<InternalAggregation>)aggregations);
         if (out.getVersion().onOrAfter(Version.V_6_7_0)) {
             out.writeNamedWriteableList(topLevelPipelineAggregators);
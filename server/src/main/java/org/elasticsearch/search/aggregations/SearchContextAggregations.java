@@ -18,6 +18,9 @@
  */
 package org.elasticsearch.search.aggregations;
 
+import org.elasticsearch.common.Nullable;
+import org.elasticsearch.search.aggregations.bucket.significant.SignificantTermsBackgroundCache;
+
 import static org.elasticsearch.search.aggregations.MultiBucketConsumerService.MultiBucketConsumer;
 
 /**
@@ -27,14 +30,25 @@ public class SearchContextAggregations {
 
     private final AggregatorFactories factories;
     private final MultiBucketConsumer multiBucketConsumer;
+    private final SignificantTermsBackgroundCache significantTermsBackgroundCache;
     private Aggregator[] aggregators;
 
     /**
      * Creates a new aggregation context with the parsed aggregator factories
      */
     public SearchContextAggregations(AggregatorFactories factories, MultiBucketConsumer multiBucketConsumer) {
+        this(factories, multiBucketConsumer, null);
+    }
+
+    /**
+     * Creates a new aggregation context with the parsed aggregator factories and the node level
+     * cache for significant terms background frequencies
+     */
+    public SearchContextAggregations(AggregatorFactories factories, MultiBucketConsumer multiBucketConsumer,
+                                     @Nullable SignificantTermsBackgroundCache significantTermsBackgroundCache) {
         this.factories = factories;
         this.multiBucketConsumer = multiBucketConsumer;
+        this.significantTermsBackgroundCache = significantTermsBackgroundCache;
     }
 
     public AggregatorFactories factories() {
@@ -62,6 +76,14 @@ public class SearchContextAggregations {
         return multiBucketConsumer;
     }
 
+    /**
+     * Returns the cache for significant terms background frequencies or null if frequencies cannot be cached
+     */
+    @Nullable
+    public SignificantTermsBackgroundCache significantTermsBackgroundCache() {
+        return significantTermsBackgroundCache;
+    }
+
     void resetBucketMultiConsumer() {
         multiBucketConsumer.reset();
     }
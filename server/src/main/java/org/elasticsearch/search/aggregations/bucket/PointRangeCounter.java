@@ -0,0 +1,304 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.search.aggregations.bucket;
+
+import org.apache.lucene.document.LongPoint;
+import org.apache.lucene.index.IndexOptions;
+import org.apache.lucene.index.LeafReader;
+import org.apache.lucene.index.PointValues;
+import org.apache.lucene.search.BoostQuery;
+import org.apache.lucene.search.ConstantScoreQuery;
+import org.apache.lucene.search.IndexOrDocValuesQuery;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.PointRangeQuery;
+import org.apache.lucene.search.Query;
+import org.elasticsearch.common.Nullable;
+import org.elasticsearch.index.mapper.DateFieldMapper;
+import org.elasticsearch.index.mapper.MappedFieldType;
+import org.elasticsearch.index.mapper.NumberFieldMapper;
+import org.elasticsearch.search.aggregations.Aggregator;
+import org.elasticsearch.search.aggregations.AggregatorFactories;
+import org.elasticsearch.search.aggregations.support.FieldContext;
+import org.elasticsearch.search.aggregations.support.ValuesSourceConfig;
+import org.elasticsearch.search.internal.SearchContext;
+
+import java.io.IOException;
+import java.util.function.BiConsumer;
+
+/**
+ * Counts the documents of a segment whose value of a {@code long} or {@code date} field falls in a set of ranges by intersecting
+ * the ranges with the points of the field, instead of collecting the matching documents one by one and reading their doc values.
+ * <p>
+ * This "filter by filter" execution only gives the right counts under a number of conditions that {@link #build} checks: the
+ * aggregation must be a top level aggregation without sub-aggregations, and the query must either match all documents or be a
+ * range on the same field. Each segment must additionally have no deleted documents and a single value per document, otherwise
+ * {@link #segment} returns {@code null} and its documents must be collected as usual.
+ */
+public final class PointRangeCounter {
+
+    /**
+     * The maximum number of ranges to count in a single segment, segments that need more are collected.
+     */
+    public static final int MAX_RANGES = 1024;
+
+    /**
+     * The estimated cost of counting a range on top of visiting the points it contains. Each bound of a range usually falls in
+     * a leaf of the BKD tree whose points have to be compared one by one, and leaves hold up to 1024 points.
+     */
+    static final long COST_PER_RANGE = 2 * 1024;
+
+    private final String field;
+    private final long queryFrom;
+    private final long queryTo;
+
+    private int segments;
+    private int segmentsCounted;
+    private long rangesCounted;
+
+    private PointRangeCounter(String field, long queryFrom, long queryTo) {
+        this.field = field;
+        this.queryFrom = queryFrom;
+        this.queryTo = queryTo;
+    }
+
+    /**
+     * Returns a counter for the field of the given values source config if the documents collected by an aggregator with the given
+     * parent and sub-aggregations can be counted from points, {@code null} otherwise.
+     */
+    @Nullable
+    public static PointRangeCounter build(SearchContext context, ValuesSourceConfig<?> config, @Nullable Aggregator parent,
+                                          AggregatorFactories subAggregations) {
+        if (parent != null || subAggregations.countAggregators() > 0) {
+            return null;
+        }
+        if (config.script() != null || config.missing() != null) {
+            return null;
+        }
+        final FieldContext fieldContext = config.fieldContext();
+        if (fieldContext == null || hasLongPoints(fieldContext.fieldType()) == false) {
+            return null;
+        }
+        if (context.minimumScore() != null || context.terminateAfter() != SearchContext.DEFAULT_TERMINATE_AFTER) {
+            return null;
+        }
+        Query query = context.query();
+        while (true) {
+            if (query instanceof ConstantScoreQuery) {
+                query = ((ConstantScoreQuery) query).getQuery();
+            } else if (query instanceof BoostQuery) {
+                query = ((BoostQuery) query).getQuery();
+            } else if (query instanceof IndexOrDocValuesQuery) {
+                query = ((IndexOrDocValuesQuery) query).getIndexQuery();
+            } else {
+                break;
+            }
+        }
+        if (query instanceof MatchAllDocsQuery) {
+            return new PointRangeCounter(fieldContext.field(), Long.MIN_VALUE, Long.MAX_VALUE);
+        }
+        if (query instanceof PointRangeQuery) {
+            final PointRangeQuery rangeQuery = (PointRangeQuery) query;
+            if (rangeQuery.getField().equals(fieldContext.field())
+                    && rangeQuery.getNumDims() == 1 && rangeQuery.getBytesPerDim() == Long.BYTES) {
+                return new PointRangeCounter(fieldContext.field(),
+                        LongPoint.decodeDimension(rangeQuery.getLowerPoint(), 0), LongPoint.decodeDimension(rangeQuery.getUpperPoint(), 0));
+            }
+        }
+        return null;
+    }
+
+    private static boolean hasLongPoints(MappedFieldType fieldType) {
+        if (fieldType.indexOptions() == IndexOptions.NONE) {
+            return false;
+        }
+        return fieldType instanceof DateFieldMapper.DateFieldType
+                || (fieldType instanceof NumberFieldMapper.NumberFieldType && NumberFieldMapper.NumberType.LONG.typeName().equals(
+                        fieldType.typeName()));
+    }
+
+    /**
+     * Returns the {@link Segment} to count the documents of the given segment from, or {@code null} if its documents must be
+     * collected.
+     */
+    @Nullable
+    public Segment segment(LeafReader reader) throws IOException {
+        segments++;
+        if (reader.getLiveDocs() != null) {
+            // deleted documents still have their points
+            return null;
+        }
+        final PointValues values = reader.getPointValues(field);
+        if (values == null) {
+            // either no document has a value or the field isn't indexed in this segment
+            return null;
+        }
+        if (values.getNumDimensions() != 1 || values.getBytesPerDimension() != Long.BYTES || values.getDocCount() != values.size()) {
+            // a document with several values would be counted once per value
+            return null;
+        }
+        final long min = Math.max(LongPoint.decodeDimension(values.getMinPackedValue(), 0), queryFrom);
+        final long max = Math.min(LongPoint.decodeDimension(values.getMaxPackedValue(), 0), queryTo);
+        final long pointCount;
+        if (min > max) {
+            pointCount = 0;
+        } else if (queryFrom == Long.MIN_VALUE && queryTo == Long.MAX_VALUE) {
+            pointCount = values.size();
+        } else {
+            pointCount = values.estimatePointCount(new CountingVisitor(new long[] { min }, new long[] { max }, 1));
+        }
+        return new Segment(values, min, max, pointCount);
+    }
+
+    /**
+     * Adds how documents were counted to the debug information of the profile of an aggregation, {@code counter} is {@code null}
+     * if the aggregation doesn't qualify for counting from points.
+     */
+    public static void collectDebugInfo(@Nullable PointRangeCounter counter, BiConsumer<String, Object> add) {
+        if (counter == null) {
+            add.accept("execution_mode", "collect");
+        } else {
+            add.accept("execution_mode", "filter_by_filter");
+            add.accept("segments_counted_from_points", counter.segmentsCounted);
+            add.accept("segments_collected", counter.segments - counter.segmentsCounted);
+            add.accept("ranges_counted", counter.rangesCounted);
+        }
+    }
+
+    /**
+     * The points of the field in a segment that can be counted from.
+     */
+    public final class Segment {
+
+        private final PointValues values;
+        private final long min;
+        private final long max;
+        private final long pointCount;
+
+        private Segment(PointValues values, long min, long max, long pointCount) {
+            this.values = values;
+            this.min = min;
+            this.max = max;
+            this.pointCount = pointCount;
+        }
+
+        /**
+         * The minimum value of the documents that match the query in this segment, greater than {@link #max()} if there are none.
+         */
+        public long min() {
+            return min;
+        }
+
+        /**
+         * The maximum value of the documents that match the query in this segment, smaller than {@link #min()} if there are none.
+         */
+        public long max() {
+            return max;
+        }
+
+        /**
+         * Returns whether counting the given number of ranges is expected to be cheaper than collecting the matching documents.
+         */
+        public boolean isCheaperThanCollecting(int numRanges) {
+            return numRanges <= MAX_RANGES && numRanges * COST_PER_RANGE <= pointCount;
+        }
+
+        /**
+         * Counts the documents whose value falls in each of the first {@code numRanges} ranges, which are sorted, don't overlap
+         * and include both their bounds. All ranges must be between {@link #min()} and {@link #max()}.
+         */
+        public long[] count(long[] from, long[] to, int numRanges) throws IOException {
+            assert numRanges == 0 || (from[0] >= min && to[numRanges - 1] <= max);
+            segmentsCounted++;
+            rangesCounted += numRanges;
+            final CountingVisitor visitor = new CountingVisitor(from, to, numRanges);
+            if (numRanges > 0) {
+                values.intersect(visitor);
+            }
+            return visitor.counts;
+        }
+    }
+
+    /**
+     * Counts points per range in a single traversal of the BKD tree. Cells that are fully contained in a range are visited
+     * without decoding their values.
+     */
+    private static final class CountingVisitor implements PointValues.IntersectVisitor {
+
+        private final long[] from;
+        private final long[] to;
+        private final int numRanges;
+        private final long[] counts;
+        // the range that contains the cell whose documents are being visited
+        private int current = -1;
+
+        CountingVisitor(long[] from, long[] to, int numRanges) {
+            for (int i = 0; i < numRanges; ++i) {
+                assert from[i] <= to[i] && (i == 0 || to[i - 1] < from[i]) : "ranges must be sorted and must not overlap";
+            }
+            this.from = from;
+            this.to = to;
+            this.numRanges = numRanges;
+            this.counts = new long[numRanges];
+        }
+
+        @Override
+        public void visit(int docID) {
+            counts[current]++;
+        }
+
+        @Override
+        public void visit(int docID, byte[] packedValue) {
+            final long value = LongPoint.decodeDimension(packedValue, 0);
+            final int range = firstRangeEndingAtOrAfter(value);
+            if (range < numRanges && from[range] <= value) {
+                counts[range]++;
+            }
+        }
+
+        @Override
+        public PointValues.Relation compare(byte[] minPackedValue, byte[] maxPackedValue) {
+            final long cellMin = LongPoint.decodeDimension(minPackedValue, 0);
+            final long cellMax = LongPoint.decodeDimension(maxPackedValue, 0);
+            final int range = firstRangeEndingAtOrAfter(cellMin);
+            if (range == numRanges || from[range] > cellMax) {
+                return PointValues.Relation.CELL_OUTSIDE_QUERY;
+            }
+            if (from[range] <= cellMin && cellMax <= to[range]) {
+                current = range;
+                return PointValues.Relation.CELL_INSIDE_QUERY;
+            }
+            return PointValues.Relation.CELL_CROSSES_QUERY;
+        }
+
+        private int firstRangeEndingAtOrAfter(long value) {
+            int lo = 0;
+            int hi = numRanges;
+            while (lo < hi) {
+                final int mid = (lo + hi) >>> 1;
+                if (to[mid] < value) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            return lo;
+        }
+    }
+}
@@ -20,13 +20,21 @@
 package org.elasticsearch.search.aggregations.bucket.composite;
 
 import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.DocValues;
 import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.LeafReader;
 import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.SortedNumericDocValues;
+import org.apache.lucene.index.SortedSetDocValues;
 import org.apache.lucene.search.CollectionTerminatedException;
 import org.apache.lucene.search.DocIdSet;
 import org.apache.lucene.search.DocIdSetIterator;
 import org.apache.lucene.search.Query;
 import org.apache.lucene.search.Scorer;
+import org.apache.lucene.search.Sort;
+import org.apache.lucene.search.SortField;
+import org.apache.lucene.search.SortedNumericSortField;
+import org.apache.lucene.search.SortedSetSortField;
 import org.apache.lucene.search.Weight;
 import org.apache.lucene.util.RoaringDocIdSet;
 import org.elasticsearch.common.lease.Releasables;
@@ -63,6 +71,7 @@ final class CompositeAggregator extends BucketsAggregator {
     private final int[] reverseMuls;
     private final List<DocValueFormat> formats;
 
+    private final CompositeValuesSourceConfig[] sourceConfigs;
     private final SingleDimensionValuesSource<?>[] sources;
     private final CompositeValuesCollectorQueue queue;
 
@@ -79,6 +88,7 @@ final class CompositeAggregator extends BucketsAggregator {
         this.sourceNames = Arrays.stream(sourceConfigs).map(CompositeValuesSourceConfig::name).collect(Collectors.toList());
         this.reverseMuls = Arrays.stream(sourceConfigs).mapToInt(CompositeValuesSourceConfig::reverseMul).toArray();
         this.formats = Arrays.stream(sourceConfigs).map(CompositeValuesSourceConfig::format).collect(Collectors.toList());
+        this.sourceConfigs = sourceConfigs;
         this.sources = new SingleDimensionValuesSource[sourceConfigs.length];
         // check that the provided size is not greater than the search.max_buckets setting
         int bucketLimit = context.aggregations().multiBucketConsumer().getLimit();
@@ -161,7 +171,8 @@ final class CompositeAggregator extends BucketsAggregator {
     protected LeafBucketCollector getLeafCollector(LeafReaderContext ctx, LeafBucketCollector sub) throws IOException {
         finishLeaf();
         boolean fillDocIdSet = deferredCollectors != NO_OP_COLLECTOR;
-        if (sortedDocsProducer != null) {
+        final int indexSortSourcePrefix = indexSortSourcePrefix(ctx);
+        if (sortedDocsProducer != null && indexSortSourcePrefix == 0) {
             /*
               The producer will visit documents sorted by the leading source of the composite definition
               and terminates when the leading source value is guaranteed to be greater than the lowest
@@ -183,7 +194,8 @@ final class CompositeAggregator extends BucketsAggregator {
                 currentLeaf = ctx;
                 docIdSetBuilder = new RoaringDocIdSet.Builder(ctx.reader().maxDoc());
             }
-            final LeafBucketCollector inner = queue.getLeafCollector(ctx, getFirstPassCollector(docIdSetBuilder));
+            final LeafBucketCollector inner = queue.getLeafCollector(ctx,
+                getFirstPassCollector(docIdSetBuilder, indexSortSourcePrefix));
             return new LeafBucketCollector() {
                 @Override
                 public void collect(int doc, long zeroBucket) throws IOException {
@@ -194,16 +206,65 @@ final class CompositeAggregator extends BucketsAggregator {
         }
     }
 
+    /**
+     * Returns the number of leading sources that extract their values from the fields that the documents
+     * of the provided segment are sorted on, in the same order. The collection of the segment can be
+     * terminated as soon as a key that sorts after the top of the full queue on one of these sources is found.
+     */
+    private int indexSortSourcePrefix(LeafReaderContext ctx) throws IOException {
+        if (parent != null) {
+            // terminating the collection of the segment would also terminate the parent aggregation
+            return 0;
+        }
+        Sort indexSort = ctx.reader().getMetaData().getSort();
+        if (indexSort == null) {
+            return 0;
+        }
+        SortField[] sortFields = indexSort.getSort();
+        int end = Math.min(sortFields.length, sourceConfigs.length);
+        int prefix = 0;
+        for (int i = 0; i < end; i++) {
+            CompositeValuesSourceConfig config = sourceConfigs[i];
+            SortField sortField = sortFields[i];
+            if (config.fieldType() == null
+                    || config.hasScript()
+                    || config.missingBucket()
+                    || config.missing() != null
+                    || config.fieldType().name().equals(sortField.getField()) == false
+                    || sortField.getReverse() != (config.reverseMul() == -1)
+                    || isSingleValued(ctx.reader(), sortField) == false) {
+                break;
+            }
+            prefix++;
+            if (config.valuesSource() instanceof RoundingValuesSource || config.valuesSource() instanceof HistogramValuesSource) {
+                // documents that fall in the same bucket are not sorted by the next sources
+                break;
+            }
+        }
+        return prefix;
+    }
+
+    private static boolean isSingleValued(LeafReader reader, SortField sortField) throws IOException {
+        if (sortField instanceof SortedNumericSortField) {
+            SortedNumericDocValues values = reader.getSortedNumericDocValues(sortField.getField());
+            return values == null || DocValues.unwrapSingleton(values) != null;
+        } else if (sortField instanceof SortedSetSortField) {
+            SortedSetDocValues values = reader.getSortedSetDocValues(sortField.getField());
+            return values == null || DocValues.unwrapSingleton(values) != null;
+        }
+        return false;
+    }
+
     /**
      * The first pass selects the top composite buckets from all matching documents.
      */
-    private LeafBucketCollector getFirstPassCollector(RoaringDocIdSet.Builder builder) {
+    private LeafBucketCollector getFirstPassCollector(RoaringDocIdSet.Builder builder, int indexSortSourcePrefix) {
         return new LeafBucketCollector() {
             int lastDoc = -1;
 
             @Override
             public void collect(int doc, long bucket) throws IOException {
-                int slot = queue.addIfCompetitive();
+                int slot = queue.addIfCompetitive(indexSortSourcePrefix);
                 if (slot != -1) {
                     if (builder != null && lastDoc != doc) {
                         builder.add(doc);
@@ -20,6 +20,8 @@ package org.elasticsearch.search.aggregations.bucket.histogram;
 
 import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.index.SortedNumericDocValues;
+import org.apache.lucene.search.CollectionTerminatedException;
+import org.apache.lucene.util.ArrayUtil;
 import org.apache.lucene.util.CollectionUtil;
 import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.lease.Releasables;
@@ -34,6 +36,7 @@ import org.elasticsearch.search.aggregations.InternalOrder;
 import org.elasticsearch.search.aggregations.LeafBucketCollector;
 import org.elasticsearch.search.aggregations.LeafBucketCollectorBase;
 import org.elasticsearch.search.aggregations.bucket.BucketsAggregator;
+import org.elasticsearch.search.aggregations.bucket.PointRangeCounter;
 import org.elasticsearch.search.aggregations.pipeline.PipelineAggregator;
 import org.elasticsearch.search.aggregations.support.ValuesSource;
 import org.elasticsearch.search.internal.SearchContext;
@@ -43,6 +46,7 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.function.BiConsumer;
 
 /**
  * An aggregator for date values. Every date is rounded down using a configured
@@ -55,7 +59,7 @@ class DateHistogramAggregator extends BucketsAggregator {
     private final ValuesSource.Numeric valuesSource;
     private final DocValueFormat formatter;
     private final Rounding rounding;
-    private final Rounding shardRounding;
+    private final Rounding.Prepared shardRounding;
     private final BucketOrder order;
     private final boolean keyed;
 
@@ -65,10 +69,13 @@ class DateHistogramAggregator extends BucketsAggregator {
     private final LongHash bucketOrds;
     private long offset;
 
-    DateHistogramAggregator(String name, AggregatorFactories factories, Rounding rounding, Rounding shardRounding,
+    @Nullable
+    private final PointRangeCounter pointRangeCounter;
+
+    DateHistogramAggregator(String name, AggregatorFactories factories, Rounding rounding, Rounding.Prepared shardRounding,
             long offset, BucketOrder order, boolean keyed,
             long minDocCount, @Nullable ExtendedBounds extendedBounds, @Nullable ValuesSource.Numeric valuesSource,
-            DocValueFormat formatter, SearchContext aggregationContext,
+            DocValueFormat formatter, @Nullable PointRangeCounter pointRangeCounter, SearchContext aggregationContext,
             Aggregator parent, List<PipelineAggregator> pipelineAggregators, Map<String, Object> metaData) throws IOException {
 
         super(name, factories, aggregationContext, parent, pipelineAggregators, metaData);
@@ -81,6 +88,7 @@ class DateHistogramAggregator extends BucketsAggregator {
         this.extendedBounds = extendedBounds;
         this.valuesSource = valuesSource;
         this.formatter = formatter;
+        this.pointRangeCounter = pointRangeCounter;
 
         bucketOrds = new LongHash(1, aggregationContext.bigArrays());
     }
@@ -96,6 +104,12 @@ class DateHistogramAggregator extends BucketsAggregator {
         if (valuesSource == null) {
             return LeafBucketCollector.NO_OP_COLLECTOR;
         }
+        if (pointRangeCounter != null) {
+            final PointRangeCounter.Segment segment = pointRangeCounter.segment(ctx.reader());
+            if (segment != null && countFromPoints(segment)) {
+                throw new CollectionTerminatedException();
+            }
+        }
         final SortedNumericDocValues values = valuesSource.longValues(ctx);
         return new LeafBucketCollectorBase(sub, values) {
             @Override
@@ -128,6 +142,57 @@ class DateHistogramAggregator extends BucketsAggregator {
         };
     }
 
+    /**
+     * Counts the documents of the segment per bucket from the points of the field, returns {@code false} if they must be
+     * collected instead.
+     */
+    private boolean countFromPoints(PointRangeCounter.Segment segment) throws IOException {
+        long[] keys = new long[0];
+        long[] from = new long[0];
+        long[] to = new long[0];
+        int numRanges = 0;
+        if (segment.min() <= segment.max()) {
+            long key = shardRounding.round(segment.min() - offset) + offset;
+            while (key <= segment.max()) {
+                if (numRanges == PointRangeCounter.MAX_RANGES) {
+                    return false;
+                }
+                final long next = rounding.nextRoundingValue(key - offset) + offset;
+                if (next <= key) {
+                    return false;
+                }
+                final long rangeFrom = Math.max(key, segment.min());
+                final long rangeTo = Math.min(next - 1, segment.max());
+                // rounding is monotonic, so all values of the range round to the key if its bounds do
+                if (shardRounding.round(rangeFrom - offset) + offset != key || shardRounding.round(rangeTo - offset) + offset != key) {
+                    return false;
+                }
+                keys = ArrayUtil.grow(keys, numRanges + 1);
+                from = ArrayUtil.grow(from, numRanges + 1);
+                to = ArrayUtil.grow(to, numRanges + 1);
+                keys[numRanges] = key;
+                from[numRanges] = rangeFrom;
+                to[numRanges] = rangeTo;
+                numRanges++;
+                key = next;
+            }
+            if (segment.isCheaperThanCollecting(numRanges) == false) {
+                return false;
+            }
+        }
+        final long[] counts = segment.count(from, to, numRanges);
+        for (int i = 0; i < numRanges; i++) {
+            if (counts[i] > 0) {
+                long bucketOrd = bucketOrds.add(keys[i]);
+                if (bucketOrd < 0) { // already seen
+                    bucketOrd = -1 - bucketOrd;
+                }
+                incrementBucketDocCount(bucketOrd, Math.toIntExact(counts[i]));
+            }
+        }
+        return true;
+    }
+
     @Override
     public InternalAggregation buildAggregation(long owningBucketOrdinal) throws IOException {
         assert owningBucketOrdinal == 0;
@@ -159,6 +224,11 @@ class DateHistogramAggregator extends BucketsAggregator {
                 pipelineAggregators(), metaData());
     }
 
+    @Override
+    public void collectDebugInfo(BiConsumer<String, Object> add) {
+        PointRangeCounter.collectDebugInfo(pointRangeCounter, add);
+    }
+
     @Override
     public void doClose() {
         Releasables.close(bucketOrds);
@@ -19,12 +19,18 @@
 
 package org.elasticsearch.search.aggregations.bucket.histogram;
 
+import org.apache.lucene.document.LongPoint;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.PointValues;
 import org.elasticsearch.common.rounding.Rounding;
+import org.elasticsearch.index.mapper.DateFieldMapper;
 import org.elasticsearch.search.aggregations.Aggregator;
 import org.elasticsearch.search.aggregations.AggregatorFactories;
 import org.elasticsearch.search.aggregations.AggregatorFactory;
 import org.elasticsearch.search.aggregations.pipeline.PipelineAggregator;
 import org.elasticsearch.search.aggregations.BucketOrder;
+import org.elasticsearch.search.aggregations.bucket.PointRangeCounter;
+import org.elasticsearch.search.aggregations.support.FieldContext;
 import org.elasticsearch.search.aggregations.support.ValuesSource;
 import org.elasticsearch.search.aggregations.support.ValuesSource.Numeric;
 import org.elasticsearch.search.aggregations.support.ValuesSourceAggregatorFactory;
@@ -45,6 +51,7 @@ public final class DateHistogramAggregatorFactory
     private final ExtendedBounds extendedBounds;
     private final Rounding rounding;
     private final Rounding shardRounding;
+    private Rounding.Prepared preparedShardRounding;
 
     public DateHistogramAggregatorFactory(String name, ValuesSourceConfig<Numeric> config,
             long offset, BucketOrder order, boolean keyed, long minDocCount,
@@ -76,8 +83,34 @@ public final class DateHistogramAggregatorFactory
 
     private Aggregator createAggregator(ValuesSource.Numeric valuesSource, Aggregator parent, List<PipelineAggregator> pipelineAggregators,
             Map<String, Object> metaData) throws IOException {
-        return new DateHistogramAggregator(name, factories, rounding, shardRounding, offset, order, keyed, minDocCount, extendedBounds,
-                valuesSource, config.format(), context, parent, pipelineAggregators, metaData);
+        if (preparedShardRounding == null) {
+            // prepared once and shared by all aggregators that this factory creates
+            preparedShardRounding = prepareRounding(shardRounding, offset, config, context);
+        }
+        final PointRangeCounter pointRangeCounter = valuesSource == null
+                ? null
+                : PointRangeCounter.build(context, config, parent, factories);
+        return new DateHistogramAggregator(name, factories, rounding, preparedShardRounding, offset, order, keyed, minDocCount,
+                extendedBounds, valuesSource, config.format(), pointRangeCounter, context, parent, pipelineAggregators, metaData);
+    }
+
+    /**
+     * Prepares the rounding for the range of values that the date field of the given config holds on this shard, according to its
+     * points, see {@link Rounding#prepare(long, long)}. Values are expected to be rounded after subtracting the {@code offset}.
+     */
+    public static Rounding.Prepared prepareRounding(Rounding rounding, long offset, ValuesSourceConfig<?> config,
+                                                    SearchContext context) throws IOException {
+        final FieldContext fieldContext = config.fieldContext();
+        if (fieldContext != null && fieldContext.fieldType() instanceof DateFieldMapper.DateFieldType) {
+            final IndexReader reader = context.searcher().getIndexReader();
+            final String field = fieldContext.field();
+            if (PointValues.size(reader, field) > 0) {
+                final long min = LongPoint.decodeDimension(PointValues.getMinPackedValue(reader, field), 0);
+                final long max = LongPoint.decodeDimension(PointValues.getMaxPackedValue(reader, field), 0);
+                return rounding.prepare(min - offset, max - offset);
+            }
+        }
+        return rounding::round;
     }
 
     @Override
@@ -74,7 +74,7 @@ public class GeoDistanceRangeAggregatorFactory
     protected Aggregator doCreateInternal(final ValuesSource.GeoPoint valuesSource, Aggregator parent, boolean collectsFromSingleBucket,
             List<PipelineAggregator> pipelineAggregators, Map<String, Object> metaData) throws IOException {
         DistanceSource distanceSource = new DistanceSource(valuesSource, distanceType, origin, unit);
-        return new RangeAggregator(name, factories, distanceSource, config.format(), rangeFactory, ranges, keyed, context,
+        return new RangeAggregator(name, factories, distanceSource, config.format(), rangeFactory, ranges, keyed, null, context,
                 parent,
                 pipelineAggregators, metaData);
     }
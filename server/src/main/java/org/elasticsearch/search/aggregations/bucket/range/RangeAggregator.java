@@ -19,6 +19,8 @@
 package org.elasticsearch.search.aggregations.bucket.range;
 
 import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.search.CollectionTerminatedException;
+import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.ParseField;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
@@ -38,6 +40,7 @@ import org.elasticsearch.search.aggregations.LeafBucketCollector;
 import org.elasticsearch.search.aggregations.LeafBucketCollectorBase;
 import org.elasticsearch.search.aggregations.NonCollectingAggregator;
 import org.elasticsearch.search.aggregations.bucket.BucketsAggregator;
+import org.elasticsearch.search.aggregations.bucket.PointRangeCounter;
 import org.elasticsearch.search.aggregations.pipeline.PipelineAggregator;
 import org.elasticsearch.search.aggregations.support.ValuesSource;
 import org.elasticsearch.search.internal.SearchContext;
@@ -47,6 +50,7 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.function.BiConsumer;
 
 public class RangeAggregator extends BucketsAggregator {
 
@@ -225,9 +229,21 @@ public class RangeAggregator extends BucketsAggregator {
 
     final double[] maxTo;
 
+    /**
+     * Values are only exactly comparable as longs and as doubles below this magnitude.
+     */
+    private static final double MAX_EXACT_LONG = 1L << 53;
+
+    @Nullable
+    private final PointRangeCounter pointRangeCounter;
+    // the bounds of the ranges, both inclusive, when counting from points
+    private final long[] longFrom;
+    private final long[] longTo;
+
     public RangeAggregator(String name, AggregatorFactories factories, ValuesSource.Numeric valuesSource, DocValueFormat format,
-            InternalRange.Factory rangeFactory, Range[] ranges, boolean keyed, SearchContext context,
-            Aggregator parent, List<PipelineAggregator> pipelineAggregators, Map<String, Object> metaData) throws IOException {
+            InternalRange.Factory rangeFactory, Range[] ranges, boolean keyed, @Nullable PointRangeCounter pointRangeCounter,
+            SearchContext context, Aggregator parent, List<PipelineAggregator> pipelineAggregators,
+            Map<String, Object> metaData) throws IOException {
 
         super(name, factories, context, parent, pipelineAggregators, metaData);
         assert valuesSource != null;
@@ -244,6 +260,35 @@ public class RangeAggregator extends BucketsAggregator {
             maxTo[i] = Math.max(this.ranges[i].to,maxTo[i-1]);
         }
 
+        longFrom = new long[ranges.length];
+        longTo = new long[ranges.length];
+        if (pointRangeCounter != null && toLongRanges(ranges, longFrom, longTo)) {
+            this.pointRangeCounter = pointRangeCounter;
+        } else {
+            this.pointRangeCounter = null;
+        }
+    }
+
+    /**
+     * Converts the given ranges to ranges of longs that include both of their bounds and returns {@code true} if they can
+     * be counted from points, that is if they don't overlap and if their bounds are exact.
+     */
+    private static boolean toLongRanges(Range[] ranges, long[] from, long[] to) {
+        for (int i = 0; i < ranges.length; i++) {
+            final double rangeFrom = ranges[i].from;
+            final double rangeTo = ranges[i].to;
+            if ((Math.abs(rangeFrom) >= MAX_EXACT_LONG && rangeFrom != Double.NEGATIVE_INFINITY)
+                    || (Math.abs(rangeTo) >= MAX_EXACT_LONG && rangeTo != Double.POSITIVE_INFINITY)) {
+                return false;
+            }
+            from[i] = rangeFrom == Double.NEGATIVE_INFINITY ? Long.MIN_VALUE : (long) Math.ceil(rangeFrom);
+            // the upper bound of a range is exclusive
+            to[i] = rangeTo == Double.POSITIVE_INFINITY ? Long.MAX_VALUE : (long) Math.ceil(rangeTo) - 1;
+            if (from[i] > to[i] || (i > 0 && from[i] <= to[i - 1])) {
+                return false;
+            }
+        }
+        return true;
     }
 
     @Override
@@ -254,6 +299,12 @@ public class RangeAggregator extends BucketsAggregator {
     @Override
     public LeafBucketCollector getLeafCollector(LeafReaderContext ctx,
             final LeafBucketCollector sub) throws IOException {
+        if (pointRangeCounter != null) {
+            final PointRangeCounter.Segment segment = pointRangeCounter.segment(ctx.reader());
+            if (segment != null && countFromPoints(segment)) {
+                throw new CollectionTerminatedException();
+            }
+        }
         final SortedNumericDoubleValues values = valuesSource.doubleValues(ctx);
         return new LeafBucketCollectorBase(sub, values) {
             @Override
@@ -318,10 +369,46 @@ public class RangeAggregator extends BucketsAggregator {
         };
     }
 
+    /**
+     * Counts the documents of the segment per range from the points of the field, returns {@code false} if they must be
+     * collected instead.
+     */
+    private boolean countFromPoints(PointRangeCounter.Segment segment) throws IOException {
+        final long[] from = new long[ranges.length];
+        final long[] to = new long[ranges.length];
+        final int[] rangeOrds = new int[ranges.length];
+        int numRanges = 0;
+        for (int i = 0; i < ranges.length; i++) {
+            final long rangeFrom = Math.max(longFrom[i], segment.min());
+            final long rangeTo = Math.min(longTo[i], segment.max());
+            if (rangeFrom <= rangeTo) {
+                from[numRanges] = rangeFrom;
+                to[numRanges] = rangeTo;
+                rangeOrds[numRanges] = i;
+                numRanges++;
+            }
+        }
+        if (numRanges > 0 && segment.isCheaperThanCollecting(numRanges) == false) {
+            return false;
+        }
+        final long[] counts = segment.count(from, to, numRanges);
+        for (int i = 0; i < numRanges; i++) {
+            if (counts[i] > 0) {
+                incrementBucketDocCount(subBucketOrdinal(0, rangeOrds[i]), Math.toIntExact(counts[i]));
+            }
+        }
+        return true;
+    }
+
     private long subBucketOrdinal(long owningBucketOrdinal, int rangeOrd) {
         return owningBucketOrdinal * ranges.length + rangeOrd;
     }
 
+    @Override
+    public void collectDebugInfo(BiConsumer<String, Object> add) {
+        PointRangeCounter.collectDebugInfo(pointRangeCounter, add);
+    }
+
     @Override
     public InternalAggregation buildAggregation(long owningBucketOrdinal) throws IOException {
         consumeBucketsAndMaybeBreak(ranges.length);
@@ -39,6 +39,7 @@ import java.io.IOException;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.function.BiConsumer;
 
 import static java.util.Collections.emptyList;
 
@@ -126,6 +127,12 @@ public class SignificantStringTermsAggregator extends StringTermsAggregator {
                 metaData(), format, subsetSize, supersetSize, significanceHeuristic, Arrays.asList(list));
     }
 
+    @Override
+    public void collectDebugInfo(BiConsumer<String, Object> add) {
+        super.collectDebugInfo(add);
+        termsAggFactory.collectDebugInfo(add);
+    }
+
     @Override
     public SignificantStringTerms buildEmptyAggregation() {
         // We need to account for the significance of a miss in our global stats - provide corpus size as context
@@ -49,14 +49,17 @@ import org.elasticsearch.search.aggregations.bucket.terms.IncludeExclude;
 import org.elasticsearch.search.aggregations.bucket.terms.TermsAggregator;
 import org.elasticsearch.search.aggregations.bucket.terms.TermsAggregator.BucketCountThresholds;
 import org.elasticsearch.search.aggregations.pipeline.PipelineAggregator;
+import org.elasticsearch.search.aggregations.support.ReaderKeyedCache;
 import org.elasticsearch.search.aggregations.support.ValuesSource;
 import org.elasticsearch.search.aggregations.support.ValuesSourceAggregatorFactory;
 import org.elasticsearch.search.aggregations.support.ValuesSourceConfig;
+import org.elasticsearch.search.aggregations.SearchContextAggregations;
 import org.elasticsearch.search.internal.SearchContext;
 
 import java.io.IOException;
 import java.util.List;
 import java.util.Map;
+import java.util.function.BiConsumer;
 
 public class SignificantTermsAggregatorFactory extends ValuesSourceAggregatorFactory<ValuesSource, SignificantTermsAggregatorFactory>
         implements Releasable {
@@ -73,6 +76,12 @@ public class SignificantTermsAggregatorFactory extends ValuesSourceAggregatorFac
     private final int supersetNumDocs;
     private final TermsAggregator.BucketCountThresholds bucketCountThresholds;
     private final SignificanceHeuristic significanceHeuristic;
+    private final boolean cacheableFilter;
+    private boolean backgroundCacheResolved;
+    private SignificantTermsBackgroundCache backgroundCache;
+    private IndexReader.CacheHelper backgroundCacheReader;
+    private long backgroundCacheHits;
+    private long backgroundCacheMisses;
 
     public SignificantTermsAggregatorFactory(String name,
                                              ValuesSourceConfig<ValuesSource> config,
@@ -97,6 +106,8 @@ public class SignificantTermsAggregatorFactory extends ValuesSourceAggregatorFac
         this.filter = filterBuilder == null
                 ? null
                 : filterBuilder.toFilter(context.getQueryShardContext());
+        // filters that depend on the current time or on scripts must not be cached
+        this.cacheableFilter = filter == null || context.getQueryShardContext().isCacheable();
         IndexSearcher searcher = context.searcher();
         this.supersetNumDocs = filter == null
                 // Important - need to use the doc count that includes deleted docs
@@ -127,8 +138,51 @@ public class SignificantTermsAggregatorFactory extends ValuesSourceAggregatorFac
         return termsEnum;
     }
 
+    /**
+     * Returns the node level cache for the background frequencies of this shard or null
+     * if the frequencies of this request cannot be cached.
+     */
+    private SignificantTermsBackgroundCache getBackgroundCache() {
+        if (backgroundCacheResolved) {
+            return backgroundCache;
+        }
+        // the aggregation context of the search is only set after this factory is built
+        backgroundCacheResolved = true;
+        SearchContextAggregations aggregations = context.aggregations();
+        if (cacheableFilter == false || aggregations == null || aggregations.significantTermsBackgroundCache() == null) {
+            return null;
+        }
+        // document level security filters the reader without changing its cache key
+        if (ReaderKeyedCache.canCache(context.request()) == false) {
+            return null;
+        }
+        backgroundCacheReader = context.searcher().getIndexReader().getReaderCacheHelper();
+        if (backgroundCacheReader == null) {
+            return null;
+        }
+        backgroundCache = aggregations.significantTermsBackgroundCache();
+        return backgroundCache;
+    }
+
     private long getBackgroundFrequency(String value) throws IOException {
         Query query = fieldType.termQuery(value, context.getQueryShardContext());
+        SignificantTermsBackgroundCache cache = getBackgroundCache();
+        if (cache == null) {
+            return computeBackgroundFrequency(query);
+        }
+        SignificantTermsBackgroundCache.Key key = new SignificantTermsBackgroundCache.Key(indexedFieldName, filter, query);
+        long frequency = cache.get(backgroundCacheReader, key);
+        if (frequency >= 0) {
+            backgroundCacheHits++;
+            return frequency;
+        }
+        backgroundCacheMisses++;
+        frequency = computeBackgroundFrequency(query);
+        cache.put(backgroundCacheReader, key, frequency);
+        return frequency;
+    }
+
+    private long computeBackgroundFrequency(Query query) throws IOException {
         if (query instanceof TermQuery) {
             // for types that use the inverted index, we prefer using a caching terms
             // enum that will do a better job at reusing index inputs
@@ -160,6 +214,20 @@ public class SignificantTermsAggregatorFactory extends ValuesSourceAggregatorFac
         return getBackgroundFrequency(value);
     }
 
+    /**
+     * Adds the usage of the background frequency cache to the debug information of the profile of an aggregation.
+     */
+    void collectDebugInfo(BiConsumer<String, Object> add) {
+        SignificantTermsBackgroundCache cache = getBackgroundCache();
+        add.accept("background_cache", cache == null ? "disabled" : "enabled");
+        add.accept("background_cache_hits", backgroundCacheHits);
+        add.accept("background_cache_misses", backgroundCacheMisses);
+        if (cache != null) {
+            add.accept("background_cache_size", cache.count());
+            add.accept("background_cache_size_in_bytes", cache.ramBytesUsed());
+        }
+    }
+
     @Override
     protected Aggregator createUnmapped(Aggregator parent, List<PipelineAggregator> pipelineAggregators, Map<String, Object> metaData)
             throws IOException {
@@ -0,0 +1,151 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.search.aggregations.bucket.significant;
+
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.util.Accountable;
+import org.apache.lucene.util.RamUsageEstimator;
+import org.elasticsearch.common.Nullable;
+import org.elasticsearch.common.settings.Setting;
+import org.elasticsearch.common.settings.Setting.Property;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.search.aggregations.support.ReaderKeyedCache;
+
+import java.util.Objects;
+
+/**
+ * A node level cache for the background frequencies of the terms that <code>significant_terms</code>
+ * aggregations look up on a shard.
+ *
+ * The background set of a <code>significant_terms</code> aggregation, the whole shard or the documents
+ * that match its <code>background_filter</code>, does not depend on the query. Requests that compare
+ * different foreground sets against the same background, like the successive drill downs of a dashboard,
+ * look up the same frequencies again and each lookup seeks the terms dictionary intersected with the
+ * background filter, or runs a count query for fields that are not indexed as terms. Each entry is a
+ * single count so the cache is bounded by a fixed size rather than a share of the heap, and entries
+ * are only dropped when the reader they were counted on is closed or when the cache is full.
+ */
+public final class SignificantTermsBackgroundCache {
+    public static final Setting<ByteSizeValue> BACKGROUND_CACHE_SIZE_SETTING =
+        Setting.memorySizeSetting("search.aggs.significant_terms.background_cache.size", "10mb", Property.NodeScope);
+
+    private final ReaderKeyedCache<Key, Long> cache;
+
+    public SignificantTermsBackgroundCache(Settings settings) {
+        this.cache = new ReaderKeyedCache<>(BACKGROUND_CACHE_SIZE_SETTING.get(settings), null, (k, v) -> k.ramBytesUsed());
+    }
+
+    /**
+     * Returns the background frequency of the term that <code>key</code> identifies in <code>reader</code>
+     * or -1 if it is not cached.
+     */
+    long get(IndexReader.CacheHelper reader, Key key) {
+        Long frequency = cache.get(reader, key);
+        return frequency == null ? -1 : frequency;
+    }
+
+    /**
+     * Records the background frequency of the term that <code>key</code> identifies in <code>reader</code>.
+     */
+    void put(IndexReader.CacheHelper reader, Key key, long frequency) {
+        cache.put(reader, key, frequency);
+    }
+
+    /**
+     * Returns the number of frequencies in the cache.
+     */
+    int count() {
+        return cache.count();
+    }
+
+    /**
+     * Returns the estimated memory used by the cache in bytes.
+     */
+    long ramBytesUsed() {
+        return cache.ramBytesUsed();
+    }
+
+    /**
+     * Removes all entries from the cache.
+     */
+    public void clear() {
+        cache.clear();
+    }
+
+    /**
+     * Identifies the background frequency of a term in a field within the entries of a shard reader.
+     * The term is identified by the query that matches it so that the key does not depend on
+     * the format of the aggregation.
+     */
+    static final class Key {
+        private static final long SHALLOW_SIZE = RamUsageEstimator.shallowSizeOfInstance(Key.class)
+            + RamUsageEstimator.shallowSizeOfInstance(Long.class);
+        // the cost of queries that are not term queries is unknown, use the same default as the query cache
+        private static final long QUERY_DEFAULT_RAM_BYTES_USED = 1024;
+
+        private final String field;
+        private final Query backgroundFilter;
+        private final Query term;
+
+        Key(String field, @Nullable Query backgroundFilter, Query term) {
+            this.field = Objects.requireNonNull(field);
+            this.backgroundFilter = backgroundFilter;
+            this.term = Objects.requireNonNull(term);
+        }
+
+        /**
+         * Every key is charged for the whole background filter: the keys of a request share the same
+         * instance, but each request parses its own one and its entries keep it alive until the reader
+         * is closed, so charging it once per request would not bound the memory that the cache holds.
+         */
+        long ramBytesUsed() {
+            return SHALLOW_SIZE + queryRamBytesUsed(term) + (backgroundFilter == null ? 0 : queryRamBytesUsed(backgroundFilter));
+        }
+
+        private static long queryRamBytesUsed(Query query) {
+            if (query instanceof TermQuery) {
+                return RamUsageEstimator.shallowSizeOfInstance(TermQuery.class)
+                    + RamUsageEstimator.NUM_BYTES_ARRAY_HEADER + ((TermQuery) query).getTerm().bytes().length;
+            }
+            if (query instanceof Accountable) {
+                return ((Accountable) query).ramBytesUsed();
+            }
+            return QUERY_DEFAULT_RAM_BYTES_USED;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Key that = (Key) o;
+            return field.equals(that.field) &&
+                Objects.equals(backgroundFilter, that.backgroundFilter) &&
+                term.equals(that.term);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(field, backgroundFilter, term);
+        }
+    }
+}
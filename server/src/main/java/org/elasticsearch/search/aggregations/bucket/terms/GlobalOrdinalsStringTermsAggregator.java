@@ -27,6 +27,7 @@ import org.apache.lucene.index.SortedSetDocValues;
 import org.apache.lucene.util.ArrayUtil;
 import org.apache.lucene.util.BytesRef;
 import org.apache.lucene.util.LongBitSet;
+import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.lease.Releasables;
 import org.elasticsearch.common.util.IntArray;
@@ -73,6 +74,10 @@ public class GlobalOrdinalsStringTermsAggregator extends AbstractStringTermsAggr
 
     protected final LongHash bucketOrds;
 
+    private final String keyField;
+    // the number of documents that were not collected because their keys cannot be part of the top buckets
+    private long prunedDocCount;
+
     public interface GlobalOrdLookupFunction {
         BytesRef apply(long ord) throws IOException;
     }
@@ -88,10 +93,12 @@ public class GlobalOrdinalsStringTermsAggregator extends AbstractStringTermsAggr
                                                boolean remapGlobalOrds,
                                                SubAggCollectionMode collectionMode,
                                                boolean showTermDocCountError,
+                                               @Nullable String keyField,
                                                List<PipelineAggregator> pipelineAggregators,
                                                Map<String, Object> metaData) throws IOException {
         super(name, factories, context, parent, order, format, bucketCountThresholds, collectionMode, showTermDocCountError,
             pipelineAggregators, metaData);
+        this.keyField = keyField;
         this.valuesSource = valuesSource;
         this.includeExclude = includeExclude;
         final IndexReader reader = context.searcher().getIndexReader();
@@ -133,7 +140,31 @@ public class GlobalOrdinalsStringTermsAggregator extends AbstractStringTermsAggr
             grow(globalOrds.getValueCount());
         }
         final SortedDocValues singleValues = DocValues.unwrapSingleton(globalOrds);
-        if (singleValues != null) {
+        if (singleValues != null && isSortedByKey(ctx, keyField)) {
+            final int shardSize = bucketCountThresholds.getShardSize();
+            return new LeafBucketCollectorBase(sub, globalOrds) {
+                int distinctKeys = 0;
+                int previous = -1;
+
+                @Override
+                public void collect(int doc, long bucket) throws IOException {
+                    assert bucket == 0;
+                    if (singleValues.advanceExact(doc)) {
+                        final int ord = singleValues.ordValue();
+                        if (previous != ord) {
+                            distinctKeys++;
+                            previous = ord;
+                        }
+                        if (distinctKeys > shardSize) {
+                            // the next keys of this segment are not competitive either
+                            prunedDocCount++;
+                            return;
+                        }
+                        collectGlobalOrd(doc, ord, sub);
+                    }
+                }
+            };
+        } else if (singleValues != null) {
             return new LeafBucketCollectorBase(sub, globalOrds) {
                 @Override
                 public void collect(int doc, long bucket) throws IOException {
@@ -181,7 +212,7 @@ public class GlobalOrdinalsStringTermsAggregator extends AbstractStringTermsAggr
         } else {
             size = (int) Math.min(maxBucketOrd(), bucketCountThresholds.getShardSize());
         }
-        long otherDocCount = 0;
+        long otherDocCount = prunedDocCount;
         BucketPriorityQueue<OrdBucket> ordered = new BucketPriorityQueue<>(size, order.comparator(this));
         OrdBucket spare = new OrdBucket(-1, 0, null, showTermDocCountError, 0);
         final boolean needsFullScan = bucketOrds == null || bucketCountThresholds.getMinDocCount() == 0;
@@ -320,7 +351,7 @@ public class GlobalOrdinalsStringTermsAggregator extends AbstractStringTermsAggr
                        List<PipelineAggregator> pipelineAggregators,
                        Map<String, Object> metaData) throws IOException {
             super(name, factories, valuesSource, order, format, bucketCountThresholds, null,
-                context, parent, forceDenseMode, collectionMode, showTermDocCountError, pipelineAggregators, metaData);
+                context, parent, forceDenseMode, collectionMode, showTermDocCountError, null, pipelineAggregators, metaData);
             assert factories == null || factories.countAggregators() == 0;
             this.segmentDocCounts = context.bigArrays().newIntArray(1, true);
         }
@@ -18,8 +18,11 @@
  */
 package org.elasticsearch.search.aggregations.bucket.terms;
 
+import org.apache.lucene.index.DocValues;
 import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.NumericDocValues;
 import org.apache.lucene.index.SortedNumericDocValues;
+import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.lease.Releasables;
 import org.elasticsearch.common.util.LongHash;
 import org.elasticsearch.search.DocValueFormat;
@@ -48,15 +51,19 @@ public class LongTermsAggregator extends TermsAggregator {
     protected final LongHash bucketOrds;
     private boolean showTermDocCountError;
     private LongFilter longFilter;
+    private final String keyField;
+    // the number of documents that were not collected because their keys cannot be part of the top buckets
+    private long prunedDocCount;
 
     public LongTermsAggregator(String name, AggregatorFactories factories, ValuesSource.Numeric valuesSource, DocValueFormat format,
             BucketOrder order, BucketCountThresholds bucketCountThresholds, SearchContext aggregationContext, Aggregator parent,
             SubAggCollectionMode subAggCollectMode, boolean showTermDocCountError, IncludeExclude.LongFilter longFilter,
-            List<PipelineAggregator> pipelineAggregators, Map<String, Object> metaData) throws IOException {
+            @Nullable String keyField, List<PipelineAggregator> pipelineAggregators, Map<String, Object> metaData) throws IOException {
         super(name, factories, aggregationContext, parent, bucketCountThresholds, order, format, subAggCollectMode, pipelineAggregators, metaData);
         this.valuesSource = valuesSource;
         this.showTermDocCountError = showTermDocCountError;
         this.longFilter = longFilter;
+        this.keyField = keyField;
         bucketOrds = new LongHash(1, aggregationContext.bigArrays());
     }
 
@@ -73,6 +80,40 @@ public class LongTermsAggregator extends TermsAggregator {
     public LeafBucketCollector getLeafCollector(LeafReaderContext ctx,
             final LeafBucketCollector sub) throws IOException {
         final SortedNumericDocValues values = getValues(valuesSource, ctx);
+        final NumericDocValues singleValues = DocValues.unwrapSingleton(values);
+        if (singleValues != null && isSortedByKey(ctx, keyField)) {
+            final int shardSize = bucketCountThresholds.getShardSize();
+            return new LeafBucketCollectorBase(sub, values) {
+                int distinctKeys = 0;
+                long previous;
+
+                @Override
+                public void collect(int doc, long owningBucketOrdinal) throws IOException {
+                    assert owningBucketOrdinal == 0;
+                    if (singleValues.advanceExact(doc)) {
+                        final long val = singleValues.longValue();
+                        if ((longFilter == null) || (longFilter.accept(val))) {
+                            if (distinctKeys == 0 || previous != val) {
+                                distinctKeys++;
+                                previous = val;
+                            }
+                            if (distinctKeys > shardSize) {
+                                // the next keys of this segment are not competitive either
+                                prunedDocCount++;
+                                return;
+                            }
+                            long bucketOrdinal = bucketOrds.add(val);
+                            if (bucketOrdinal < 0) { // already seen
+                                bucketOrdinal = -1 - bucketOrdinal;
+                                collectExistingBucket(sub, doc, bucketOrdinal);
+                            } else {
+                                collectBucket(sub, doc, bucketOrdinal);
+                            }
+                        }
+                    }
+                }
+            };
+        }
         return new LeafBucketCollectorBase(sub, values) {
             @Override
             public void collect(int doc, long owningBucketOrdinal) throws IOException {
@@ -125,7 +166,7 @@ public class LongTermsAggregator extends TermsAggregator {
         }
 
         final int size = (int) Math.min(bucketOrds.size(), bucketCountThresholds.getShardSize());
-        long otherDocCount = 0;
+        long otherDocCount = prunedDocCount;
         BucketPriorityQueue<LongTerms.Bucket> ordered = new BucketPriorityQueue<>(size, order.comparator(this));
         LongTerms.Bucket spare = null;
         for (long i = 0; i < bucketOrds.size(); i++) {
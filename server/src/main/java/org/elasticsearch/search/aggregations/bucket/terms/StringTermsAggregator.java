@@ -18,11 +18,15 @@
  */
 package org.elasticsearch.search.aggregations.bucket.terms;
 
+import org.apache.lucene.index.DocValues;
 import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.SortedDocValues;
+import org.apache.lucene.index.SortedSetDocValues;
 import org.apache.lucene.util.BytesRef;
 import org.apache.lucene.util.BytesRefBuilder;
 import org.elasticsearch.common.lease.Releasables;
 import org.elasticsearch.common.util.BytesRefHash;
+import org.elasticsearch.common.util.IntArray;
 import org.elasticsearch.index.fielddata.SortedBinaryDocValues;
 import org.elasticsearch.search.DocValueFormat;
 import org.elasticsearch.search.aggregations.Aggregator;
@@ -41,6 +45,8 @@ import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 
+import static org.apache.lucene.index.SortedSetDocValues.NO_MORE_ORDS;
+
 /**
  * An aggregator of string values.
  */
@@ -180,5 +186,99 @@ public class StringTermsAggregator extends AbstractStringTermsAggregator {
         Releasables.close(bucketOrds);
     }
 
+    /**
+     * Variant of {@link StringTermsAggregator} that counts documents per segment ordinal in a dense array, and only looks up the
+     * terms of the ordinals that were collected when moving to the next segment. Unlike
+     * {@link GlobalOrdinalsStringTermsAggregator.LowCardinality} it doesn't need global ordinals, whose construction is more
+     * costly than the aggregation itself on shards that have many segments with few terms.
+     */
+    static class SegmentOrdinals extends StringTermsAggregator {
+
+        private final ValuesSource.Bytes.WithOrdinals valuesSource;
+        private final IncludeExclude.StringFilter includeExclude;
+        // the ordinals of the segment whose counts haven't been added to the buckets yet
+        private SortedSetDocValues segmentOrds;
+        private IntArray segmentDocCounts;
+
+        SegmentOrdinals(String name, AggregatorFactories factories, ValuesSource.Bytes.WithOrdinals valuesSource,
+                        BucketOrder order, DocValueFormat format, BucketCountThresholds bucketCountThresholds,
+                        IncludeExclude.StringFilter includeExclude, SearchContext context, Aggregator parent,
+                        SubAggCollectionMode collectionMode, boolean showTermDocCountError,
+                        List<PipelineAggregator> pipelineAggregators, Map<String, Object> metaData) throws IOException {
+            super(name, factories, valuesSource, order, format, bucketCountThresholds, includeExclude, context, parent,
+                    collectionMode, showTermDocCountError, pipelineAggregators, metaData);
+            assert factories == null || factories.countAggregators() == 0;
+            this.valuesSource = valuesSource;
+            this.includeExclude = includeExclude;
+            this.segmentDocCounts = context.bigArrays().newIntArray(1, true);
+        }
+
+        @Override
+        public LeafBucketCollector getLeafCollector(LeafReaderContext ctx, final LeafBucketCollector sub) throws IOException {
+            addSegmentCountsToBuckets();
+            assert sub == LeafBucketCollector.NO_OP_COLLECTOR;
+            final SortedSetDocValues ords = valuesSource.ordinalsValues(ctx);
+            segmentDocCounts = context.bigArrays().grow(segmentDocCounts, ords.getValueCount());
+            segmentOrds = ords;
+            final SortedDocValues singleValues = DocValues.unwrapSingleton(ords);
+            if (singleValues != null) {
+                return new LeafBucketCollectorBase(sub, ords) {
+                    @Override
+                    public void collect(int doc, long bucket) throws IOException {
+                        assert bucket == 0;
+                        if (singleValues.advanceExact(doc)) {
+                            segmentDocCounts.increment(singleValues.ordValue(), 1);
+                        }
+                    }
+                };
+            } else {
+                return new LeafBucketCollectorBase(sub, ords) {
+                    @Override
+                    public void collect(int doc, long bucket) throws IOException {
+                        assert bucket == 0;
+                        if (ords.advanceExact(doc)) {
+                            for (long ord = ords.nextOrd(); ord != NO_MORE_ORDS; ord = ords.nextOrd()) {
+                                segmentDocCounts.increment(ord, 1);
+                            }
+                        }
+                    }
+                };
+            }
+        }
+
+        @Override
+        protected void doPostCollection() throws IOException {
+            addSegmentCountsToBuckets();
+        }
+
+        private void addSegmentCountsToBuckets() throws IOException {
+            if (segmentOrds == null) {
+                return;
+            }
+            for (long ord = 0; ord < segmentOrds.getValueCount(); ord++) {
+                // reset the count since the array is reused by the next segment
+                final int inc = segmentDocCounts.set(ord, 0);
+                if (inc == 0) {
+                    continue;
+                }
+                final BytesRef term = segmentOrds.lookupOrd(ord);
+                if (includeExclude != null && includeExclude.accept(term) == false) {
+                    continue;
+                }
+                long bucketOrd = bucketOrds.add(term);
+                if (bucketOrd < 0) { // already seen
+                    bucketOrd = -1 - bucketOrd;
+                }
+                incrementBucketDocCount(bucketOrd, inc);
+            }
+            segmentOrds = null;
+        }
+
+        @Override
+        public void doClose() {
+            Releasables.close(segmentDocCounts);
+            super.doClose();
+        }
+    }
 }
 
@@ -18,6 +18,7 @@
  */
 package org.elasticsearch.search.aggregations.bucket.terms;
 
+import org.elasticsearch.Version;
 import org.elasticsearch.common.ParseField;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
@@ -148,7 +149,13 @@ public class TermsAggregationBuilder extends ValuesSourceAggregationBuilder<Valu
     protected void innerWriteTo(StreamOutput out) throws IOException {
         bucketCountThresholds.writeTo(out);
         out.writeOptionalWriteable(collectMode);
-        out.writeOptionalString(executionHint);
+        if (out.getVersion().before(Version.V_6_8_24)
+                && TermsAggregatorFactory.ExecutionMode.SEGMENT_ORDINALS.toString().equals(executionHint)) {
+            // older nodes reject the segment ordinals hint, global ordinals is the closest mode they know
+            out.writeOptionalString(TermsAggregatorFactory.ExecutionMode.GLOBAL_ORDINALS.toString());
+        } else {
+            out.writeOptionalString(executionHint);
+        }
         out.writeOptionalWriteable(includeExclude);
         order.writeTo(out);
         out.writeBoolean(showTermDocCountError);
@@ -20,7 +20,11 @@
 
 package org.elasticsearch.search.aggregations.bucket.terms;
 
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.search.Sort;
+import org.apache.lucene.search.SortField;
 import org.elasticsearch.ElasticsearchException;
+import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.io.stream.Writeable;
@@ -290,4 +294,28 @@ public abstract class TermsAggregator extends DeferableBucketAggregator {
                 && !aggsUsedForSorting.contains(aggregator);
     }
 
+    /**
+     * Returns true if the documents of the provided segment are sorted on <code>keyField</code> in the order
+     * of the buckets. When the field is single-valued in this segment, the keys are visited in order so the
+     * documents that come after the first <code>shard_size</code> distinct keys cannot be part of the top
+     * buckets and only need to be counted in the doc count of the other buckets.
+     *
+     * @param keyField The field that the keys are extracted from or null if the keys are not the values of a field.
+     */
+    protected boolean isSortedByKey(LeafReaderContext ctx, @Nullable String keyField) {
+        if (keyField == null
+                || InternalOrder.isKeyOrder(order) == false
+                // buckets that are pruned by the min_doc_count or the shard_min_doc_count could be replaced by keys that come later
+                || bucketCountThresholds.getMinDocCount() != 1
+                || bucketCountThresholds.getShardMinDocCount() > 1) {
+            return false;
+        }
+        Sort indexSort = ctx.reader().getMetaData().getSort();
+        if (indexSort == null) {
+            return false;
+        }
+        SortField sortField = indexSort.getSort()[0];
+        return keyField.equals(sortField.getField()) && sortField.getReverse() == InternalOrder.isKeyDesc(order);
+    }
+
 }
@@ -20,6 +20,8 @@
 package org.elasticsearch.search.aggregations.bucket.terms;
 
 import org.apache.logging.log4j.LogManager;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.Terms;
 import org.apache.lucene.search.IndexSearcher;
 import org.elasticsearch.common.ParseField;
 import org.elasticsearch.common.logging.DeprecationLogger;
@@ -37,6 +39,7 @@ import org.elasticsearch.search.aggregations.NonCollectingAggregator;
 import org.elasticsearch.search.aggregations.bucket.BucketUtils;
 import org.elasticsearch.search.aggregations.bucket.terms.TermsAggregator.BucketCountThresholds;
 import org.elasticsearch.search.aggregations.pipeline.PipelineAggregator;
+import org.elasticsearch.search.aggregations.support.FieldContext;
 import org.elasticsearch.search.aggregations.support.ValuesSource;
 import org.elasticsearch.search.aggregations.support.ValuesSourceAggregatorFactory;
 import org.elasticsearch.search.aggregations.support.ValuesSourceConfig;
@@ -51,6 +54,11 @@ public class TermsAggregatorFactory extends ValuesSourceAggregatorFactory<Values
 
     static Boolean REMAP_GLOBAL_ORDS, COLLECT_SEGMENT_ORDS;
 
+    /**
+     * The maximum number of terms per segment for the {@link ExecutionMode#SEGMENT_ORDINALS} execution mode to be picked automatically.
+     */
+    static final long MAX_SEGMENT_ORDINALS = 2048;
+
     private final BucketOrder order;
     private final IncludeExclude includeExclude;
     private final String executionHint;
@@ -135,7 +143,13 @@ public class TermsAggregatorFactory extends ValuesSourceAggregatorFactory<Values
             }
             final long maxOrd = execution == ExecutionMode.GLOBAL_ORDINALS ? getMaxOrd(valuesSource, context.searcher()) : -1;
             if (execution == null) {
-                execution = ExecutionMode.GLOBAL_ORDINALS;
+                if (factories == AggregatorFactories.EMPTY
+                        && Aggregator.descendsFromBucketAggregator(parent) == false
+                        && useSegmentOrdinals((ValuesSource.Bytes.WithOrdinals) valuesSource, config, context.searcher())) {
+                    execution = ExecutionMode.SEGMENT_ORDINALS;
+                } else {
+                    execution = ExecutionMode.GLOBAL_ORDINALS;
+                }
             }
             SubAggCollectionMode cm = collectMode;
             if (cm == null) {
@@ -152,7 +166,7 @@ public class TermsAggregatorFactory extends ValuesSourceAggregatorFactory<Values
             }
 
             return execution.create(name, factories, valuesSource, order, format, bucketCountThresholds, includeExclude, context, parent,
-                    cm, showTermDocCountError, pipelineAggregators, metaData);
+                    cm, showTermDocCountError, keyField(), pipelineAggregators, metaData);
         }
 
         if ((includeExclude != null) && (includeExclude.isRegexBased())) {
@@ -175,14 +189,14 @@ public class TermsAggregatorFactory extends ValuesSourceAggregatorFactory<Values
                     longFilter = includeExclude.convertToDoubleFilter();
                 }
                 return new DoubleTermsAggregator(name, factories, (ValuesSource.Numeric) valuesSource, config.format(), order,
-                        bucketCountThresholds, context, parent, cm, showTermDocCountError, longFilter,
+                        bucketCountThresholds, context, parent, cm, showTermDocCountError, longFilter, keyField(),
                         pipelineAggregators, metaData);
             }
             if (includeExclude != null) {
                 longFilter = includeExclude.convertToLongFilter(config.format());
             }
             return new LongTermsAggregator(name, factories, (ValuesSource.Numeric) valuesSource, config.format(), order,
-                    bucketCountThresholds, context, parent, cm, showTermDocCountError, longFilter, pipelineAggregators,
+                    bucketCountThresholds, context, parent, cm, showTermDocCountError, longFilter, keyField(), pipelineAggregators,
                     metaData);
         }
 
@@ -190,6 +204,17 @@ public class TermsAggregatorFactory extends ValuesSourceAggregatorFactory<Values
                 + "]. It can only be applied to numeric or string fields.");
     }
 
+    /**
+     * Returns the field that the keys are extracted from or null if the keys are
+     * produced by a script or if documents without value use a missing value.
+     */
+    private String keyField() {
+        if (config.fieldContext() == null || config.script() != null || config.missing() != null) {
+            return null;
+        }
+        return config.fieldContext().field();
+    }
+
     // return the SubAggCollectionMode that this aggregation should use based on the expected size
     // and the cardinality of the field
     static SubAggCollectionMode subAggCollectionMode(int expectedSize, long maxOrd) {
@@ -204,6 +229,36 @@ public class TermsAggregatorFactory extends ValuesSourceAggregatorFactory<Values
         return SubAggCollectionMode.DEPTH_FIRST;
     }
 
+    /**
+     * Returns whether counting per segment ordinal and looking up the collected terms at the end of each segment is expected to
+     * be cheaper than building global ordinals, based on the size of the terms dictionary of the field in each segment. Building
+     * global ordinals merges the terms of all segments, which costs more than the aggregation itself when there are many segments
+     * with few terms. It is free when there is a single segment, and it is done on refresh when global ordinals are eager.
+     */
+    static boolean useSegmentOrdinals(ValuesSource.Bytes.WithOrdinals valuesSource, ValuesSourceConfig<?> config,
+                                      IndexSearcher searcher) throws IOException {
+        final FieldContext fieldContext = config.fieldContext();
+        if (fieldContext == null || fieldContext.fieldType().eagerGlobalOrdinals()) {
+            return false;
+        }
+        final List<LeafReaderContext> leaves = searcher.getIndexReader().leaves();
+        if (leaves.size() < 2) {
+            return false;
+        }
+        for (LeafReaderContext ctx : leaves) {
+            final Terms terms = ctx.reader().terms(fieldContext.field());
+            long size = terms == null ? -1 : terms.size();
+            if (size == -1) {
+                // the field isn't indexed or the terms dictionary doesn't know its size, count the distinct values instead
+                size = valuesSource.ordinalsValues(ctx).getValueCount();
+            }
+            if (size > MAX_SEGMENT_ORDINALS) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     /**
      * Get the maximum global ordinal value for the provided {@link ValuesSource} or -1
      * if the values source is not an instance of {@link ValuesSource.Bytes.WithOrdinals}.
@@ -233,6 +288,7 @@ public class TermsAggregatorFactory extends ValuesSourceAggregatorFactory<Values
                               Aggregator parent,
                               SubAggCollectionMode subAggCollectMode,
                               boolean showTermDocCountError,
+                              String keyField,
                               List<PipelineAggregator> pipelineAggregators,
                               Map<String, Object> metaData) throws IOException {
                 final IncludeExclude.StringFilter filter = includeExclude == null ? null : includeExclude.convertToStringFilter(format);
@@ -253,6 +309,7 @@ public class TermsAggregatorFactory extends ValuesSourceAggregatorFactory<Values
                               SearchContext context, Aggregator parent,
                               SubAggCollectionMode subAggCollectMode,
                               boolean showTermDocCountError,
+                              String keyField,
                               List<PipelineAggregator> pipelineAggregators,
                               Map<String, Object> metaData) throws IOException {
 
@@ -300,6 +357,36 @@ public class TermsAggregatorFactory extends ValuesSourceAggregatorFactory<Values
                 }
                 return new GlobalOrdinalsStringTermsAggregator(name, factories, (ValuesSource.Bytes.WithOrdinals) valuesSource, order,
                         format, bucketCountThresholds, filter, context, parent, remapGlobalOrds, subAggCollectMode, showTermDocCountError,
+                        keyField, pipelineAggregators, metaData);
+            }
+        },
+        SEGMENT_ORDINALS(new ParseField("segment_ordinals")) {
+
+            @Override
+            Aggregator create(String name,
+                              AggregatorFactories factories,
+                              ValuesSource valuesSource,
+                              BucketOrder order,
+                              DocValueFormat format,
+                              TermsAggregator.BucketCountThresholds bucketCountThresholds,
+                              IncludeExclude includeExclude,
+                              SearchContext context, Aggregator parent,
+                              SubAggCollectionMode subAggCollectMode,
+                              boolean showTermDocCountError,
+                              String keyField,
+                              List<PipelineAggregator> pipelineAggregators,
+                              Map<String, Object> metaData) throws IOException {
+                if (factories != AggregatorFactories.EMPTY || Aggregator.descendsFromBucketAggregator(parent)) {
+                    /*
+                     * Sub-aggregations need the bucket of a document when it is collected, and an instance per parent bucket
+                     * would resolve the terms of each segment once per parent bucket, so fall back to global ordinals.
+                     */
+                    return GLOBAL_ORDINALS.create(name, factories, valuesSource, order, format, bucketCountThresholds, includeExclude,
+                            context, parent, subAggCollectMode, showTermDocCountError, keyField, pipelineAggregators, metaData);
+                }
+                final IncludeExclude.StringFilter filter = includeExclude == null ? null : includeExclude.convertToStringFilter(format);
+                return new StringTermsAggregator.SegmentOrdinals(name, factories, (ValuesSource.Bytes.WithOrdinals) valuesSource,
+                        order, format, bucketCountThresholds, filter, context, parent, subAggCollectMode, showTermDocCountError,
                         pipelineAggregators, metaData);
             }
         };
@@ -314,10 +401,13 @@ public class TermsAggregatorFactory extends ValuesSourceAggregatorFactory<Values
                 case "global_ordinals_low_cardinality":
                     deprecationLogger.deprecated("[global_ordinals_low_cardinality] is deprecated. Please use [global_ordinals] instead.");
                     return GLOBAL_ORDINALS;
+                case "segment_ordinals":
+                    return SEGMENT_ORDINALS;
                 case "map":
                     return MAP;
                 default:
-                    throw new IllegalArgumentException("Unknown `execution_hint`: [" + value + "], expected any of [map, global_ordinals]");
+                    throw new IllegalArgumentException("Unknown `execution_hint`: [" + value + "], "
+                            + "expected any of [map, global_ordinals, segment_ordinals]");
             }
         }
 
@@ -338,6 +428,7 @@ public class TermsAggregatorFactory extends ValuesSourceAggregatorFactory<Values
                                    Aggregator parent,
                                    SubAggCollectionMode subAggCollectMode,
                                    boolean showTermDocCountError,
+                                   String keyField,
                                    List<PipelineAggregator> pipelineAggregators,
                                    Map<String, Object> metaData) throws IOException;
 
@@ -19,21 +19,20 @@
 
 package org.elasticsearch.search.aggregations.metrics.cardinality;
 
-import org.apache.lucene.util.BytesRef;
-import org.apache.lucene.util.LongBitSet;
+import org.apache.lucene.util.Accountable;
 import org.apache.lucene.util.packed.PackedInts;
+import org.elasticsearch.Version;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.lease.Releasable;
 import org.elasticsearch.common.lease.Releasables;
 import org.elasticsearch.common.util.BigArrays;
 import org.elasticsearch.common.util.ByteArray;
-import org.elasticsearch.common.util.ByteUtils;
 import org.elasticsearch.common.util.IntArray;
+import org.elasticsearch.common.util.ObjectArray;
 
 import java.io.IOException;
-import java.nio.ByteBuffer;
-import java.nio.ByteOrder;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
@@ -51,10 +50,15 @@ import java.util.Set;
  * requires more space and makes hyperloglog (which is less accurate) used sooner,
  * this is also considerably faster.
  *
+ * Like the sparse representation of the paper, buckets start with a small hash
+ * table that grows with the number of distinct values, and only allocate their
+ * <code>m</code> registers when the hash table would become larger than them.
+ * Many buckets that only see a few distinct values are therefore cheap.
+ *
  * Trying to understand what this class does without having read the paper is
  * considered adventurous.
  */
-public final class HyperLogLogPlusPlus implements Releasable {
+public final class HyperLogLogPlusPlus implements Releasable, Accountable {
 
     public static final int MIN_PRECISION = 4;
     public static final int DEFAULT_PRECISION = 14;
@@ -64,6 +68,7 @@ public final class HyperLogLogPlusPlus implements Releasable {
     private static final float MAX_LOAD_FACTOR = 0.75f;
     private static final int P2 = 25;
     private static final int BIAS_K = 6;
+    private static final int INITIAL_HASHSET_CAPACITY = 4;
 
     /**
      * Compute the required precision so that <code>count</code> distinct entries
@@ -78,7 +83,7 @@ public final class HyperLogLogPlusPlus implements Releasable {
     }
 
     /**
-     * Return the expected per-bucket memory usage for the given precision.
+     * Return the maximum per-bucket memory usage for the given precision.
      */
     public static long memoryUsage(int precision) {
         return 1L << precision;
@@ -156,11 +161,14 @@ public final class HyperLogLogPlusPlus implements Releasable {
     };
 
     private final BigArrays bigArrays;
-    private final OpenBitSet algorithm;
-    private ByteArray runLens;
-    private final Hashset hashSet;
     private final int p, m;
     private final double alphaMM;
+    // linear counting hash sets of the buckets that haven't been upgraded to hyperloglog yet
+    private final Hashset hashSet;
+    // for every bucket, 1 + the index of its registers in runLens, or 0 if it still uses linear counting
+    private IntArray denseSlots;
+    private int numDenseSlots;
+    private ByteArray runLens;
 
     public HyperLogLogPlusPlus(int precision, BigArrays bigArrays, long initialBucketCount) {
         if (precision < 4) {
@@ -172,8 +180,8 @@ public final class HyperLogLogPlusPlus implements Releasable {
         p = precision;
         m = 1 << p;
         this.bigArrays = bigArrays;
-        algorithm = new OpenBitSet();
-        runLens = bigArrays.newByteArray(initialBucketCount << p);
+        denseSlots = bigArrays.newIntArray(initialBucketCount);
+        runLens = bigArrays.newByteArray(0);
         hashSet = new Hashset(initialBucketCount);
         final double alpha;
         switch (p) {
@@ -195,11 +203,24 @@ public final class HyperLogLogPlusPlus implements Releasable {
     }
 
     public long maxBucket() {
-        return runLens.size() >>> p;
+        return denseSlots.size();
     }
 
     private void ensureCapacity(long numBuckets) {
-        runLens = bigArrays.grow(runLens, numBuckets << p);
+        denseSlots = bigArrays.grow(denseSlots, numBuckets);
+        hashSet.ensureCapacity(numBuckets);
+    }
+
+    private boolean isHll(long bucket) {
+        return bucket < denseSlots.size() && denseSlots.get(bucket) != 0;
+    }
+
+    /**
+     * Return the index of the first register of the given bucket in {@link #runLens}.
+     */
+    private long registersStart(long bucket) {
+        assert isHll(bucket);
+        return (denseSlots.get(bucket) - 1L) << p;
     }
 
     public void merge(long thisBucket, HyperLogLogPlusPlus other, long otherBucket) {
@@ -207,12 +228,12 @@ public final class HyperLogLogPlusPlus implements Releasable {
             throw new IllegalArgumentException();
         }
         ensureCapacity(thisBucket + 1);
-        if (other.algorithm.get(otherBucket) == LINEAR_COUNTING) {
+        if (other.isHll(otherBucket) == false) {
             final IntArray values = other.hashSet.values(otherBucket);
             try {
                 for (long i = 0; i < values.size(); ++i) {
                     final int encoded = values.get(i);
-                    if (algorithm.get(thisBucket) == LINEAR_COUNTING) {
+                    if (isHll(thisBucket) == false) {
                         collectLcEncoded(thisBucket, encoded);
                     } else {
                         collectHllEncoded(thisBucket, encoded);
@@ -222,11 +243,11 @@ public final class HyperLogLogPlusPlus implements Releasable {
                 Releasables.close(values);
             }
         } else {
-            if (algorithm.get(thisBucket) != HYPERLOGLOG) {
+            if (isHll(thisBucket) == false) {
                 upgradeToHll(thisBucket);
             }
-            final long thisStart = thisBucket << p;
-            final long otherStart = otherBucket << p;
+            final long thisStart = registersStart(thisBucket);
+            final long otherStart = other.registersStart(otherBucket);
             for (int i = 0; i < m; ++i) {
                 runLens.set(thisStart + i, (byte) Math.max(runLens.get(thisStart + i), other.runLens.get(otherStart + i)));
             }
@@ -235,7 +256,7 @@ public final class HyperLogLogPlusPlus implements Releasable {
 
     public void collect(long bucket, long hash) {
         ensureCapacity(bucket + 1);
-        if (algorithm.get(bucket) == LINEAR_COUNTING) {
+        if (isHll(bucket) == false) {
             collectLc(bucket, hash);
         } else {
             collectHll(bucket, hash);
@@ -267,12 +288,12 @@ public final class HyperLogLogPlusPlus implements Releasable {
     }
 
     private void collectHll(long bucket, long index, int runLen) {
-        final long bucketIndex = (bucket << p) + index;
-        runLens.set(bucketIndex, (byte) Math.max(runLen, runLens.get(bucketIndex)));
+        final long registerIndex = registersStart(bucket) + index;
+        runLens.set(registerIndex, (byte) Math.max(runLen, runLens.get(registerIndex)));
     }
 
     public long cardinality(long bucket) {
-        if (algorithm.get(bucket) == LINEAR_COUNTING) {
+        if (isHll(bucket) == false) {
             return cardinalityLc(bucket);
         } else {
             return cardinalityHll(bucket);
@@ -288,7 +309,7 @@ public final class HyperLogLogPlusPlus implements Releasable {
     private long cardinalityHll(long bucket) {
         double inverseSum = 0;
         int zeros = 0;
-        for (long i = bucket << p, end = i + m; i < end; ++i) {
+        for (long i = registersStart(bucket), end = i + m; i < end; ++i) {
             final int runLen = runLens.get(i);
             inverseSum += 1. / (1L << runLen);
             if (runLen == 0) {
@@ -310,16 +331,23 @@ public final class HyperLogLogPlusPlus implements Releasable {
         }
     }
 
+    /**
+     * Allocate registers for the given bucket, replay the hashes of its linear counting hash set into them and release the hash set.
+     */
     void upgradeToHll(long bucket) {
         ensureCapacity(bucket + 1);
+        assert isHll(bucket) == false;
         final IntArray values = hashSet.values(bucket);
         try {
-            runLens.fill(bucket << p, (bucket << p) + m, (byte) 0);
+            final long start = (long) numDenseSlots << p;
+            runLens = bigArrays.grow(runLens, start + m);
+            runLens.fill(start, start + m, (byte) 0);
+            denseSlots.set(bucket, ++numDenseSlots);
             for (long i = 0; i < values.size(); ++i) {
                 final int encoded = values.get(i);
                 collectHllEncoded(bucket, encoded);
             }
-            algorithm.set(bucket);
+            hashSet.clear(bucket);
         } finally {
             Releasables.close(values);
         }
@@ -420,13 +448,18 @@ public final class HyperLogLogPlusPlus implements Releasable {
         return THRESHOLDS[p - 4];
     }
 
+    @Override
+    public long ramBytesUsed() {
+        return denseSlots.ramBytesUsed() + runLens.ramBytesUsed() + hashSet.ramBytesUsed();
+    }
+
     @Override
     public void close() {
-        Releasables.close(runLens, hashSet.sizes);
+        Releasables.close(runLens, denseSlots, hashSet);
     }
 
     private Object getComparableData(long bucket) {
-        if (algorithm.get(bucket) == LINEAR_COUNTING) {
+        if (isHll(bucket) == false) {
             Set<Integer> values = new HashSet<>();
             try (IntArray hashSetValues = hashSet.values(bucket)) {
                 for (long i = 0; i < hashSetValues.size(); i++) {
@@ -436,8 +469,8 @@ public final class HyperLogLogPlusPlus implements Releasable {
             return values;
         } else {
             Map<Byte, Integer> values = new HashMap<>();
-            for (long i = 0; i < runLens.size(); i++) {
-                byte runLength = runLens.get((bucket << p) + i);
+            for (long i = registersStart(bucket), end = i + m; i < end; i++) {
+                byte runLength = runLens.get(i);
                 Integer numOccurances = values.get(runLength);
                 if (numOccurances == null) {
                     values.put(runLength, 1);
@@ -450,56 +483,44 @@ public final class HyperLogLogPlusPlus implements Releasable {
     }
 
     public int hashCode(long bucket) {
-        return Objects.hash(p, algorithm.get(bucket), getComparableData(bucket));
+        return Objects.hash(p, isHll(bucket), getComparableData(bucket));
     }
 
     public boolean equals(long bucket, HyperLogLogPlusPlus other) {
         return Objects.equals(p, other.p) &&
-                Objects.equals(algorithm.get(bucket), other.algorithm.get(bucket)) &&
+                Objects.equals(isHll(bucket), other.isHll(bucket)) &&
                 Objects.equals(getComparableData(bucket), other.getComparableData(bucket));
     }
 
     /**
-     * We are actually using HyperLogLog's runLens array but interpreting it as a hash set
-     * for linear counting.
+     * Linear counting hash sets of encoded hashes, one per bucket. Each hash set starts small and doubles in size as it
+     * fills up, so that buckets that only see a few values only use a few bytes. A hash set never grows beyond
+     * <code>m / 4</code> ints, which is the memory usage of the registers: it is upgraded to hyperloglog before that.
      */
-    private class Hashset {
+    private class Hashset implements Releasable {
 
-        private final int capacity;
+        private final int maxCapacity;
         private final int threshold;
-        private final int mask;
+        private ObjectArray<IntArray> tables;
         private IntArray sizes;
-        private final BytesRef readSpare;
-        private final ByteBuffer writeSpare;
 
         Hashset(long initialBucketCount) {
-            capacity = m / 4; // because ints take 4 bytes
-            threshold = (int) (capacity * MAX_LOAD_FACTOR);
-            mask = capacity - 1;
+            maxCapacity = m / 4; // because ints take 4 bytes
+            threshold = (int) (maxCapacity * MAX_LOAD_FACTOR);
+            tables = bigArrays.newObjectArray(initialBucketCount);
             sizes = bigArrays.newIntArray(initialBucketCount);
-            readSpare = new BytesRef();
-            writeSpare = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN);
-        }
-
-        private long index (long bucket, int index) {
-            return (bucket << p) + (index << 2);
         }
 
-        private int get(long bucket, int index) {
-            runLens.get(index(bucket, index), 4, readSpare);
-            return ByteUtils.readIntLE(readSpare.bytes, readSpare.offset);
-        }
-
-        private void set(long bucket, int index, int value) {
-            writeSpare.putInt(0, value);
-            runLens.set(index(bucket, index), writeSpare.array(), 0, 4);
+        void ensureCapacity(long numBuckets) {
+            tables = bigArrays.grow(tables, numBuckets);
+            sizes = bigArrays.grow(sizes, numBuckets);
         }
 
         private int recomputedSize(long bucket) {
+            final IntArray table = tables.get(bucket);
             int size = 0;
-            for (int i = 0; i <= mask; ++i) {
-                final int v = get(bucket, i);
-                if (v != 0) {
+            for (long i = 0; table != null && i < table.size(); ++i) {
+                if (table.get(i) != 0) {
                     ++size;
                 }
             }
@@ -520,13 +541,20 @@ public final class HyperLogLogPlusPlus implements Releasable {
          * Return {@code -1} if the value was already in the set or the new set size if it was added.
          */
         public int add(long bucket, int k) {
-            sizes = bigArrays.grow(sizes, bucket + 1);
             assert k != 0;
+            IntArray table = tables.get(bucket);
+            if (table == null) {
+                table = bigArrays.newIntArray(Math.min(INITIAL_HASHSET_CAPACITY, maxCapacity));
+                tables.set(bucket, table);
+            } else if (table.size() < maxCapacity && sizes.get(bucket) >= table.size() * MAX_LOAD_FACTOR) {
+                table = resize(bucket, table, table.size() * 2);
+            }
+            final int mask = (int) table.size() - 1;
             for (int i = (k & mask); ; i = (i + 1) & mask) {
-                final int v = get(bucket, i);
+                final int v = table.get(i);
                 if (v == 0) {
                     // means unused, take it!
-                    set(bucket, i, k);
+                    table.set(i, k);
                     return sizes.increment(bucket, 1);
                 } else if (v == k) {
                     // k is already in the set
@@ -535,15 +563,34 @@ public final class HyperLogLogPlusPlus implements Releasable {
             }
         }
 
+        private IntArray resize(long bucket, IntArray table, long newCapacity) {
+            final IntArray newTable = bigArrays.newIntArray(newCapacity);
+            final int mask = (int) newCapacity - 1;
+            for (long j = 0; j < table.size(); ++j) {
+                final int k = table.get(j);
+                if (k != 0) {
+                    int i = k & mask;
+                    while (newTable.get(i) != 0) {
+                        i = (i + 1) & mask;
+                    }
+                    newTable.set(i, k);
+                }
+            }
+            tables.set(bucket, newTable);
+            Releasables.close(table);
+            return newTable;
+        }
+
         public IntArray values(final long bucket) {
             final int size = size(bucket);
             final IntArray values = bigArrays.newIntArray(size);
             if (size == 0) {
                 return values;
             }
+            final IntArray table = tables.get(bucket);
             int i = 0;
-            for (int j = 0; j < capacity; ++j) {
-                final int k = get(bucket, j);
+            for (long j = 0; j < table.size(); ++j) {
+                final int k = table.get(j);
                 if (k != 0) {
                     values.set(i++, k);
                 }
@@ -552,21 +599,64 @@ public final class HyperLogLogPlusPlus implements Releasable {
             return values;
         }
 
+        /**
+         * Release the hash set of the given bucket.
+         */
+        void clear(long bucket) {
+            Releasables.close(tables.set(bucket, null));
+            sizes.set(bucket, 0);
+        }
+
+        long ramBytesUsed() {
+            long ramBytesUsed = tables.ramBytesUsed() + sizes.ramBytesUsed();
+            for (long i = 0; i < tables.size(); ++i) {
+                final IntArray table = tables.get(i);
+                if (table != null) {
+                    ramBytesUsed += table.ramBytesUsed();
+                }
+            }
+            return ramBytesUsed;
+        }
+
+        @Override
+        public void close() {
+            try {
+                for (long i = 0; i < tables.size(); ++i) {
+                    Releasables.close(tables.get(i));
+                }
+            } finally {
+                Releasables.close(tables, sizes);
+            }
+        }
     }
 
     public void writeTo(long bucket, StreamOutput out) throws IOException {
         out.writeVInt(p);
-        if (algorithm.get(bucket) == LINEAR_COUNTING) {
+        if (isHll(bucket) == false) {
             out.writeBoolean(LINEAR_COUNTING);
             try (IntArray hashes = hashSet.values(bucket)) {
                 out.writeVLong(hashes.size());
-                for (long i = 0; i < hashes.size(); ++i) {
-                    out.writeInt(hashes.get(i));
+                if (out.getVersion().onOrAfter(Version.V_6_8_24)) {
+                    // write the sorted hashes as deltas, which usually takes less than the 4 bytes per hash of the fixed-size encoding
+                    final long[] sorted = new long[Math.toIntExact(hashes.size())];
+                    for (int i = 0; i < sorted.length; ++i) {
+                        sorted[i] = Integer.toUnsignedLong(hashes.get(i));
+                    }
+                    Arrays.sort(sorted);
+                    long previous = 0;
+                    for (long encoded : sorted) {
+                        out.writeVLong(encoded - previous);
+                        previous = encoded;
+                    }
+                } else {
+                    for (long i = 0; i < hashes.size(); ++i) {
+                        out.writeInt(hashes.get(i));
+                    }
                 }
             }
         } else {
             out.writeBoolean(HYPERLOGLOG);
-            for (long i = bucket << p, end = i + m; i < end; ++i) {
+            for (long i = registersStart(bucket), end = i + m; i < end; ++i) {
                 out.writeByte(runLens.get(i));
             }
         }
@@ -577,46 +667,27 @@ public final class HyperLogLogPlusPlus implements Releasable {
         HyperLogLogPlusPlus counts = new HyperLogLogPlusPlus(precision, bigArrays, 1);
         final boolean algorithm = in.readBoolean();
         if (algorithm == LINEAR_COUNTING) {
-            counts.algorithm.clear(0);
             final long size = in.readVLong();
-            for (long i = 0; i < size; ++i) {
-                final int encoded = in.readInt();
-                counts.hashSet.add(0, encoded);
+            if (in.getVersion().onOrAfter(Version.V_6_8_24)) {
+                long encoded = 0;
+                for (long i = 0; i < size; ++i) {
+                    encoded += in.readVLong();
+                    counts.hashSet.add(0, (int) encoded);
+                }
+            } else {
+                for (long i = 0; i < size; ++i) {
+                    final int encoded = in.readInt();
+                    counts.hashSet.add(0, encoded);
+                }
             }
         } else {
-            counts.algorithm.set(0);
+            counts.upgradeToHll(0);
+            final long start = counts.registersStart(0);
             for (int i = 0; i < counts.m; ++i) {
-                counts.runLens.set(i, in.readByte());
+                counts.runLens.set(start + i, in.readByte());
             }
         }
         return counts;
     }
-    
-    /** looks and smells like the old openbitset. */
-    static class OpenBitSet {
-        LongBitSet impl = new LongBitSet(64);
-
-        boolean get(long bit) {
-            if (bit < impl.length()) {
-                return impl.get(bit);
-            } else {
-                return false;
-            }
-        }
-        
-        void ensureCapacity(long bit) {
-            impl = LongBitSet.ensureCapacity(impl, bit);
-        }
-        
-        void set(long bit) {
-            ensureCapacity(bit);
-            impl.set(bit);
-        }
-        
-        void clear(long bit) {
-            ensureCapacity(bit);
-            impl.clear(bit);
-        }
-    }
 
 }
@@ -19,6 +19,7 @@
 
 package org.elasticsearch.search.aggregations.metrics.percentiles;
 
+import org.elasticsearch.Version;
 import org.elasticsearch.common.ParseField;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
@@ -30,6 +31,7 @@ import org.elasticsearch.search.aggregations.AggregationBuilder;
 import org.elasticsearch.search.aggregations.AggregatorFactories.Builder;
 import org.elasticsearch.search.aggregations.AggregatorFactory;
 import org.elasticsearch.search.aggregations.metrics.percentiles.hdr.HDRPercentileRanksAggregatorFactory;
+import org.elasticsearch.search.aggregations.metrics.percentiles.tdigest.TDigestExecutionHint;
 import org.elasticsearch.search.aggregations.metrics.percentiles.tdigest.TDigestPercentileRanksAggregatorFactory;
 import org.elasticsearch.search.aggregations.support.ValueType;
 import org.elasticsearch.search.aggregations.support.ValuesSource;
@@ -56,12 +58,15 @@ public class PercentileRanksAggregationBuilder extends LeafOnly<ValuesSource.Num
 
     private static class TDigestOptions {
         Double compression;
+        String executionHint;
     }
 
     private static final ObjectParser<TDigestOptions, String> TDIGEST_OPTIONS_PARSER =
             new ObjectParser<>(PercentilesMethod.TDIGEST.getParseField().getPreferredName(), TDigestOptions::new);
     static {
         TDIGEST_OPTIONS_PARSER.declareDouble((opts, compression) -> opts.compression = compression, new ParseField("compression"));
+        TDIGEST_OPTIONS_PARSER.declareString((opts, executionHint) -> opts.executionHint = executionHint,
+                PercentilesAggregationBuilder.EXECUTION_HINT_FIELD);
     }
 
     private static class HDROptions {
@@ -91,6 +96,9 @@ public class PercentileRanksAggregationBuilder extends LeafOnly<ValuesSource.Num
             if (v.compression != null) {
                 b.compression(v.compression);
             }
+            if (v.executionHint != null) {
+                b.executionHint(TDigestExecutionHint.parse(v.executionHint));
+            }
         }, TDIGEST_OPTIONS_PARSER::parse, PercentilesMethod.TDIGEST.getParseField(), ObjectParser.ValueType.OBJECT);
 
         PARSER.declareField((b, v) -> {
@@ -110,6 +118,7 @@ public class PercentileRanksAggregationBuilder extends LeafOnly<ValuesSource.Num
     private PercentilesMethod method = PercentilesMethod.TDIGEST;
     private int numberOfSignificantValueDigits = 3;
     private double compression = 100.0;
+    private TDigestExecutionHint executionHint = TDigestExecutionHint.DEFAULT;
     private boolean keyed = true;
 
     private PercentileRanksAggregationBuilder(String name, List<Double> values) {
@@ -137,6 +146,7 @@ public class PercentileRanksAggregationBuilder extends LeafOnly<ValuesSource.Num
         this.method = clone.method;
         this.numberOfSignificantValueDigits = clone.numberOfSignificantValueDigits;
         this.compression = clone.compression;
+        this.executionHint = clone.executionHint;
         this.keyed = clone.keyed;
     }
 
@@ -155,6 +165,9 @@ public class PercentileRanksAggregationBuilder extends LeafOnly<ValuesSource.Num
         numberOfSignificantValueDigits = in.readVInt();
         compression = in.readDouble();
         method = PercentilesMethod.readFromStream(in);
+        if (in.getVersion().onOrAfter(Version.V_6_8_24)) {
+            executionHint = TDigestExecutionHint.readFromStream(in);
+        }
     }
 
     @Override
@@ -164,6 +177,9 @@ public class PercentileRanksAggregationBuilder extends LeafOnly<ValuesSource.Num
         out.writeVInt(numberOfSignificantValueDigits);
         out.writeDouble(compression);
         method.writeTo(out);
+        if (out.getVersion().onOrAfter(Version.V_6_8_24)) {
+            executionHint.writeTo(out);
+        }
     }
 
     /**
@@ -229,6 +245,24 @@ public class PercentileRanksAggregationBuilder extends LeafOnly<ValuesSource.Num
         return compression;
     }
 
+    /**
+     * Expert: set the t-digest implementation. Only relevant when using {@link PercentilesMethod#TDIGEST}.
+     */
+    public PercentileRanksAggregationBuilder executionHint(TDigestExecutionHint executionHint) {
+        if (executionHint == null) {
+            throw new IllegalArgumentException("[executionHint] must not be null: [" + name + "]");
+        }
+        this.executionHint = executionHint;
+        return this;
+    }
+
+    /**
+     * Expert: get the t-digest implementation. Only relevant when using {@link PercentilesMethod#TDIGEST}.
+     */
+    public TDigestExecutionHint executionHint() {
+        return executionHint;
+    }
+
     public PercentileRanksAggregationBuilder method(PercentilesMethod method) {
         if (method == null) {
             throw new IllegalArgumentException("[method] must not be null: [" + name + "]");
@@ -246,8 +280,8 @@ public class PercentileRanksAggregationBuilder extends LeafOnly<ValuesSource.Num
             AggregatorFactory<?> parent, Builder subFactoriesBuilder) throws IOException {
         switch (method) {
         case TDIGEST:
-            return new TDigestPercentileRanksAggregatorFactory(name, config, values, compression, keyed, context, parent,
-                    subFactoriesBuilder, metaData);
+            return new TDigestPercentileRanksAggregatorFactory(name, config, values, compression, executionHint, keyed, context,
+                    parent, subFactoriesBuilder, metaData);
         case HDR:
             return new HDRPercentileRanksAggregatorFactory(name, config, values, numberOfSignificantValueDigits, keyed, context,
                     parent, subFactoriesBuilder, metaData);
@@ -263,6 +297,9 @@ public class PercentileRanksAggregationBuilder extends LeafOnly<ValuesSource.Num
         builder.startObject(method.toString());
         if (method == PercentilesMethod.TDIGEST) {
             builder.field(PercentilesAggregationBuilder.COMPRESSION_FIELD.getPreferredName(), compression);
+            if (executionHint != TDigestExecutionHint.DEFAULT) {
+                builder.field(PercentilesAggregationBuilder.EXECUTION_HINT_FIELD.getPreferredName(), executionHint.toString());
+            }
         } else {
             builder.field(PercentilesAggregationBuilder.NUMBER_SIGNIFICANT_DIGITS_FIELD.getPreferredName(), numberOfSignificantValueDigits);
         }
@@ -282,7 +319,8 @@ public class PercentileRanksAggregationBuilder extends LeafOnly<ValuesSource.Num
             equalSettings = Objects.equals(numberOfSignificantValueDigits, other.numberOfSignificantValueDigits);
             break;
         case TDIGEST:
-            equalSettings = Objects.equals(compression, other.compression);
+            equalSettings = Objects.equals(compression, other.compression)
+                && Objects.equals(executionHint, other.executionHint);
             break;
         default:
             throw new IllegalStateException("Illegal method [" + method + "]");
@@ -299,7 +337,7 @@ public class PercentileRanksAggregationBuilder extends LeafOnly<ValuesSource.Num
         case HDR:
             return Objects.hash(Arrays.hashCode(values), keyed, numberOfSignificantValueDigits, method);
         case TDIGEST:
-            return Objects.hash(Arrays.hashCode(values), keyed, compression, method);
+            return Objects.hash(Arrays.hashCode(values), keyed, compression, executionHint, method);
         default:
             throw new IllegalStateException("Illegal method [" + method + "]");
         }
@@ -19,6 +19,7 @@
 
 package org.elasticsearch.search.aggregations.metrics.percentiles;
 
+import org.elasticsearch.Version;
 import org.elasticsearch.common.ParseField;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
@@ -29,6 +30,7 @@ import org.elasticsearch.search.aggregations.AggregationBuilder;
 import org.elasticsearch.search.aggregations.AggregatorFactories.Builder;
 import org.elasticsearch.search.aggregations.AggregatorFactory;
 import org.elasticsearch.search.aggregations.metrics.percentiles.hdr.HDRPercentilesAggregatorFactory;
+import org.elasticsearch.search.aggregations.metrics.percentiles.tdigest.TDigestExecutionHint;
 import org.elasticsearch.search.aggregations.metrics.percentiles.tdigest.TDigestPercentilesAggregatorFactory;
 import org.elasticsearch.search.aggregations.support.ValueType;
 import org.elasticsearch.search.aggregations.support.ValuesSource;
@@ -54,16 +56,20 @@ public class PercentilesAggregationBuilder extends LeafOnly<ValuesSource.Numeric
     public static final ParseField KEYED_FIELD = new ParseField("keyed");
     public static final ParseField METHOD_FIELD = new ParseField("method");
     public static final ParseField COMPRESSION_FIELD = new ParseField("compression");
+    public static final ParseField EXECUTION_HINT_FIELD = new ParseField("execution_hint");
     public static final ParseField NUMBER_SIGNIFICANT_DIGITS_FIELD = new ParseField("number_of_significant_value_digits");
 
     private static class TDigestOptions {
         Double compression;
+        String executionHint;
     }
 
     private static final ObjectParser<TDigestOptions, Void> TDIGEST_OPTIONS_PARSER =
             new ObjectParser<>(PercentilesMethod.TDIGEST.getParseField().getPreferredName(), TDigestOptions::new);
     static {
         TDIGEST_OPTIONS_PARSER.declareDouble((opts, compression) -> opts.compression = compression, COMPRESSION_FIELD);
+        TDIGEST_OPTIONS_PARSER.declareString((opts, executionHint) -> opts.executionHint = executionHint,
+                EXECUTION_HINT_FIELD);
     }
 
     private static class HDROptions {
@@ -94,6 +100,9 @@ public class PercentilesAggregationBuilder extends LeafOnly<ValuesSource.Numeric
             if (v.compression != null) {
                 b.compression(v.compression);
             }
+            if (v.executionHint != null) {
+                b.executionHint(TDigestExecutionHint.parse(v.executionHint));
+            }
         }, TDIGEST_OPTIONS_PARSER::parse, PercentilesMethod.TDIGEST.getParseField(), ObjectParser.ValueType.OBJECT);
 
         PARSER.declareField((b, v) -> {
@@ -117,6 +126,7 @@ public class PercentilesAggregationBuilder extends LeafOnly<ValuesSource.Numeric
         setIfNotNull(returnedAgg::percentiles, internal.percentiles());
         returnedAgg.keyed(internal.keyed());
         returnedAgg.compression(internal.compression());
+        returnedAgg.executionHint(internal.executionHint());
         returnedAgg.numberOfSignificantValueDigits(internal.numberOfSignificantValueDigits());
         return returnedAgg;
     }
@@ -131,6 +141,7 @@ public class PercentilesAggregationBuilder extends LeafOnly<ValuesSource.Numeric
     private PercentilesMethod method = PercentilesMethod.TDIGEST;
     private int numberOfSignificantValueDigits = 3;
     private double compression = 100.0;
+    private TDigestExecutionHint executionHint = TDigestExecutionHint.DEFAULT;
     private boolean keyed = true;
 
     public PercentilesAggregationBuilder(String name) {
@@ -144,6 +155,7 @@ public class PercentilesAggregationBuilder extends LeafOnly<ValuesSource.Numeric
         this.method = clone.method;
         this.numberOfSignificantValueDigits = clone.numberOfSignificantValueDigits;
         this.compression = clone.compression;
+        this.executionHint = clone.executionHint;
         this.keyed = clone.keyed;
     }
 
@@ -162,6 +174,9 @@ public class PercentilesAggregationBuilder extends LeafOnly<ValuesSource.Numeric
         numberOfSignificantValueDigits = in.readVInt();
         compression = in.readDouble();
         method = PercentilesMethod.readFromStream(in);
+        if (in.getVersion().onOrAfter(Version.V_6_8_24)) {
+            executionHint = TDigestExecutionHint.readFromStream(in);
+        }
     }
 
     @Override
@@ -171,6 +186,9 @@ public class PercentilesAggregationBuilder extends LeafOnly<ValuesSource.Numeric
         out.writeVInt(numberOfSignificantValueDigits);
         out.writeDouble(compression);
         method.writeTo(out);
+        if (out.getVersion().onOrAfter(Version.V_6_8_24)) {
+            executionHint.writeTo(out);
+        }
     }
 
     /**
@@ -252,6 +270,24 @@ public class PercentilesAggregationBuilder extends LeafOnly<ValuesSource.Numeric
         return compression;
     }
 
+    /**
+     * Expert: set the t-digest implementation. Only relevant when using {@link PercentilesMethod#TDIGEST}.
+     */
+    public PercentilesAggregationBuilder executionHint(TDigestExecutionHint executionHint) {
+        if (executionHint == null) {
+            throw new IllegalArgumentException("[executionHint] must not be null: [" + name + "]");
+        }
+        this.executionHint = executionHint;
+        return this;
+    }
+
+    /**
+     * Expert: get the t-digest implementation. Only relevant when using {@link PercentilesMethod#TDIGEST}.
+     */
+    public TDigestExecutionHint executionHint() {
+        return executionHint;
+    }
+
     public PercentilesAggregationBuilder method(PercentilesMethod method) {
         if (method == null) {
             throw new IllegalArgumentException("[method] must not be null: [" + name + "]");
@@ -269,7 +305,7 @@ public class PercentilesAggregationBuilder extends LeafOnly<ValuesSource.Numeric
             AggregatorFactory<?> parent, Builder subFactoriesBuilder) throws IOException {
         switch (method) {
         case TDIGEST:
-            return new TDigestPercentilesAggregatorFactory(name, config, percents, compression, keyed, context, parent,
+            return new TDigestPercentilesAggregatorFactory(name, config, percents, compression, executionHint, keyed, context, parent,
                     subFactoriesBuilder, metaData);
         case HDR:
             return new HDRPercentilesAggregatorFactory(name, config, percents, numberOfSignificantValueDigits, keyed, context, parent,
@@ -286,6 +322,10 @@ public class PercentilesAggregationBuilder extends LeafOnly<ValuesSource.Numeric
         builder.startObject(method.toString());
         if (method == PercentilesMethod.TDIGEST) {
             builder.field(COMPRESSION_FIELD.getPreferredName(), compression);
+            if (executionHint != TDigestExecutionHint.DEFAULT) {
+                // only rendered when set so that sources stay parseable by nodes that don't know the hint
+                builder.field(EXECUTION_HINT_FIELD.getPreferredName(), executionHint.toString());
+            }
         } else {
             builder.field(NUMBER_SIGNIFICANT_DIGITS_FIELD.getPreferredName(), numberOfSignificantValueDigits);
         }
@@ -305,7 +345,8 @@ public class PercentilesAggregationBuilder extends LeafOnly<ValuesSource.Numeric
             equalSettings = Objects.equals(numberOfSignificantValueDigits, other.numberOfSignificantValueDigits);
             break;
         case TDIGEST:
-            equalSettings = Objects.equals(compression, other.compression);
+            equalSettings = Objects.equals(compression, other.compression)
+                && Objects.equals(executionHint, other.executionHint);
             break;
         default:
             throw new IllegalStateException("Illegal method [" + method.toString() + "]");
@@ -322,7 +363,7 @@ public class PercentilesAggregationBuilder extends LeafOnly<ValuesSource.Numeric
         case HDR:
             return Objects.hash(Arrays.hashCode(percents), keyed, numberOfSignificantValueDigits, method);
         case TDIGEST:
-            return Objects.hash(Arrays.hashCode(percents), keyed, compression, method);
+            return Objects.hash(Arrays.hashCode(percents), keyed, compression, executionHint, method);
         default:
             throw new IllegalStateException("Illegal method [" + method.toString() + "]");
         }
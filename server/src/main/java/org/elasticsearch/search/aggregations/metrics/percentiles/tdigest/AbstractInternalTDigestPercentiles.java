@@ -89,7 +89,7 @@ abstract class AbstractInternalTDigestPercentiles extends InternalNumericMetrics
         for (InternalAggregation aggregation : aggregations) {
             final AbstractInternalTDigestPercentiles percentiles = (AbstractInternalTDigestPercentiles) aggregation;
             if (merged == null) {
-                merged = new TDigestState(percentiles.state.compression());
+                merged = new TDigestState(percentiles.state.compression(), percentiles.state.executionHint());
             }
             merged.add(percentiles.state);
         }
@@ -49,10 +49,11 @@ public abstract class AbstractTDigestPercentilesAggregator extends NumericMetric
     protected final DocValueFormat formatter;
     protected ObjectArray<TDigestState> states;
     protected final double compression;
+    protected final TDigestExecutionHint executionHint;
     protected final boolean keyed;
 
     public AbstractTDigestPercentilesAggregator(String name, ValuesSource.Numeric valuesSource, SearchContext context, Aggregator parent,
-            double[] keys, double compression, boolean keyed, DocValueFormat formatter,
+            double[] keys, double compression, TDigestExecutionHint executionHint, boolean keyed, DocValueFormat formatter,
             List<PipelineAggregator> pipelineAggregators, Map<String, Object> metaData) throws IOException {
         super(name, context, parent, pipelineAggregators, metaData);
         this.valuesSource = valuesSource;
@@ -61,6 +62,7 @@ public abstract class AbstractTDigestPercentilesAggregator extends NumericMetric
         this.states = context.bigArrays().newObjectArray(1);
         this.keys = keys;
         this.compression = compression;
+        this.executionHint = executionHint;
     }
 
     @Override
@@ -83,7 +85,7 @@ public abstract class AbstractTDigestPercentilesAggregator extends NumericMetric
 
                 TDigestState state = states.get(bucket);
                 if (state == null) {
-                    state = new TDigestState(compression);
+                    state = new TDigestState(compression, executionHint);
                     states.set(bucket, state);
                 }
 
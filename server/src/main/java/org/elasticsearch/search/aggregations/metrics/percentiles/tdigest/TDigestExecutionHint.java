@@ -0,0 +1,66 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.search.aggregations.metrics.percentiles.tdigest;
+
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.io.stream.Writeable;
+
+import java.io.IOException;
+import java.util.Locale;
+
+/**
+ * The t-digest implementations that back a {@link TDigestState}.
+ */
+public enum TDigestExecutionHint implements Writeable {
+    /**
+     * Centroids are kept in a balanced tree and every value is inserted in place. This is the default.
+     */
+    AVL_TREE,
+    /**
+     * Values and centroids of other digests are buffered in flat arrays and merged with the existing centroids in sorted
+     * passes. Merging many digests is cheaper and the digest has fewer centroids, for a similar accuracy.
+     */
+    MERGING;
+
+    public static final TDigestExecutionHint DEFAULT = AVL_TREE;
+
+    public static TDigestExecutionHint parse(String value) {
+        for (TDigestExecutionHint hint : values()) {
+            if (hint.toString().equals(value)) {
+                return hint;
+            }
+        }
+        throw new IllegalArgumentException("Unknown `execution_hint`: [" + value + "], expected any of [avl_tree, merging]");
+    }
+
+    public static TDigestExecutionHint readFromStream(StreamInput in) throws IOException {
+        return in.readEnum(TDigestExecutionHint.class);
+    }
+
+    @Override
+    public void writeTo(StreamOutput out) throws IOException {
+        out.writeEnum(this);
+    }
+
+    @Override
+    public String toString() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+}
@@ -32,10 +32,11 @@ import java.util.Map;
 public class TDigestPercentileRanksAggregator extends AbstractTDigestPercentilesAggregator {
 
     public TDigestPercentileRanksAggregator(String name, Numeric valuesSource, SearchContext context, Aggregator parent, double[] percents,
-            double compression, boolean keyed, DocValueFormat formatter, List<PipelineAggregator> pipelineAggregators,
-            Map<String, Object> metaData)
+            double compression, TDigestExecutionHint executionHint, boolean keyed, DocValueFormat formatter,
+            List<PipelineAggregator> pipelineAggregators, Map<String, Object> metaData)
             throws IOException {
-        super(name, valuesSource, context, parent, percents, compression, keyed, formatter, pipelineAggregators, metaData);
+        super(name, valuesSource, context, parent, percents, compression, executionHint, keyed, formatter, pipelineAggregators,
+                metaData);
     }
 
     @Override
@@ -50,7 +51,8 @@ public class TDigestPercentileRanksAggregator extends AbstractTDigestPercentiles
 
     @Override
     public InternalAggregation buildEmptyAggregation() {
-        return new InternalTDigestPercentileRanks(name, keys, new TDigestState(compression), keyed, formatter, pipelineAggregators(), metaData());
+        return new InternalTDigestPercentileRanks(name, keys, new TDigestState(compression, executionHint), keyed, formatter,
+                pipelineAggregators(), metaData());
     }
 
     @Override
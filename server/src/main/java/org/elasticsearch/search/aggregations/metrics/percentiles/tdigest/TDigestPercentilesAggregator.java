@@ -33,9 +33,10 @@ public class TDigestPercentilesAggregator extends AbstractTDigestPercentilesAggr
 
     public TDigestPercentilesAggregator(String name, Numeric valuesSource, SearchContext context,
             Aggregator parent, double[] percents,
-            double compression, boolean keyed, DocValueFormat formatter, List<PipelineAggregator> pipelineAggregators,
-            Map<String, Object> metaData) throws IOException {
-        super(name, valuesSource, context, parent, percents, compression, keyed, formatter, pipelineAggregators, metaData);
+            double compression, TDigestExecutionHint executionHint, boolean keyed, DocValueFormat formatter,
+            List<PipelineAggregator> pipelineAggregators, Map<String, Object> metaData) throws IOException {
+        super(name, valuesSource, context, parent, percents, compression, executionHint, keyed, formatter, pipelineAggregators,
+                metaData);
     }
 
     @Override
@@ -60,6 +61,7 @@ public class TDigestPercentilesAggregator extends AbstractTDigestPercentilesAggr
 
     @Override
     public InternalAggregation buildEmptyAggregation() {
-        return new InternalTDigestPercentiles(name, keys, new TDigestState(compression), keyed, formatter, pipelineAggregators(), metaData());
+        return new InternalTDigestPercentiles(name, keys, new TDigestState(compression, executionHint), keyed, formatter,
+                pipelineAggregators(), metaData());
     }
 }
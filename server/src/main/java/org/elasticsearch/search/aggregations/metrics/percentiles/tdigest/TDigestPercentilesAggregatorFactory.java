@@ -38,29 +38,31 @@ public class TDigestPercentilesAggregatorFactory
 
     private final double[] percents;
     private final double compression;
+    private final TDigestExecutionHint executionHint;
     private final boolean keyed;
 
     public TDigestPercentilesAggregatorFactory(String name, ValuesSourceConfig<Numeric> config, double[] percents,
-            double compression, boolean keyed, SearchContext context, AggregatorFactory<?> parent,
+            double compression, TDigestExecutionHint executionHint, boolean keyed, SearchContext context, AggregatorFactory<?> parent,
             AggregatorFactories.Builder subFactoriesBuilder, Map<String, Object> metaData) throws IOException {
         super(name, config, context, parent, subFactoriesBuilder, metaData);
         this.percents = percents;
         this.compression = compression;
+        this.executionHint = executionHint;
         this.keyed = keyed;
     }
 
     @Override
     protected Aggregator createUnmapped(Aggregator parent, List<PipelineAggregator> pipelineAggregators, Map<String, Object> metaData)
             throws IOException {
-        return new TDigestPercentilesAggregator(name, null, context, parent, percents, compression, keyed, config.format(),
-                pipelineAggregators, metaData);
+        return new TDigestPercentilesAggregator(name, null, context, parent, percents, compression, executionHint, keyed,
+                config.format(), pipelineAggregators, metaData);
     }
 
     @Override
     protected Aggregator doCreateInternal(Numeric valuesSource, Aggregator parent, boolean collectsFromSingleBucket,
             List<PipelineAggregator> pipelineAggregators, Map<String, Object> metaData) throws IOException {
-        return new TDigestPercentilesAggregator(name, valuesSource, context, parent, percents, compression, keyed, config.format(),
-                pipelineAggregators, metaData);
+        return new TDigestPercentilesAggregator(name, valuesSource, context, parent, percents, compression, executionHint, keyed,
+                config.format(), pipelineAggregators, metaData);
     }
 
 }
@@ -20,31 +20,105 @@ package org.elasticsearch.search.aggregations.metrics.percentiles.tdigest;
 
 import com.tdunning.math.stats.AVLTreeDigest;
 import com.tdunning.math.stats.Centroid;
+import com.tdunning.math.stats.MergingDigest;
+import com.tdunning.math.stats.TDigest;
+import org.elasticsearch.Version;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 
 import java.io.IOException;
+import java.util.Collection;
 import java.util.Iterator;
+import java.util.Objects;
 
 /**
- * Extension of {@link com.tdunning.math.stats.TDigest} with custom serialization.
+ * A {@link TDigest} with custom serialization, backed by the implementation that is picked by its {@link TDigestExecutionHint}.
  */
-public class TDigestState extends AVLTreeDigest {
+public class TDigestState {
 
     private final double compression;
+    private final TDigestExecutionHint executionHint;
+    private final TDigest digest;
 
     public TDigestState(double compression) {
-        super(compression);
+        this(compression, TDigestExecutionHint.DEFAULT);
+    }
+
+    public TDigestState(double compression, TDigestExecutionHint executionHint) {
         this.compression = compression;
+        this.executionHint = Objects.requireNonNull(executionHint);
+        switch (executionHint) {
+            case AVL_TREE:
+                digest = new AVLTreeDigest(compression);
+                break;
+            case MERGING:
+                digest = new MergingDigest(compression);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown execution hint [" + executionHint + "]");
+        }
     }
 
-    @Override
     public double compression() {
         return compression;
     }
 
+    public TDigestExecutionHint executionHint() {
+        return executionHint;
+    }
+
+    public void add(double x) {
+        digest.add(x);
+    }
+
+    public void add(double x, int w) {
+        digest.add(x, w);
+    }
+
+    /**
+     * Add all centroids of <code>other</code> to this digest.
+     */
+    public void add(TDigestState other) {
+        if (executionHint == TDigestExecutionHint.MERGING) {
+            // centroids are appended to the buffer of the digest, which is sorted and merged once it is full, so that
+            // reducing many digests only merges a few times rather than updating the digest for every centroid
+            for (Centroid centroid : other.digest.centroids()) {
+                digest.add(centroid.mean(), centroid.count());
+            }
+        } else {
+            digest.add(other.digest);
+        }
+    }
+
+    public long size() {
+        return digest.size();
+    }
+
+    public double quantile(double q) {
+        return digest.quantile(q);
+    }
+
+    public double cdf(double x) {
+        return digest.cdf(x);
+    }
+
+    public Collection<Centroid> centroids() {
+        return digest.centroids();
+    }
+
+    public int centroidCount() {
+        return digest.centroidCount();
+    }
+
+    public int byteSize() {
+        return digest.byteSize();
+    }
+
     public static void write(TDigestState state, StreamOutput out) throws IOException {
         out.writeDouble(state.compression);
+        if (out.getVersion().onOrAfter(Version.V_6_8_24)) {
+            state.executionHint.writeTo(out);
+        }
         out.writeVInt(state.centroidCount());
         for (Centroid centroid : state.centroids()) {
             out.writeDouble(centroid.mean());
@@ -54,7 +128,13 @@ public class TDigestState extends AVLTreeDigest {
 
     public static TDigestState read(StreamInput in) throws IOException {
         double compression = in.readDouble();
-        TDigestState state = new TDigestState(compression);
+        final TDigestExecutionHint executionHint;
+        if (in.getVersion().onOrAfter(Version.V_6_8_24)) {
+            executionHint = TDigestExecutionHint.readFromStream(in);
+        } else {
+            executionHint = TDigestExecutionHint.DEFAULT;
+        }
+        TDigestState state = new TDigestState(compression, executionHint);
         int n = in.readVInt();
         for (int i = 0; i < n; i++) {
             state.add(in.readDouble(), in.readVInt());
@@ -68,7 +148,7 @@ public class TDigestState extends AVLTreeDigest {
             return false;
         }
         TDigestState that = (TDigestState) obj;
-        if (compression != that.compression) {
+        if (compression != that.compression || executionHint != that.executionHint) {
             return false;
         }
         Iterator<? extends Centroid> thisCentroids = centroids().iterator();
@@ -90,6 +170,7 @@ public class TDigestState extends AVLTreeDigest {
     public int hashCode() {
         int h = getClass().hashCode();
         h = 31 * h + Double.hashCode(compression);
+        h = 31 * h + executionHint.ordinal();
         for (Centroid centroid : centroids()) {
             h = 31 * h + Double.hashCode(centroid.mean());
             h = 31 * h + centroid.count();
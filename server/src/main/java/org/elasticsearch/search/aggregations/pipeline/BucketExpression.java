@@ -0,0 +1,382 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.search.aggregations.pipeline;
+
+import org.elasticsearch.common.Nullable;
+import org.elasticsearch.script.Script;
+import org.elasticsearch.script.ScriptType;
+
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * A compiled form of the simple arithmetic and comparison expressions that are commonly used as the script
+ * of <code>bucket_script</code> and <code>bucket_selector</code> pipeline aggregations, for instance
+ * <code>params.sales / params.count * 100</code> or <code>params.total &gt; 1000 &amp;&amp; params.ratio &lt; 0.5</code>.
+ * The expression is evaluated on an array that contains the value of each variable, which avoids building a map
+ * of parameters and boxing the values for every bucket.
+ * <p>
+ * Only inline painless scripts made of numeric literals, <code>params.</code> variables, the <code>+ - * / %</code>
+ * arithmetic operators, comparisons and the <code>&amp;&amp; || !</code> logical operators are supported.
+ * Arithmetic operations between two constants are not supported either since painless would evaluate them on
+ * integers. The script must be executed as usual when {@link #compile} returns <code>null</code>.
+ */
+public final class BucketExpression {
+
+    private final ToDoubleFunction<double[]> numeric;
+    private final Predicate<double[]> predicate;
+
+    private BucketExpression(Node node) {
+        this.numeric = node.numeric;
+        this.predicate = node.predicate;
+    }
+
+    /**
+     * Compiles the source of the provided script or returns <code>null</code> if it is not a simple expression.
+     *
+     * @param variables the names of the variables, in the order of the values that are passed on evaluation
+     */
+    @Nullable
+    public static BucketExpression compile(Script script, List<String> variables) {
+        if (script.getType() != ScriptType.INLINE || Script.DEFAULT_SCRIPT_LANG.equals(script.getLang()) == false) {
+            return null;
+        }
+        try {
+            return new BucketExpression(new Parser(script.getIdOrCode(), variables).parse());
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Returns <code>true</code> if the expression evaluates to a boolean, <code>false</code> if it evaluates to a number.
+     */
+    public boolean isPredicate() {
+        return predicate != null;
+    }
+
+    /**
+     * Evaluates a numeric expression on the provided variable values.
+     */
+    public double execute(double[] values) {
+        assert numeric != null : "not a numeric expression";
+        return numeric.applyAsDouble(values);
+    }
+
+    /**
+     * Evaluates a boolean expression on the provided variable values.
+     */
+    public boolean test(double[] values) {
+        assert predicate != null : "not a boolean expression";
+        return predicate.test(values);
+    }
+
+    /**
+     * A node of the expression, either numeric or boolean.
+     */
+    private static final class Node {
+        final ToDoubleFunction<double[]> numeric;
+        final Predicate<double[]> predicate;
+        // whether the node only depends on literals
+        final boolean constant;
+
+        private Node(ToDoubleFunction<double[]> numeric, Predicate<double[]> predicate, boolean constant) {
+            this.numeric = numeric;
+            this.predicate = predicate;
+            this.constant = constant;
+        }
+
+        static Node numeric(ToDoubleFunction<double[]> numeric, boolean constant) {
+            return new Node(numeric, null, constant);
+        }
+
+        static Node predicate(Predicate<double[]> predicate, boolean constant) {
+            return new Node(null, predicate, constant);
+        }
+
+        ToDoubleFunction<double[]> asNumeric() {
+            if (numeric == null) {
+                throw new IllegalArgumentException("expected a numeric expression");
+            }
+            return numeric;
+        }
+
+        Predicate<double[]> asPredicate() {
+            if (predicate == null) {
+                throw new IllegalArgumentException("expected a boolean expression");
+            }
+            return predicate;
+        }
+    }
+
+    /**
+     * A recursive descent parser that follows the precedence of the java operators.
+     */
+    private static final class Parser {
+        private final String source;
+        private final List<String> variables;
+        private int pos;
+
+        Parser(String source, List<String> variables) {
+            this.source = source;
+            this.variables = variables;
+        }
+
+        Node parse() {
+            skipWhitespaces();
+            if (source.startsWith("return", pos)
+                    && pos + 6 < source.length() && Character.isWhitespace(source.charAt(pos + 6))) {
+                pos += 6;
+            }
+            Node node = parseOr();
+            if (consume(";")) {
+                skipWhitespaces();
+            }
+            if (pos != source.length()) {
+                throw new IllegalArgumentException("unexpected character at position [" + pos + "]");
+            }
+            return node;
+        }
+
+        private Node parseOr() {
+            Node left = parseAnd();
+            while (consume("||")) {
+                Predicate<double[]> l = left.asPredicate();
+                Predicate<double[]> r = parseAnd().asPredicate();
+                left = Node.predicate(v -> l.test(v) || r.test(v), false);
+            }
+            return left;
+        }
+
+        private Node parseAnd() {
+            Node left = parseEquality();
+            while (consume("&&")) {
+                Predicate<double[]> l = left.asPredicate();
+                Predicate<double[]> r = parseEquality().asPredicate();
+                left = Node.predicate(v -> l.test(v) && r.test(v), false);
+            }
+            return left;
+        }
+
+        private Node parseEquality() {
+            Node left = parseRelational();
+            while (true) {
+                if (consume("==")) {
+                    ToDoubleFunction<double[]> l = left.asNumeric();
+                    Node right = parseRelational();
+                    ToDoubleFunction<double[]> r = right.asNumeric();
+                    left = Node.predicate(v -> l.applyAsDouble(v) == r.applyAsDouble(v), left.constant && right.constant);
+                } else if (consume("!=")) {
+                    ToDoubleFunction<double[]> l = left.asNumeric();
+                    Node right = parseRelational();
+                    ToDoubleFunction<double[]> r = right.asNumeric();
+                    left = Node.predicate(v -> l.applyAsDouble(v) != r.applyAsDouble(v), left.constant && right.constant);
+                } else {
+                    return left;
+                }
+            }
+        }
+
+        private Node parseRelational() {
+            Node left = parseAdditive();
+            while (true) {
+                final String op;
+                if (consume("<=")) {
+                    op = "<=";
+                } else if (consume(">=")) {
+                    op = ">=";
+                } else if (consume("<")) {
+                    op = "<";
+                } else if (consume(">")) {
+                    op = ">";
+                } else {
+                    return left;
+                }
+                ToDoubleFunction<double[]> l = left.asNumeric();
+                Node right = parseAdditive();
+                ToDoubleFunction<double[]> r = right.asNumeric();
+                boolean constant = left.constant && right.constant;
+                switch (op) {
+                    case "<=":
+                        left = Node.predicate(v -> l.applyAsDouble(v) <= r.applyAsDouble(v), constant);
+                        break;
+                    case ">=":
+                        left = Node.predicate(v -> l.applyAsDouble(v) >= r.applyAsDouble(v), constant);
+                        break;
+                    case "<":
+                        left = Node.predicate(v -> l.applyAsDouble(v) < r.applyAsDouble(v), constant);
+                        break;
+                    default:
+                        left = Node.predicate(v -> l.applyAsDouble(v) > r.applyAsDouble(v), constant);
+                        break;
+                }
+            }
+        }
+
+        private Node parseAdditive() {
+            Node left = parseMultiplicative();
+            while (true) {
+                rejectIncrements();
+                final char op;
+                if (consume("+")) {
+                    op = '+';
+                } else if (consume("-")) {
+                    op = '-';
+                } else {
+                    return left;
+                }
+                Node right = parseMultiplicative();
+                left = arithmetic(op, left, right);
+            }
+        }
+
+        private Node parseMultiplicative() {
+            Node left = parseUnary();
+            while (true) {
+                final char op;
+                if (consume("*")) {
+                    op = '*';
+                } else if (consume("/")) {
+                    op = '/';
+                } else if (consume("%")) {
+                    op = '%';
+                } else {
+                    return left;
+                }
+                Node right = parseUnary();
+                left = arithmetic(op, left, right);
+            }
+        }
+
+        private Node parseUnary() {
+            rejectIncrements();
+            if (consume("-")) {
+                Node node = parseUnary();
+                ToDoubleFunction<double[]> n = node.asNumeric();
+                return Node.numeric(v -> -n.applyAsDouble(v), node.constant);
+            } else if (source.startsWith("!=", pos) == false && consume("!")) {
+                Node node = parseUnary();
+                Predicate<double[]> p = node.asPredicate();
+                return Node.predicate(p.negate(), node.constant);
+            }
+            return parsePrimary();
+        }
+
+        private Node parsePrimary() {
+            if (consume("(")) {
+                Node node = parseOr();
+                if (consume(")") == false) {
+                    throw new IllegalArgumentException("expected [)] at position [" + pos + "]");
+                }
+                return node;
+            }
+            if (pos < source.length() && Character.isDigit(source.charAt(pos))) {
+                return parseNumber();
+            }
+            if (source.startsWith("params.", pos)) {
+                pos += "params.".length();
+                int start = pos;
+                while (pos < source.length() && Character.isJavaIdentifierPart(source.charAt(pos))) {
+                    pos++;
+                }
+                int index = variables.indexOf(source.substring(start, pos));
+                if (start == pos || Character.isJavaIdentifierStart(source.charAt(start)) == false || index == -1) {
+                    throw new IllegalArgumentException("unknown variable at position [" + start + "]");
+                }
+                skipWhitespaces();
+                return Node.numeric(v -> v[index], false);
+            }
+            throw new IllegalArgumentException("unexpected character at position [" + pos + "]");
+        }
+
+        private Node parseNumber() {
+            int start = pos;
+            while (pos < source.length() && Character.isDigit(source.charAt(pos))) {
+                pos++;
+            }
+            if (source.charAt(start) == '0' && pos - start > 1) {
+                // octal literal
+                throw new IllegalArgumentException("unsupported number at position [" + start + "]");
+            }
+            if (pos < source.length() && source.charAt(pos) == '.') {
+                pos++;
+                int fractionStart = pos;
+                while (pos < source.length() && Character.isDigit(source.charAt(pos))) {
+                    pos++;
+                }
+                if (fractionStart == pos) {
+                    throw new IllegalArgumentException("unsupported number at position [" + start + "]");
+                }
+            }
+            if (pos < source.length() && Character.isJavaIdentifierPart(source.charAt(pos))) {
+                // type suffixes, exponents and hexadecimal literals
+                throw new IllegalArgumentException("unsupported number at position [" + start + "]");
+            }
+            double value = Double.parseDouble(source.substring(start, pos));
+            skipWhitespaces();
+            return Node.numeric(v -> value, true);
+        }
+
+        private Node arithmetic(char op, Node left, Node right) {
+            if (left.constant && right.constant) {
+                // painless would use integer arithmetic if both literals are integers
+                throw new IllegalArgumentException("arithmetic on constants is not supported");
+            }
+            ToDoubleFunction<double[]> l = left.asNumeric();
+            ToDoubleFunction<double[]> r = right.asNumeric();
+            switch (op) {
+                case '+':
+                    return Node.numeric(v -> l.applyAsDouble(v) + r.applyAsDouble(v), false);
+                case '-':
+                    return Node.numeric(v -> l.applyAsDouble(v) - r.applyAsDouble(v), false);
+                case '*':
+                    return Node.numeric(v -> l.applyAsDouble(v) * r.applyAsDouble(v), false);
+                case '/':
+                    return Node.numeric(v -> l.applyAsDouble(v) / r.applyAsDouble(v), false);
+                default:
+                    return Node.numeric(v -> l.applyAsDouble(v) % r.applyAsDouble(v), false);
+            }
+        }
+
+        /**
+         * Painless reads <code>--</code> and <code>++</code> as increments and decrements, even between two operands.
+         */
+        private void rejectIncrements() {
+            if (source.startsWith("--", pos) || source.startsWith("++", pos)) {
+                throw new IllegalArgumentException("unsupported operator at position [" + pos + "]");
+            }
+        }
+
+        private boolean consume(String token) {
+            if (source.startsWith(token, pos)) {
+                pos += token.length();
+                skipWhitespaces();
+                return true;
+            }
+            return false;
+        }
+
+        private void skipWhitespaces() {
+            while (pos < source.length() && Character.isWhitespace(source.charAt(pos))) {
+                pos++;
+            }
+        }
+    }
+}
@@ -25,7 +25,11 @@ import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.xcontent.LoggingDeprecationHandler;
 import org.elasticsearch.common.xcontent.XContentLocation;
+import org.elasticsearch.search.aggregations.Aggregation;
 import org.elasticsearch.search.aggregations.AggregationExecutionException;
+import org.elasticsearch.search.aggregations.InternalAggregation;
+import org.elasticsearch.search.aggregations.InternalAggregation.ReduceContext;
+import org.elasticsearch.search.aggregations.InternalAggregations;
 import org.elasticsearch.search.aggregations.InternalMultiBucketAggregation;
 import org.elasticsearch.search.aggregations.InvalidAggregationPathException;
 import org.elasticsearch.search.aggregations.bucket.MultiBucketsAggregation;
@@ -35,7 +39,9 @@ import org.elasticsearch.search.aggregations.support.AggregationPath;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 /**
  * A set of static helpers to simplify working with aggregation buckets, in
@@ -188,4 +194,125 @@ public class BucketHelpers {
             return null;
         }
     }
+
+    /**
+     * Applies the provided pipeline aggregations in order to the result of the final reduce of an aggregation.
+     * Consecutive {@link FusiblePipelineAggregator}s are evaluated in a single pass over the buckets.
+     */
+    public static InternalAggregation reducePipelines(InternalAggregation aggregation, List<PipelineAggregator> pipelineAggregators,
+                                                      ReduceContext reduceContext) {
+        int i = 0;
+        while (i < pipelineAggregators.size()) {
+            List<FusiblePipelineAggregator.BucketVisitor> visitors = new ArrayList<>();
+            if (aggregation instanceof InternalMultiBucketAggregation) {
+                InternalMultiBucketAggregation<?, ?> multiBucketAgg = (InternalMultiBucketAggregation<?, ?>) aggregation;
+                while (i < pipelineAggregators.size() && pipelineAggregators.get(i) instanceof FusiblePipelineAggregator) {
+                    FusiblePipelineAggregator.BucketVisitor visitor =
+                        ((FusiblePipelineAggregator) pipelineAggregators.get(i)).newBucketVisitor(multiBucketAgg, reduceContext);
+                    if (visitor == null) {
+                        break;
+                    }
+                    visitors.add(readingBucketsPaths(visitor, pipelineAggregators.get(i)));
+                    i++;
+                }
+            }
+            if (visitors.isEmpty()) {
+                aggregation = pipelineAggregators.get(i++).reduce(aggregation, reduceContext);
+            } else {
+                aggregation = visitBuckets((InternalMultiBucketAggregation<?, ?>) aggregation, visitors, reduceContext);
+            }
+        }
+        return aggregation;
+    }
+
+    /**
+     * Wraps the visitor of a pipeline so that it only reads the aggregations that the buckets paths of the pipeline start with.
+     */
+    private static FusiblePipelineAggregator.BucketVisitor readingBucketsPaths(FusiblePipelineAggregator.BucketVisitor visitor,
+                                                                              PipelineAggregator pipelineAggregator) {
+        if (pipelineAggregator.bucketsPaths() == null) {
+            return visitor;
+        }
+        final Set<String> readAggregations = new HashSet<>();
+        for (String bucketsPath : pipelineAggregator.bucketsPaths()) {
+            List<AggregationPath.PathElement> pathElements = AggregationPath.parse(bucketsPath).getPathElements();
+            if (pathElements.isEmpty() == false) {
+                readAggregations.add(pathElements.get(0).name);
+            }
+        }
+        return new FusiblePipelineAggregator.BucketVisitor() {
+            @Override
+            public InternalAggregation visit(InternalMultiBucketAggregation.InternalBucket bucket) {
+                return visitor.visit(bucket);
+            }
+
+            @Override
+            public boolean reads(String aggregationName) {
+                return readAggregations.contains(aggregationName);
+            }
+        };
+    }
+
+    /**
+     * Visits the buckets of the provided aggregation with each visitor in turn and returns a copy of the
+     * aggregation where each bucket contains the aggregations added by the visitors. Each modified bucket
+     * is copied once with all the aggregations added to it, unless a visitor reads the aggregation that a
+     * previous visitor added, and buckets that are not modified are reused. The copies are accounted for
+     * as buckets of the request until the pass is done, since the original buckets are still alive.
+     */
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    public static InternalAggregation visitBuckets(InternalMultiBucketAggregation aggregation,
+                                                   List<FusiblePipelineAggregator.BucketVisitor> visitors,
+                                                   ReduceContext reduceContext) {
+        List<? extends InternalMultiBucketAggregation.InternalBucket> buckets = aggregation.getBuckets();
+        List<InternalMultiBucketAggregation.InternalBucket> newBuckets = new ArrayList<>(buckets.size());
+        List<InternalAggregation> added = new ArrayList<>(visitors.size());
+        int copiedBuckets = 0;
+        for (InternalMultiBucketAggregation.InternalBucket bucket : buckets) {
+            InternalMultiBucketAggregation.InternalBucket newBucket = bucket;
+            for (FusiblePipelineAggregator.BucketVisitor visitor : visitors) {
+                if (readsAny(visitor, added)) {
+                    newBucket = addAggregations(aggregation, newBucket, added);
+                    added.clear();
+                }
+                InternalAggregation aggToAdd = visitor.visit(newBucket);
+                if (aggToAdd != null) {
+                    added.add(aggToAdd);
+                }
+            }
+            if (added.isEmpty() == false) {
+                newBucket = addAggregations(aggregation, newBucket, added);
+                added.clear();
+            }
+            if (newBucket != bucket) {
+                reduceContext.consumeBucketsAndMaybeBreak(1);
+                copiedBuckets++;
+            }
+            newBuckets.add(newBucket);
+        }
+        // the original buckets are released, only the copies that replace them remain
+        reduceContext.consumeBucketsAndMaybeBreak(-copiedBuckets);
+        return aggregation.create(newBuckets);
+    }
+
+    private static boolean readsAny(FusiblePipelineAggregator.BucketVisitor visitor, List<InternalAggregation> aggregations) {
+        for (InternalAggregation aggregation : aggregations) {
+            if (visitor.reads(aggregation.getName())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    private static InternalMultiBucketAggregation.InternalBucket addAggregations(InternalMultiBucketAggregation aggregation,
+                                                                                 InternalMultiBucketAggregation.InternalBucket bucket,
+                                                                                 List<InternalAggregation> aggsToAdd) {
+        List<InternalAggregation> aggs = new ArrayList<>();
+        for (Aggregation agg : bucket.getAggregations()) {
+            aggs.add((InternalAggregation) agg);
+        }
+        aggs.addAll(aggsToAdd);
+        return aggregation.createBucket(new InternalAggregations(aggs), bucket);
+    }
 }
@@ -0,0 +1,63 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.search.aggregations.pipeline;
+
+import org.elasticsearch.common.Nullable;
+import org.elasticsearch.search.aggregations.InternalAggregation;
+import org.elasticsearch.search.aggregations.InternalAggregation.ReduceContext;
+import org.elasticsearch.search.aggregations.InternalMultiBucketAggregation;
+
+/**
+ * A {@link PipelineAggregator} that adds at most one aggregation to each bucket of the multi-bucket aggregation
+ * it is attached to, visiting the buckets in order without adding, removing or reordering them.
+ * Consecutive pipelines of this kind that are attached to the same aggregation are evaluated together in a single
+ * pass over the buckets (see {@link BucketHelpers#reducePipelines}), which creates a single copy of each modified
+ * bucket instead of one copy of the whole aggregation per pipeline, unless a pipeline reads the output of another
+ * pipeline of the same pass.
+ */
+public interface FusiblePipelineAggregator {
+
+    /**
+     * Returns the state of a pass over the buckets of the provided aggregation or <code>null</code> if this
+     * pipeline cannot be evaluated bucket by bucket on it, in which case {@link PipelineAggregator#reduce}
+     * is used instead.
+     */
+    @Nullable
+    BucketVisitor newBucketVisitor(InternalMultiBucketAggregation<?, ?> aggregation, ReduceContext reduceContext);
+
+    @FunctionalInterface
+    interface BucketVisitor {
+        /**
+         * Returns the aggregation to add to the provided bucket or <code>null</code> to leave the bucket untouched.
+         * The bucket already contains the aggregations that were added by the pipelines evaluated before this one
+         * in the same pass.
+         */
+        @Nullable
+        InternalAggregation visit(InternalMultiBucketAggregation.InternalBucket bucket);
+
+        /**
+         * Whether this visitor reads the aggregation with the provided name in the buckets it visits. The aggregations
+         * added to a bucket by the visitors before this one are only copied into the bucket before it is visited if
+         * this visitor reads one of them.
+         */
+        default boolean reads(String aggregationName) {
+            return true;
+        }
+    }
+}
@@ -26,23 +26,25 @@ import org.elasticsearch.script.Script;
 import org.elasticsearch.search.DocValueFormat;
 import org.elasticsearch.search.aggregations.InternalAggregation;
 import org.elasticsearch.search.aggregations.InternalAggregation.ReduceContext;
-import org.elasticsearch.search.aggregations.InternalAggregations;
 import org.elasticsearch.search.aggregations.InternalMultiBucketAggregation;
+import org.elasticsearch.search.aggregations.pipeline.BucketExpression;
+import org.elasticsearch.search.aggregations.pipeline.BucketHelpers;
 import org.elasticsearch.search.aggregations.pipeline.BucketHelpers.GapPolicy;
+import org.elasticsearch.search.aggregations.pipeline.FusiblePipelineAggregator;
 import org.elasticsearch.search.aggregations.pipeline.InternalSimpleValue;
 import org.elasticsearch.search.aggregations.pipeline.PipelineAggregator;
+import org.elasticsearch.search.aggregations.support.AggregationPath;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
-import java.util.stream.StreamSupport;
 
 import static org.elasticsearch.search.aggregations.pipeline.BucketHelpers.resolveBucketValue;
 
-public class BucketScriptPipelineAggregator extends PipelineAggregator {
+public class BucketScriptPipelineAggregator extends PipelineAggregator implements FusiblePipelineAggregator {
     private final DocValueFormat formatter;
     private final GapPolicy gapPolicy;
     private final Script script;
@@ -84,45 +86,60 @@ public class BucketScriptPipelineAggregator extends PipelineAggregator {
 
     @Override
     public InternalAggregation reduce(InternalAggregation aggregation, ReduceContext reduceContext) {
-        InternalMultiBucketAggregation<InternalMultiBucketAggregation, InternalMultiBucketAggregation.InternalBucket> originalAgg =
-                (InternalMultiBucketAggregation<InternalMultiBucketAggregation, InternalMultiBucketAggregation.InternalBucket>) aggregation;
-        List<? extends InternalMultiBucketAggregation.InternalBucket> buckets = originalAgg.getBuckets();
+        InternalMultiBucketAggregation<?, ?> originalAgg = (InternalMultiBucketAggregation<?, ?>) aggregation;
+        return BucketHelpers.visitBuckets(originalAgg, Collections.singletonList(newBucketVisitor(originalAgg, reduceContext)),
+            reduceContext);
+    }
 
+    @Override
+    public BucketVisitor newBucketVisitor(InternalMultiBucketAggregation<?, ?> originalAgg, ReduceContext reduceContext) {
         BucketAggregationScript.Factory factory =
             reduceContext.scriptService().compile(script, BucketAggregationScript.CONTEXT);
-        List<InternalMultiBucketAggregation.InternalBucket> newBuckets = new ArrayList<>();
-        for (InternalMultiBucketAggregation.InternalBucket bucket : buckets) {
-            Map<String, Object> vars = new HashMap<>();
-            if (script.getParams() != null) {
-                vars.putAll(script.getParams());
-            }
-            boolean skipBucket = false;
-            for (Map.Entry<String, String> entry : bucketsPathsMap.entrySet()) {
-                String varName = entry.getKey();
-                String bucketsPath = entry.getValue();
-                Double value = resolveBucketValue(originalAgg, bucket, bucketsPath, gapPolicy);
-                if (GapPolicy.SKIP == gapPolicy && (value == null || Double.isNaN(value))) {
-                    skipBucket = true;
-                    break;
-                }
-                vars.put(varName, value);
-            }
-            if (skipBucket) {
-                newBuckets.add(bucket);
-            } else {
-                Number returned = factory.newInstance(vars).execute();
-                if (returned == null) {
-                    newBuckets.add(bucket);
-                } else {
-                    final List<InternalAggregation> aggs = StreamSupport.stream(bucket.getAggregations().spliterator(), false).map(
-                        (p) -> (InternalAggregation) p).collect(Collectors.toList());
-                    aggs.add(new InternalSimpleValue(name(), returned.doubleValue(), formatter, new ArrayList<>(), metaData()));
-                    InternalMultiBucketAggregation.InternalBucket newBucket = originalAgg.createBucket(new InternalAggregations(aggs),
-                        bucket);
-                    newBuckets.add(newBucket);
+        List<String> varNames = new ArrayList<>(bucketsPathsMap.size());
+        List<List<String>> bucketsPaths = new ArrayList<>(bucketsPathsMap.size());
+        for (Map.Entry<String, String> entry : bucketsPathsMap.entrySet()) {
+            varNames.add(entry.getKey());
+            bucketsPaths.add(AggregationPath.parse(entry.getValue()).getPathElementsAsStringList());
+        }
+        BucketExpression expression = BucketExpression.compile(script, varNames);
+        if (expression != null && expression.isPredicate() == false) {
+            double[] values = new double[varNames.size()];
+            return bucket -> {
+                for (int i = 0; i < values.length; i++) {
+                    Double value = resolveBucketValue(originalAgg, bucket, bucketsPaths.get(i), gapPolicy);
+                    if (GapPolicy.SKIP == gapPolicy && (value == null || Double.isNaN(value))) {
+                        return null;
+                    }
+                    if (value == null) {
+                        // let the script deal with the missing value
+                        return executeScript(factory, varNames, bucketsPaths, originalAgg, bucket);
+                    }
+                    values[i] = value;
                 }
+                return new InternalSimpleValue(name(), expression.execute(values), formatter, new ArrayList<>(), metaData());
+            };
+        }
+        return bucket -> executeScript(factory, varNames, bucketsPaths, originalAgg, bucket);
+    }
+
+    private InternalAggregation executeScript(BucketAggregationScript.Factory factory, List<String> varNames,
+                                              List<List<String>> bucketsPaths, InternalMultiBucketAggregation<?, ?> originalAgg,
+                                              InternalMultiBucketAggregation.InternalBucket bucket) {
+        Map<String, Object> vars = new HashMap<>();
+        if (script.getParams() != null) {
+            vars.putAll(script.getParams());
+        }
+        for (int i = 0; i < varNames.size(); i++) {
+            Double value = resolveBucketValue(originalAgg, bucket, bucketsPaths.get(i), gapPolicy);
+            if (GapPolicy.SKIP == gapPolicy && (value == null || Double.isNaN(value))) {
+                return null;
             }
+            vars.put(varNames.get(i), value);
+        }
+        Number returned = factory.newInstance(vars).execute();
+        if (returned == null) {
+            return null;
         }
-        return originalAgg.create(newBuckets);
+        return new InternalSimpleValue(name(), returned.doubleValue(), formatter, new ArrayList<>(), metaData());
     }
 }
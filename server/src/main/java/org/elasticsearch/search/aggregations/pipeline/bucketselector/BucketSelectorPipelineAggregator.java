@@ -27,8 +27,10 @@ import org.elasticsearch.script.Script;
 import org.elasticsearch.search.aggregations.InternalAggregation;
 import org.elasticsearch.search.aggregations.InternalAggregation.ReduceContext;
 import org.elasticsearch.search.aggregations.InternalMultiBucketAggregation;
+import org.elasticsearch.search.aggregations.pipeline.BucketExpression;
 import org.elasticsearch.search.aggregations.pipeline.BucketHelpers.GapPolicy;
 import org.elasticsearch.search.aggregations.pipeline.PipelineAggregator;
+import org.elasticsearch.search.aggregations.support.AggregationPath;
 
 import java.io.IOException;
 import java.util.ArrayList;
@@ -84,24 +86,52 @@ public class BucketSelectorPipelineAggregator extends PipelineAggregator {
 
         BucketAggregationSelectorScript.Factory factory =
             reduceContext.scriptService().compile(script, BucketAggregationSelectorScript.CONTEXT);
+        List<String> varNames = new ArrayList<>(bucketsPathsMap.size());
+        List<List<String>> bucketsPaths = new ArrayList<>(bucketsPathsMap.size());
+        for (Map.Entry<String, String> entry : bucketsPathsMap.entrySet()) {
+            varNames.add(entry.getKey());
+            bucketsPaths.add(AggregationPath.parse(entry.getValue()).getPathElementsAsStringList());
+        }
+        BucketExpression expression = BucketExpression.compile(script, varNames);
+        double[] values = new double[varNames.size()];
         List<InternalMultiBucketAggregation.InternalBucket> newBuckets = new ArrayList<>();
         for (InternalMultiBucketAggregation.InternalBucket bucket : buckets) {
-            Map<String, Object> vars = new HashMap<>();
-            if (script.getParams() != null) {
-                vars.putAll(script.getParams());
-            }
-            for (Map.Entry<String, String> entry : bucketsPathsMap.entrySet()) {
-                String varName = entry.getKey();
-                String bucketsPath = entry.getValue();
-                Double value = resolveBucketValue(originalAgg, bucket, bucketsPath, gapPolicy);
-                vars.put(varName, value);
+            boolean selected;
+            if (expression != null && expression.isPredicate() && resolveValues(originalAgg, bucket, bucketsPaths, values)) {
+                selected = expression.test(values);
+            } else {
+                Map<String, Object> vars = new HashMap<>();
+                if (script.getParams() != null) {
+                    vars.putAll(script.getParams());
+                }
+                for (int i = 0; i < varNames.size(); i++) {
+                    Double value = resolveBucketValue(originalAgg, bucket, bucketsPaths.get(i), gapPolicy);
+                    vars.put(varNames.get(i), value);
+                }
+                // TODO: can we use one instance of the script for all buckets? it should be stateless?
+                BucketAggregationSelectorScript executableScript = factory.newInstance(vars);
+                selected = executableScript.execute();
             }
-            // TODO: can we use one instance of the script for all buckets? it should be stateless?
-            BucketAggregationSelectorScript executableScript = factory.newInstance(vars);
-            if (executableScript.execute()) {
+            if (selected) {
                 newBuckets.add(bucket);
             }
         }
         return originalAgg.create(newBuckets);
     }
+
+    /**
+     * Resolves the values of the buckets paths in the provided bucket, returns <code>false</code> if one of them
+     * could not be resolved.
+     */
+    private boolean resolveValues(InternalMultiBucketAggregation<?, ?> originalAgg, InternalMultiBucketAggregation.InternalBucket bucket,
+                                  List<List<String>> bucketsPaths, double[] values) {
+        for (int i = 0; i < values.length; i++) {
+            Double value = resolveBucketValue(originalAgg, bucket, bucketsPaths.get(i), gapPolicy);
+            if (value == null) {
+                return false;
+            }
+            values[i] = value;
+        }
+        return true;
+    }
 }
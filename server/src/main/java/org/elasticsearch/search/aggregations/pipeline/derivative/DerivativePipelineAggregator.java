@@ -24,23 +24,21 @@ import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.search.DocValueFormat;
 import org.elasticsearch.search.aggregations.InternalAggregation;
 import org.elasticsearch.search.aggregations.InternalAggregation.ReduceContext;
-import org.elasticsearch.search.aggregations.InternalAggregations;
 import org.elasticsearch.search.aggregations.InternalMultiBucketAggregation;
-import org.elasticsearch.search.aggregations.bucket.MultiBucketsAggregation.Bucket;
 import org.elasticsearch.search.aggregations.bucket.histogram.HistogramFactory;
+import org.elasticsearch.search.aggregations.pipeline.BucketHelpers;
 import org.elasticsearch.search.aggregations.pipeline.BucketHelpers.GapPolicy;
+import org.elasticsearch.search.aggregations.pipeline.FusiblePipelineAggregator;
 import org.elasticsearch.search.aggregations.pipeline.PipelineAggregator;
 
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.List;
+import java.util.Collections;
 import java.util.Map;
-import java.util.stream.Collectors;
-import java.util.stream.StreamSupport;
 
 import static org.elasticsearch.search.aggregations.pipeline.BucketHelpers.resolveBucketValue;
 
-public class DerivativePipelineAggregator extends PipelineAggregator {
+public class DerivativePipelineAggregator extends PipelineAggregator implements FusiblePipelineAggregator {
     private final DocValueFormat formatter;
     private final GapPolicy gapPolicy;
     private final Double xAxisUnits;
@@ -77,36 +75,34 @@ public class DerivativePipelineAggregator extends PipelineAggregator {
 
     @Override
     public InternalAggregation reduce(InternalAggregation aggregation, ReduceContext reduceContext) {
-        InternalMultiBucketAggregation<? extends InternalMultiBucketAggregation, ? extends InternalMultiBucketAggregation.InternalBucket>
-                histo = (InternalMultiBucketAggregation<? extends InternalMultiBucketAggregation, ? extends
-                InternalMultiBucketAggregation.InternalBucket>) aggregation;
-        List<? extends InternalMultiBucketAggregation.InternalBucket> buckets = histo.getBuckets();
+        InternalMultiBucketAggregation<?, ?> histo = (InternalMultiBucketAggregation<?, ?>) aggregation;
+        return BucketHelpers.visitBuckets(histo, Collections.singletonList(newBucketVisitor(histo, reduceContext)), reduceContext);
+    }
+
+    @Override
+    public BucketVisitor newBucketVisitor(InternalMultiBucketAggregation<?, ?> histo, ReduceContext reduceContext) {
         HistogramFactory factory = (HistogramFactory) histo;
+        return new BucketVisitor() {
+            Number lastBucketKey = null;
+            Double lastBucketValue = null;
 
-        List<Bucket> newBuckets = new ArrayList<>();
-        Number lastBucketKey = null;
-        Double lastBucketValue = null;
-        for (InternalMultiBucketAggregation.InternalBucket bucket : buckets) {
-            Number thisBucketKey = factory.getKey(bucket);
-            Double thisBucketValue = resolveBucketValue(histo, bucket, bucketsPaths()[0], gapPolicy);
-            if (lastBucketValue != null && thisBucketValue != null) {
-                double gradient = thisBucketValue - lastBucketValue;
-                double xDiff = -1;
-                if (xAxisUnits != null) {
-                    xDiff = (thisBucketKey.doubleValue() - lastBucketKey.doubleValue()) / xAxisUnits;
+            @Override
+            public InternalAggregation visit(InternalMultiBucketAggregation.InternalBucket bucket) {
+                Number thisBucketKey = factory.getKey(bucket);
+                Double thisBucketValue = resolveBucketValue(histo, bucket, bucketsPaths()[0], gapPolicy);
+                InternalAggregation derivative = null;
+                if (lastBucketValue != null && thisBucketValue != null) {
+                    double gradient = thisBucketValue - lastBucketValue;
+                    double xDiff = -1;
+                    if (xAxisUnits != null) {
+                        xDiff = (thisBucketKey.doubleValue() - lastBucketKey.doubleValue()) / xAxisUnits;
+                    }
+                    derivative = new InternalDerivative(name(), gradient, xDiff, formatter, new ArrayList<>(), metaData());
                 }
-                final List<InternalAggregation> aggs = StreamSupport.stream(bucket.getAggregations().spliterator(), false).map((p) -> {
-                    return (InternalAggregation) p;
-                }).collect(Collectors.toList());
-                aggs.add(new InternalDerivative(name(), gradient, xDiff, formatter, new ArrayList<PipelineAggregator>(), metaData()));
-                Bucket newBucket = factory.createBucket(factory.getKey(bucket), bucket.getDocCount(), new InternalAggregations(aggs));
-                newBuckets.add(newBucket);
-            } else {
-                newBuckets.add(bucket);
+                lastBucketKey = thisBucketKey;
+                lastBucketValue = thisBucketValue;
+                return derivative;
             }
-            lastBucketKey = thisBucketKey;
-            lastBucketValue = thisBucketValue;
-        }
-        return factory.createAggregation(newBuckets);
+        };
     }
 }
@@ -174,6 +174,7 @@ public class MovAvgPipelineAggregator extends PipelineAggregator {
                     Bucket newBucket = factory.createBucket(newKey, 0, new InternalAggregations(aggs));
 
                     // Since this is a new bucket, simply append it
+                    reduceContext.consumeBucketsAndMaybeBreak(1);
                     newBuckets.add(newBucket);
                 }
                 lastValidKey = newKey;
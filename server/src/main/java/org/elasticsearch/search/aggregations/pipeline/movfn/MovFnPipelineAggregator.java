@@ -25,21 +25,17 @@ import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.script.Script;
 import org.elasticsearch.search.DocValueFormat;
 import org.elasticsearch.search.aggregations.InternalAggregation;
-import org.elasticsearch.search.aggregations.InternalAggregations;
 import org.elasticsearch.search.aggregations.InternalMultiBucketAggregation;
-import org.elasticsearch.search.aggregations.bucket.MultiBucketsAggregation;
-import org.elasticsearch.search.aggregations.bucket.histogram.HistogramFactory;
 import org.elasticsearch.search.aggregations.pipeline.BucketHelpers;
+import org.elasticsearch.search.aggregations.pipeline.FusiblePipelineAggregator;
 import org.elasticsearch.search.aggregations.pipeline.InternalSimpleValue;
 import org.elasticsearch.search.aggregations.pipeline.PipelineAggregator;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
-import java.util.stream.StreamSupport;
 
 import static org.elasticsearch.search.aggregations.pipeline.BucketHelpers.resolveBucketValue;
 
@@ -60,7 +56,7 @@ import static org.elasticsearch.search.aggregations.pipeline.BucketHelpers.resol
  *
  *  The user can also define any arbitrary logic via their own scripting, or combine with the above methods.
  */
-public class MovFnPipelineAggregator extends PipelineAggregator {
+public class MovFnPipelineAggregator extends PipelineAggregator implements FusiblePipelineAggregator {
     private final DocValueFormat formatter;
     private final BucketHelpers.GapPolicy gapPolicy;
     private final Script script;
@@ -102,13 +98,12 @@ public class MovFnPipelineAggregator extends PipelineAggregator {
 
     @Override
     public InternalAggregation reduce(InternalAggregation aggregation, InternalAggregation.ReduceContext reduceContext) {
-        InternalMultiBucketAggregation<? extends InternalMultiBucketAggregation, ? extends InternalMultiBucketAggregation.InternalBucket>
-            histo = (InternalMultiBucketAggregation<? extends InternalMultiBucketAggregation, ? extends
-            InternalMultiBucketAggregation.InternalBucket>) aggregation;
-        List<? extends InternalMultiBucketAggregation.InternalBucket> buckets = histo.getBuckets();
-        HistogramFactory factory = (HistogramFactory) histo;
+        InternalMultiBucketAggregation<?, ?> histo = (InternalMultiBucketAggregation<?, ?>) aggregation;
+        return BucketHelpers.visitBuckets(histo, Collections.singletonList(newBucketVisitor(histo, reduceContext)), reduceContext);
+    }
 
-        List<MultiBucketsAggregation.Bucket> newBuckets = new ArrayList<>();
+    @Override
+    public BucketVisitor newBucketVisitor(InternalMultiBucketAggregation<?, ?> histo, InternalAggregation.ReduceContext reduceContext) {
         EvictingQueue<Double> values = new EvictingQueue<>(this.window);
 
         // Initialize the script
@@ -120,30 +115,19 @@ public class MovFnPipelineAggregator extends PipelineAggregator {
 
         MovingFunctionScript executableScript = scriptFactory.newInstance();
 
-        for (InternalMultiBucketAggregation.InternalBucket bucket : buckets) {
+        return bucket -> {
             Double thisBucketValue = resolveBucketValue(histo, bucket, bucketsPaths()[0], gapPolicy);
 
-            // Default is to reuse existing bucket.  Simplifies the rest of the logic,
-            // since we only change newBucket if we can add to it
-            MultiBucketsAggregation.Bucket newBucket = bucket;
-
+            // Default is to leave the bucket untouched, we only add to it if it has a value
             if (thisBucketValue != null && thisBucketValue.equals(Double.NaN) == false) {
 
                 // The custom context mandates that the script returns a double (not Double) so we
                 // don't need null checks, etc.
                 double movavg = executableScript.execute(vars, values.stream().mapToDouble(Double::doubleValue).toArray());
-
-                List<InternalAggregation> aggs = StreamSupport
-                    .stream(bucket.getAggregations().spliterator(), false)
-                    .map(InternalAggregation.class::cast)
-                    .collect(Collectors.toList());
-                aggs.add(new InternalSimpleValue(name(), movavg, formatter, new ArrayList<>(), metaData()));
-                newBucket = factory.createBucket(factory.getKey(bucket), bucket.getDocCount(), new InternalAggregations(aggs));
                 values.offer(thisBucketValue);
+                return new InternalSimpleValue(name(), movavg, formatter, new ArrayList<>(), metaData());
             }
-            newBuckets.add(newBucket);
-        }
-
-        return factory.createAggregation(newBuckets);
+            return null;
+        };
     }
 }
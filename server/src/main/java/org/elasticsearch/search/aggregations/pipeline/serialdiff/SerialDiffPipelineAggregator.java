@@ -26,24 +26,21 @@ import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.search.DocValueFormat;
 import org.elasticsearch.search.aggregations.InternalAggregation;
 import org.elasticsearch.search.aggregations.InternalAggregation.ReduceContext;
-import org.elasticsearch.search.aggregations.InternalAggregations;
 import org.elasticsearch.search.aggregations.InternalMultiBucketAggregation;
-import org.elasticsearch.search.aggregations.bucket.MultiBucketsAggregation.Bucket;
-import org.elasticsearch.search.aggregations.bucket.histogram.HistogramFactory;
+import org.elasticsearch.search.aggregations.pipeline.BucketHelpers;
 import org.elasticsearch.search.aggregations.pipeline.BucketHelpers.GapPolicy;
+import org.elasticsearch.search.aggregations.pipeline.FusiblePipelineAggregator;
 import org.elasticsearch.search.aggregations.pipeline.InternalSimpleValue;
 import org.elasticsearch.search.aggregations.pipeline.PipelineAggregator;
 
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.List;
+import java.util.Collections;
 import java.util.Map;
-import java.util.stream.Collectors;
-import java.util.stream.StreamSupport;
 
 import static org.elasticsearch.search.aggregations.pipeline.BucketHelpers.resolveBucketValue;
 
-public class SerialDiffPipelineAggregator extends PipelineAggregator {
+public class SerialDiffPipelineAggregator extends PipelineAggregator implements FusiblePipelineAggregator {
     private DocValueFormat formatter;
     private GapPolicy gapPolicy;
     private int lag;
@@ -80,48 +77,45 @@ public class SerialDiffPipelineAggregator extends PipelineAggregator {
 
     @Override
     public InternalAggregation reduce(InternalAggregation aggregation, ReduceContext reduceContext) {
-        InternalMultiBucketAggregation<? extends InternalMultiBucketAggregation, ? extends InternalMultiBucketAggregation.InternalBucket>
-                histo = (InternalMultiBucketAggregation<? extends InternalMultiBucketAggregation, ? extends
-                InternalMultiBucketAggregation.InternalBucket>) aggregation;
-        List<? extends InternalMultiBucketAggregation.InternalBucket> buckets = histo.getBuckets();
-        HistogramFactory factory = (HistogramFactory) histo;
-
-        List<Bucket> newBuckets = new ArrayList<>();
-        EvictingQueue<Double> lagWindow = new EvictingQueue<>(lag);
-        int counter = 0;
-
-        for (InternalMultiBucketAggregation.InternalBucket bucket : buckets) {
-            Double thisBucketValue = resolveBucketValue(histo, bucket, bucketsPaths()[0], gapPolicy);
-            Bucket newBucket = bucket;
-
-            counter += 1;
-
-            // Still under the initial lag period, add nothing and move on
-            Double lagValue;
-            if (counter <= lag) {
-                lagValue = Double.NaN;
-            } else {
-                lagValue = lagWindow.peek();  // Peek here, because we rely on add'ing to always move the window
-            }
-
-            // Normalize null's to NaN
-            if (thisBucketValue == null) {
-                thisBucketValue = Double.NaN;
-            }
-
-            // Both have values, calculate diff and replace the "empty" bucket
-            if (!Double.isNaN(thisBucketValue) && !Double.isNaN(lagValue)) {
-                double diff = thisBucketValue - lagValue;
+        InternalMultiBucketAggregation<?, ?> histo = (InternalMultiBucketAggregation<?, ?>) aggregation;
+        return BucketHelpers.visitBuckets(histo, Collections.singletonList(newBucketVisitor(histo, reduceContext)), reduceContext);
+    }
 
-                List<InternalAggregation> aggs = StreamSupport.stream(bucket.getAggregations().spliterator(), false).map(
-                        (p) -> (InternalAggregation) p).collect(Collectors.toList());
-                aggs.add(new InternalSimpleValue(name(), diff, formatter, new ArrayList<>(), metaData()));
-                newBucket = factory.createBucket(factory.getKey(bucket), bucket.getDocCount(), new InternalAggregations(aggs));
+    @Override
+    public BucketVisitor newBucketVisitor(InternalMultiBucketAggregation<?, ?> histo, ReduceContext reduceContext) {
+        return new BucketVisitor() {
+            final EvictingQueue<Double> lagWindow = new EvictingQueue<>(lag);
+            int counter = 0;
+
+            @Override
+            public InternalAggregation visit(InternalMultiBucketAggregation.InternalBucket bucket) {
+                Double thisBucketValue = resolveBucketValue(histo, bucket, bucketsPaths()[0], gapPolicy);
+                InternalAggregation diffValue = null;
+
+                counter += 1;
+
+                // Still under the initial lag period, add nothing and move on
+                Double lagValue;
+                if (counter <= lag) {
+                    lagValue = Double.NaN;
+                } else {
+                    lagValue = lagWindow.peek();  // Peek here, because we rely on add'ing to always move the window
+                }
+
+                // Normalize null's to NaN
+                if (thisBucketValue == null) {
+                    thisBucketValue = Double.NaN;
+                }
+
+                // Both have values, calculate diff and replace the "empty" bucket
+                if (!Double.isNaN(thisBucketValue) && !Double.isNaN(lagValue)) {
+                    double diff = thisBucketValue - lagValue;
+                    diffValue = new InternalSimpleValue(name(), diff, formatter, new ArrayList<>(), metaData());
+                }
+
+                lagWindow.add(thisBucketValue);
+                return diffValue;
             }
-
-            newBuckets.add(newBucket);
-            lagWindow.add(thisBucketValue);
-        }
-        return factory.createAggregation(newBuckets);
+        };
     }
 }
@@ -0,0 +1,160 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.search.aggregations.support;
+
+import org.apache.lucene.index.IndexReader;
+import org.elasticsearch.common.Nullable;
+import org.elasticsearch.common.cache.Cache;
+import org.elasticsearch.common.cache.CacheBuilder;
+import org.elasticsearch.common.cache.RemovalNotification;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
+import org.elasticsearch.search.internal.ShardSearchRequest;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.ToLongBiFunction;
+
+/**
+ * A node level cache for values that aggregations compute from the top level reader of a shard.
+ *
+ * Values are stored per reader and are invalidated as soon as their reader is closed, like the
+ * other reader keyed caches of a node. The cache is also bounded in size and can expire values that
+ * were not accessed for a while.
+ */
+public final class ReaderKeyedCache<K, V> {
+    private final Cache<Key<K>, V> cache;
+    // the keys of each open reader that has values in the cache, to invalidate them when the reader is closed
+    private final Map<IndexReader.CacheKey, Set<Key<K>>> keysPerReader = ConcurrentCollections.newConcurrentMap();
+
+    /**
+     * @param maxSize The maximum weight of the values in the cache.
+     * @param expireAfterAccess The time after which a value that was not accessed is evicted or null if values
+     *                          are only evicted when their reader is closed or when the cache is full.
+     * @param weigher Computes the weight of a value in bytes.
+     */
+    public ReaderKeyedCache(ByteSizeValue maxSize, @Nullable TimeValue expireAfterAccess, ToLongBiFunction<K, V> weigher) {
+        CacheBuilder<Key<K>, V> builder = CacheBuilder.<Key<K>, V>builder()
+            .setMaximumWeight(maxSize.getBytes())
+            .weigher((k, v) -> weigher.applyAsLong(k.key, v))
+            .removalListener(this::onRemoval);
+        if (expireAfterAccess != null) {
+            builder.setExpireAfterAccess(expireAfterAccess);
+        }
+        this.cache = builder.build();
+    }
+
+    /**
+     * Returns whether the values that <code>request</code> computes from the reader of its shard can be shared with
+     * other requests. Document and field level security wrap the reader of the shard without changing its cache key
+     * and disable the request cache of the requests they apply to, so the values of these requests are not cached.
+     */
+    public static boolean canCache(ShardSearchRequest request) {
+        return Boolean.FALSE.equals(request.requestCache()) == false;
+    }
+
+    /**
+     * Returns the value of <code>key</code> for the reader of <code>cacheHelper</code> or null if it is not cached.
+     */
+    @Nullable
+    public V get(IndexReader.CacheHelper cacheHelper, K key) {
+        return cache.get(new Key<>(cacheHelper.getKey(), key));
+    }
+
+    /**
+     * Caches the value of <code>key</code> for the reader of <code>cacheHelper</code> until the reader is closed.
+     */
+    public void put(IndexReader.CacheHelper cacheHelper, K key, V value) {
+        final IndexReader.CacheKey readerKey = cacheHelper.getKey();
+        final Set<Key<K>> keys = keysPerReader.computeIfAbsent(readerKey, k -> {
+            cacheHelper.addClosedListener(this::onClose);
+            return ConcurrentCollections.newConcurrentSet();
+        });
+        final Key<K> cacheKey = new Key<>(readerKey, key);
+        keys.add(cacheKey);
+        cache.put(cacheKey, value);
+    }
+
+    /**
+     * Returns the number of values in the cache.
+     */
+    public int count() {
+        return cache.count();
+    }
+
+    /**
+     * Returns the estimated memory used by the values of the cache in bytes.
+     */
+    public long ramBytesUsed() {
+        return cache.weight();
+    }
+
+    /**
+     * Removes all values from the cache.
+     */
+    public void clear() {
+        cache.invalidateAll();
+    }
+
+    private void onClose(IndexReader.CacheKey readerKey) {
+        final Set<Key<K>> keys = keysPerReader.remove(readerKey);
+        if (keys != null) {
+            for (Key<K> key : keys) {
+                cache.invalidate(key);
+            }
+        }
+    }
+
+    private void onRemoval(RemovalNotification<Key<K>, V> notification) {
+        if (notification.getRemovalReason() == RemovalNotification.RemovalReason.REPLACED) {
+            return;
+        }
+        final Key<K> key = notification.getKey();
+        final Set<Key<K>> keys = keysPerReader.get(key.readerKey);
+        if (keys != null) {
+            keys.remove(key);
+        }
+    }
+
+    private static final class Key<K> {
+        private final IndexReader.CacheKey readerKey;
+        private final K key;
+
+        private Key(IndexReader.CacheKey readerKey, K key) {
+            this.readerKey = Objects.requireNonNull(readerKey);
+            this.key = Objects.requireNonNull(key);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Key<?> that = (Key<?>) o;
+            return readerKey.equals(that.readerKey) && key.equals(that.key);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(readerKey, key);
+        }
+    }
+}
@@ -94,7 +94,7 @@ public class HighlightField implements ToXContentFragment, Streamable {
 
     @Override
     public void readFrom(StreamInput in) throws IOException {
-        name = in.readString();
+        name = in.readSharedString();
         if (in.readBoolean()) {
             int size = in.readVInt();
             if (size == 0) {
@@ -110,7 +110,7 @@ public class HighlightField implements ToXContentFragment, Streamable {
 
     @Override
     public void writeTo(StreamOutput out) throws IOException {
-        out.writeString(name);
+        out.writeSharedString(name);
         if (fragments == null) {
             out.writeBoolean(false);
         } else {
@@ -62,4 +62,12 @@ public abstract class AbstractProfileBreakdown<T extends Enum<T>> {
         }
         return Collections.unmodifiableMap(map);
     }
+
+    /**
+     * Additional information about how the profiled element was executed, rendered next to
+     * the timings. Empty unless a subclass collects such information.
+     */
+    public Map<String, Object> toDebugMap() {
+        return Collections.emptyMap();
+    }
 }
@@ -27,6 +27,7 @@ import org.elasticsearch.search.internal.SearchContext;
 import org.elasticsearch.search.profile.Timer;
 
 import java.io.IOException;
+import java.util.function.BiConsumer;
 
 public class ProfilingAggregator extends Aggregator {
 
@@ -79,6 +80,8 @@ public class ProfilingAggregator extends Aggregator {
         } finally {
             timer.stop();
         }
+        // some aggregations do most of their work when they build their results
+        delegate.collectDebugInfo(profileBreakdown::addDebugInfo);
         return result;
     }
 
@@ -108,6 +111,12 @@ public class ProfilingAggregator extends Aggregator {
     @Override
     public void postCollection() throws IOException {
         delegate.postCollection();
+        delegate.collectDebugInfo(profileBreakdown::addDebugInfo);
+    }
+
+    @Override
+    public void collectDebugInfo(BiConsumer<String, Object> add) {
+        delegate.collectDebugInfo(add);
     }
 
     @Override
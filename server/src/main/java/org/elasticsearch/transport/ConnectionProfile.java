@@ -31,6 +31,7 @@ import java.util.List;
 import java.util.Objects;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.ToLongFunction;
 
 /**
  * A connection profile describes how many connection are established to specific node for each of the available request types.
@@ -348,6 +349,31 @@ public final class ConnectionProfile {
             return channels.get(offset + Math.floorMod(counter.incrementAndGet(), length));
         }
 
+        /**
+         * Returns one of the channels out configured for this handle. The channel with the least amount of pending
+         * bytes is selected, starting from the channel that round-robin selection would have picked such that idle
+         * channels are still used in a round-robin fashion. This prevents a single large message (i.e. a large bulk
+         * or a cluster state) from delaying all subsequent messages that happen to be assigned to the same channel.
+         */
+        <T> T getChannel(List<T> channels, ToLongFunction<T> pendingBytes) {
+            if (length == 0) {
+                throw new IllegalStateException("can't select channel size is 0 for types: " + types);
+            }
+            assert channels.size() >= offset + length : "illegal size: " + channels.size() + " expected >= " + (offset + length);
+            final int start = Math.floorMod(counter.incrementAndGet(), length);
+            T selected = channels.get(offset + start);
+            long selectedPendingBytes = pendingBytes.applyAsLong(selected);
+            for (int i = 1; i < length && selectedPendingBytes > 0; i++) {
+                final T candidate = channels.get(offset + Math.floorMod(start + i, length));
+                final long candidatePendingBytes = pendingBytes.applyAsLong(candidate);
+                if (candidatePendingBytes < selectedPendingBytes) {
+                    selected = candidate;
+                    selectedPendingBytes = candidatePendingBytes;
+                }
+            }
+            return selected;
+        }
+
         /**
          * Returns all types for this handle
          */
@@ -29,6 +29,7 @@ import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.io.stream.ReleasableBytesStreamOutput;
 import org.elasticsearch.common.lease.Releasable;
 import org.elasticsearch.common.lease.Releasables;
+import org.elasticsearch.common.metrics.CounterMetric;
 import org.elasticsearch.common.metrics.MeanMetric;
 import org.elasticsearch.common.network.CloseableChannel;
 import org.elasticsearch.common.util.BigArrays;
@@ -42,6 +43,8 @@ final class OutboundHandler {
     private static final Logger logger = LogManager.getLogger(OutboundHandler.class);
 
     private final MeanMetric transmittedBytesMetric = new MeanMetric();
+    private final CounterMetric pendingMessagesMetric = new CounterMetric();
+    private final CounterMetric pendingBytesMetric = new CounterMetric();
     private final ThreadPool threadPool;
     private final BigArrays bigArrays;
     private final TransportLogger transportLogger;
@@ -90,6 +93,20 @@ final class OutboundHandler {
         return transmittedBytesMetric;
     }
 
+    /**
+     * Returns the number of messages that were serialized and handed to a channel but have not been sent yet.
+     */
+    long getPendingMessages() {
+        return pendingMessagesMetric.count();
+    }
+
+    /**
+     * Returns the number of bytes that were serialized and handed to a channel but have not been sent yet.
+     */
+    long getPendingBytes() {
+        return pendingBytesMetric.count();
+    }
+
     private static class MessageSerializer implements CheckedSupplier<BytesReference, IOException>, Releasable {
 
         private final OutboundMessage message;
@@ -139,6 +156,7 @@ final class OutboundHandler {
             try {
                 message = messageSupplier.get();
                 messageSize = message.length();
+                markPending(messageSize);
                 transportLogger.logOutboundMessage(channel, message);
                 return message;
             } catch (Exception e) {
@@ -151,15 +169,25 @@ final class OutboundHandler {
         protected void innerOnResponse(Void v) {
             assert messageSize != -1 : "If onResponse is being called, the message should have been serialized";
             transmittedBytesMetric.inc(messageSize);
+            markPending(-messageSize);
             closeAndCallback(() -> listener.onResponse(v));
         }
 
         @Override
         protected void innerOnFailure(Exception e) {
             logger.warn(() -> new ParameterizedMessage("send message failed [channel: {}]", channel), e);
+            if (messageSize != -1) {
+                markPending(-messageSize);
+            }
             closeAndCallback(() -> listener.onFailure(e));
         }
 
+        private void markPending(long bytes) {
+            channel.getChannelStats().addPendingBytes(bytes);
+            pendingBytesMetric.inc(bytes);
+            pendingMessagesMetric.inc(Long.signum(bytes));
+        }
+
         private void closeAndCallback(Runnable runnable) {
             Releasables.close(optionalReleasable, runnable::run);
         }
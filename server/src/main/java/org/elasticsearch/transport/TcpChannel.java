@@ -25,6 +25,7 @@ import org.elasticsearch.common.network.CloseableChannel;
 import org.elasticsearch.common.unit.TimeValue;
 
 import java.net.InetSocketAddress;
+import java.util.concurrent.atomic.AtomicLong;
 
 
 /**
@@ -85,6 +86,7 @@ public interface TcpChannel extends CloseableChannel {
     class ChannelStats {
 
         private volatile long lastAccessedTime;
+        private final AtomicLong pendingBytes = new AtomicLong();
 
         public ChannelStats() {
             lastAccessedTime = TimeValue.nsecToMSec(System.nanoTime());
@@ -97,5 +99,17 @@ public interface TcpChannel extends CloseableChannel {
         long lastAccessedTime() {
             return lastAccessedTime;
         }
+
+        void addPendingBytes(long bytes) {
+            final long pending = pendingBytes.addAndGet(bytes);
+            assert pending >= 0 : "pending bytes must be non-negative but was: " + pending;
+        }
+
+        /**
+         * Returns the number of bytes that were handed to the channel but have not been flushed to the network yet.
+         */
+        long pendingBytes() {
+            return pendingBytes.get();
+        }
     }
 }
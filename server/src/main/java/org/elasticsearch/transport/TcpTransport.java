@@ -241,7 +241,7 @@ public abstract class TcpTransport extends AbstractLifecycleComponent implements
             if (connectionTypeHandle == null) {
                 throw new IllegalArgumentException("no type channel for [" + type + "]");
             }
-            return connectionTypeHandle.getChannel(channels);
+            return connectionTypeHandle.getChannel(channels, c -> c.getChannelStats().pendingBytes());
         }
 
         @Override
@@ -1138,7 +1138,7 @@ public abstract class TcpTransport extends AbstractLifecycleComponent implements
     public final TransportStats getStats() {
         MeanMetric transmittedBytes = outboundHandler.getTransmittedBytes();
         return new TransportStats(acceptedChannels.size(), readBytesMetric.count(), readBytesMetric.sum(), transmittedBytes.count(),
-            transmittedBytes.sum());
+            transmittedBytes.sum(), outboundHandler.getPendingMessages(), outboundHandler.getPendingBytes());
     }
 
     /**
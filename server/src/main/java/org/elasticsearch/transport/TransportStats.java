@@ -19,6 +19,7 @@
 
 package org.elasticsearch.transport;
 
+import org.elasticsearch.Version;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.io.stream.Writeable;
@@ -36,13 +37,22 @@ public class TransportStats implements Writeable, ToXContentFragment {
     private final long rxSize;
     private final long txCount;
     private final long txSize;
+    private final long txPendingCount;
+    private final long txPendingSize;
 
     public TransportStats(long serverOpen, long rxCount, long rxSize, long txCount, long txSize) {
+        this(serverOpen, rxCount, rxSize, txCount, txSize, 0, 0);
+    }
+
+    public TransportStats(long serverOpen, long rxCount, long rxSize, long txCount, long txSize, long txPendingCount,
+                          long txPendingSize) {
         this.serverOpen = serverOpen;
         this.rxCount = rxCount;
         this.rxSize = rxSize;
         this.txCount = txCount;
         this.txSize = txSize;
+        this.txPendingCount = txPendingCount;
+        this.txPendingSize = txPendingSize;
     }
 
     public TransportStats(StreamInput in) throws IOException {
@@ -51,6 +61,13 @@ public class TransportStats implements Writeable, ToXContentFragment {
         rxSize = in.readVLong();
         txCount = in.readVLong();
         txSize = in.readVLong();
+        if (in.getVersion().onOrAfter(Version.V_6_8_24)) {
+            txPendingCount = in.readVLong();
+            txPendingSize = in.readVLong();
+        } else {
+            txPendingCount = 0;
+            txPendingSize = 0;
+        }
     }
 
     @Override
@@ -60,6 +77,10 @@ public class TransportStats implements Writeable, ToXContentFragment {
         out.writeVLong(rxSize);
         out.writeVLong(txCount);
         out.writeVLong(txSize);
+        if (out.getVersion().onOrAfter(Version.V_6_8_24)) {
+            out.writeVLong(txPendingCount);
+            out.writeVLong(txPendingSize);
+        }
     }
 
     public long serverOpen() {
@@ -102,6 +123,20 @@ public class TransportStats implements Writeable, ToXContentFragment {
         return txSize();
     }
 
+    /**
+     * Returns the number of outbound messages that were handed to a channel but have not been sent yet.
+     */
+    public long getTxPendingCount() {
+        return txPendingCount;
+    }
+
+    /**
+     * Returns the size of the outbound messages that were handed to a channel but have not been sent yet.
+     */
+    public ByteSizeValue getTxPendingSize() {
+        return new ByteSizeValue(txPendingSize);
+    }
+
     @Override
     public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
         builder.startObject(Fields.TRANSPORT);
@@ -110,6 +145,8 @@ public class TransportStats implements Writeable, ToXContentFragment {
         builder.humanReadableField(Fields.RX_SIZE_IN_BYTES, Fields.RX_SIZE, new ByteSizeValue(rxSize));
         builder.field(Fields.TX_COUNT, txCount);
         builder.humanReadableField(Fields.TX_SIZE_IN_BYTES, Fields.TX_SIZE, new ByteSizeValue(txSize));
+        builder.field(Fields.TX_PENDING_COUNT, txPendingCount);
+        builder.humanReadableField(Fields.TX_PENDING_SIZE_IN_BYTES, Fields.TX_PENDING_SIZE, new ByteSizeValue(txPendingSize));
         builder.endObject();
         return builder;
     }
@@ -123,5 +160,8 @@ public class TransportStats implements Writeable, ToXContentFragment {
         static final String TX_COUNT = "tx_count";
         static final String TX_SIZE = "tx_size";
         static final String TX_SIZE_IN_BYTES = "tx_size_in_bytes";
+        static final String TX_PENDING_COUNT = "tx_pending_count";
+        static final String TX_PENDING_SIZE = "tx_pending_size";
+        static final String TX_PENDING_SIZE_IN_BYTES = "tx_pending_size_in_bytes";
     }
 }
@@ -0,0 +1,70 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.action.admin.cluster.stats;
+
+import org.elasticsearch.Version;
+import org.elasticsearch.cluster.metadata.IndexMetaData;
+import org.elasticsearch.cluster.metadata.MetaData;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.test.ESTestCase;
+
+import java.io.IOException;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+
+public class MappingStatsTests extends ESTestCase {
+
+    private static final String MAPPING = "{\"_doc\": {\"properties\": {\"field\": {\"type\": \"keyword\"}}}}";
+
+    public void testSharedMappingsAreCountedOnce() throws IOException {
+        final int numIndices = randomIntBetween(1, 10);
+        MetaData.Builder builder = MetaData.builder();
+        for (int i = 0; i < numIndices; i++) {
+            builder.put(IndexMetaData.builder("index" + i)
+                .settings(Settings.builder().put(IndexMetaData.SETTING_VERSION_CREATED, Version.CURRENT)
+                    .put(IndexMetaData.SETTING_NUMBER_OF_SHARDS, 1).put(IndexMetaData.SETTING_NUMBER_OF_REPLICAS, 0))
+                .putMapping("_doc", MAPPING));
+        }
+        final MetaData metaData = builder.build();
+        final long mappingSize = metaData.index("index0").mapping("_doc").source().compressed().length;
+
+        final MappingStats stats = MappingStats.of(metaData);
+        assertThat(stats.getTotalCount(), equalTo((long) numIndices));
+        assertThat(stats.getUniqueCount(), equalTo(1L));
+        assertThat(stats.getUniqueSizeInBytes(), equalTo(mappingSize));
+        assertThat(stats.getTotalSizeInBytes(), equalTo(numIndices * mappingSize));
+        assertThat(stats.getDeduplicatedSizeInBytes(), equalTo((numIndices - 1) * mappingSize));
+        assertThat(mappingSize, greaterThan(0L));
+    }
+
+    public void testSerialization() throws IOException {
+        final MappingStats stats = new MappingStats(randomNonNegativeLong(), randomNonNegativeLong(), randomNonNegativeLong(),
+            randomNonNegativeLong());
+        try (BytesStreamOutput out = new BytesStreamOutput()) {
+            stats.writeTo(out);
+            try (StreamInput in = out.bytes().streamInput()) {
+                assertThat(new MappingStats(in), equalTo(stats));
+            }
+        }
+    }
+}
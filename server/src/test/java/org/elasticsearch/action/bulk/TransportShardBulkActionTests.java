@@ -29,17 +29,23 @@ import org.elasticsearch.action.delete.DeleteRequest;
 import org.elasticsearch.action.delete.DeleteResponse;
 import org.elasticsearch.action.index.IndexRequest;
 import org.elasticsearch.action.index.IndexResponse;
+import org.elasticsearch.action.support.ActionFilters;
 import org.elasticsearch.action.support.WriteRequest.RefreshPolicy;
 import org.elasticsearch.action.support.replication.TransportWriteAction.WritePrimaryResult;
 import org.elasticsearch.action.update.UpdateHelper;
 import org.elasticsearch.action.update.UpdateRequest;
 import org.elasticsearch.action.update.UpdateResponse;
 import org.elasticsearch.client.Requests;
+import org.elasticsearch.cluster.action.index.MappingUpdatedAction;
+import org.elasticsearch.cluster.action.shard.ShardStateAction;
 import org.elasticsearch.cluster.metadata.IndexMetaData;
+import org.elasticsearch.cluster.service.ClusterService;
 import org.elasticsearch.common.collect.Tuple;
+import org.elasticsearch.common.lease.Releasable;
 import org.elasticsearch.common.lucene.uid.Versions;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.index.IndexSettings;
+import org.elasticsearch.index.IndexingPressure;
 import org.elasticsearch.index.VersionType;
 import org.elasticsearch.index.engine.Engine;
 import org.elasticsearch.index.engine.VersionConflictEngineException;
@@ -50,7 +56,9 @@ import org.elasticsearch.index.shard.IndexShard;
 import org.elasticsearch.index.shard.IndexShardTestCase;
 import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.index.translog.Translog;
+import org.elasticsearch.indices.IndicesService;
 import org.elasticsearch.rest.RestStatus;
+import org.elasticsearch.transport.TransportService;
 
 import java.io.IOException;
 import java.util.Collections;
@@ -902,6 +910,27 @@ public class TransportShardBulkActionTests extends IndexShardTestCase {
     /**
      * Fake IndexResult that has a settable translog location
      */
+    public void testReplicaLimitsDoNotRejectReplicaOperations() {
+        final IndexingPressure indexingPressure =
+            new IndexingPressure(Settings.builder().put(IndexingPressure.MAX_INDEXING_BYTES.getKey(), "1b").build());
+        final TransportShardBulkAction action = new TransportShardBulkAction(Settings.EMPTY, mock(TransportService.class),
+            mock(ClusterService.class), mock(IndicesService.class), threadPool, mock(ShardStateAction.class),
+            mock(MappingUpdatedAction.class), null, new ActionFilters(Collections.emptySet()), null, indexingPressure);
+
+        BulkItemRequest[] items = new BulkItemRequest[1];
+        items[0] = new BulkItemRequest(0, new IndexRequest("index", "_doc", "id").source(Requests.INDEX_CONTENT_TYPE, "foo", "bar"));
+        BulkShardRequest bulkShardRequest = new BulkShardRequest(shardId, RefreshPolicy.NONE, items);
+        final long bytes = bulkShardRequest.estimatedSizeInBytes();
+
+        // a rejected replica operation would fail the replica, so going over the limit is only recorded in the stats
+        try (Releasable releasable = action.checkReplicaLimits(bulkShardRequest)) {
+            assertThat(indexingPressure.getCurrentReplicaBytes(), equalTo(bytes));
+            assertThat(indexingPressure.stats().getReplicaRejections(), equalTo(1L));
+        }
+        assertThat(indexingPressure.getCurrentReplicaBytes(), equalTo(0L));
+        assertThat(indexingPressure.stats().getTotalReplicaBytes(), equalTo(bytes));
+    }
+
     static class FakeIndexResult extends Engine.IndexResult {
 
         private final Translog.Location location;
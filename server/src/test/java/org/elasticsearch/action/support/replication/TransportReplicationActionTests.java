@@ -592,6 +592,7 @@ public class TransportReplicationActionTests extends ESTestCase {
         assertThat(capturedRequests.size(), equalTo(1));
         if (clusterService.state().nodes().getLocalNodeId().equals(primaryNodeId)) {
             assertThat(capturedRequests.get(0).action, equalTo("internal:testAction[p]"));
+            assertTrue(((TransportReplicationAction.ConcreteShardRequest<?>) capturedRequests.get(0).request).sentFromLocalReroute());
             assertPhase(task, "waiting_on_primary");
         } else {
             assertThat(capturedRequests.get(0).action, equalTo("internal:testAction"));
@@ -996,6 +997,35 @@ public class TransportReplicationActionTests extends ESTestCase {
         }
     }
 
+    /** test that the primary limits know whether the request was routed to the primary by this node */
+    public void testPrimaryLimitsOfLocalReroute() throws Exception {
+        final String index = "test";
+        final ShardId shardId = new ShardId(index, "_na_", 0);
+        setState(clusterService, state(index, true, ShardRoutingState.STARTED));
+        final ShardRouting primary = clusterService.state().routingTable().shardRoutingTable(shardId).primaryShard();
+        final long primaryTerm = clusterService.state().metaData().index(shardId.getIndexName()).primaryTerm(shardId.id());
+        final AtomicReference<Boolean> rerouteWasLocal = new AtomicReference<>();
+        final AtomicBoolean released = new AtomicBoolean();
+        final TestAction action = new TestAction(Settings.EMPTY, "internal:testPrimaryLimits", transportService, clusterService,
+            shardStateAction, threadPool) {
+            @Override
+            protected Releasable checkPrimaryLimits(Request request, boolean local) {
+                rerouteWasLocal.set(local);
+                return () -> released.set(true);
+            }
+        };
+        final boolean local = randomBoolean();
+        PlainActionFuture<TestResponse> listener = new PlainActionFuture<>();
+        action.new PrimaryOperationTransportHandler().messageReceived(
+            new TransportReplicationAction.ConcreteShardRequest<>(new Request(shardId), primary.allocationId().getId(), primaryTerm,
+                local),
+            createTransportChannel(listener), maybeTask());
+        // the limits are released once the response is sent, whatever the outcome of the primary operation
+        assertTrue(listener.isDone());
+        assertEquals(local, rerouteWasLocal.get());
+        assertTrue(released.get());
+    }
+
     /** test that a replica request is rejected if it arrives at a shard with a wrong allocation id */
     public void testReplicaActionRejectsWrongAid() throws Exception {
         final String index = "test";
@@ -0,0 +1,127 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.cluster;
+
+import org.elasticsearch.cluster.routing.ShardRouting;
+import org.elasticsearch.cluster.routing.ShardRoutingState;
+import org.elasticsearch.cluster.routing.TestShardRouting;
+import org.elasticsearch.common.io.stream.NamedWriteableRegistry;
+import org.elasticsearch.monitor.fs.FsInfo;
+import org.elasticsearch.test.ESTestCase;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+
+public class DiskUsageReporterTests extends ESTestCase {
+
+    private static final long DISK_USAGE_THRESHOLD = 1000;
+    private static final long SHARD_SIZE_THRESHOLD = 100;
+
+    public void testFullReportContainsEverything() {
+        final FsInfo fsInfo = fsInfo(5000);
+        final Map<ShardRouting, DiskUsageReporter.ShardUsage> shards = shards(shardUsage("test", 0, 500));
+        final DiskUsageReporter.Report report = DiskUsageReporter.diff("node", true, fsInfo, fsInfo, shards, shards,
+            DISK_USAGE_THRESHOLD, SHARD_SIZE_THRESHOLD);
+        assertTrue(report.isFull());
+        assertThat(report.getNodeId(), equalTo("node"));
+        assertThat(report.getFsInfo(), sameInstance(fsInfo));
+        assertThat(report.getShards(), contains(shards.values().toArray()));
+        assertThat(report.getRemovedShards(), empty());
+    }
+
+    public void testSmallChangesAreNotReported() {
+        final DiskUsageReporter.ShardUsage shardUsage = shardUsage("test", 0, 500);
+        final DiskUsageReporter.ShardUsage grown =
+            new DiskUsageReporter.ShardUsage(shardUsage.getShardRouting(), "/data", 500 + SHARD_SIZE_THRESHOLD - 1);
+        final DiskUsageReporter.Report report = DiskUsageReporter.diff("node", false, fsInfo(5000), fsInfo(5000 - DISK_USAGE_THRESHOLD + 1),
+            shards(shardUsage), shards(grown), DISK_USAGE_THRESHOLD, SHARD_SIZE_THRESHOLD);
+        assertThat(report, nullValue());
+    }
+
+    public void testChangesAboveThresholdsAreReported() {
+        final DiskUsageReporter.ShardUsage unchanged = shardUsage("test", 0, 500);
+        final DiskUsageReporter.ShardUsage grown = shardUsage("test", 1, 500);
+        final DiskUsageReporter.ShardUsage removed = shardUsage("test", 2, 500);
+        final DiskUsageReporter.ShardUsage grownNow =
+            new DiskUsageReporter.ShardUsage(grown.getShardRouting(), "/data", 500 + SHARD_SIZE_THRESHOLD);
+        final DiskUsageReporter.ShardUsage added = shardUsage("other", 0, 10);
+        final FsInfo currentFsInfo = fsInfo(5000 - DISK_USAGE_THRESHOLD);
+
+        final DiskUsageReporter.Report report = DiskUsageReporter.diff("node", false, fsInfo(5000), currentFsInfo,
+            shards(unchanged, grown, removed), shards(unchanged, grownNow, added), DISK_USAGE_THRESHOLD, SHARD_SIZE_THRESHOLD);
+        assertFalse(report.isFull());
+        assertThat(report.getFsInfo(), sameInstance(currentFsInfo));
+        assertThat(report.getShards().size(), equalTo(2));
+        assertTrue(report.getShards().contains(grownNow));
+        assertTrue(report.getShards().contains(added));
+        assertThat(report.getRemovedShards(), contains(removed.getShardRouting()));
+    }
+
+    public void testChangedDataPathIsReported() {
+        final DiskUsageReporter.ShardUsage shardUsage = shardUsage("test", 0, 500);
+        final DiskUsageReporter.ShardUsage moved = new DiskUsageReporter.ShardUsage(shardUsage.getShardRouting(), "/data/other", 500);
+        final DiskUsageReporter.Report report = DiskUsageReporter.diff("node", false, fsInfo(5000), fsInfo(5000),
+            shards(shardUsage), shards(moved), DISK_USAGE_THRESHOLD, SHARD_SIZE_THRESHOLD);
+        assertThat(report.getFsInfo(), nullValue());
+        assertThat(report.getShards(), contains(moved));
+    }
+
+    public void testSerialization() throws IOException {
+        final DiskUsageReporter.ShardUsage shardUsage = shardUsage("test", 0, randomNonNegativeLong());
+        final DiskUsageReporter.Report report = new DiskUsageReporter.Report("node", randomBoolean(),
+            randomBoolean() ? fsInfo(randomIntBetween(0, 5000)) : null, Collections.singletonList(shardUsage),
+            Collections.singletonList(shardUsage("other", 1, 0).getShardRouting()));
+        final DiskUsageReporter.Report copy = copyWriteable(report, new NamedWriteableRegistry(Collections.emptyList()),
+            DiskUsageReporter.Report::new);
+        assertThat(copy.getNodeId(), equalTo(report.getNodeId()));
+        assertThat(copy.isFull(), equalTo(report.isFull()));
+        if (report.getFsInfo() == null) {
+            assertThat(copy.getFsInfo(), nullValue());
+        } else {
+            assertThat(copy.getFsInfo().getTotal().getAvailable(), equalTo(report.getFsInfo().getTotal().getAvailable()));
+        }
+        assertThat(copy.getShards(), equalTo(report.getShards()));
+        assertThat(copy.getRemovedShards(), equalTo(report.getRemovedShards()));
+    }
+
+    private static FsInfo fsInfo(long available) {
+        return new FsInfo(0, null, new FsInfo.Path[] { new FsInfo.Path("/data", "/dev/sda", 10000, available, available) });
+    }
+
+    private static DiskUsageReporter.ShardUsage shardUsage(String index, int shardId, long sizeInBytes) {
+        final ShardRouting shardRouting = TestShardRouting.newShardRouting(index, shardId, "node", true, ShardRoutingState.STARTED);
+        return new DiskUsageReporter.ShardUsage(shardRouting, "/data", sizeInBytes);
+    }
+
+    private static Map<ShardRouting, DiskUsageReporter.ShardUsage> shards(DiskUsageReporter.ShardUsage... shardUsages) {
+        final Map<ShardRouting, DiskUsageReporter.ShardUsage> shards = new HashMap<>();
+        for (DiskUsageReporter.ShardUsage shardUsage : shardUsages) {
+            shards.put(shardUsage.getShardRouting(), shardUsage);
+        }
+        return shards;
+    }
+}
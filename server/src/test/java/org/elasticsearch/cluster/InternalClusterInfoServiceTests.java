@@ -0,0 +1,187 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.cluster;
+
+import org.elasticsearch.Version;
+import org.elasticsearch.cluster.node.DiscoveryNode;
+import org.elasticsearch.cluster.node.DiscoveryNodes;
+import org.elasticsearch.cluster.routing.ShardRouting;
+import org.elasticsearch.cluster.routing.ShardRoutingState;
+import org.elasticsearch.cluster.routing.TestShardRouting;
+import org.elasticsearch.cluster.routing.allocation.DiskThresholdSettings;
+import org.elasticsearch.cluster.service.ClusterService;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.monitor.fs.FsInfo;
+import org.elasticsearch.test.ESTestCase;
+import org.elasticsearch.threadpool.TestThreadPool;
+import org.elasticsearch.threadpool.ThreadPool;
+import org.junit.After;
+import org.junit.Before;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.elasticsearch.test.ClusterServiceUtils.createClusterService;
+import static org.elasticsearch.test.ClusterServiceUtils.setState;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
+
+public class InternalClusterInfoServiceTests extends ESTestCase {
+
+    private ThreadPool threadPool;
+    private ClusterService clusterService;
+
+    @Before
+    public void setUpClusterService() {
+        threadPool = new TestThreadPool(getTestName());
+        clusterService = createClusterService(threadPool);
+        final DiscoveryNode otherNode = new DiscoveryNode("other", buildNewFakeTransportAddress(), Version.CURRENT);
+        final ClusterState state = clusterService.state();
+        setState(clusterService, ClusterState.builder(state).nodes(DiscoveryNodes.builder(state.nodes()).add(otherNode)));
+    }
+
+    @After
+    public void tearDownClusterService() {
+        clusterService.close();
+        ThreadPool.terminate(threadPool, 10, TimeUnit.SECONDS);
+    }
+
+    public void testReportsAreAppliedIncrementally() {
+        final List<ClusterInfo> infos = new ArrayList<>();
+        final InternalClusterInfoService clusterInfoService = new InternalClusterInfoService(
+            Settings.builder().put(DiskUsageReporter.INCREMENTAL_REPORTS_ENABLED_SETTING.getKey(), true).build(),
+            clusterService, threadPool, null, infos::add);
+        clusterInfoService.onMaster();
+
+        final ShardRouting replica = TestShardRouting.newShardRouting("test", 0, "node", false, ShardRoutingState.STARTED);
+        final ShardRouting otherReplica = TestShardRouting.newShardRouting("test", 0, "other", false, ShardRoutingState.STARTED);
+        final FsInfo fsInfo = new FsInfo(0, null, new FsInfo.Path[] { new FsInfo.Path("/data", "/dev/sda", 10000, 400, 400) });
+
+        clusterInfoService.onDiskUsageReport(new DiskUsageReporter.Report("node", true, fsInfo,
+            Collections.singletonList(new DiskUsageReporter.ShardUsage(replica, "/data", 100)), Collections.emptyList()));
+        ClusterInfo clusterInfo = clusterInfoService.getClusterInfo();
+        assertThat(clusterInfo.getNodeLeastAvailableDiskUsages().get("node").getFreeBytes(), equalTo(400L));
+        assertThat(clusterInfo.getShardSize(replica), equalTo(100L));
+        assertThat(clusterInfo.getDataPath(replica), equalTo("/data"));
+
+        clusterInfoService.onDiskUsageReport(new DiskUsageReporter.Report("other", true, null,
+            Collections.singletonList(new DiskUsageReporter.ShardUsage(otherReplica, "/data", 120)), Collections.emptyList()));
+        assertThat(clusterInfoService.getClusterInfo().getShardSize(replica), equalTo(120L));
+
+        // the size is kept as long as a copy with the same identifier is reported
+        clusterInfoService.onDiskUsageReport(new DiskUsageReporter.Report("node", false, null, Collections.emptyList(),
+            Collections.singletonList(replica)));
+        clusterInfo = clusterInfoService.getClusterInfo();
+        assertThat(clusterInfo.getShardSize(otherReplica), equalTo(120L));
+        assertThat(clusterInfo.getDataPath(replica), nullValue());
+        assertThat(clusterInfo.getNodeLeastAvailableDiskUsages().get("node").getFreeBytes(), equalTo(400L));
+
+        clusterInfoService.onDiskUsageReport(new DiskUsageReporter.Report("other", false, null, Collections.emptyList(),
+            Collections.singletonList(otherReplica)));
+        assertThat(clusterInfoService.getClusterInfo().getShardSize(otherReplica), nullValue());
+
+        assertThat(infos.size(), equalTo(4));
+    }
+
+    public void testFullReportReplacesPreviousReports() {
+        final InternalClusterInfoService clusterInfoService = new InternalClusterInfoService(
+            Settings.builder().put(DiskUsageReporter.INCREMENTAL_REPORTS_ENABLED_SETTING.getKey(), true).build(),
+            clusterService, threadPool, null, info -> {});
+        clusterInfoService.onMaster();
+
+        final ShardRouting primary = TestShardRouting.newShardRouting("test", 0, "node", true, ShardRoutingState.STARTED);
+        final ShardRouting other = TestShardRouting.newShardRouting("test", 1, "node", true, ShardRoutingState.STARTED);
+        clusterInfoService.onDiskUsageReport(new DiskUsageReporter.Report("node", true, null,
+            Collections.singletonList(new DiskUsageReporter.ShardUsage(primary, "/data", 100)), Collections.emptyList()));
+        clusterInfoService.onDiskUsageReport(new DiskUsageReporter.Report("node", true, null,
+            Collections.singletonList(new DiskUsageReporter.ShardUsage(other, "/data", 200)), Collections.emptyList()));
+
+        final ClusterInfo clusterInfo = clusterInfoService.getClusterInfo();
+        assertThat(clusterInfo.getShardSize(primary), nullValue());
+        assertThat(clusterInfo.getShardSize(other), equalTo(200L));
+    }
+
+    public void testIncrementalReportIsRejectedAfterReElection() {
+        final InternalClusterInfoService clusterInfoService = new InternalClusterInfoService(
+            Settings.builder().put(DiskUsageReporter.INCREMENTAL_REPORTS_ENABLED_SETTING.getKey(), true).build(),
+            clusterService, threadPool, null, info -> {});
+        clusterInfoService.onMaster();
+
+        final ShardRouting primary = TestShardRouting.newShardRouting("test", 0, "node", true, ShardRoutingState.STARTED);
+        final ShardRouting other = TestShardRouting.newShardRouting("test", 1, "node", true, ShardRoutingState.STARTED);
+        clusterInfoService.onDiskUsageReport(new DiskUsageReporter.Report("node", true, null,
+            Collections.singletonList(new DiskUsageReporter.ShardUsage(primary, "/data", 100)), Collections.emptyList()));
+
+        // the same master is re-elected, the node still sees the same ephemeral id and keeps sending diffs
+        clusterInfoService.offMaster();
+        clusterInfoService.onMaster();
+        expectThrows(IllegalStateException.class, () -> clusterInfoService.onDiskUsageReport(new DiskUsageReporter.Report("node",
+            false, null, Collections.singletonList(new DiskUsageReporter.ShardUsage(other, "/data", 200)), Collections.emptyList())));
+        assertThat(clusterInfoService.getClusterInfo().getShardSize(other), nullValue());
+
+        // the node starts over with a full report after the rejection
+        clusterInfoService.onDiskUsageReport(new DiskUsageReporter.Report("node", true, null,
+            Arrays.asList(new DiskUsageReporter.ShardUsage(primary, "/data", 100), new DiskUsageReporter.ShardUsage(other, "/data", 200)),
+            Collections.emptyList()));
+        final ClusterInfo clusterInfo = clusterInfoService.getClusterInfo();
+        assertThat(clusterInfo.getShardSize(primary), equalTo(100L));
+        assertThat(clusterInfo.getShardSize(other), equalTo(200L));
+    }
+
+    public void testReportsAreRejectedInMixedVersionClusters() {
+        final InternalClusterInfoService clusterInfoService = new InternalClusterInfoService(Settings.builder()
+            .put(DiskUsageReporter.INCREMENTAL_REPORTS_ENABLED_SETTING.getKey(), true)
+            // the infos are not refreshed by fetching the stats of the nodes in this test
+            .put(DiskThresholdSettings.CLUSTER_ROUTING_ALLOCATION_DISK_THRESHOLD_ENABLED_SETTING.getKey(), false)
+            .build(), clusterService, threadPool, null, info -> {});
+        clusterInfoService.onMaster();
+
+        final ShardRouting replica = TestShardRouting.newShardRouting("test", 0, "node", false, ShardRoutingState.STARTED);
+        final ShardRouting otherReplica = TestShardRouting.newShardRouting("test", 0, "other", false, ShardRoutingState.STARTED);
+        clusterInfoService.onDiskUsageReport(new DiskUsageReporter.Report("other", true, null,
+            Collections.singletonList(new DiskUsageReporter.ShardUsage(otherReplica, "/data", 100)), Collections.emptyList()));
+        assertThat(clusterInfoService.getClusterInfo().getShardSize(otherReplica), equalTo(100L));
+
+        // a node that doesn't support incremental reports joins
+        final DiscoveryNode oldNode = new DiscoveryNode("old", buildNewFakeTransportAddress(), Version.V_6_8_22);
+        final ClusterState state = clusterService.state();
+        setState(clusterService, ClusterState.builder(state).nodes(DiscoveryNodes.builder(state.nodes()).add(oldNode)));
+        expectThrows(IllegalStateException.class, () -> clusterInfoService.onDiskUsageReport(new DiskUsageReporter.Report("node",
+            true, null, Collections.singletonList(new DiskUsageReporter.ShardUsage(replica, "/data", 200)), Collections.emptyList())));
+        assertThat(clusterInfoService.getClusterInfo().getShardSize(replica), equalTo(100L));
+
+        // once it leaves the fetched infos are dropped and reports are accepted again
+        setState(clusterService, ClusterState.builder(clusterService.state())
+            .nodes(DiscoveryNodes.builder(clusterService.state().nodes()).remove(oldNode.getId())));
+        assertThat(clusterInfoService.getClusterInfo().getShardSize(otherReplica), nullValue());
+        clusterInfoService.onDiskUsageReport(new DiskUsageReporter.Report("node", true, null,
+            Collections.singletonList(new DiskUsageReporter.ShardUsage(replica, "/data", 200)), Collections.emptyList()));
+        assertThat(clusterInfoService.getClusterInfo().getShardSize(replica), equalTo(200L));
+    }
+
+    public void testReportsAreRejectedIfNotMaster() {
+        final InternalClusterInfoService clusterInfoService = new InternalClusterInfoService(Settings.EMPTY, clusterService,
+            threadPool, null, info -> {});
+        expectThrows(NotMasterException.class, () -> clusterInfoService.onDiskUsageReport(
+            new DiskUsageReporter.Report("node", true, null, Collections.emptyList(), Collections.emptyList())));
+    }
+}
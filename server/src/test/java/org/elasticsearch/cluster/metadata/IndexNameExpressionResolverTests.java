@@ -269,6 +269,42 @@ public class IndexNameExpressionResolverTests extends ESTestCase {
         assertEquals(4, results.length);
     }
 
+    public void testConcreteIndicesAreCachedPerMetaData() {
+        MetaData.Builder mdBuilder = MetaData.builder()
+            .put(indexBuilder("logs-2019-app").putAlias(AliasMetaData.builder("logs")))
+            .put(indexBuilder("logs-2019-web"))
+            .put(indexBuilder("logs-2020-app").state(State.CLOSE))
+            .put(indexBuilder("metrics-2019-app"));
+        ClusterState state = ClusterState.builder(new ClusterName("_name")).metaData(mdBuilder).build();
+
+        IndexNameExpressionResolver.Context context = new IndexNameExpressionResolver.Context(state, IndicesOptions.lenientExpandOpen());
+        String[] results = indexNameExpressionResolver.concreteIndexNames(context, "logs-*-app");
+        assertThat(results, arrayContainingInAnyOrder("logs-2019-app"));
+        results = indexNameExpressionResolver.concreteIndexNames(context, "*-2019-app");
+        assertThat(results, arrayContainingInAnyOrder("logs-2019-app", "metrics-2019-app"));
+
+        // the cached result is not shared with callers
+        Index[] indices = indexNameExpressionResolver.concreteIndices(context, "logs-*");
+        assertThat(indices, arrayWithSize(2));
+        indices[0] = null;
+        indices = indexNameExpressionResolver.concreteIndices(context, "logs-*");
+        assertThat(indices, arrayWithSize(2));
+        for (Index index : indices) {
+            assertNotNull(index);
+        }
+
+        // other options are resolved separately
+        context = new IndexNameExpressionResolver.Context(state, IndicesOptions.lenientExpand());
+        results = indexNameExpressionResolver.concreteIndexNames(context, "logs-*-app");
+        assertThat(results, arrayContainingInAnyOrder("logs-2019-app", "logs-2020-app"));
+
+        // new metadata invalidates all previous resolutions
+        state = ClusterState.builder(state).metaData(MetaData.builder(state.metaData()).put(indexBuilder("logs-2021-app"))).build();
+        context = new IndexNameExpressionResolver.Context(state, IndicesOptions.lenientExpandOpen());
+        results = indexNameExpressionResolver.concreteIndexNames(context, "logs-*-app");
+        assertThat(results, arrayContainingInAnyOrder("logs-2019-app", "logs-2021-app"));
+    }
+
     public void testIndexOptionsWildcardExpansion() {
         MetaData.Builder mdBuilder = MetaData.builder()
                 .put(indexBuilder("foo").state(IndexMetaData.State.CLOSE))
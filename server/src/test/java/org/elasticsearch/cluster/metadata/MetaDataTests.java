@@ -47,6 +47,8 @@ import java.util.Set;
 
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.sameInstance;
 import static org.hamcrest.Matchers.startsWith;
 
 public class MetaDataTests extends ESTestCase {
@@ -397,6 +399,47 @@ public class MetaDataTests extends ESTestCase {
         }
     }
 
+    public void testIdenticalMappingsAreShared() throws IOException {
+        final int numIndices = randomIntBetween(2, 10);
+        MetaData.Builder builder = MetaData.builder();
+        for (int i = 0; i < numIndices; i++) {
+            builder.put(IndexMetaData.builder("index" + i)
+                .settings(Settings.builder().put(IndexMetaData.SETTING_VERSION_CREATED, Version.CURRENT)
+                    .put(IndexMetaData.SETTING_NUMBER_OF_SHARDS, 1).put(IndexMetaData.SETTING_NUMBER_OF_REPLICAS, 0))
+                .putMapping("_doc", FIND_MAPPINGS_TEST_ITEM));
+        }
+        builder.put(IndexMetaData.builder("other")
+            .settings(Settings.builder().put(IndexMetaData.SETTING_VERSION_CREATED, Version.CURRENT)
+                .put(IndexMetaData.SETTING_NUMBER_OF_SHARDS, 1).put(IndexMetaData.SETTING_NUMBER_OF_REPLICAS, 0))
+            .putMapping("_doc", "{\"_doc\": {\"properties\": {\"field\": {\"type\": \"keyword\"}}}}"));
+        final MetaData metaData = builder.build();
+
+        final MappingMetaData shared = metaData.index("index0").mapping("_doc");
+        for (int i = 1; i < numIndices; i++) {
+            assertThat(metaData.index("index" + i).mapping("_doc"), sameInstance(shared));
+        }
+        assertThat(metaData.index("other").mapping("_doc"), not(sameInstance(shared)));
+
+        // rebuilding keeps the shared instances as they are
+        final MetaData rebuilt = MetaData.builder(metaData).build();
+        for (int i = 0; i < numIndices; i++) {
+            assertThat(rebuilt.index("index" + i), sameInstance(metaData.index("index" + i)));
+        }
+
+        // mappings read from the wire are shared again
+        final BytesStreamOutput out = new BytesStreamOutput();
+        metaData.writeTo(out);
+        NamedWriteableRegistry namedWriteableRegistry = new NamedWriteableRegistry(ClusterModule.getNamedWriteables());
+        final MetaData fromStreamMeta = MetaData.readFrom(
+            new NamedWriteableAwareStreamInput(out.bytes().streamInput(), namedWriteableRegistry)
+        );
+        final MappingMetaData sharedFromStream = fromStreamMeta.index("index0").mapping("_doc");
+        assertThat(sharedFromStream, equalTo(shared));
+        for (int i = 1; i < numIndices; i++) {
+            assertThat(fromStreamMeta.index("index" + i).mapping("_doc"), sameInstance(sharedFromStream));
+        }
+    }
+
     public void testFindMappingsNoOpFilters() throws IOException {
         MappingMetaData originalMappingMetaData = new MappingMetaData("_doc",
                 XContentHelper.convertToMap(JsonXContent.jsonXContent, FIND_MAPPINGS_TEST_ITEM, true));
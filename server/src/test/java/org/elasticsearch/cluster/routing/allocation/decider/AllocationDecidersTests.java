@@ -0,0 +1,128 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.cluster.routing.allocation.decider;
+
+import org.elasticsearch.cluster.routing.allocation.RoutingAllocation;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.test.ESTestCase;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+
+public class AllocationDecidersTests extends ESTestCase {
+
+    public void testStatsAreOnlyRecordedWhenTimingIsEnabled() {
+        final AllocationDeciders deciders = new AllocationDeciders(Arrays.asList(new FirstDecider(), new SecondDecider()));
+        assertThat(deciders.canRebalance((RoutingAllocation) null), equalTo(Decision.ALWAYS));
+        AllocationDeciderStats stats = deciders.stats();
+        assertFalse(stats.isTimingEnabled());
+        assertThat(stats.getDeciderStats().size(), equalTo(2));
+        for (AllocationDeciderStats.DeciderStats deciderStats : stats.getDeciderStats()) {
+            assertThat(deciderStats.getCount(), equalTo(0L));
+            assertThat(deciderStats.getTimeInNanos(), equalTo(0L));
+        }
+
+        deciders.setTimingEnabled(true);
+        final int iterations = randomIntBetween(1, 10);
+        for (int i = 0; i < iterations; i++) {
+            deciders.canRebalance((RoutingAllocation) null);
+        }
+        stats = deciders.stats();
+        assertTrue(stats.isTimingEnabled());
+        assertThat(stats.getDeciderStats().get(0).getName(), equalTo(FirstDecider.class.getName()));
+        assertThat(stats.getDeciderStats().get(1).getName(), equalTo(SecondDecider.class.getName()));
+        for (AllocationDeciderStats.DeciderStats deciderStats : stats.getDeciderStats()) {
+            assertThat(deciderStats.getCount(), equalTo((long) iterations));
+            assertThat(deciderStats.getTimeInNanos(), greaterThanOrEqualTo(0L));
+        }
+
+        deciders.setTimingEnabled(false);
+        deciders.canRebalance((RoutingAllocation) null);
+        assertThat(deciders.stats().getDeciderStats().get(0).getCount(), equalTo((long) iterations));
+    }
+
+    public void testStatsOfDecidersWithTheSameName() {
+        final AllocationDecider anonymousDecider = new AllocationDecider() {
+            @Override
+            public Decision canRebalance(RoutingAllocation allocation) {
+                return Decision.ALWAYS;
+            }
+        };
+        final AllocationDeciders deciders = new AllocationDeciders(Arrays.asList(new FirstDecider(), new SecondDecider(),
+            new OtherDeciders.SecondDecider(), anonymousDecider, new FirstDecider()));
+        deciders.setTimingEnabled(true);
+        deciders.canRebalance((RoutingAllocation) null);
+
+        final List<AllocationDeciderStats.DeciderStats> stats = deciders.stats().getDeciderStats();
+        assertThat(stats.size(), equalTo(4));
+        assertThat(stats.get(0).getName(), equalTo(FirstDecider.class.getName()));
+        assertThat(stats.get(0).getCount(), equalTo(2L));
+        assertThat(stats.get(1).getName(), equalTo(SecondDecider.class.getName()));
+        assertThat(stats.get(2).getName(), equalTo(OtherDeciders.SecondDecider.class.getName()));
+        assertThat(stats.get(3).getName(), equalTo(anonymousDecider.getClass().getName()));
+        assertFalse(stats.get(3).getName().isEmpty());
+    }
+
+    public void testStatsSerialization() throws IOException {
+        final int numDeciders = randomIntBetween(0, 5);
+        final List<AllocationDeciderStats.DeciderStats> deciderStats = new ArrayList<>(numDeciders);
+        for (int i = 0; i < numDeciders; i++) {
+            deciderStats.add(new AllocationDeciderStats.DeciderStats(randomAlphaOfLength(8), randomNonNegativeLong(),
+                randomNonNegativeLong()));
+        }
+        final AllocationDeciderStats stats = new AllocationDeciderStats(randomBoolean(), deciderStats);
+        try (BytesStreamOutput out = new BytesStreamOutput()) {
+            stats.writeTo(out);
+            try (StreamInput in = out.bytes().streamInput()) {
+                assertThat(new AllocationDeciderStats(in), equalTo(stats));
+            }
+        }
+    }
+
+    private static class FirstDecider extends AllocationDecider {
+        @Override
+        public Decision canRebalance(RoutingAllocation allocation) {
+            return Decision.ALWAYS;
+        }
+    }
+
+    private static class SecondDecider extends AllocationDecider {
+        @Override
+        public Decision canRebalance(RoutingAllocation allocation) {
+            return Decision.ALWAYS;
+        }
+    }
+
+    private static class OtherDeciders {
+        // same simple name as the decider above, e.g. a plugin decider
+        private static class SecondDecider extends AllocationDecider {
+            @Override
+            public Decision canRebalance(RoutingAllocation allocation) {
+                return Decision.ALWAYS;
+            }
+        }
+    }
+}
@@ -22,8 +22,11 @@ import org.apache.logging.log4j.Level;
 import org.apache.logging.log4j.Logger;
 import org.apache.logging.log4j.LogManager;
 import org.elasticsearch.Version;
+import org.elasticsearch.cluster.ClusterChangedEvent;
 import org.elasticsearch.cluster.ClusterName;
 import org.elasticsearch.cluster.ClusterState;
+import org.elasticsearch.cluster.ClusterStateApplier;
+import org.elasticsearch.cluster.ClusterStateListener;
 import org.elasticsearch.cluster.ClusterStateObserver;
 import org.elasticsearch.cluster.LocalNodeMasterListener;
 import org.elasticsearch.cluster.NodeConnectionsService;
@@ -46,13 +49,19 @@ import org.junit.AfterClass;
 import org.junit.Before;
 import org.junit.BeforeClass;
 
+import java.util.List;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 
 import static java.util.Collections.emptyMap;
 import static java.util.Collections.emptySet;
 import static org.elasticsearch.test.ClusterServiceUtils.setState;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.is;
 
 public class ClusterApplierServiceTests extends ESTestCase {
@@ -86,11 +95,15 @@ public class ClusterApplierServiceTests extends ESTestCase {
     }
 
     TimedClusterApplierService createTimedClusterService(boolean makeMaster) throws InterruptedException {
+        return createTimedClusterService(makeMaster, Settings.EMPTY);
+    }
+
+    TimedClusterApplierService createTimedClusterService(boolean makeMaster, Settings settings) throws InterruptedException {
         DiscoveryNode localNode = new DiscoveryNode("node1", buildNewFakeTransportAddress(), emptyMap(),
             emptySet(), Version.CURRENT);
         TimedClusterApplierService timedClusterApplierService = new TimedClusterApplierService(Settings.builder().put("cluster.name",
-            "ClusterApplierServiceTests").build(), new ClusterSettings(Settings.EMPTY, ClusterSettings.BUILT_IN_CLUSTER_SETTINGS),
-            threadPool);
+            "ClusterApplierServiceTests").put(settings).build(),
+            new ClusterSettings(Settings.EMPTY, ClusterSettings.BUILT_IN_CLUSTER_SETTINGS), threadPool);
         timedClusterApplierService.setNodeConnectionsService(new NodeConnectionsService(Settings.EMPTY, null, null) {
             @Override
             public void connectToNodes(DiscoveryNodes discoveryNodes) {
@@ -405,6 +418,117 @@ public class ClusterApplierServiceTests extends ESTestCase {
         assertTrue(applierCalled.get());
     }
 
+    public void testAppliersAndListenersAreTimed() {
+        clusterApplierService.currentTimeOverride = System.nanoTime();
+        clusterApplierService.addStateApplier(new SlowApplier(clusterApplierService));
+        clusterApplierService.addListener(new SlowListener(clusterApplierService));
+
+        final ClusterState state = clusterApplierService.state();
+        setState(clusterApplierService, ClusterState.builder(state).version(state.version() + 1).build());
+
+        final ClusterApplierStats stats = clusterApplierService.stats();
+        final ClusterApplierStats.Recording applier = findRecording(stats.getAppliers(), "SlowApplier");
+        assertThat(applier.getTime().getCount(), equalTo(1L));
+        assertThat(applier.getTime().getTotalTimeInMillis(), equalTo(5000L));
+        assertThat(applier.getTime().getBucketCounts()[MasterServiceStats.LatencyHistogram.bucket(5000L)], equalTo(1L));
+        final ClusterApplierStats.Recording listener = findRecording(stats.getListeners(), "SlowListener");
+        assertThat(listener.getTime().getCount(), equalTo(1L));
+        assertThat(listener.getTime().getMaxTimeInMillis(), equalTo(2000L));
+    }
+
+    public void testListenersCanBeCalledInParallel() throws Exception {
+        TimedClusterApplierService timedClusterApplierService = createTimedClusterService(true,
+            Settings.builder().put(ClusterService.CLUSTER_SERVICE_PARALLEL_LISTENER_THREADS_SETTING.getKey(), 2).build());
+        try {
+            final CyclicBarrier barrier = new CyclicBarrier(2);
+            final AtomicReference<Throwable> error = new AtomicReference<>();
+            final AtomicInteger calls = new AtomicInteger();
+            for (int i = 0; i < 2; i++) {
+                timedClusterApplierService.addListener(event -> {
+                    try {
+                        assertThat(Thread.currentThread().getName(),
+                            containsString(ClusterApplierService.CLUSTER_LISTENER_THREAD_NAME));
+                        // only passes if both listeners are called at the same time
+                        barrier.await(10, TimeUnit.SECONDS);
+                        calls.incrementAndGet();
+                    } catch (Throwable t) {
+                        error.set(t);
+                    }
+                });
+            }
+
+            final ClusterState state = timedClusterApplierService.state();
+            setState(timedClusterApplierService, ClusterState.builder(state).version(state.version() + 1).build());
+            assertNull(error.get());
+            // the new state is only reported as applied once all listeners returned
+            assertThat(calls.get(), equalTo(2));
+        } finally {
+            timedClusterApplierService.close();
+        }
+    }
+
+    public void testParallelListenersAreAwaitedWhenInterrupted() throws Exception {
+        TimedClusterApplierService timedClusterApplierService = createTimedClusterService(true,
+            Settings.builder().put(ClusterService.CLUSTER_SERVICE_PARALLEL_LISTENER_THREADS_SETTING.getKey(), 2).build());
+        try {
+            final AtomicReference<Thread> applierThread = new AtomicReference<>();
+            final AtomicBoolean listenerDone = new AtomicBoolean();
+            timedClusterApplierService.addStateApplier(event -> applierThread.set(Thread.currentThread()));
+            timedClusterApplierService.addListener(event -> {
+                // interrupt the applier thread while it is waiting for this listener
+                applierThread.get().interrupt();
+                try {
+                    Thread.sleep(100);
+                } catch (InterruptedException e) {
+                    throw new AssertionError(e);
+                }
+                listenerDone.set(true);
+            });
+
+            final ClusterState state = timedClusterApplierService.state();
+            setState(timedClusterApplierService, ClusterState.builder(state).version(state.version() + 1).build());
+            // the new state is only reported as applied once the listener returned, even though the applier was interrupted
+            assertTrue(listenerDone.get());
+        } finally {
+            timedClusterApplierService.close();
+        }
+    }
+
+    private static ClusterApplierStats.Recording findRecording(List<ClusterApplierStats.Recording> recordings, String name) {
+        for (ClusterApplierStats.Recording recording : recordings) {
+            if (recording.getName().equals(name)) {
+                return recording;
+            }
+        }
+        throw new AssertionError("no recording for [" + name + "] in " + recordings);
+    }
+
+    private static class SlowApplier implements ClusterStateApplier {
+        private final TimedClusterApplierService clusterApplierService;
+
+        SlowApplier(TimedClusterApplierService clusterApplierService) {
+            this.clusterApplierService = clusterApplierService;
+        }
+
+        @Override
+        public void applyClusterState(ClusterChangedEvent event) {
+            clusterApplierService.currentTimeOverride += TimeValue.timeValueSeconds(5).nanos();
+        }
+    }
+
+    private static class SlowListener implements ClusterStateListener {
+        private final TimedClusterApplierService clusterApplierService;
+
+        SlowListener(TimedClusterApplierService clusterApplierService) {
+            this.clusterApplierService = clusterApplierService;
+        }
+
+        @Override
+        public void clusterChanged(ClusterChangedEvent event) {
+            clusterApplierService.currentTimeOverride += TimeValue.timeValueSeconds(2).nanos();
+        }
+    }
+
     static class TimedClusterApplierService extends ClusterApplierService {
 
         public volatile Long currentTimeOverride = null;
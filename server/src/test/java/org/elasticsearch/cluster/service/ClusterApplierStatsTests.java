@@ -0,0 +1,53 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.cluster.service;
+
+import org.elasticsearch.common.io.stream.Writeable;
+import org.elasticsearch.test.AbstractWireSerializingTestCase;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.elasticsearch.cluster.service.MasterServiceStatsTests.randomLatencyHistogram;
+
+public class ClusterApplierStatsTests extends AbstractWireSerializingTestCase<ClusterApplierStats> {
+
+    @Override
+    protected ClusterApplierStats createTestInstance() {
+        return randomClusterApplierStats();
+    }
+
+    public static ClusterApplierStats randomClusterApplierStats() {
+        return new ClusterApplierStats(randomRecordings(), randomRecordings());
+    }
+
+    private static List<ClusterApplierStats.Recording> randomRecordings() {
+        final int numRecordings = randomIntBetween(0, 5);
+        final List<ClusterApplierStats.Recording> recordings = new ArrayList<>(numRecordings);
+        for (int i = 0; i < numRecordings; i++) {
+            recordings.add(new ClusterApplierStats.Recording(randomAlphaOfLength(10) + i, randomLatencyHistogram()));
+        }
+        return recordings;
+    }
+
+    @Override
+    protected Writeable.Reader<ClusterApplierStats> instanceReader() {
+        return ClusterApplierStats::new;
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.cluster.service;
+
+import org.elasticsearch.common.io.stream.Writeable;
+import org.elasticsearch.test.AbstractWireSerializingTestCase;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
+
+public class MasterServiceStatsTests extends AbstractWireSerializingTestCase<MasterServiceStats> {
+
+    @Override
+    protected MasterServiceStats createTestInstance() {
+        final int numExecutors = randomIntBetween(0, 5);
+        final List<MasterServiceStats.ExecutorStats> executorStats = new ArrayList<>(numExecutors);
+        for (int i = 0; i < numExecutors; i++) {
+            executorStats.add(new MasterServiceStats.ExecutorStats(randomAlphaOfLength(10) + i, randomNonNegativeLong(),
+                randomNonNegativeLong(), randomNonNegativeLong(), randomLatencyHistogram(), randomLatencyHistogram(),
+                randomLatencyHistogram()));
+        }
+        return new MasterServiceStats(executorStats);
+    }
+
+    static MasterServiceStats.LatencyHistogram randomLatencyHistogram() {
+        final long[] bucketCounts = new long[MasterServiceStats.LatencyHistogram.BUCKET_UPPER_BOUNDS_IN_MILLIS.length + 1];
+        for (int i = 0; i < bucketCounts.length; i++) {
+            bucketCounts[i] = randomNonNegativeLong();
+        }
+        return new MasterServiceStats.LatencyHistogram(randomNonNegativeLong(), randomNonNegativeLong(), randomNonNegativeLong(),
+            bucketCounts);
+    }
+
+    @Override
+    protected Writeable.Reader<MasterServiceStats> instanceReader() {
+        return MasterServiceStats::new;
+    }
+
+    public void testBucket() {
+        assertThat(MasterServiceStats.LatencyHistogram.bucket(0), equalTo(0));
+        assertThat(MasterServiceStats.LatencyHistogram.bucket(1), equalTo(1));
+        assertThat(MasterServiceStats.LatencyHistogram.bucket(9), equalTo(1));
+        assertThat(MasterServiceStats.LatencyHistogram.bucket(10), equalTo(2));
+        assertThat(MasterServiceStats.LatencyHistogram.bucket(59999), equalTo(5));
+        assertThat(MasterServiceStats.LatencyHistogram.bucket(60000), equalTo(6));
+        assertThat(MasterServiceStats.LatencyHistogram.bucket(Long.MAX_VALUE), equalTo(6));
+    }
+
+    public void testInvalidNumberOfBuckets() {
+        final IllegalArgumentException e = expectThrows(IllegalArgumentException.class,
+            () -> new MasterServiceStats.LatencyHistogram(0, 0, 0, new long[2]));
+        assertThat(e.getMessage(), containsString("expected [7] buckets but got [2]"));
+    }
+}
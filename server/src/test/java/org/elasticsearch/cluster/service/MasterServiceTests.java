@@ -597,6 +597,154 @@ public class MasterServiceTests extends ESTestCase {
         }
     }
 
+    public void testCoalescedBatchesArePublishedTogether() throws Exception {
+        masterService.setMaxCoalescedBatches(3);
+
+        class CoalescingExecutor implements ClusterStateTaskExecutor<Object> {
+            final AtomicInteger executions = new AtomicInteger();
+            final AtomicInteger publications = new AtomicInteger();
+
+            @Override
+            public ClusterTasksResult<Object> execute(ClusterState currentState, List<Object> tasks) {
+                executions.incrementAndGet();
+                return ClusterTasksResult.builder().successes(tasks).build(ClusterState.builder(currentState).build());
+            }
+
+            @Override
+            public boolean allowsCoalescing() {
+                return true;
+            }
+
+            @Override
+            public void clusterStatePublished(ClusterChangedEvent clusterChangedEvent) {
+                publications.incrementAndGet();
+            }
+        }
+
+        // block the master service so that the batches below are all pending at the same time
+        final CountDownLatch blockingTaskStarted = new CountDownLatch(1);
+        final CountDownLatch releaseBlockingTask = new CountDownLatch(1);
+        masterService.submitStateUpdateTask("block", new ClusterStateUpdateTask(Priority.IMMEDIATE) {
+            @Override
+            public ClusterState execute(ClusterState currentState) throws Exception {
+                blockingTaskStarted.countDown();
+                releaseBlockingTask.await();
+                return currentState;
+            }
+
+            @Override
+            public void onFailure(String source, Exception e) {
+                throw new AssertionError(e);
+            }
+        });
+        blockingTaskStarted.await();
+
+        final List<CoalescingExecutor> executors = Arrays.asList(new CoalescingExecutor(), new CoalescingExecutor(),
+            new CoalescingExecutor());
+        final CountDownLatch processed = new CountDownLatch(executors.size());
+        final Set<Long> publishedVersions = ConcurrentHashMap.newKeySet();
+        for (CoalescingExecutor executor : executors) {
+            masterService.submitStateUpdateTask("coalesce", new Object(), ClusterStateTaskConfig.build(Priority.NORMAL), executor,
+                new ClusterStateTaskListener() {
+                    @Override
+                    public void clusterStateProcessed(String source, ClusterState oldState, ClusterState newState) {
+                        publishedVersions.add(newState.version());
+                        processed.countDown();
+                    }
+
+                    @Override
+                    public void onFailure(String source, Exception e) {
+                        throw new AssertionError(e);
+                    }
+                });
+        }
+        releaseBlockingTask.countDown();
+        assertTrue(processed.await(10, TimeUnit.SECONDS));
+
+        assertThat(publishedVersions.size(), equalTo(1));
+        for (CoalescingExecutor executor : executors) {
+            assertThat(executor.executions.get(), equalTo(1));
+            assertThat(executor.publications.get(), equalTo(1));
+        }
+
+        final MasterServiceStats.ExecutorStats stats = masterService.stats().getExecutorStats().stream()
+            .filter(executorStats -> executorStats.getName().equals(CoalescingExecutor.class.getSimpleName()))
+            .findFirst().orElseThrow(AssertionError::new);
+        assertThat(stats.getBatches(), equalTo(3L));
+        assertThat(stats.getTasks(), equalTo(3L));
+        assertThat(stats.getCoalescedBatches(), equalTo(3L));
+        assertThat(stats.getQueueTime().getCount(), equalTo(3L));
+        assertThat(stats.getComputeTime().getCount(), equalTo(3L));
+        assertThat(stats.getPublishTime().getCount(), equalTo(3L));
+    }
+
+    public void testCoalescingKeepsSubmissionOrderOfSamePriority() throws Exception {
+        masterService.setMaxCoalescedBatches(3);
+
+        final List<String> executionOrder = Collections.synchronizedList(new ArrayList<>());
+        class RecordingExecutor implements ClusterStateTaskExecutor<Object> {
+            final String name;
+            final boolean allowsCoalescing;
+
+            RecordingExecutor(String name, boolean allowsCoalescing) {
+                this.name = name;
+                this.allowsCoalescing = allowsCoalescing;
+            }
+
+            @Override
+            public ClusterTasksResult<Object> execute(ClusterState currentState, List<Object> tasks) {
+                executionOrder.add(name);
+                return ClusterTasksResult.builder().successes(tasks).build(ClusterState.builder(currentState).build());
+            }
+
+            @Override
+            public boolean allowsCoalescing() {
+                return allowsCoalescing;
+            }
+        }
+
+        // block the master service so that the batches below are all pending at the same time
+        final CountDownLatch blockingTaskStarted = new CountDownLatch(1);
+        final CountDownLatch releaseBlockingTask = new CountDownLatch(1);
+        masterService.submitStateUpdateTask("block", new ClusterStateUpdateTask(Priority.IMMEDIATE) {
+            @Override
+            public ClusterState execute(ClusterState currentState) throws Exception {
+                blockingTaskStarted.countDown();
+                releaseBlockingTask.await();
+                return currentState;
+            }
+
+            @Override
+            public void onFailure(String source, Exception e) {
+                throw new AssertionError(e);
+            }
+        });
+        blockingTaskStarted.await();
+
+        // the non-coalescing batch was submitted before the last coalescing batch, which must not be pulled ahead of it
+        final List<RecordingExecutor> executors = Arrays.asList(new RecordingExecutor("first", true),
+            new RecordingExecutor("non-coalescing", false), new RecordingExecutor("last", true));
+        final CountDownLatch processed = new CountDownLatch(executors.size());
+        for (RecordingExecutor executor : executors) {
+            masterService.submitStateUpdateTask(executor.name, new Object(), ClusterStateTaskConfig.build(Priority.NORMAL), executor,
+                new ClusterStateTaskListener() {
+                    @Override
+                    public void clusterStateProcessed(String source, ClusterState oldState, ClusterState newState) {
+                        processed.countDown();
+                    }
+
+                    @Override
+                    public void onFailure(String source, Exception e) {
+                        throw new AssertionError(e);
+                    }
+                });
+        }
+        releaseBlockingTask.countDown();
+        assertTrue(processed.await(10, TimeUnit.SECONDS));
+
+        assertThat(executionOrder, equalTo(Arrays.asList("first", "non-coalescing", "last")));
+    }
+
     public void testBlockingCallInClusterStateTaskListenerFails() throws InterruptedException {
         assumeTrue("assertions must be enabled for this test to work", BaseFuture.class.desiredAssertionStatus());
         final CountDownLatch latch = new CountDownLatch(1);
@@ -50,6 +50,28 @@ public class DeflateCompressTests extends ESTestCase {
         }
     }
 
+    public void testCompressionLevels() throws IOException {
+        final byte[] bytes = new byte[TestUtil.nextInt(random(), 1, 100000)];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) randomIntBetween(0, 8);
+        }
+        final Compressor leveledCompressor = new DeflateCompressor(randomIntBetween(0, 9));
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        try (StreamOutput os = leveledCompressor.streamOutput(new OutputStreamStreamOutput(bos))) {
+            os.writeBytes(bytes);
+        }
+        final byte[] compressed = bos.toByteArray();
+        final byte[] uncompressed = new byte[bytes.length];
+        // streams written at any level must be readable by the default compressor
+        try (StreamInput in = compressor.streamInput(new ByteBufferStreamInput(ByteBuffer.wrap(compressed)))) {
+            in.readBytes(uncompressed, 0, uncompressed.length);
+            assertEquals(-1, in.read());
+        }
+        assertArrayEquals(bytes, uncompressed);
+
+        expectThrows(IllegalArgumentException.class, () -> new DeflateCompressor(randomFrom(-2, 10)));
+    }
+
     public void testRandomThreads() throws Exception {
         final Random r = random();
         int threadCount = TestUtil.nextInt(r, 2, 6);
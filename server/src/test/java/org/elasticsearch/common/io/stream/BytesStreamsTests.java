@@ -26,6 +26,7 @@ import org.elasticsearch.Version;
 import org.elasticsearch.common.bytes.BytesArray;
 import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.geo.GeoPoint;
+import org.elasticsearch.common.lease.Releasable;
 import org.elasticsearch.common.lucene.BytesRefs;
 import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.common.util.PageCacheRecycler;
@@ -683,6 +684,78 @@ public class BytesStreamsTests extends ESTestCase {
         }
     }
 
+    public void testWriteSharedStrings() throws IOException {
+        List<String> dictionary = new ArrayList<>();
+        int numDistinctStrings = randomIntBetween(1, 10);
+        for (int i = 0; i < numDistinctStrings; i++) {
+            dictionary.add(randomRealisticUnicodeOfLengthBetween(0, 64));
+        }
+        List<String> strings = new ArrayList<>();
+        int numStrings = randomIntBetween(100, 1000);
+        for (int i = 0; i < numStrings; i++) {
+            strings.add(randomFrom(dictionary));
+        }
+        final int beforeScope = randomIntBetween(0, numStrings);
+        final int afterScope = randomIntBetween(beforeScope, numStrings);
+        BytesStreamOutput output = new BytesStreamOutput(0);
+        for (int i = 0; i < beforeScope; i++) {
+            output.writeSharedString(strings.get(i));
+        }
+        try (Releasable ignored = output.startStringDictionary()) {
+            for (int i = beforeScope; i < afterScope; i++) {
+                if (randomBoolean()) {
+                    try (Releasable nested = output.startStringDictionary()) {
+                        output.writeSharedString(strings.get(i));
+                    }
+                } else {
+                    output.writeSharedString(strings.get(i));
+                }
+            }
+        }
+        for (int i = afterScope; i < numStrings; i++) {
+            output.writeSharedString(strings.get(i));
+        }
+
+        try (StreamInput streamInput = output.bytes().streamInput()) {
+            for (int i = 0; i < beforeScope; i++) {
+                assertEquals(strings.get(i), streamInput.readSharedString());
+            }
+            try (Releasable ignored = streamInput.startStringDictionary()) {
+                for (int i = beforeScope; i < afterScope; i++) {
+                    assertEquals(strings.get(i), streamInput.readSharedString());
+                }
+            }
+            for (int i = afterScope; i < numStrings; i++) {
+                assertEquals(strings.get(i), streamInput.readSharedString());
+            }
+            assertEquals(0, streamInput.available());
+        }
+    }
+
+    public void testSharedStringsAreWrittenOnce() throws IOException {
+        String str = randomAlphaOfLengthBetween(10, 64);
+        BytesStreamOutput plain = new BytesStreamOutput();
+        BytesStreamOutput shared = new BytesStreamOutput();
+        try (Releasable ignored = shared.startStringDictionary()) {
+            for (int i = 0; i < 10; i++) {
+                plain.writeSharedString(str);
+                shared.writeSharedString(str);
+            }
+        }
+        assertEquals(10 * (1 + str.length()), plain.size());
+        assertEquals(1 + 1 + str.length() + 9, shared.size());
+    }
+
+    public void testInvalidSharedStringReference() throws IOException {
+        BytesStreamOutput output = new BytesStreamOutput();
+        output.writeVInt(randomIntBetween(1, 100));
+        try (StreamInput streamInput = output.bytes().streamInput();
+             Releasable ignored = streamInput.startStringDictionary()) {
+            IOException e = expectThrows(IOException.class, streamInput::readSharedString);
+            assertThat(e.getMessage(), containsString("Invalid string dictionary reference"));
+        }
+    }
+
     /*
      * tests the extreme case where characters use more than 2 bytes
      */
@@ -41,8 +41,10 @@ import java.util.concurrent.TimeUnit;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.greaterThan;
 import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.instanceOf;
 import static org.hamcrest.Matchers.lessThan;
 import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.Matchers.not;
 import static org.hamcrest.Matchers.startsWith;
 
 public class TimeZoneRoundingTests extends ESTestCase {
@@ -206,6 +208,68 @@ public class TimeZoneRoundingTests extends ESTestCase {
         }
     }
 
+    /**
+     * Randomized test that a {@link Rounding.Prepared} rounding returns the same values as the rounding it was prepared from, for
+     * values inside the prepared range, close to offset changes and outside of the range.
+     */
+    public void testPreparedRoundingRandom() {
+        for (int i = 0; i < 200; ++i) {
+            final DateTimeZone tz = randomDateTimeZone();
+            final Rounding rounding;
+            final long unitMillis;
+            if (randomBoolean()) {
+                DateTimeUnit timeUnit = randomTimeUnit();
+                rounding = new Rounding.TimeUnitRounding(timeUnit, tz);
+                unitMillis = timeUnit.field(tz).getDurationField().getUnitMillis();
+            } else {
+                TimeUnit unit = randomFrom(new TimeUnit[] {TimeUnit.MINUTES, TimeUnit.HOURS, TimeUnit.DAYS});
+                unitMillis = unit.toMillis(randomIntBetween(1, 365));
+                rounding = new Rounding.TimeIntervalRounding(unitMillis, tz);
+            }
+            final long min = Math.abs(randomLong() % (2 * (long) 10e11)); // 1970-01-01T00:00:00Z - 2033-05-18T05:33:20.000+02:00
+            final long range = randomFrom(TimeUnit.DAYS.toMillis(2), TimeUnit.DAYS.toMillis(400), TimeUnit.DAYS.toMillis(10000));
+            final long max = min + randomLongBetween(0, range);
+            final Rounding.Prepared prepared = rounding.prepare(min, max);
+            for (int j = 0; j < 100; j++) {
+                long date = randomLongBetween(min, max);
+                switch (randomInt(3)) {
+                    case 0:
+                        date = nastyDate(date, tz, unitMillis);
+                        break;
+                    case 1:
+                        date = randomLongBetween(min - 2 * unitMillis, max + 2 * unitMillis);
+                        break;
+                    case 2:
+                        date = rounding.round(date);
+                        break;
+                    default:
+                        break;
+                }
+                assertThat("prepared rounding differs for [" + rounding + "] in [" + new DateTime(min, tz) + ", "
+                    + new DateTime(max, tz) + "] at " + new DateTime(date, tz), prepared.round(date), equalTo(rounding.round(date)));
+            }
+        }
+    }
+
+    public void testPreparedRoundingStrategy() {
+        final long min = time("2018-01-01T00:00:00.000Z");
+        final long max = time("2018-12-31T23:59:59.999Z");
+        DateTimeZone tz = DateTimeZone.forID("Europe/Paris");
+        assertThat(new Rounding.TimeUnitRounding(DateTimeUnit.HOUR_OF_DAY, tz).prepare(min, max),
+            instanceOf(Rounding.OffsetTableRounding.class));
+        assertThat(new Rounding.TimeIntervalRounding(TimeUnit.MINUTES.toMillis(90), tz).prepare(min, max),
+            instanceOf(Rounding.OffsetTableRounding.class));
+        assertThat(new Rounding.TimeUnitRounding(DateTimeUnit.MONTH_OF_YEAR, tz).prepare(min, max),
+            instanceOf(Rounding.ArrayRounding.class));
+        // too many rounded values to precompute
+        assertThat(new Rounding.TimeUnitRounding(DateTimeUnit.MONTH_OF_YEAR, tz).prepare(min, max + TimeUnit.DAYS.toMillis(36500)),
+            not(instanceOf(Rounding.ArrayRounding.class)));
+
+        Rounding.Prepared prepared = new Rounding.TimeUnitRounding(DateTimeUnit.DAY_OF_MONTH, tz).prepare(min, max);
+        assertThat(prepared.round(time("2018-03-25T12:00:00.000+02:00")), equalTo(time("2018-03-25T00:00:00.000+01:00")));
+        assertThat(prepared.round(time("2018-10-28T12:00:00.000+01:00")), equalTo(time("2018-10-28T00:00:00.000+02:00")));
+    }
+
     /**
      * To be even more nasty, go to a transition in the selected time zone.
      * In one third of the cases stay there, otherwise go half a unit back or forth
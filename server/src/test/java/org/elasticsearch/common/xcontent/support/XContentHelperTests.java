@@ -19,11 +19,14 @@
 
 package org.elasticsearch.common.xcontent.support;
 
+import org.elasticsearch.common.bytes.BytesArray;
 import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.bytes.CompositeBytesReference;
 import org.elasticsearch.common.xcontent.DeprecationHandler;
 import org.elasticsearch.common.xcontent.NamedXContentRegistry;
 import org.elasticsearch.common.xcontent.ToXContent;
 import org.elasticsearch.common.xcontent.ToXContentObject;
+import org.elasticsearch.common.xcontent.XContentFactory;
 import org.elasticsearch.common.xcontent.XContentHelper;
 import org.elasticsearch.common.xcontent.XContentParser;
 import org.elasticsearch.common.xcontent.XContentType;
@@ -105,4 +108,28 @@ public class XContentHelperTests extends ESTestCase {
             }
         }
     }
+
+    public void testCreateParserOverArrayAndCompositeBytes() throws IOException {
+        final XContentType xContentType = randomFrom(XContentType.values());
+        final Map<String, Object> source = getMap("field", "value", "number", 42, "nested", getMap("inner", "text"));
+        final BytesReference bytes = BytesReference.bytes(XContentFactory.contentBuilder(xContentType).map(source));
+
+        // an array with a non-zero offset is parsed in place
+        final int padding = randomIntBetween(1, 16);
+        final byte[] padded = new byte[bytes.length() + 2 * padding];
+        System.arraycopy(BytesReference.toBytes(bytes), 0, padded, padding, bytes.length());
+        final BytesReference array = new BytesArray(padded, padding, bytes.length());
+
+        // bytes spread over several pieces are read through their stream
+        final int split = randomIntBetween(1, bytes.length() - 1);
+        final BytesReference composite = new CompositeBytesReference(bytes.slice(0, split), bytes.slice(split, bytes.length() - split));
+
+        for (BytesReference reference : Arrays.asList(array, composite)) {
+            try (XContentParser parser = XContentHelper.createParser(NamedXContentRegistry.EMPTY,
+                    DeprecationHandler.THROW_UNSUPPORTED_OPERATION, reference, xContentType)) {
+                assertEquals(source, parser.map());
+            }
+            assertEquals(source, XContentHelper.convertToMap(reference, randomBoolean(), xContentType).v2());
+        }
+    }
 }
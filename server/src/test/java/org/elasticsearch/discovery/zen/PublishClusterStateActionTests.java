@@ -76,6 +76,7 @@ import static org.hamcrest.CoreMatchers.instanceOf;
 import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.emptyIterable;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
 import static org.hamcrest.Matchers.not;
 import static org.hamcrest.Matchers.notNullValue;
 import static org.hamcrest.Matchers.nullValue;
@@ -410,6 +411,26 @@ public class PublishClusterStateActionTests extends ESTestCase {
         publishStateAndWait(nodeA.action, clusterState, previousClusterState);
     }
 
+    public void testPublishingWithCompressionLevel() throws Exception {
+        Settings settings = Settings.builder()
+            .put(DiscoverySettings.PUBLISH_COMPRESSION_LEVEL_SETTING.getKey(), randomIntBetween(0, 9)).build();
+        MockNode nodeA = createMockNode("nodeA", settings, null).setAsMaster();
+        MockNode nodeB = createMockNode("nodeB");
+
+        ClusterState clusterState = nodeA.clusterState;
+        DiscoveryNodes discoveryNodes = DiscoveryNodes.builder(clusterState.nodes()).add(nodeB.discoveryNode).build();
+        ClusterState previousClusterState = clusterState;
+        clusterState = ClusterState.builder(clusterState).nodes(discoveryNodes).incrementVersion().build();
+        publishStateAndWait(nodeA.action, clusterState, previousClusterState);
+        assertSameStateFromFull(nodeB.clusterState, clusterState);
+
+        previousClusterState = clusterState;
+        clusterState = ClusterState.builder(clusterState).metaData(buildMetaDataForVersion(clusterState.metaData(), 1))
+            .incrementVersion().build();
+        publishStateAndWait(nodeA.action, clusterState, previousClusterState);
+        assertSameStateFromDiff(nodeB.clusterState, clusterState);
+        assertProperMetaDataForVersion(nodeB.clusterState.metaData(), 1);
+    }
 
     /**
      * Test not waiting on publishing works correctly (i.e., publishing times out)
@@ -713,6 +734,19 @@ public class PublishClusterStateActionTests extends ESTestCase {
             equalTo(expectedCompatibleDiffs));
     }
 
+    private void assertSerializedClusterStateStats(String description, MockNode node, long expectedFull, long expectedDiffs) {
+        PublishClusterStateStats stats = node.action.stats();
+        assertThat(description + ": serialized full cluster states", stats.getFullClusterStateSerializedCount(),
+            equalTo(expectedFull));
+        assertThat(description + ": serialized cluster state diffs", stats.getClusterStateDiffSerializedCount(),
+            equalTo(expectedDiffs));
+        if (expectedFull + expectedDiffs > 0) {
+            assertThat(description + ": serialized size", stats.getSerializedSizeInBytes(), greaterThan(0L));
+        } else {
+            assertThat(description + ": serialized size", stats.getSerializedSizeInBytes(), equalTo(0L));
+        }
+    }
+
     public void testPublishClusterStateStats() throws Exception {
         MockNode nodeA = createMockNode("nodeA").setAsMaster();
         MockNode nodeB = createMockNode("nodeB");
@@ -732,6 +766,7 @@ public class PublishClusterStateActionTests extends ESTestCase {
         // Sent as a full cluster state update
         assertPublishClusterStateStats("nodeA: after full update", nodeA, 0, 0, 0);
         assertPublishClusterStateStats("nodeB: after full update", nodeB, 1, 0, 0);
+        assertSerializedClusterStateStats("nodeA: after full update", nodeA, 1, 0);
 
         // Increment cluster state version
         previousClusterState = clusterState;
@@ -741,6 +776,7 @@ public class PublishClusterStateActionTests extends ESTestCase {
         // Sent, successfully, as a cluster state diff
         assertPublishClusterStateStats("nodeA: after successful diff update", nodeA, 0, 0, 0);
         assertPublishClusterStateStats("nodeB: after successful diff update", nodeB, 1, 0, 1);
+        assertSerializedClusterStateStats("nodeA: after successful diff update", nodeA, 1, 1);
 
         // Increment cluster state version twice
         previousClusterState = ClusterState.builder(clusterState).incrementVersion().build();
@@ -750,6 +786,8 @@ public class PublishClusterStateActionTests extends ESTestCase {
         // Sent, unsuccessfully, as a diff and then retried as a full update
         assertPublishClusterStateStats("nodeA: after unsuccessful diff update", nodeA, 0, 0, 0);
         assertPublishClusterStateStats("nodeB: after unsuccessful diff update", nodeB, 2, 1, 1);
+        assertSerializedClusterStateStats("nodeA: after unsuccessful diff update", nodeA, 2, 2);
+        assertSerializedClusterStateStats("nodeB: after unsuccessful diff update", nodeB, 0, 0);
 
         // node A steps down from being master
         nodeA.resetMasterId();
@@ -39,6 +39,7 @@ import org.elasticsearch.cluster.routing.ShardRoutingState;
 import org.elasticsearch.cluster.routing.TestShardRouting;
 import org.elasticsearch.cluster.routing.UnassignedInfo;
 import org.elasticsearch.cluster.service.ClusterApplier;
+import org.elasticsearch.cluster.service.ClusterApplierStats;
 import org.elasticsearch.cluster.service.MasterService;
 import org.elasticsearch.common.io.stream.NamedWriteableRegistry;
 import org.elasticsearch.common.settings.ClusterSettings;
@@ -314,6 +315,11 @@ public class ZenDiscoveryUnitTests extends ESTestCase {
                 return ClusterState.builder(ClusterName.CLUSTER_NAME_SETTING.get(settings));
             }
 
+            @Override
+            public ClusterApplierStats stats() {
+                return new ClusterApplierStats(Collections.emptyList(), Collections.emptyList());
+            }
+
             @Override
             public void onNewClusterState(String source, Supplier<ClusterState> clusterStateSupplier, ClusterApplyListener listener) {
                 listener.onSuccess(source);
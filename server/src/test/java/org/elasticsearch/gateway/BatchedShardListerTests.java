@@ -0,0 +1,223 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.gateway;
+
+import org.elasticsearch.Version;
+import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.FailedNodeException;
+import org.elasticsearch.action.support.nodes.BaseNodeResponse;
+import org.elasticsearch.action.support.nodes.BaseNodesResponse;
+import org.elasticsearch.cluster.ClusterName;
+import org.elasticsearch.cluster.node.DiscoveryNode;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.core.internal.io.IOUtils;
+import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.test.ESTestCase;
+import org.elasticsearch.test.transport.MockTransportService;
+import org.elasticsearch.threadpool.TestThreadPool;
+import org.elasticsearch.threadpool.ThreadPool;
+import org.junit.After;
+import org.junit.Before;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import static java.util.Collections.emptyMap;
+import static java.util.Collections.emptySet;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasSize;
+
+public class BatchedShardListerTests extends ESTestCase {
+
+    private static final String ACTION_NAME = "internal:test/list[batch]";
+
+    private ThreadPool threadPool;
+    private MockTransportService masterService;
+    private MockTransportService dataService;
+    private BatchedShardLister<TestNodesResponse, TestNodeResponse> masterLister;
+    private final AtomicInteger perShardListings = new AtomicInteger();
+
+    @Override
+    @Before
+    public void setUp() throws Exception {
+        super.setUp();
+        threadPool = new TestThreadPool(getClass().getName());
+        masterService = MockTransportService.createNewService(Settings.EMPTY, Version.CURRENT, threadPool, null);
+        masterService.start();
+        masterService.acceptIncomingRequests();
+        dataService = MockTransportService.createNewService(Settings.EMPTY, Version.CURRENT, threadPool, null);
+        dataService.start();
+        dataService.acceptIncomingRequests();
+        masterLister = createLister(masterService);
+        createLister(dataService);
+        masterService.connectToNode(dataService.getLocalDiscoNode());
+    }
+
+    @Override
+    @After
+    public void tearDown() throws Exception {
+        super.tearDown();
+        IOUtils.close(masterService, dataService, () -> terminate(threadPool));
+    }
+
+    private BatchedShardLister<TestNodesResponse, TestNodeResponse> createLister(MockTransportService transportService) {
+        final AsyncShardFetch.Lister<TestNodesResponse, TestNodeResponse> perShardLister = (shardId, nodes, listener) -> {
+            perShardListings.incrementAndGet();
+            final List<TestNodeResponse> responses = new ArrayList<>();
+            for (DiscoveryNode node : nodes) {
+                responses.add(new TestNodeResponse(node, shardId.id()));
+            }
+            listener.onResponse(new TestNodesResponse(responses, new ArrayList<>()));
+        };
+        return new BatchedShardLister<>(ACTION_NAME, transportService, threadPool, ThreadPool.Names.GENERIC, perShardLister,
+            TestNodeResponse::new, TestNodesResponse::new, shardId -> {
+                if (shardId.getIndexName().equals("failing")) {
+                    throw new IllegalStateException("failed to list [" + shardId + "]");
+                }
+                return new TestNodeResponse(transportService.getLocalDiscoNode(), shardId.id());
+            });
+    }
+
+    public void testListsShardsOfANodeInASingleRequest() throws InterruptedException {
+        final AtomicInteger sentBatches = new AtomicInteger();
+        masterService.addSendBehavior((connection, requestId, action, request, options) -> {
+            if (action.equals(ACTION_NAME)) {
+                sentBatches.incrementAndGet();
+            }
+            connection.sendRequest(requestId, action, request, options);
+        });
+
+        final DiscoveryNode dataNode = dataService.getLocalDiscoNode();
+        final int numShards = randomIntBetween(1, 50);
+        final int failingShard = randomIntBetween(0, numShards - 1);
+        final AtomicReferenceArray<TestNodesResponse> responses = new AtomicReferenceArray<>(numShards);
+        final CountDownLatch latch = new CountDownLatch(numShards);
+        for (int i = 0; i < numShards; i++) {
+            final int shard = i;
+            final ShardId shardId = new ShardId(shard == failingShard ? "failing" : "test", "_na_", shard);
+            masterLister.list(shardId, new DiscoveryNode[] { dataNode }, ActionListener.wrap(response -> {
+                responses.set(shard, response);
+                latch.countDown();
+            }, e -> {
+                throw new AssertionError(e);
+            }));
+        }
+        assertThat(sentBatches.get(), equalTo(0));
+
+        masterLister.flush();
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+        assertThat(sentBatches.get(), equalTo(1));
+        assertThat(perShardListings.get(), equalTo(0));
+        for (int i = 0; i < numShards; i++) {
+            final TestNodesResponse response = responses.get(i);
+            if (i == failingShard) {
+                assertThat(response.getNodes(), empty());
+                assertThat(response.failures(), hasSize(1));
+                assertThat(response.failures().get(0).nodeId(), equalTo(dataNode.getId()));
+                assertThat(response.failures().get(0).getCause().getMessage(), containsString("failed to list"));
+            } else {
+                assertThat(response.failures(), empty());
+                assertThat(response.getNodes(), hasSize(1));
+                assertThat(response.getNodes().get(0).getNode(), equalTo(dataNode));
+                assertThat(response.getNodes().get(0).shard, equalTo(i));
+            }
+        }
+
+        // nothing left to send
+        masterLister.flush();
+        assertThat(sentBatches.get(), equalTo(1));
+    }
+
+    public void testListsShardsOneByOneOnOlderNodes() throws InterruptedException {
+        final DiscoveryNode dataNode = dataService.getLocalDiscoNode();
+        final DiscoveryNode oldNode = new DiscoveryNode("old", buildNewFakeTransportAddress(), emptyMap(), emptySet(),
+            randomFrom(Version.V_6_8_0, Version.V_6_8_23));
+        final int numShards = randomIntBetween(1, 10);
+        final CountDownLatch latch = new CountDownLatch(numShards);
+        for (int i = 0; i < numShards; i++) {
+            final int shard = i;
+            masterLister.list(new ShardId("test", "_na_", shard), new DiscoveryNode[] { dataNode, oldNode }, ActionListener.wrap(
+                response -> {
+                    assertThat(response.failures(), empty());
+                    assertThat(response.getNodes(), hasSize(2));
+                    for (TestNodeResponse nodeResponse : response.getNodes()) {
+                        assertThat(nodeResponse.shard, equalTo(shard));
+                    }
+                    latch.countDown();
+                }, e -> {
+                    throw new AssertionError(e);
+                }));
+        }
+        masterLister.flush();
+        assertTrue(latch.await(10, TimeUnit.SECONDS));
+        assertThat(perShardListings.get(), equalTo(numShards));
+    }
+
+    public static class TestNodeResponse extends BaseNodeResponse {
+
+        int shard;
+
+        public TestNodeResponse() {
+        }
+
+        TestNodeResponse(DiscoveryNode node, int shard) {
+            super(node);
+            this.shard = shard;
+        }
+
+        @Override
+        public void readFrom(StreamInput in) throws IOException {
+            super.readFrom(in);
+            shard = in.readInt();
+        }
+
+        @Override
+        public void writeTo(StreamOutput out) throws IOException {
+            super.writeTo(out);
+            out.writeInt(shard);
+        }
+    }
+
+    public static class TestNodesResponse extends BaseNodesResponse<TestNodeResponse> {
+
+        TestNodesResponse(List<TestNodeResponse> nodes, List<FailedNodeException> failures) {
+            super(ClusterName.DEFAULT, nodes, failures);
+        }
+
+        @Override
+        protected List<TestNodeResponse> readNodesFrom(StreamInput in) throws IOException {
+            return in.readStreamableList(TestNodeResponse::new);
+        }
+
+        @Override
+        protected void writeNodesTo(StreamOutput out, List<TestNodeResponse> nodes) throws IOException {
+            out.writeStreamableList(nodes);
+        }
+    }
+}
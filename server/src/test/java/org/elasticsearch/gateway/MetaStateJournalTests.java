@@ -0,0 +1,238 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.gateway;
+
+import org.elasticsearch.Version;
+import org.elasticsearch.cluster.metadata.IndexMetaData;
+import org.elasticsearch.cluster.metadata.MetaData;
+import org.elasticsearch.common.UUIDs;
+import org.elasticsearch.common.collect.Tuple;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.env.NodeEnvironment;
+import org.elasticsearch.index.Index;
+import org.elasticsearch.test.ESTestCase;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+
+public class MetaStateJournalTests extends ESTestCase {
+
+    public void testLoadWithoutJournal() throws Exception {
+        try (NodeEnvironment env = newNodeEnvironment()) {
+            MetaStateJournal journal = new MetaStateJournal(env, xContentRegistry());
+            assertThat(journal.load(), nullValue());
+        }
+    }
+
+    public void testAppendAndLoad() throws Exception {
+        try (NodeEnvironment env = newNodeEnvironment()) {
+            MetaStateJournal journal = new MetaStateJournal(env, xContentRegistry());
+            IndexMetaData index1 = indexMetaData("test1", 1);
+            IndexMetaData index2 = indexMetaData("test2", 1);
+            journal.append(globalMetaData("value1"), Arrays.asList(index1, index2), indices(index1, index2));
+
+            IndexMetaData updatedIndex1 = IndexMetaData.builder(index1).version(2).build();
+            IndexMetaData index3 = indexMetaData("test3", 1);
+            journal.append(null, Arrays.asList(updatedIndex1, index3), indices(updatedIndex1, index3));
+            journal.append(globalMetaData("value2"), Collections.emptyList(), indices(updatedIndex1, index3));
+
+            Tuple<MetaData, List<IndexMetaData>> loaded = new MetaStateJournal(env, xContentRegistry()).load();
+            assertThat(loaded, notNullValue());
+            assertThat(loaded.v1().persistentSettings().get("test"), equalTo("value2"));
+            Map<String, IndexMetaData> loadedIndices = byName(loaded.v2());
+            assertThat(loadedIndices.size(), equalTo(2));
+            assertThat(loadedIndices.get("test1"), equalTo(updatedIndex1));
+            assertThat(loadedIndices.get("test3"), equalTo(index3));
+        }
+    }
+
+    public void testIncompleteRecordIsIgnored() throws Exception {
+        try (NodeEnvironment env = newNodeEnvironment()) {
+            MetaStateJournal journal = new MetaStateJournal(env, xContentRegistry());
+            IndexMetaData index1 = indexMetaData("test1", 1);
+            journal.append(globalMetaData("value1"), Collections.singletonList(index1), indices(index1));
+            IndexMetaData index2 = indexMetaData("test2", 1);
+            journal.append(globalMetaData("value2"), Collections.singletonList(index2), indices(index1, index2));
+
+            List<Path> journalFiles = journalFiles(env);
+            assertThat(journalFiles, hasSize(env.nodeDataPaths().length));
+            for (Path journalFile : journalFiles) {
+                try (FileChannel channel = FileChannel.open(journalFile, StandardOpenOption.WRITE)) {
+                    channel.truncate(channel.size() - randomIntBetween(1, 8));
+                }
+            }
+
+            Tuple<MetaData, List<IndexMetaData>> loaded = new MetaStateJournal(env, xContentRegistry()).load();
+            assertThat(loaded.v1().persistentSettings().get("test"), equalTo("value1"));
+            assertThat(loaded.v2(), equalTo(Collections.singletonList(index1)));
+        }
+    }
+
+    public void testDeleteAll() throws Exception {
+        try (NodeEnvironment env = newNodeEnvironment()) {
+            MetaStateJournal journal = new MetaStateJournal(env, xContentRegistry());
+            IndexMetaData index1 = indexMetaData("test1", 1);
+            journal.append(globalMetaData("value1"), Collections.singletonList(index1), indices(index1));
+            assertThat(journalFiles(env), hasSize(env.nodeDataPaths().length));
+
+            journal.deleteAll();
+            assertThat(journalFiles(env), hasSize(0));
+            assertThat(journal.load(), nullValue());
+
+            // the next append starts a new generation that does not know about the previous state
+            IndexMetaData index2 = indexMetaData("test2", 1);
+            journal.append(globalMetaData("value2"), Collections.singletonList(index2), indices(index2));
+            assertThat(journalFiles(env), hasSize(env.nodeDataPaths().length));
+
+            Tuple<MetaData, List<IndexMetaData>> loaded = journal.load();
+            assertThat(loaded.v1().persistentSettings().get("test"), equalTo("value2"));
+            assertThat(loaded.v2(), equalTo(Collections.singletonList(index2)));
+        }
+    }
+
+    public void testRemoveIndexAfterFailedAppend() throws Exception {
+        try (NodeEnvironment env = newNodeEnvironment()) {
+            MetaStateJournal journal = new MetaStateJournal(env, xContentRegistry());
+            IndexMetaData index1 = indexMetaData("test1", 1);
+            IndexMetaData index2 = indexMetaData("test2", 1);
+            journal.append(globalMetaData("value1"), Arrays.asList(index1, index2), indices(index1, index2));
+
+            // appending to a journal file that cannot be opened fails, the files are restored afterwards
+            // so that the last generation still lists both indices, as after a partial write
+            List<Path> journalFiles = journalFiles(env);
+            for (Path journalFile : journalFiles) {
+                Files.move(journalFile, journalFile.resolveSibling(journalFile.getFileName() + ".bak"));
+            }
+            final boolean failedUpdate = randomBoolean();
+            if (failedUpdate) {
+                expectThrows(IOException.class,
+                    () -> journal.append(null, Collections.emptyList(), indices(index1, index2)));
+                for (Path journalFile : journalFiles) {
+                    Files.move(journalFile.resolveSibling(journalFile.getFileName() + ".bak"), journalFile);
+                }
+            }
+            journal.removeIndex(index1.getIndex());
+            if (failedUpdate == false) {
+                for (Path journalFile : journalFiles) {
+                    Files.deleteIfExists(journalFile.resolveSibling(journalFile.getFileName() + ".bak"));
+                }
+            }
+
+            // a new generation without the removed index replaces the one that still listed it
+            Tuple<MetaData, List<IndexMetaData>> loaded = new MetaStateJournal(env, xContentRegistry()).load();
+            assertThat(loaded, notNullValue());
+            assertThat(loaded.v1().persistentSettings().get("test"), equalTo("value1"));
+            assertThat(loaded.v2(), equalTo(Collections.singletonList(index2)));
+            assertThat(journalFiles(env), hasSize(env.nodeDataPaths().length));
+        }
+    }
+
+    public void testRandomUpdates() throws Exception {
+        try (NodeEnvironment env = newNodeEnvironment()) {
+            MetaStateJournal journal = new MetaStateJournal(env, xContentRegistry());
+            Map<String, IndexMetaData> expected = new HashMap<>();
+            String expectedGlobal = "value0";
+            journal.append(globalMetaData(expectedGlobal), Collections.emptyList(), Collections.emptySet());
+            int iterations = randomIntBetween(1, 20);
+            for (int i = 0; i < iterations; i++) {
+                List<IndexMetaData> changed = new ArrayList<>();
+                for (String name : new ArrayList<>(expected.keySet())) {
+                    if (rarely()) {
+                        expected.remove(name);
+                    } else if (randomBoolean()) {
+                        IndexMetaData current = expected.get(name);
+                        IndexMetaData updated = IndexMetaData.builder(current).version(current.getVersion() + 1).build();
+                        expected.put(name, updated);
+                        changed.add(updated);
+                    }
+                }
+                int newIndices = randomIntBetween(0, 5);
+                for (int j = 0; j < newIndices; j++) {
+                    IndexMetaData created = indexMetaData("test-" + i + "-" + j, 1);
+                    expected.put(created.getIndex().getName(), created);
+                    changed.add(created);
+                }
+                MetaData global = null;
+                if (randomBoolean()) {
+                    expectedGlobal = "value" + (i + 1);
+                    global = globalMetaData(expectedGlobal);
+                }
+                journal.append(global, changed, expected.values().stream().map(IndexMetaData::getIndex).collect(Collectors.toSet()));
+            }
+
+            Tuple<MetaData, List<IndexMetaData>> loaded = new MetaStateJournal(env, xContentRegistry()).load();
+            assertThat(loaded.v1().persistentSettings().get("test"), equalTo(expectedGlobal));
+            assertThat(byName(loaded.v2()), equalTo(expected));
+        }
+    }
+
+    static IndexMetaData indexMetaData(String name, long version) {
+        return IndexMetaData.builder(name)
+            .settings(Settings.builder()
+                .put(IndexMetaData.SETTING_NUMBER_OF_SHARDS, 1)
+                .put(IndexMetaData.SETTING_NUMBER_OF_REPLICAS, 0)
+                .put(IndexMetaData.SETTING_VERSION_CREATED, Version.CURRENT)
+                .put(IndexMetaData.SETTING_INDEX_UUID, UUIDs.randomBase64UUID()))
+            .version(version)
+            .build();
+    }
+
+    private static MetaData globalMetaData(String value) {
+        return MetaData.builder().persistentSettings(Settings.builder().put("test", value).build()).build();
+    }
+
+    private static HashSet<Index> indices(IndexMetaData... indices) {
+        return Arrays.stream(indices).map(IndexMetaData::getIndex).collect(Collectors.toCollection(HashSet::new));
+    }
+
+    private static Map<String, IndexMetaData> byName(List<IndexMetaData> indices) {
+        return indices.stream().collect(Collectors.toMap(indexMetaData -> indexMetaData.getIndex().getName(), Function.identity()));
+    }
+
+    private static List<Path> journalFiles(NodeEnvironment env) throws IOException {
+        List<Path> files = new ArrayList<>();
+        for (Path dataPath : env.nodeDataPaths()) {
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(dataPath.resolve(MetaDataStateFormat.STATE_DIR_NAME),
+                    MetaStateJournal.JOURNAL_FILE_PREFIX + "*")) {
+                for (Path file : stream) {
+                    files.add(file);
+                }
+            }
+        }
+        return files;
+    }
+}
@@ -22,10 +22,16 @@ import org.elasticsearch.Version;
 import org.elasticsearch.cluster.metadata.IndexMetaData;
 import org.elasticsearch.cluster.metadata.MetaData;
 import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.core.internal.io.IOUtils;
 import org.elasticsearch.env.NodeEnvironment;
 import org.elasticsearch.index.Index;
 import org.elasticsearch.test.ESTestCase;
 
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashSet;
+
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.nullValue;
 
@@ -100,4 +106,67 @@ public class MetaStateServiceTests extends ESTestCase {
             assertThat(loadedState.index("test1"), equalTo(index));
         }
     }
+
+    public void testRecoverFromJournal() throws Exception {
+        try (NodeEnvironment env = newNodeEnvironment()) {
+            MetaStateService metaStateService = new MetaStateService(env, xContentRegistry());
+            assertThat(metaStateService.recoverFromJournal(), equalTo(-1));
+
+            MetaData metaData = MetaData.builder()
+                    .persistentSettings(Settings.builder().put("test1", "value1").build())
+                    .build();
+            IndexMetaData index1 = MetaStateJournalTests.indexMetaData("test1", 1);
+            IndexMetaData index2 = MetaStateJournalTests.indexMetaData("test2", 1);
+            metaStateService.writeJournaled(metaData, Arrays.asList(
+                new GatewayMetaState.IndexMetaWriteInfo(index1, null, "freshly created"),
+                new GatewayMetaState.IndexMetaWriteInfo(index2, null, "freshly created")),
+                new HashSet<>(Arrays.asList(index1.getIndex(), index2.getIndex())));
+            assertThat(metaStateService.loadIndexState(index1.getIndex()), equalTo(index1));
+            assertThat(metaStateService.loadIndexState(index2.getIndex()), equalTo(index2));
+
+            // simulate losing the unsynced state file of one index
+            for (Path indexPath : env.indexPaths(index2.getIndex())) {
+                IOUtils.rm(indexPath.resolve(MetaDataStateFormat.STATE_DIR_NAME));
+            }
+            assertThat(metaStateService.loadIndexState(index2.getIndex()), nullValue());
+
+            assertThat(metaStateService.recoverFromJournal(), equalTo(1));
+            assertThat(metaStateService.loadIndexState(index1.getIndex()), equalTo(index1));
+            assertThat(metaStateService.loadIndexState(index2.getIndex()), equalTo(index2));
+            assertThat(metaStateService.loadGlobalState().persistentSettings(), equalTo(metaData.persistentSettings()));
+
+            // the journal is removed once recovered
+            assertThat(metaStateService.recoverFromJournal(), equalTo(-1));
+        }
+    }
+
+    public void testRecoverFromJournalAfterIndexDeletion() throws Exception {
+        try (NodeEnvironment env = newNodeEnvironment()) {
+            MetaStateService metaStateService = new MetaStateService(env, xContentRegistry());
+            MetaData metaData = MetaData.builder()
+                    .persistentSettings(Settings.builder().put("test1", "value1").build())
+                    .build();
+            IndexMetaData index1 = MetaStateJournalTests.indexMetaData("test1", 1);
+            IndexMetaData index2 = MetaStateJournalTests.indexMetaData("test2", 1);
+            metaStateService.writeJournaled(metaData, Arrays.asList(
+                new GatewayMetaState.IndexMetaWriteInfo(index1, null, "freshly created"),
+                new GatewayMetaState.IndexMetaWriteInfo(index2, null, "freshly created")),
+                new HashSet<>(Arrays.asList(index1.getIndex(), index2.getIndex())));
+
+            // the index folder is deleted when the update that removes the index is applied, before that update is persisted
+            metaStateService.beforeIndexStateDeleted(index2.getIndex());
+            for (Path indexPath : env.indexPaths(index2.getIndex())) {
+                IOUtils.rm(indexPath);
+            }
+
+            // the node crashes before the update is appended to the journal
+            metaStateService = new MetaStateService(env, xContentRegistry());
+            assertThat(metaStateService.recoverFromJournal(), equalTo(0));
+            assertThat(metaStateService.loadIndexState(index1.getIndex()), equalTo(index1));
+            assertThat(metaStateService.loadIndexState(index2.getIndex()), nullValue());
+            for (Path indexPath : env.indexPaths(index2.getIndex())) {
+                assertFalse(Files.exists(indexPath));
+            }
+        }
+    }
 }
@@ -0,0 +1,125 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.index;
+
+import org.elasticsearch.common.lease.Releasable;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.util.concurrent.EsRejectedExecutionException;
+import org.elasticsearch.test.ESTestCase;
+
+public class IndexingPressureTests extends ESTestCase {
+
+    private final Settings settings = Settings.builder().put(IndexingPressure.MAX_INDEXING_BYTES.getKey(), "10KB").build();
+
+    public void testMemoryBytesMarkedAndReleased() {
+        IndexingPressure indexingPressure = new IndexingPressure(settings);
+        try (Releasable coordinating = indexingPressure.markCoordinatingOperationStarted(10, false);
+             Releasable coordinating2 = indexingPressure.markCoordinatingOperationStarted(50, false);
+             Releasable primary = indexingPressure.markPrimaryOperationStarted(15, true);
+             Releasable primary2 = indexingPressure.markPrimaryOperationStarted(5, false);
+             Releasable replica = indexingPressure.markReplicaOperationStarted(25, true);
+             Releasable replica2 = indexingPressure.markReplicaOperationStarted(10, false)) {
+            IndexingPressureStats stats = indexingPressure.stats();
+            assertEquals(60, stats.getCurrentCoordinatingBytes());
+            assertEquals(20, stats.getCurrentPrimaryBytes());
+            assertEquals(80, stats.getCurrentCombinedCoordinatingAndPrimaryBytes());
+            assertEquals(35, stats.getCurrentReplicaBytes());
+        }
+        IndexingPressureStats stats = indexingPressure.stats();
+        assertEquals(0, stats.getCurrentCoordinatingBytes());
+        assertEquals(0, stats.getCurrentPrimaryBytes());
+        assertEquals(0, stats.getCurrentCombinedCoordinatingAndPrimaryBytes());
+        assertEquals(0, stats.getCurrentReplicaBytes());
+        assertEquals(60, stats.getTotalCoordinatingBytes());
+        assertEquals(20, stats.getTotalPrimaryBytes());
+        assertEquals(80, stats.getTotalCombinedCoordinatingAndPrimaryBytes());
+        assertEquals(35, stats.getTotalReplicaBytes());
+        assertEquals(10 * 1024, stats.getMemoryLimit());
+    }
+
+    public void testCoordinatingAndPrimaryRejections() {
+        IndexingPressure indexingPressure = new IndexingPressure(settings);
+        try (Releasable coordinating = indexingPressure.markCoordinatingOperationStarted(1024 * 3, false);
+             Releasable primary = indexingPressure.markPrimaryOperationStarted(1024 * 3, false);
+             Releasable replica = indexingPressure.markReplicaOperationStarted(1024 * 3, false)) {
+            if (randomBoolean()) {
+                expectThrows(EsRejectedExecutionException.class,
+                    () -> indexingPressure.markCoordinatingOperationStarted(1024 * 5, false));
+                assertEquals(1, indexingPressure.stats().getCoordinatingRejections());
+                assertEquals(1024 * 6, indexingPressure.stats().getCurrentCombinedCoordinatingAndPrimaryBytes());
+            } else {
+                expectThrows(EsRejectedExecutionException.class,
+                    () -> indexingPressure.markPrimaryOperationStarted(1024 * 5, false));
+                assertEquals(1, indexingPressure.stats().getPrimaryRejections());
+                assertEquals(1024 * 6, indexingPressure.stats().getCurrentCombinedCoordinatingAndPrimaryBytes());
+            }
+            // forced operations are accounted for but never rejected
+            try (Releasable forced = indexingPressure.markPrimaryOperationStarted(1024 * 5, true)) {
+                assertEquals(1024 * 11, indexingPressure.getCurrentCombinedCoordinatingAndPrimaryBytes());
+            }
+        }
+        assertEquals(0, indexingPressure.getCurrentCombinedCoordinatingAndPrimaryBytes());
+    }
+
+    public void testLocalPrimaryOperationIsNotCountedTwice() {
+        IndexingPressure indexingPressure = new IndexingPressure(settings);
+        try (Releasable coordinating = indexingPressure.markCoordinatingOperationStarted(1024 * 6, false);
+             Releasable primary = indexingPressure.markPrimaryOperationLocalToCoordinatingNodeStarted(1024 * 6)) {
+            IndexingPressureStats stats = indexingPressure.stats();
+            assertEquals(1024 * 6, stats.getCurrentCoordinatingBytes());
+            assertEquals(1024 * 6, stats.getCurrentPrimaryBytes());
+            assertEquals(1024 * 6, stats.getCurrentCombinedCoordinatingAndPrimaryBytes());
+            // the same bytes on a primary of another coordinating node would exceed the limit
+            expectThrows(EsRejectedExecutionException.class, () -> indexingPressure.markPrimaryOperationStarted(1024 * 6, false));
+        }
+        IndexingPressureStats stats = indexingPressure.stats();
+        assertEquals(0, stats.getCurrentPrimaryBytes());
+        assertEquals(0, stats.getCurrentCombinedCoordinatingAndPrimaryBytes());
+        assertEquals(1024 * 6, stats.getTotalPrimaryBytes());
+        assertEquals(1024 * 6, stats.getTotalCombinedCoordinatingAndPrimaryBytes());
+        assertEquals(1, stats.getPrimaryRejections());
+    }
+
+    public void testReplicaRejections() {
+        IndexingPressure indexingPressure = new IndexingPressure(settings);
+        try (Releasable replica = indexingPressure.markReplicaOperationStarted(1024 * 12, false)) {
+            // the replica limit is larger than the coordinating and primary limit
+            expectThrows(EsRejectedExecutionException.class, () -> indexingPressure.markReplicaOperationStarted(1024 * 4, false));
+            assertEquals(1, indexingPressure.stats().getReplicaRejections());
+            assertEquals(1024 * 12, indexingPressure.getCurrentReplicaBytes());
+            // forced operations are accounted for even when they go over the limit, but still count as rejections
+            try (Releasable forced = indexingPressure.markReplicaOperationStarted(1024 * 4, true)) {
+                assertEquals(2, indexingPressure.stats().getReplicaRejections());
+                assertEquals(1024 * 16, indexingPressure.getCurrentReplicaBytes());
+            }
+        }
+        assertEquals(0, indexingPressure.getCurrentReplicaBytes());
+        assertEquals(1024 * 16, indexingPressure.stats().getTotalReplicaBytes());
+    }
+
+    public void testReleaseIsIdempotent() {
+        IndexingPressure indexingPressure = new IndexingPressure(settings);
+        Releasable coordinating = indexingPressure.markCoordinatingOperationStarted(100, false);
+        coordinating.close();
+        coordinating.close();
+        assertEquals(0, indexingPressure.getCurrentCoordinatingBytes());
+        assertEquals(0, indexingPressure.getCurrentCombinedCoordinatingAndPrimaryBytes());
+    }
+}
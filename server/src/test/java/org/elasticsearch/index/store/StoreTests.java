@@ -959,6 +959,34 @@ public class StoreTests extends ESTestCase {
         store.close();
     }
 
+    public void testReadMetadataSnapshotReusesPreviousSnapshotOfLastCommit() throws IOException {
+        final ShardId shardId = new ShardId("index", "_na_", 1);
+        final Path tempDir = createTempDir();
+        final BaseDirectoryWrapper dir = newFSDirectory(tempDir);
+        IndexWriter writer = new IndexWriter(dir, newIndexWriterConfig());
+        Document doc = new Document();
+        doc.add(new StringField("id", "1", Field.Store.NO));
+        writer.addDocument(doc);
+        writer.commit();
+
+        final Store.MetadataSnapshot snapshot = Store.readMetadataSnapshot(tempDir, shardId, (id, l) -> new DummyShardLock(id), logger);
+        assertThat(snapshot.size(), greaterThan(0));
+        assertSame(snapshot, Store.readMetadataSnapshot(tempDir, shardId, (id, l) -> new DummyShardLock(id), logger, snapshot));
+
+        doc = new Document();
+        doc.add(new StringField("id", "2", Field.Store.NO));
+        writer.addDocument(doc);
+        writer.commit();
+        writer.close();
+
+        final Store.MetadataSnapshot newSnapshot =
+            Store.readMetadataSnapshot(tempDir, shardId, (id, l) -> new DummyShardLock(id), logger, snapshot);
+        assertNotSame(snapshot, newSnapshot);
+        assertThat(newSnapshot.getSegmentsFile().name(), not(equalTo(snapshot.getSegmentsFile().name())));
+        assertThat(newSnapshot.getNumDocs(), equalTo(2L));
+        dir.close();
+    }
+
     public void testDeserializeCorruptionException() throws IOException {
         final ShardId shardId = new ShardId("index", "_na_", 1);
         final Directory dir = new RAMDirectory(); // I use ram dir to prevent that virusscanner being a PITA
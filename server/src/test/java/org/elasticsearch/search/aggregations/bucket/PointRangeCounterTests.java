@@ -0,0 +1,215 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.search.aggregations.bucket;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.LongPoint;
+import org.apache.lucene.document.SortedNumericDocValuesField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexOptions;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.search.DocValuesFieldExistsQuery;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.store.Directory;
+import org.elasticsearch.index.mapper.MappedFieldType;
+import org.elasticsearch.index.mapper.NumberFieldMapper;
+import org.elasticsearch.search.aggregations.AggregationBuilders;
+import org.elasticsearch.search.aggregations.Aggregator;
+import org.elasticsearch.search.aggregations.AggregatorTestCase;
+import org.elasticsearch.search.aggregations.bucket.range.InternalRange;
+import org.elasticsearch.search.aggregations.bucket.range.RangeAggregationBuilder;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class PointRangeCounterTests extends AggregatorTestCase {
+
+    private static final String FIELD = "number";
+
+    public void testMatchAllDocs() throws IOException {
+        try (Directory directory = newDirectory()) {
+            long[] values = indexValues(directory, randomIntBetween(7000, 10000), false);
+            try (IndexReader reader = DirectoryReader.open(directory)) {
+                RangeAggregationBuilder builder = rangeAggregation();
+                Map<String, Object> debug = new HashMap<>();
+                InternalRange<?, ?> range = searchRange(reader, new MatchAllDocsQuery(), builder, debug);
+                assertCounts(values, builder, range);
+                assertEquals("filter_by_filter", debug.get("execution_mode"));
+                assertEquals(1, debug.get("segments_counted_from_points"));
+                assertEquals(0, debug.get("segments_collected"));
+                assertEquals(3L, debug.get("ranges_counted"));
+            }
+        }
+    }
+
+    public void testRangeQuery() throws IOException {
+        try (Directory directory = newDirectory()) {
+            long[] values = indexValues(directory, randomIntBetween(7000, 10000), false);
+            try (IndexReader reader = DirectoryReader.open(directory)) {
+                long from = randomLongBetween(0, 500);
+                long to = randomLongBetween(from, 1000);
+                Query query = NumberFieldMapper.NumberType.LONG.rangeQuery(FIELD, from, to, true, true, true);
+                RangeAggregationBuilder builder = rangeAggregation();
+                Map<String, Object> debug = new HashMap<>();
+                InternalRange<?, ?> range = searchRange(reader, query, builder, debug);
+                assertEquals("filter_by_filter", debug.get("execution_mode"));
+                long[] matching = Arrays.stream(values).filter(value -> value >= from && value <= to).toArray();
+                assertCounts(matching, builder, range);
+            }
+        }
+    }
+
+    public void testDeletedDocsAreCollected() throws IOException {
+        try (Directory directory = newDirectory()) {
+            long[] values = indexValues(directory, randomIntBetween(7000, 10000), false);
+            try (IndexWriter writer = new IndexWriter(directory, new IndexWriterConfig())) {
+                writer.deleteDocuments(LongPoint.newExactQuery(FIELD, values[0]));
+            }
+            List<Long> remaining = new ArrayList<>();
+            for (long value : values) {
+                if (value != values[0]) {
+                    remaining.add(value);
+                }
+            }
+            try (IndexReader reader = DirectoryReader.open(directory)) {
+                RangeAggregationBuilder builder = rangeAggregation();
+                Map<String, Object> debug = new HashMap<>();
+                InternalRange<?, ?> range = searchRange(reader, new MatchAllDocsQuery(), builder, debug);
+                assertCounts(remaining.stream().mapToLong(Long::longValue).toArray(), builder, range);
+                assertEquals(0, debug.get("segments_counted_from_points"));
+                assertEquals(1, debug.get("segments_collected"));
+            }
+        }
+    }
+
+    public void testMultiValuedDocsAreCollected() throws IOException {
+        try (Directory directory = newDirectory()) {
+            indexValues(directory, randomIntBetween(7000, 10000), true);
+            try (IndexReader reader = DirectoryReader.open(directory)) {
+                Map<String, Object> debug = new HashMap<>();
+                searchRange(reader, new MatchAllDocsQuery(), rangeAggregation(), debug);
+                assertEquals(0, debug.get("segments_counted_from_points"));
+                assertEquals(1, debug.get("segments_collected"));
+            }
+        }
+    }
+
+    public void testFewDocsAreCollected() throws IOException {
+        try (Directory directory = newDirectory()) {
+            long[] values = indexValues(directory, randomIntBetween(50, 100), false);
+            try (IndexReader reader = DirectoryReader.open(directory)) {
+                RangeAggregationBuilder builder = rangeAggregation();
+                Map<String, Object> debug = new HashMap<>();
+                InternalRange<?, ?> range = searchRange(reader, new MatchAllDocsQuery(), builder, debug);
+                assertCounts(values, builder, range);
+                assertEquals(0, debug.get("segments_counted_from_points"));
+                assertEquals(1, debug.get("segments_collected"));
+            }
+        }
+    }
+
+    public void testNotApplicable() throws IOException {
+        try (Directory directory = newDirectory()) {
+            indexValues(directory, randomIntBetween(1, 100), false);
+            try (IndexReader reader = DirectoryReader.open(directory)) {
+                Map<String, Object> debug = new HashMap<>();
+                searchRange(reader, new DocValuesFieldExistsQuery(FIELD), rangeAggregation(), debug);
+                assertEquals("collect", debug.get("execution_mode"));
+
+                debug.clear();
+                searchRange(reader, new MatchAllDocsQuery(), rangeAggregation().subAggregation(AggregationBuilders.max("max").field(FIELD)),
+                        debug);
+                assertEquals("collect", debug.get("execution_mode"));
+
+                debug.clear();
+                searchRange(reader, new MatchAllDocsQuery(), rangeAggregation().missing(0L), debug);
+                assertEquals("collect", debug.get("execution_mode"));
+
+                debug.clear();
+                searchRange(reader, new MatchAllDocsQuery(), rangeAggregation().addRange(100, 300), debug);
+                assertEquals("ranges overlap", "collect", debug.get("execution_mode"));
+            }
+        }
+    }
+
+    private static RangeAggregationBuilder rangeAggregation() {
+        return new RangeAggregationBuilder("_name").field(FIELD)
+                .addUnboundedTo(250)
+                .addRange(250, 500.5)
+                .addUnboundedFrom(600);
+    }
+
+    private static long[] indexValues(Directory directory, int numDocs, boolean multiValued) throws IOException {
+        long[] values = new long[numDocs];
+        try (IndexWriter writer = new IndexWriter(directory, new IndexWriterConfig())) {
+            for (int i = 0; i < numDocs; i++) {
+                Document document = new Document();
+                values[i] = randomLongBetween(0, 1000);
+                document.add(new LongPoint(FIELD, values[i]));
+                document.add(new SortedNumericDocValuesField(FIELD, values[i]));
+                if (multiValued && i == 0) {
+                    document.add(new LongPoint(FIELD, values[i] + 1));
+                    document.add(new SortedNumericDocValuesField(FIELD, values[i] + 1));
+                }
+                writer.addDocument(document);
+            }
+            writer.forceMerge(1);
+        }
+        return values;
+    }
+
+    private InternalRange<?, ?> searchRange(IndexReader reader, Query query, RangeAggregationBuilder builder,
+                                            Map<String, Object> debug) throws IOException {
+        MappedFieldType fieldType = new NumberFieldMapper.NumberFieldType(NumberFieldMapper.NumberType.LONG);
+        fieldType.setName(FIELD);
+        fieldType.setIndexOptions(IndexOptions.DOCS);
+        IndexSearcher searcher = new IndexSearcher(reader);
+        Aggregator aggregator = createAggregator(query, builder, searcher, createIndexSettings(), fieldType);
+        aggregator.preCollection();
+        searcher.search(query, aggregator);
+        aggregator.postCollection();
+        aggregator.collectDebugInfo(debug::put);
+        return (InternalRange<?, ?>) aggregator.buildAggregation(0L);
+    }
+
+    private static void assertCounts(long[] values, RangeAggregationBuilder builder, InternalRange<?, ?> range) {
+        assertEquals(builder.ranges().size(), range.getBuckets().size());
+        for (int i = 0; i < range.getBuckets().size(); i++) {
+            InternalRange.Bucket bucket = range.getBuckets().get(i);
+            double from = ((Number) bucket.getFrom()).doubleValue();
+            double to = ((Number) bucket.getTo()).doubleValue();
+            long expected = 0;
+            for (long value : values) {
+                if (value >= from && value < to) {
+                    expected++;
+                }
+            }
+            assertEquals(bucket.getKeyAsString(), expected, bucket.getDocCount());
+        }
+    }
+}
@@ -21,13 +21,16 @@ package org.elasticsearch.search.aggregations.bucket;
 
 import org.apache.lucene.util.BytesRef;
 import org.apache.lucene.util.automaton.RegExp;
+import org.elasticsearch.Version;
 import org.elasticsearch.search.aggregations.Aggregator.SubAggCollectionMode;
 import org.elasticsearch.search.aggregations.BaseAggregationTestCase;
 import org.elasticsearch.search.aggregations.BucketOrder;
 import org.elasticsearch.search.aggregations.bucket.terms.IncludeExclude;
 import org.elasticsearch.search.aggregations.bucket.terms.TermsAggregationBuilder;
 import org.elasticsearch.search.aggregations.bucket.terms.TermsAggregatorFactory.ExecutionMode;
+import org.elasticsearch.test.VersionUtils;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.SortedSet;
@@ -168,6 +171,16 @@ public class TermsTests extends BaseAggregationTestCase<TermsAggregationBuilder>
         return factory;
     }
 
+    public void testSegmentOrdinalsHintFallsBackOnOlderNodes() throws IOException {
+        TermsAggregationBuilder builder = new TermsAggregationBuilder("terms", null).field("field")
+            .executionHint(ExecutionMode.SEGMENT_ORDINALS.toString());
+        TermsAggregationBuilder copy = copyWriteable(builder, namedWriteableRegistry(), TermsAggregationBuilder::new, Version.CURRENT);
+        assertEquals(ExecutionMode.SEGMENT_ORDINALS.toString(), copy.executionHint());
+        copy = copyWriteable(builder, namedWriteableRegistry(), TermsAggregationBuilder::new,
+            VersionUtils.randomVersionBetween(random(), Version.V_6_0_0, Version.V_6_8_23));
+        assertEquals(ExecutionMode.GLOBAL_ORDINALS.toString(), copy.executionHint());
+    }
+
     private List<BucketOrder> randomOrder() {
         List<BucketOrder> orders = new ArrayList<>();
         switch (randomInt(4)) {
@@ -30,12 +30,19 @@ import org.apache.lucene.document.SortedSetDocValuesField;
 import org.apache.lucene.document.StringField;
 import org.apache.lucene.index.DirectoryReader;
 import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
 import org.apache.lucene.index.MultiReader;
+import org.apache.lucene.index.NoMergePolicy;
 import org.apache.lucene.index.RandomIndexWriter;
 import org.apache.lucene.search.DocValuesFieldExistsQuery;
 import org.apache.lucene.search.IndexSearcher;
 import org.apache.lucene.search.MatchAllDocsQuery;
 import org.apache.lucene.search.Query;
+import org.apache.lucene.search.Sort;
+import org.apache.lucene.search.SortField;
+import org.apache.lucene.search.SortedNumericSortField;
+import org.apache.lucene.search.SortedSetSortField;
 import org.apache.lucene.store.Directory;
 import org.apache.lucene.util.BytesRef;
 import org.apache.lucene.util.NumericUtils;
@@ -73,6 +80,8 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Consumer;
@@ -82,6 +91,7 @@ import java.util.function.Supplier;
 import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
 
 public class CompositeAggregatorTests extends AggregatorTestCase {
     private static MappedFieldType[] FIELD_TYPES;
@@ -1760,6 +1770,68 @@ public class CompositeAggregatorTests extends AggregatorTestCase {
         );
     }
 
+    public void testEarlyTerminationWithIndexSort() throws IOException {
+        Sort indexSort = new Sort(
+            new SortedSetSortField("keyword", false),
+            new SortedNumericSortField("long", SortField.Type.LONG)
+        );
+        Map<String, Map<Long, Long>> expected = new HashMap<>();
+        try (Directory directory = newDirectory()) {
+            IndexWriterConfig config = new IndexWriterConfig().setMergePolicy(NoMergePolicy.INSTANCE).setIndexSort(indexSort);
+            try (IndexWriter indexWriter = new IndexWriter(directory, config)) {
+                int numSegments = randomIntBetween(1, 4);
+                for (int i = 0; i < numSegments; i++) {
+                    int numDocs = randomIntBetween(1, 200);
+                    for (int j = 0; j < numDocs; j++) {
+                        Document document = new Document();
+                        String keyword = "term" + randomIntBetween(10, 30);
+                        long value = randomIntBetween(0, 5);
+                        document.add(new SortedSetDocValuesField("keyword", new BytesRef(keyword)));
+                        document.add(new SortedNumericDocValuesField("long", value));
+                        expected.computeIfAbsent(keyword, k -> new HashMap<>()).merge(value, 1L, Long::sum);
+                        indexWriter.addDocument(document);
+                    }
+                    indexWriter.commit();
+                }
+            }
+            boolean reverseLong = randomBoolean();
+            List<String> expectedKeys = new ArrayList<>();
+            List<Long> expectedCounts = new ArrayList<>();
+            for (String keyword : new TreeSet<>(expected.keySet())) {
+                TreeMap<Long, Long> counts = new TreeMap<>(expected.get(keyword));
+                for (Map.Entry<Long, Long> entry : (reverseLong ? counts.descendingMap() : counts).entrySet()) {
+                    expectedKeys.add("{keyword=" + keyword + ", long=" + entry.getKey() + "}");
+                    expectedCounts.add(entry.getValue());
+                }
+            }
+            try (IndexReader indexReader = DirectoryReader.open(directory)) {
+                IndexSearcher indexSearcher = new IndexSearcher(indexReader);
+                int size = randomIntBetween(1, 10);
+                Map<String, Object> after = null;
+                List<String> keys = new ArrayList<>();
+                List<Long> counts = new ArrayList<>();
+                while (true) {
+                    CompositeAggregationBuilder builder = new CompositeAggregationBuilder("name", Arrays.asList(
+                        new TermsValuesSourceBuilder("keyword").field("keyword"),
+                        new TermsValuesSourceBuilder("long").field("long").order(reverseLong ? SortOrder.DESC : SortOrder.ASC)
+                    )).size(size).aggregateAfter(after);
+                    InternalComposite result = search(indexSearcher, new MatchAllDocsQuery(), builder, FIELD_TYPES);
+                    if (result.getBuckets().isEmpty()) {
+                        break;
+                    }
+                    assertThat(result.getBuckets().size(), lessThanOrEqualTo(size));
+                    for (InternalComposite.InternalBucket bucket : result.getBuckets()) {
+                        keys.add(bucket.getKeyAsString());
+                        counts.add(bucket.getDocCount());
+                    }
+                    after = result.afterKey();
+                }
+                assertEquals(expectedKeys, keys);
+                assertEquals(expectedCounts, counts);
+            }
+        }
+    }
+
     private void testSearchCase(List<Query> queries,
                                 List<Map<String, List<Object>>> dataset,
                                 Supplier<CompositeAggregationBuilder> create,
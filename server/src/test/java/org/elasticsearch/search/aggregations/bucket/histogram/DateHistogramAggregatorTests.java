@@ -23,8 +23,12 @@ import org.apache.lucene.document.Document;
 import org.apache.lucene.document.LongPoint;
 import org.apache.lucene.document.SortedNumericDocValuesField;
 import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexOptions;
 import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
 import org.apache.lucene.index.RandomIndexWriter;
+import org.apache.lucene.search.DocValuesFieldExistsQuery;
 import org.apache.lucene.search.IndexSearcher;
 import org.apache.lucene.search.MatchAllDocsQuery;
 import org.apache.lucene.search.MatchNoDocsQuery;
@@ -33,11 +37,15 @@ import org.apache.lucene.store.Directory;
 import org.elasticsearch.index.mapper.DateFieldMapper;
 import org.elasticsearch.search.aggregations.AggregationBuilders;
 import org.elasticsearch.search.aggregations.AggregatorTestCase;
+import org.joda.time.DateTimeZone;
 
 import java.io.IOException;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 
 import static org.elasticsearch.search.aggregations.MultiBucketConsumerService.TooManyBucketsException;
@@ -370,6 +378,63 @@ public class DateHistogramAggregatorTests extends AggregatorTestCase {
             histogram -> {}, 5));
     }
 
+    public void testFilterByFilter() throws IOException {
+        try (Directory directory = newDirectory()) {
+            long start = asLong("2015-01-01T00:00:00");
+            long end = asLong("2018-01-01T00:00:00");
+            try (IndexWriter indexWriter = new IndexWriter(directory, new IndexWriterConfig())) {
+                int numDocs = randomIntBetween(15000, 20000);
+                for (int i = 0; i < numDocs; i++) {
+                    long instant = randomLongBetween(start, end - 1);
+                    Document document = new Document();
+                    document.add(new SortedNumericDocValuesField(DATE_FIELD, instant));
+                    document.add(new LongPoint(DATE_FIELD, instant));
+                    indexWriter.addDocument(document);
+                }
+                indexWriter.forceMerge(1);
+            }
+
+            try (IndexReader indexReader = DirectoryReader.open(directory)) {
+                IndexSearcher indexSearcher = new IndexSearcher(indexReader);
+                DateTimeZone timeZone = randomBoolean() ? DateTimeZone.UTC : randomDateTimeZone();
+                DateHistogramAggregationBuilder aggregationBuilder = new DateHistogramAggregationBuilder("_name")
+                        .field(DATE_FIELD)
+                        .dateHistogramInterval(randomFrom(DateHistogramInterval.YEAR, new DateHistogramInterval("200d")))
+                        .timeZone(timeZone)
+                        .offset(randomLongBetween(-TimeUnit.DAYS.toMillis(1), TimeUnit.DAYS.toMillis(1)));
+                DateFieldMapper.DateFieldType fieldType = new DateFieldMapper.Builder("_name").fieldType();
+                fieldType.setHasDocValues(true);
+                fieldType.setIndexOptions(IndexOptions.DOCS);
+                fieldType.setName(DATE_FIELD);
+
+                Query query = new MatchAllDocsQuery();
+                DateHistogramAggregator aggregator = createAggregator(query, aggregationBuilder, indexSearcher, fieldType);
+                aggregator.preCollection();
+                indexSearcher.search(query, aggregator);
+                aggregator.postCollection();
+                Map<String, Object> debug = new HashMap<>();
+                aggregator.collectDebugInfo(debug::put);
+                assertEquals("filter_by_filter", debug.get("execution_mode"));
+                if (timeZone == DateTimeZone.UTC) {
+                    assertEquals(1, debug.get("segments_counted_from_points"));
+                } else {
+                    // the segment is collected if the rounding isn't consistent around a time zone transition
+                    assertEquals(1, (int) debug.get("segments_counted_from_points") + (int) debug.get("segments_collected"));
+                }
+                InternalDateHistogram counted = (InternalDateHistogram) aggregator.buildAggregation(0L);
+
+                // the same aggregation, collected document by document
+                InternalDateHistogram collected = search(indexSearcher, new DocValuesFieldExistsQuery(DATE_FIELD), aggregationBuilder,
+                        fieldType);
+                assertEquals(collected.getBuckets().size(), counted.getBuckets().size());
+                for (int i = 0; i < collected.getBuckets().size(); i++) {
+                    assertEquals(collected.getBuckets().get(i).getKey(), counted.getBuckets().get(i).getKey());
+                    assertEquals(collected.getBuckets().get(i).getDocCount(), counted.getBuckets().get(i).getDocCount());
+                }
+            }
+        }
+    }
+
     private void testSearchCase(Query query, List<String> dataset,
                                 Consumer<DateHistogramAggregationBuilder> configure,
                                 Consumer<Histogram> verify) throws IOException {
@@ -32,13 +32,17 @@ import org.apache.lucene.index.MultiReader;
 import org.apache.lucene.index.Term;
 import org.apache.lucene.search.BooleanQuery;
 import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.MatchAllDocsQuery;
 import org.apache.lucene.search.Query;
+import org.apache.lucene.search.TermInSetQuery;
 import org.apache.lucene.search.TermQuery;
 import org.apache.lucene.store.Directory;
 import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.index.analysis.AnalyzerScope;
 import org.elasticsearch.index.analysis.NamedAnalyzer;
 import org.elasticsearch.index.mapper.KeywordFieldMapper;
+import org.elasticsearch.index.mapper.MapperService;
 import org.elasticsearch.index.mapper.MappedFieldType;
 import org.elasticsearch.index.mapper.NumberFieldMapper;
 import org.elasticsearch.index.mapper.NumberFieldMapper.NumberFieldType;
@@ -46,26 +50,42 @@ import org.elasticsearch.index.mapper.NumberFieldMapper.NumberType;
 import org.elasticsearch.index.mapper.TextFieldMapper.TextFieldType;
 import org.elasticsearch.index.query.QueryBuilder;
 import org.elasticsearch.index.query.QueryBuilders;
+import org.elasticsearch.index.query.QueryShardContext;
+import org.elasticsearch.search.aggregations.Aggregator;
+import org.elasticsearch.search.aggregations.AggregatorFactories;
 import org.elasticsearch.search.aggregations.AggregatorFactory;
 import org.elasticsearch.search.aggregations.AggregatorTestCase;
+import org.elasticsearch.search.aggregations.MultiBucketConsumerService.MultiBucketConsumer;
+import org.elasticsearch.search.aggregations.SearchContextAggregations;
 import org.elasticsearch.search.aggregations.bucket.significant.SignificantTermsAggregatorFactory.ExecutionMode;
 import org.elasticsearch.search.aggregations.bucket.terms.IncludeExclude;
 import org.elasticsearch.search.aggregations.support.ValueType;
+import org.elasticsearch.search.internal.ShardSearchRequest;
+import org.elasticsearch.test.FieldMaskingReader;
 import org.hamcrest.Matchers;
 import org.junit.Before;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
 import static org.elasticsearch.search.aggregations.AggregationBuilders.significantTerms;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.mockito.Mockito.when;
 
 public class SignificantTermsAggregatorTests extends AggregatorTestCase {
 
     private MappedFieldType fieldType;
+    // the background cache of the node, only set by the tests of the cache
+    private SignificantTermsBackgroundCache backgroundCache;
+    // the request cache flag of the shard request, only set by the tests that disable the request cache
+    private Boolean requestCache;
 
     @Before
     public void setUpTest() throws Exception {
@@ -86,6 +106,26 @@ public class SignificantTermsAggregatorTests extends AggregatorTestCase {
             Function.identity()));
     }
 
+    @Override
+    protected SearchContextAggregations createSearchContextAggregations(MultiBucketConsumer bucketConsumer) {
+        return new SearchContextAggregations(AggregatorFactories.EMPTY, bucketConsumer, backgroundCache);
+    }
+
+    /**
+     * Background filters are only cached for cacheable requests.
+     */
+    @Override
+    protected QueryShardContext queryShardContextMock(MapperService mapperService) {
+        return backgroundCache == null ? super.queryShardContextMock(mapperService) : cacheableQueryShardContext(mapperService);
+    }
+
+    @Override
+    protected ShardSearchRequest shardSearchRequestMock() {
+        ShardSearchRequest request = super.shardSearchRequestMock();
+        when(request.requestCache()).thenReturn(requestCache);
+        return request;
+    }
+
     public void testParsedAsFilter() throws IOException {
         IndexReader indexReader = new MultiReader();
         IndexSearcher indexSearcher = newSearcher(indexReader);
@@ -337,6 +377,117 @@ public class SignificantTermsAggregatorTests extends AggregatorTestCase {
         }
     }
 
+    public void testBackgroundCache() throws IOException {
+        TextFieldType textFieldType = new TextFieldType();
+        textFieldType.setName("text");
+        textFieldType.setFielddata(true);
+        textFieldType.setIndexAnalyzer(new NamedAnalyzer("my_analyzer", AnalyzerScope.GLOBAL, new StandardAnalyzer()));
+        backgroundCache = new SignificantTermsBackgroundCache(Settings.EMPTY);
+
+        try (Directory dir = newDirectory(); IndexWriter w = new IndexWriter(dir, newIndexWriterConfig())) {
+            addMixedTextDocs(textFieldType, w);
+            SignificantTermsAggregationBuilder sigAgg = new SignificantTermsAggregationBuilder("sig_text", null)
+                .field("text")
+                .backgroundFilter(QueryBuilders.termQuery("text", "common"));
+            sigAgg.executionHint(randomExecutionHint());
+
+            final long misses;
+            try (IndexReader reader = DirectoryReader.open(w)) {
+                IndexSearcher searcher = new IndexSearcher(reader);
+                Map<String, Object> debug = searchAndCollectDebugInfo(searcher, sigAgg, textFieldType);
+                assertEquals("enabled", debug.get("background_cache"));
+                assertEquals(0L, debug.get("background_cache_hits"));
+                misses = (long) debug.get("background_cache_misses");
+                assertThat(misses, greaterThan(0L));
+
+                // the same background on the same reader
+                debug = searchAndCollectDebugInfo(searcher, sigAgg, textFieldType);
+                assertEquals(misses, debug.get("background_cache_hits"));
+                assertEquals(0L, debug.get("background_cache_misses"));
+
+                // another background filter
+                sigAgg.backgroundFilter(QueryBuilders.termQuery("text", "odd"));
+                debug = searchAndCollectDebugInfo(searcher, sigAgg, textFieldType);
+                assertEquals(0L, debug.get("background_cache_hits"));
+                assertEquals(misses, debug.get("background_cache_misses"));
+            }
+            // the entries of the previous reader were dropped when it was closed
+            assertEquals(0, backgroundCache.count());
+
+            // the reader of a refresh
+            sigAgg.backgroundFilter(QueryBuilders.termQuery("text", "common"));
+            addMixedTextDocs(textFieldType, w);
+            try (IndexReader reader = DirectoryReader.open(w)) {
+                IndexSearcher searcher = new IndexSearcher(reader);
+                Map<String, Object> debug = searchAndCollectDebugInfo(searcher, sigAgg, textFieldType);
+                assertEquals(0L, debug.get("background_cache_hits"));
+                assertEquals(misses, debug.get("background_cache_misses"));
+            }
+        }
+    }
+
+    public void testBackgroundCacheWithWrappedReader() throws IOException {
+        TextFieldType textFieldType = new TextFieldType();
+        textFieldType.setName("text");
+        textFieldType.setFielddata(true);
+        textFieldType.setIndexAnalyzer(new NamedAnalyzer("my_analyzer", AnalyzerScope.GLOBAL, new StandardAnalyzer()));
+        backgroundCache = new SignificantTermsBackgroundCache(Settings.EMPTY);
+
+        try (Directory dir = newDirectory(); IndexWriter w = new IndexWriter(dir, newIndexWriterConfig())) {
+            addMixedTextDocs(textFieldType, w);
+            SignificantTermsAggregationBuilder sigAgg = new SignificantTermsAggregationBuilder("sig_text", null)
+                .field("text")
+                .backgroundFilter(QueryBuilders.termQuery("text", "common"));
+            sigAgg.executionHint(randomExecutionHint());
+
+            try (DirectoryReader reader = DirectoryReader.open(w)) {
+                Map<String, Object> debug = searchAndCollectDebugInfo(new IndexSearcher(reader), sigAgg, textFieldType);
+                assertThat((long) debug.get("background_cache_misses"), greaterThan(0L));
+                int count = backgroundCache.count();
+
+                // field and document level security wrap the reader without changing its cache key
+                // and disable the request cache, the frequencies of the unwrapped reader must not be returned
+                requestCache = false;
+                IndexSearcher maskedSearcher = new IndexSearcher(new FieldMaskingReader("other", reader));
+                debug = searchAndCollectDebugInfo(maskedSearcher, sigAgg, textFieldType);
+                assertEquals("disabled", debug.get("background_cache"));
+                assertEquals(0L, debug.get("background_cache_hits"));
+                assertEquals(count, backgroundCache.count());
+            }
+        }
+    }
+
+    public void testBackgroundCacheKeysChargeTheBackgroundFilter() {
+        Query term = new TermQuery(new Term("text", "common"));
+        long withoutFilter = new SignificantTermsBackgroundCache.Key("text", null, term).ramBytesUsed();
+
+        List<BytesRef> terms = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            terms.add(new BytesRef(randomAlphaOfLength(20)));
+        }
+        // e.g. a terms lookup, each request that uses it holds its own copy in the cache
+        TermInSetQuery filter = new TermInSetQuery("text", terms);
+        assertThat(new SignificantTermsBackgroundCache.Key("text", filter, term).ramBytesUsed(),
+            greaterThanOrEqualTo(withoutFilter + filter.ramBytesUsed()));
+        assertThat(new SignificantTermsBackgroundCache.Key("text", new MatchAllDocsQuery(), term).ramBytesUsed(),
+            greaterThan(withoutFilter));
+    }
+
+    /**
+     * Runs the aggregation on all the documents of the searcher and returns the debug information of the aggregator.
+     */
+    private Map<String, Object> searchAndCollectDebugInfo(IndexSearcher searcher, SignificantTermsAggregationBuilder builder,
+                                                          MappedFieldType... fieldTypes) throws IOException {
+        Aggregator aggregator = createAggregator(builder, searcher, fieldTypes);
+        aggregator.preCollection();
+        searcher.search(new MatchAllDocsQuery(), aggregator);
+        aggregator.postCollection();
+        aggregator.buildAggregation(0L);
+        Map<String, Object> debug = new HashMap<>();
+        aggregator.collectDebugInfo(debug::put);
+        return debug;
+    }
+
     private void addMixedTextDocs(TextFieldType textFieldType, IndexWriter w) throws IOException {
         for (int i = 0; i < 10; i++) {
             Document doc = new Document();
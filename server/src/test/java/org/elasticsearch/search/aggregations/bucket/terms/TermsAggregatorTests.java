@@ -28,11 +28,18 @@ import org.apache.lucene.document.SortedSetDocValuesField;
 import org.apache.lucene.document.StringField;
 import org.apache.lucene.index.DirectoryReader;
 import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
 import org.apache.lucene.index.IndexableField;
+import org.apache.lucene.index.NoMergePolicy;
 import org.apache.lucene.index.RandomIndexWriter;
 import org.apache.lucene.search.DocValuesFieldExistsQuery;
 import org.apache.lucene.search.IndexSearcher;
 import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.search.Sort;
+import org.apache.lucene.search.SortField;
+import org.apache.lucene.search.SortedNumericSortField;
+import org.apache.lucene.search.SortedSetSortField;
 import org.apache.lucene.store.Directory;
 import org.apache.lucene.util.BytesRef;
 import org.apache.lucene.util.NumericUtils;
@@ -80,6 +87,7 @@ import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
 import java.util.function.BiFunction;
 import java.util.function.Function;
 
@@ -146,6 +154,224 @@ public class TermsAggregatorTests extends AggregatorTestCase {
         directory.close();
     }
 
+    public void testSegmentOrdinalsExecutionMode() throws Exception {
+        randomizeAggregatorImpl = false;
+        try (Directory directory = newDirectory()) {
+            int numSegments = randomIntBetween(2, 5);
+            Map<String, Long> expectedCounts = new HashMap<>();
+            try (IndexWriter indexWriter = new IndexWriter(directory, new IndexWriterConfig().setMergePolicy(NoMergePolicy.INSTANCE))) {
+                for (int i = 0; i < numSegments; i++) {
+                    int numDocs = randomIntBetween(1, 100);
+                    for (int j = 0; j < numDocs; j++) {
+                        Document document = new Document();
+                        String value = "value" + randomIntBetween(0, 20);
+                        document.add(new SortedSetDocValuesField("string", new BytesRef(value)));
+                        expectedCounts.merge(value, 1L, Long::sum);
+                        if (randomBoolean()) {
+                            String other = "other" + randomIntBetween(0, 5);
+                            document.add(new SortedSetDocValuesField("string", new BytesRef(other)));
+                            expectedCounts.merge(other, 1L, Long::sum);
+                        }
+                        indexWriter.addDocument(document);
+                    }
+                    indexWriter.commit();
+                }
+            }
+            try (IndexReader indexReader = DirectoryReader.open(directory)) {
+                IndexSearcher indexSearcher = new IndexSearcher(indexReader);
+                MappedFieldType fieldType = new KeywordFieldMapper.KeywordFieldType();
+                fieldType.setName("string");
+                fieldType.setHasDocValues(true);
+
+                TermsAggregationBuilder aggregationBuilder = new TermsAggregationBuilder("_name", ValueType.STRING)
+                    .field("string")
+                    .size(100);
+                TermsAggregator aggregator = createAggregator(aggregationBuilder, indexSearcher, fieldType);
+                assertThat(aggregator, instanceOf(StringTermsAggregator.SegmentOrdinals.class));
+                aggregator.preCollection();
+                indexSearcher.search(new MatchAllDocsQuery(), aggregator);
+                aggregator.postCollection();
+                Terms result = (Terms) aggregator.buildAggregation(0L);
+                assertEquals(expectedCounts.size(), result.getBuckets().size());
+                for (Terms.Bucket bucket : result.getBuckets()) {
+                    assertEquals(bucket.getKeyAsString(), expectedCounts.get(bucket.getKeyAsString()).longValue(), bucket.getDocCount());
+                }
+
+                // eager global ordinals are built on refresh already
+                MappedFieldType eagerFieldType = fieldType.clone();
+                eagerFieldType.setEagerGlobalOrdinals(true);
+                aggregator = createAggregator(aggregationBuilder, indexSearcher, eagerFieldType);
+                assertThat(aggregator, instanceOf(GlobalOrdinalsStringTermsAggregator.class));
+
+                aggregationBuilder.subAggregation(AggregationBuilders.cardinality("card").field("string"));
+                aggregator = createAggregator(aggregationBuilder, indexSearcher, fieldType);
+                assertThat(aggregator, instanceOf(GlobalOrdinalsStringTermsAggregator.class));
+
+                aggregationBuilder.executionHint("segment_ordinals");
+                aggregator = createAggregator(aggregationBuilder, indexSearcher, fieldType);
+                assertThat(aggregator, instanceOf(GlobalOrdinalsStringTermsAggregator.class));
+            }
+        }
+    }
+
+    public void testKeyOrderOnSortedIndex() throws Exception {
+        randomizeAggregatorImpl = false;
+        boolean reverse = randomBoolean();
+        Sort indexSort = new Sort(
+            new SortedNumericSortField("number", SortField.Type.LONG, reverse),
+            new SortedSetSortField("string", reverse)
+        );
+        try (Directory directory = newDirectory()) {
+            int numSegments = randomIntBetween(1, 4);
+            TreeMap<Long, Long> expectedNumbers = new TreeMap<>();
+            TreeMap<String, Long> expectedStrings = new TreeMap<>();
+            int totalDocs = 0;
+            IndexWriterConfig config = new IndexWriterConfig().setMergePolicy(NoMergePolicy.INSTANCE).setIndexSort(indexSort);
+            try (IndexWriter indexWriter = new IndexWriter(directory, config)) {
+                for (int i = 0; i < numSegments; i++) {
+                    int numDocs = randomIntBetween(1, 200);
+                    for (int j = 0; j < numDocs; j++) {
+                        Document document = new Document();
+                        long number = randomIntBetween(0, 50);
+                        String string = "value" + randomIntBetween(10, 60);
+                        document.add(new SortedNumericDocValuesField("number", number));
+                        document.add(new SortedSetDocValuesField("string", new BytesRef(string)));
+                        expectedNumbers.merge(number, 1L, Long::sum);
+                        expectedStrings.merge(string, 1L, Long::sum);
+                        indexWriter.addDocument(document);
+                    }
+                    totalDocs += numDocs;
+                    indexWriter.commit();
+                }
+            }
+            try (IndexReader indexReader = DirectoryReader.open(directory)) {
+                IndexSearcher indexSearcher = new IndexSearcher(indexReader);
+                MappedFieldType numberFieldType = new NumberFieldMapper.NumberFieldType(NumberFieldMapper.NumberType.LONG);
+                numberFieldType.setName("number");
+                numberFieldType.setHasDocValues(true);
+                MappedFieldType stringFieldType = new KeywordFieldMapper.KeywordFieldType();
+                stringFieldType.setName("string");
+                stringFieldType.setHasDocValues(true);
+
+                int size = randomIntBetween(1, 20);
+                Map<Long, Long> numbers = reverse ? expectedNumbers.descendingMap() : expectedNumbers;
+                TermsAggregationBuilder aggregationBuilder = new TermsAggregationBuilder("_name", ValueType.LONG)
+                    .field("number")
+                    .order(BucketOrder.key(reverse == false))
+                    .size(size)
+                    .shardSize(size);
+                TermsAggregator aggregator = createAggregator(aggregationBuilder, indexSearcher, numberFieldType, stringFieldType);
+                aggregator.preCollection();
+                indexSearcher.search(new MatchAllDocsQuery(), aggregator);
+                aggregator.postCollection();
+                Terms result = (Terms) aggregator.buildAggregation(0L);
+                assertKeyOrderedBuckets(numbers, result, size, totalDocs);
+
+                Map<String, Long> strings = reverse ? expectedStrings.descendingMap() : expectedStrings;
+                aggregationBuilder = new TermsAggregationBuilder("_name", ValueType.STRING)
+                    .field("string")
+                    .executionHint("global_ordinals")
+                    .order(BucketOrder.key(reverse == false))
+                    .size(size)
+                    .shardSize(size);
+                aggregator = createAggregator(aggregationBuilder, indexSearcher, numberFieldType, stringFieldType);
+                aggregator.preCollection();
+                indexSearcher.search(new MatchAllDocsQuery(), aggregator);
+                aggregator.postCollection();
+                result = (Terms) aggregator.buildAggregation(0L);
+                assertKeyOrderedBuckets(strings, result, size, totalDocs);
+            }
+        }
+    }
+
+    public void testShardMinDocCountOnSortedIndex() throws Exception {
+        randomizeAggregatorImpl = false;
+        boolean reverse = randomBoolean();
+        Sort indexSort = new Sort(
+            new SortedNumericSortField("number", SortField.Type.LONG, reverse),
+            new SortedSetSortField("string", reverse)
+        );
+        List<List<Document>> segments = new ArrayList<>();
+        int numSegments = randomIntBetween(1, 4);
+        for (int i = 0; i < numSegments; i++) {
+            List<Document> documents = new ArrayList<>();
+            int numDocs = randomIntBetween(1, 200);
+            for (int j = 0; j < numDocs; j++) {
+                Document document = new Document();
+                document.add(new SortedNumericDocValuesField("number", randomIntBetween(0, 100)));
+                document.add(new SortedSetDocValuesField("string", new BytesRef("value" + randomIntBetween(100, 200))));
+                documents.add(document);
+            }
+            segments.add(documents);
+        }
+        MappedFieldType numberFieldType = new NumberFieldMapper.NumberFieldType(NumberFieldMapper.NumberType.LONG);
+        numberFieldType.setName("number");
+        numberFieldType.setHasDocValues(true);
+        MappedFieldType stringFieldType = new KeywordFieldMapper.KeywordFieldType();
+        stringFieldType.setName("string");
+        stringFieldType.setHasDocValues(true);
+
+        try (Directory sortedDirectory = newDirectory(); Directory unsortedDirectory = newDirectory()) {
+            indexSegments(sortedDirectory, indexSort, segments);
+            indexSegments(unsortedDirectory, null, segments);
+            try (IndexReader sortedReader = DirectoryReader.open(sortedDirectory);
+                 IndexReader unsortedReader = DirectoryReader.open(unsortedDirectory)) {
+                int size = randomIntBetween(1, 20);
+                long shardMinDocCount = randomLongBetween(2, 4);
+                List<TermsAggregationBuilder> aggregationBuilders = new ArrayList<>();
+                aggregationBuilders.add(new TermsAggregationBuilder("_name", ValueType.LONG)
+                    .field("number"));
+                aggregationBuilders.add(new TermsAggregationBuilder("_name", ValueType.STRING)
+                    .field("string")
+                    .executionHint("global_ordinals"));
+                for (TermsAggregationBuilder aggregationBuilder : aggregationBuilders) {
+                    aggregationBuilder.order(BucketOrder.key(reverse == false))
+                        .size(size)
+                        .shardSize(size)
+                        .shardMinDocCount(shardMinDocCount);
+                    InternalTerms<?, ?> expected = search(new IndexSearcher(unsortedReader), new MatchAllDocsQuery(),
+                        aggregationBuilder, numberFieldType, stringFieldType);
+                    InternalTerms<?, ?> result = search(new IndexSearcher(sortedReader), new MatchAllDocsQuery(),
+                        aggregationBuilder, numberFieldType, stringFieldType);
+                    assertEquals(expected.getBuckets().size(), result.getBuckets().size());
+                    for (int i = 0; i < expected.getBuckets().size(); i++) {
+                        assertEquals(expected.getBuckets().get(i).getKey(), result.getBuckets().get(i).getKey());
+                        assertEquals(expected.getBuckets().get(i).getDocCount(), result.getBuckets().get(i).getDocCount());
+                    }
+                    assertEquals(expected.getSumOfOtherDocCounts(), result.getSumOfOtherDocCounts());
+                }
+            }
+        }
+    }
+
+    private static void indexSegments(Directory directory, Sort indexSort, List<List<Document>> segments) throws IOException {
+        IndexWriterConfig config = new IndexWriterConfig().setMergePolicy(NoMergePolicy.INSTANCE);
+        if (indexSort != null) {
+            config.setIndexSort(indexSort);
+        }
+        try (IndexWriter indexWriter = new IndexWriter(directory, config)) {
+            for (List<Document> documents : segments) {
+                for (Document document : documents) {
+                    indexWriter.addDocument(document);
+                }
+                indexWriter.commit();
+            }
+        }
+    }
+
+    private static void assertKeyOrderedBuckets(Map<?, Long> expected, Terms result, int size, long totalDocs) {
+        assertEquals(Math.min(size, expected.size()), result.getBuckets().size());
+        Iterator<? extends Map.Entry<?, Long>> it = expected.entrySet().iterator();
+        long docCount = 0;
+        for (Terms.Bucket bucket : result.getBuckets()) {
+            Map.Entry<?, Long> entry = it.next();
+            assertEquals(entry.getKey(), bucket.getKey());
+            assertEquals(entry.getValue().longValue(), bucket.getDocCount());
+            docCount += bucket.getDocCount();
+        }
+        assertEquals(totalDocs - docCount, result.getSumOfOtherDocCounts());
+    }
+
     public void testSimple() throws Exception {
         try (Directory directory = newDirectory()) {
             try (RandomIndexWriter indexWriter = new RandomIndexWriter(random(), directory)) {
@@ -19,8 +19,13 @@
 
 package org.elasticsearch.search.aggregations.metrics;
 
+import org.elasticsearch.common.Strings;
 import org.elasticsearch.search.aggregations.BaseAggregationTestCase;
 import org.elasticsearch.search.aggregations.metrics.percentiles.PercentileRanksAggregationBuilder;
+import org.elasticsearch.search.aggregations.metrics.percentiles.tdigest.TDigestExecutionHint;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.not;
 
 public class PercentileRanksTests extends BaseAggregationTestCase<PercentileRanksAggregationBuilder> {
 
@@ -42,6 +47,9 @@ public class PercentileRanksTests extends BaseAggregationTestCase<PercentileRank
         if (randomBoolean()) {
             factory.compression(randomIntBetween(1, 50000));
         }
+        if (randomBoolean()) {
+            factory.executionHint(randomFrom(TDigestExecutionHint.values()));
+        }
         String field = randomNumericField();
         randomFieldOrScript(factory, field);
         if (randomBoolean()) {
@@ -50,4 +58,10 @@ public class PercentileRanksTests extends BaseAggregationTestCase<PercentileRank
         return factory;
     }
 
+    public void testDefaultExecutionHintIsNotRendered() {
+        PercentileRanksAggregationBuilder builder = new PercentileRanksAggregationBuilder("testAgg", new double[] { 1.0 }).field("field");
+        assertThat(Strings.toString(builder), not(containsString("execution_hint")));
+        builder.executionHint(TDigestExecutionHint.MERGING);
+        assertThat(Strings.toString(builder), containsString("\"execution_hint\":\"" + TDigestExecutionHint.MERGING + "\""));
+    }
 }
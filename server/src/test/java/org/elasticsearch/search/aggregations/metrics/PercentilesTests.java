@@ -20,15 +20,18 @@
 package org.elasticsearch.search.aggregations.metrics;
 
 import org.elasticsearch.ExceptionsHelper;
+import org.elasticsearch.common.Strings;
 import org.elasticsearch.common.xcontent.XContentParseException;
 import org.elasticsearch.common.xcontent.XContentParser;
 import org.elasticsearch.common.xcontent.json.JsonXContent;
 import org.elasticsearch.search.aggregations.BaseAggregationTestCase;
 import org.elasticsearch.search.aggregations.metrics.percentiles.PercentilesAggregationBuilder;
+import org.elasticsearch.search.aggregations.metrics.percentiles.tdigest.TDigestExecutionHint;
 
 import java.io.IOException;
 
 import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.not;
 
 public class PercentilesTests extends BaseAggregationTestCase<PercentilesAggregationBuilder> {
 
@@ -52,6 +55,9 @@ public class PercentilesTests extends BaseAggregationTestCase<PercentilesAggrega
         if (randomBoolean()) {
             factory.compression(randomIntBetween(1, 50000));
         }
+        if (randomBoolean()) {
+            factory.executionHint(randomFrom(TDigestExecutionHint.values()));
+        }
         String field = randomNumericField();
         randomFieldOrScript(factory, field);
         if (randomBoolean()) {
@@ -63,6 +69,13 @@ public class PercentilesTests extends BaseAggregationTestCase<PercentilesAggrega
         return factory;
     }
 
+    public void testDefaultExecutionHintIsNotRendered() {
+        PercentilesAggregationBuilder builder = new PercentilesAggregationBuilder("testAgg").field("field");
+        assertThat(Strings.toString(builder), not(containsString("execution_hint")));
+        builder.executionHint(TDigestExecutionHint.MERGING);
+        assertThat(Strings.toString(builder), containsString("\"execution_hint\":\"" + TDigestExecutionHint.MERGING + "\""));
+    }
+
     public void testNullOrEmptyPercentilesThrows() throws IOException {
         PercentilesAggregationBuilder builder = new PercentilesAggregationBuilder("testAgg");
         IllegalArgumentException ex = expectThrows(IllegalArgumentException.class, () -> builder.percentiles(null));
@@ -21,12 +21,18 @@ package org.elasticsearch.search.aggregations.metrics.cardinality;
 
 import com.carrotsearch.hppc.BitMixer;
 import com.carrotsearch.hppc.IntHashSet;
+import org.elasticsearch.Version;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.util.BigArrays;
 import org.elasticsearch.test.ESTestCase;
 
+import java.io.IOException;
+
 import static org.elasticsearch.search.aggregations.metrics.cardinality.HyperLogLogPlusPlus.MAX_PRECISION;
 import static org.elasticsearch.search.aggregations.metrics.cardinality.HyperLogLogPlusPlus.MIN_PRECISION;
 import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.Matchers.lessThan;
 
 public class HyperLogLogPlusPlusTests extends ESTestCase {
     public void testEncodeDecode() {
@@ -117,6 +123,45 @@ public class HyperLogLogPlusPlusTests extends ESTestCase {
         assertEquals(1, counts.cardinality(0));
     }
 
+    public void testMemoryUsageOfSparseBuckets() {
+        final int p = randomIntBetween(14, MAX_PRECISION);
+        final int numBuckets = randomIntBetween(1000, 10000);
+        final int valuesPerBucket = randomIntBetween(1, 10);
+        try (HyperLogLogPlusPlus counts = new HyperLogLogPlusPlus(p, BigArrays.NON_RECYCLING_INSTANCE, 1)) {
+            for (int bucket = 0; bucket < numBuckets; ++bucket) {
+                for (int i = 0; i < valuesPerBucket; ++i) {
+                    counts.collect(bucket, BitMixer.mix64(randomInt()));
+                }
+            }
+            // buckets that only see a few values should use much less memory than their registers
+            assertThat(counts.ramBytesUsed(), lessThan(numBuckets * HyperLogLogPlusPlus.memoryUsage(p) / 16));
+            for (int bucket = 0; bucket < numBuckets; ++bucket) {
+                assertThat((double) counts.cardinality(bucket), closeTo(valuesPerBucket, 0.1 * valuesPerBucket));
+            }
+        }
+    }
+
+    public void testSerialization() throws IOException {
+        final int p = randomIntBetween(MIN_PRECISION, MAX_PRECISION);
+        final HyperLogLogPlusPlus counts = new HyperLogLogPlusPlus(p, BigArrays.NON_RECYCLING_INSTANCE, 0);
+        final long bucket = randomInt(10);
+        final int numValues = randomBoolean() ? randomIntBetween(0, 10) : randomIntBetween(1, 100000);
+        for (int i = 0; i < numValues; ++i) {
+            counts.collect(bucket, BitMixer.mix64(randomInt()));
+        }
+        final Version version = randomFrom(Version.CURRENT, Version.V_6_8_23);
+        try (BytesStreamOutput out = new BytesStreamOutput()) {
+            out.setVersion(version);
+            counts.writeTo(bucket, out);
+            try (StreamInput in = out.bytes().streamInput()) {
+                in.setVersion(version);
+                final HyperLogLogPlusPlus read = HyperLogLogPlusPlus.readFrom(in, BigArrays.NON_RECYCLING_INSTANCE);
+                assertEquals(counts.cardinality(bucket), read.cardinality(0));
+                assertEquals(counts.hashCode(bucket), read.hashCode(0));
+            }
+        }
+    }
+
     public void testPrecisionFromThreshold() {
         assertEquals(4, HyperLogLogPlusPlus.precisionFromThreshold(0));
         assertEquals(6, HyperLogLogPlusPlus.precisionFromThreshold(10));
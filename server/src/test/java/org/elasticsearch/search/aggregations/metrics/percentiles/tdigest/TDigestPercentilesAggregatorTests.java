@@ -133,8 +133,28 @@ public class TDigestPercentilesAggregatorTests extends AggregatorTestCase {
         });
     }
 
+    public void testMergingExecutionHint() throws IOException {
+        final int numDocs = randomIntBetween(1000, 5000);
+        testCase(new MatchAllDocsQuery(), iw -> {
+            for (int i = 0; i < numDocs; i++) {
+                iw.addDocument(singleton(new SortedNumericDocValuesField("number", i)));
+            }
+        }, TDigestExecutionHint.MERGING, tdigest -> {
+            assertEquals(TDigestExecutionHint.MERGING, tdigest.state.executionHint());
+            assertEquals(numDocs, tdigest.state.size());
+            assertEquals(0d, tdigest.percentile(0), numDocs * 0.01);
+            assertEquals(numDocs - 1, tdigest.percentile(100), numDocs * 0.01);
+            assertEquals(numDocs / 2d, tdigest.percentile(50), numDocs * 0.01);
+        });
+    }
+
     private void testCase(Query query, CheckedConsumer<RandomIndexWriter, IOException> buildIndex,
                           Consumer<InternalTDigestPercentiles> verify) throws IOException {
+        testCase(query, buildIndex, TDigestExecutionHint.DEFAULT, verify);
+    }
+
+    private void testCase(Query query, CheckedConsumer<RandomIndexWriter, IOException> buildIndex, TDigestExecutionHint executionHint,
+                          Consumer<InternalTDigestPercentiles> verify) throws IOException {
         try (Directory directory = newDirectory()) {
             try (RandomIndexWriter indexWriter = new RandomIndexWriter(random(), directory)) {
                 buildIndex.accept(indexWriter);
@@ -144,7 +164,8 @@ public class TDigestPercentilesAggregatorTests extends AggregatorTestCase {
                 IndexSearcher indexSearcher = newSearcher(indexReader, true, true);
 
                 PercentilesAggregationBuilder builder =
-                        new PercentilesAggregationBuilder("test").field("number").method(PercentilesMethod.TDIGEST);
+                        new PercentilesAggregationBuilder("test").field("number").method(PercentilesMethod.TDIGEST)
+                            .executionHint(executionHint);
 
                 MappedFieldType fieldType = new NumberFieldMapper.NumberFieldType(NumberFieldMapper.NumberType.LONG);
                 fieldType.setName("number");
@@ -19,16 +19,24 @@
 
 package org.elasticsearch.search.aggregations.metrics.percentiles.tdigest;
 
+import org.elasticsearch.Version;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.test.ESTestCase;
 
+import java.io.IOException;
 import java.util.Arrays;
 
+import static org.hamcrest.Matchers.allOf;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
 public class TDigestStateTests extends ESTestCase {
 
     public void testMoreThan4BValues() {
         // Regression test for #19528
         // See https://github.com/tdunning/t-digest/pull/70/files#diff-4487072cee29b939694825647928f742R439
-        TDigestState digest = new TDigestState(100);
+        TDigestState digest = new TDigestState(100, randomFrom(TDigestExecutionHint.values()));
         for (int i = 0; i < 1000; ++i) {
             digest.add(randomDouble());
         }
@@ -50,4 +58,87 @@ public class TDigestStateTests extends ESTestCase {
             prev = v;
         }
     }
+
+    public void testMergingAccuracy() {
+        final double compression = randomFrom(100, 200);
+        final int numValues = randomIntBetween(10000, 100000);
+        final double[] values = new double[numValues];
+        final TDigestState avlTree = new TDigestState(compression, TDigestExecutionHint.AVL_TREE);
+        final TDigestState merging = new TDigestState(compression, TDigestExecutionHint.MERGING);
+        for (int i = 0; i < numValues; ++i) {
+            values[i] = randomBoolean() ? randomDouble() : randomGaussian();
+            avlTree.add(values[i]);
+            merging.add(values[i]);
+        }
+        Arrays.sort(values);
+        assertEquals(avlTree.size(), merging.size());
+        assertThat(merging.centroidCount(), lessThanOrEqualTo(avlTree.centroidCount()));
+        for (double q : new double[] { 0.01, 0.1, 0.25, 0.5, 0.75, 0.9, 0.99 }) {
+            final double rankError = 0.02;
+            // the estimates of both implementations must be within 2% of the expected rank
+            final double min = values[(int) Math.max(0, Math.floor((q - rankError) * (numValues - 1)))];
+            final double max = values[(int) Math.min(numValues - 1, Math.ceil((q + rankError) * (numValues - 1)))];
+            assertThat(avlTree.quantile(q), allOf(greaterThanOrEqualTo(min), lessThanOrEqualTo(max)));
+            assertThat(merging.quantile(q), allOf(greaterThanOrEqualTo(min), lessThanOrEqualTo(max)));
+        }
+    }
+
+    public void testMergeManyDigests() {
+        final TDigestExecutionHint executionHint = randomFrom(TDigestExecutionHint.values());
+        final TDigestState[] digests = new TDigestState[randomIntBetween(10, 500)];
+        final TDigestState single = new TDigestState(100, executionHint);
+        long totalCount = 0;
+        for (int i = 0; i < digests.length; ++i) {
+            digests[i] = new TDigestState(100, executionHint);
+            final int numValues = randomIntBetween(0, 1000);
+            for (int j = 0; j < numValues; ++j) {
+                final double value = randomDouble();
+                digests[i].add(value);
+                single.add(value);
+            }
+            totalCount += numValues;
+        }
+        final TDigestState merged = new TDigestState(100, executionHint);
+        for (TDigestState digest : digests) {
+            merged.add(digest);
+        }
+        assertEquals(totalCount, merged.size());
+        if (totalCount > 0) {
+            for (double q : new double[] { 0.01, 0.5, 0.99 }) {
+                assertEquals(single.quantile(q), merged.quantile(q), 0.02);
+            }
+        }
+    }
+
+    public void testSerialization() throws IOException {
+        final TDigestState state = new TDigestState(randomFrom(50, 100, 200), randomFrom(TDigestExecutionHint.values()));
+        final int numValues = randomIntBetween(0, 10000);
+        for (int i = 0; i < numValues; ++i) {
+            state.add(randomDouble());
+        }
+        final Version version = randomFrom(Version.CURRENT, Version.V_6_8_23);
+        try (BytesStreamOutput out = new BytesStreamOutput()) {
+            out.setVersion(version);
+            TDigestState.write(state, out);
+            try (StreamInput in = out.bytes().streamInput()) {
+                in.setVersion(version);
+                final TDigestState read = TDigestState.read(in);
+                assertEquals(state.compression(), read.compression(), 0d);
+                assertEquals(state.size(), read.size());
+                if (version.onOrAfter(Version.V_6_8_24)) {
+                    assertEquals(state.executionHint(), read.executionHint());
+                } else {
+                    assertEquals(TDigestExecutionHint.AVL_TREE, read.executionHint());
+                }
+            }
+        }
+    }
+
+    public void testParseExecutionHint() {
+        for (TDigestExecutionHint hint : TDigestExecutionHint.values()) {
+            assertSame(hint, TDigestExecutionHint.parse(hint.toString()));
+        }
+        IllegalArgumentException e = expectThrows(IllegalArgumentException.class, () -> TDigestExecutionHint.parse("foo"));
+        assertEquals("Unknown `execution_hint`: [foo], expected any of [avl_tree, merging]", e.getMessage());
+    }
 }
@@ -0,0 +1,112 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.search.aggregations.pipeline;
+
+import org.elasticsearch.script.Script;
+import org.elasticsearch.script.ScriptType;
+import org.elasticsearch.test.ESTestCase;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public class BucketExpressionTests extends ESTestCase {
+
+    private static final List<String> VARIABLES = Arrays.asList("a", "b", "c");
+
+    private static BucketExpression compile(String source) {
+        return BucketExpression.compile(new Script(source), VARIABLES);
+    }
+
+    private static double execute(String source, double... values) {
+        BucketExpression expression = compile(source);
+        assertNotNull(source, expression);
+        assertFalse(source, expression.isPredicate());
+        return expression.execute(values);
+    }
+
+    private static boolean test(String source, double... values) {
+        BucketExpression expression = compile(source);
+        assertNotNull(source, expression);
+        assertTrue(source, expression.isPredicate());
+        return expression.test(values);
+    }
+
+    public void testArithmetic() {
+        assertEquals(5d, execute("params.a + params.b", 2, 3, 0), 0d);
+        assertEquals(-1d, execute("params.a - params.b", 2, 3, 0), 0d);
+        assertEquals(50d, execute("params.a / params.b * 100", 1, 2, 0), 0d);
+        assertEquals(1d, execute("params.a % params.b", 7, 3, 0), 0d);
+        assertEquals(14d, execute("params.a + params.b * params.c", 2, 3, 4), 0d);
+        assertEquals(20d, execute("(params.a + params.b) * params.c", 2, 3, 4), 0d);
+        assertEquals(-5d, execute("-(params.a + params.b)", 2, 3, 0), 0d);
+        assertEquals(5d, execute("params.a - -params.b", 2, 3, 0), 0d);
+        assertEquals(2d, execute("- -params.a", 2, 0, 0), 0d);
+        assertEquals(0.5d, execute("params.a / 2", 1, 0, 0), 0d);
+        assertEquals(Double.POSITIVE_INFINITY, execute("params.a / params.b", 1, 0, 0), 0d);
+        assertEquals(3.5d, execute(" return params.a*1.5 + 0.5 ; ", 2, 0, 0), 0d);
+    }
+
+    public void testComparisons() {
+        assertTrue(test("params.a > params.b", 3, 2, 0));
+        assertFalse(test("params.a < params.b", 3, 2, 0));
+        assertTrue(test("params.a >= 3", 3, 2, 0));
+        assertTrue(test("params.a <= 3", 3, 2, 0));
+        assertTrue(test("params.a == 3", 3, 2, 0));
+        assertTrue(test("params.a != params.b", 3, 2, 0));
+        assertTrue(test("params.a > 1 && params.b < 3 || params.c == 0", 0, 0, 0));
+        assertFalse(test("params.a > 1 && (params.b < 3 || params.c == 0)", 0, 0, 0));
+        assertTrue(test("!(params.a > params.b)", 1, 2, 0));
+        assertFalse(test("params.a > 1", Double.NaN, 0, 0));
+        assertTrue(test("params.a + params.b > params.c * 2", 2, 3, 2));
+    }
+
+    public void testUnsupported() {
+        // unknown variables and script parameters
+        assertNull(compile("params.d + 1"));
+        assertNull(compile("params.a.value + 1"));
+        // function calls and other painless constructs
+        assertNull(compile("Math.max(params.a, params.b)"));
+        assertNull(compile("params.a > 0 ? params.a : params.b"));
+        assertNull(compile("double x = params.a; return x;"));
+        assertNull(compile("params.a & params.b"));
+        // increments and decrements
+        assertNull(compile("params.a--params.b"));
+        assertNull(compile("params.a++params.b"));
+        assertNull(compile("--params.a"));
+        assertNull(compile("++params.a"));
+        assertNull(compile("params.a + --params.b"));
+        // type mismatches
+        assertNull(compile("params.a > 1 + params.b > 2"));
+        assertNull(compile("!params.a"));
+        assertNull(compile("(params.a > 1) * 2"));
+        // painless uses integer arithmetic for these
+        assertNull(compile("params.a * (1 / 2)"));
+        assertNull(compile("params.a + 010"));
+        assertNull(compile("params.a + 1L"));
+        assertNull(compile("params.a + 1e3"));
+        // syntax errors
+        assertNull(compile("params.a +"));
+        assertNull(compile("(params.a"));
+        assertNull(compile(""));
+        // other languages and stored scripts
+        assertNull(BucketExpression.compile(new Script(ScriptType.INLINE, "expression", "a + b", Collections.emptyMap()), VARIABLES));
+        assertNull(BucketExpression.compile(new Script(ScriptType.STORED, null, "params.a", Collections.emptyMap()), VARIABLES));
+    }
+}
@@ -0,0 +1,180 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.search.aggregations.pipeline;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.SortedNumericDocValuesField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.RandomIndexWriter;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.store.Directory;
+import org.elasticsearch.index.mapper.MappedFieldType;
+import org.elasticsearch.index.mapper.NumberFieldMapper;
+import org.elasticsearch.script.BucketAggregationScript;
+import org.elasticsearch.script.Script;
+import org.elasticsearch.script.ScriptService;
+import org.elasticsearch.search.aggregations.AggregatorTestCase;
+import org.elasticsearch.search.aggregations.bucket.histogram.Histogram;
+import org.elasticsearch.search.aggregations.bucket.histogram.HistogramAggregationBuilder;
+import org.elasticsearch.search.aggregations.bucket.histogram.InternalHistogram;
+import org.elasticsearch.search.aggregations.metrics.sum.SumAggregationBuilder;
+import org.elasticsearch.search.aggregations.pipeline.BucketHelpers.GapPolicy;
+import org.elasticsearch.search.aggregations.pipeline.bucketscript.BucketScriptPipelineAggregationBuilder;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.elasticsearch.test.InternalAggregationTestCase.DEFAULT_MAX_BUCKETS;
+import static org.mockito.Matchers.anyMapOf;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class BucketScriptAggregatorTests extends AggregatorTestCase {
+
+    private static final String HISTO_FIELD = "number";
+    private static final String VALUE_FIELD = "value";
+    // the histogram has an empty bucket for 2
+    private static final long[] NUMBERS = new long[] { 0, 1, 1, 3 };
+
+    public void testExpressionWithSkipGapPolicy() throws IOException {
+        Script script = new Script("params.a * 2");
+        Map<String, String> bucketsPaths = new HashMap<>();
+        bucketsPaths.put("a", "sum");
+        BucketScriptPipelineAggregationBuilder pipeline = new BucketScriptPipelineAggregationBuilder("script", bucketsPaths, script)
+            .gapPolicy(GapPolicy.SKIP);
+        List<Map<String, Object>> executions = new ArrayList<>();
+
+        List<? extends Histogram.Bucket> buckets = executeTestCase(pipeline, script, executions).getBuckets();
+        assertEquals(4, buckets.size());
+        assertEquals(2d, scriptValue(buckets.get(0)), 0d);
+        assertEquals(8d, scriptValue(buckets.get(1)), 0d);
+        // the empty bucket is skipped
+        assertNull(buckets.get(2).getAggregations().get("script"));
+        assertEquals(8d, scriptValue(buckets.get(3)), 0d);
+        // the expression is evaluated without the script
+        assertEquals(0, executions.size());
+    }
+
+    public void testUnresolvedPathFallsBackToScript() throws IOException {
+        Script script = new Script("params.a + params.b");
+        Map<String, String> bucketsPaths = new HashMap<>();
+        bucketsPaths.put("a", "sum");
+        bucketsPaths.put("b", "unknown");
+        BucketScriptPipelineAggregationBuilder pipeline = new BucketScriptPipelineAggregationBuilder("script", bucketsPaths, script)
+            .gapPolicy(GapPolicy.INSERT_ZEROS);
+        List<Map<String, Object>> executions = new ArrayList<>();
+
+        List<? extends Histogram.Bucket> buckets = executeTestCase(pipeline, script, executions).getBuckets();
+        assertEquals(4, buckets.size());
+        for (Histogram.Bucket bucket : buckets) {
+            assertEquals(-1d, scriptValue(bucket), 0d);
+        }
+        // the script gets the unresolved value as null
+        assertEquals(4, executions.size());
+        double[] sums = new double[] { 1, 4, 0, 4 };
+        for (int i = 0; i < executions.size(); i++) {
+            assertEquals(sums[i], (Double) executions.get(i).get("a"), 0d);
+            assertTrue(executions.get(i).containsKey("b"));
+            assertNull(executions.get(i).get("b"));
+        }
+    }
+
+    public void testUnresolvedPathWithSkipGapPolicy() throws IOException {
+        Script script = new Script("params.a + params.b");
+        Map<String, String> bucketsPaths = new HashMap<>();
+        bucketsPaths.put("a", "sum");
+        bucketsPaths.put("b", "unknown");
+        BucketScriptPipelineAggregationBuilder pipeline = new BucketScriptPipelineAggregationBuilder("script", bucketsPaths, script)
+            .gapPolicy(GapPolicy.SKIP);
+        List<Map<String, Object>> executions = new ArrayList<>();
+
+        List<? extends Histogram.Bucket> buckets = executeTestCase(pipeline, script, executions).getBuckets();
+        assertEquals(4, buckets.size());
+        for (Histogram.Bucket bucket : buckets) {
+            assertNull(bucket.getAggregations().get("script"));
+        }
+        assertEquals(0, executions.size());
+    }
+
+    private static double scriptValue(Histogram.Bucket bucket) {
+        InternalSimpleValue value = bucket.getAggregations().get("script");
+        assertNotNull(value);
+        return value.value();
+    }
+
+    /**
+     * Runs the pipeline in a histogram of the {@link #NUMBERS} that sums the values of each bucket.
+     * The script, if executed, records its parameters in <code>executions</code> and returns -1.
+     */
+    private InternalHistogram executeTestCase(BucketScriptPipelineAggregationBuilder pipeline, Script script,
+                                              List<Map<String, Object>> executions) throws IOException {
+        HistogramAggregationBuilder aggBuilder = new HistogramAggregationBuilder("histo")
+            .field(HISTO_FIELD)
+            .interval(1)
+            .minDocCount(0);
+        aggBuilder.subAggregation(new SumAggregationBuilder("sum").field(VALUE_FIELD));
+        aggBuilder.subAggregation(pipeline);
+
+        ScriptService scriptService = mock(ScriptService.class);
+        BucketAggregationScript.Factory factory = mock(BucketAggregationScript.Factory.class);
+        when(scriptService.compile(script, BucketAggregationScript.CONTEXT)).thenReturn(factory);
+        when(factory.newInstance(anyMapOf(String.class, Object.class))).thenAnswer(invocation -> {
+            @SuppressWarnings("unchecked")
+            Map<String, Object> params = (Map<String, Object>) invocation.getArguments()[0];
+            executions.add(params);
+            return new BucketAggregationScript(params) {
+                @Override
+                public Number execute() {
+                    return -1;
+                }
+            };
+        });
+
+        try (Directory directory = newDirectory()) {
+            try (RandomIndexWriter indexWriter = new RandomIndexWriter(random(), directory)) {
+                for (long number : NUMBERS) {
+                    Document document = new Document();
+                    document.add(new SortedNumericDocValuesField(HISTO_FIELD, number));
+                    document.add(new SortedNumericDocValuesField(VALUE_FIELD, number + 1));
+                    indexWriter.addDocument(document);
+                    if (frequently()) {
+                        indexWriter.commit();
+                    }
+                }
+            }
+            try (IndexReader indexReader = DirectoryReader.open(directory)) {
+                IndexSearcher indexSearcher = newSearcher(indexReader, true, true);
+                MappedFieldType histoFieldType = new NumberFieldMapper.NumberFieldType(NumberFieldMapper.NumberType.LONG);
+                histoFieldType.setName(HISTO_FIELD);
+                histoFieldType.setHasDocValues(true);
+                MappedFieldType valueFieldType = new NumberFieldMapper.NumberFieldType(NumberFieldMapper.NumberType.LONG);
+                valueFieldType.setName(VALUE_FIELD);
+                valueFieldType.setHasDocValues(true);
+                return searchAndReduce(indexSearcher, new MatchAllDocsQuery(), aggBuilder, DEFAULT_MAX_BUCKETS, scriptService,
+                    histoFieldType, valueFieldType);
+            }
+        }
+    }
+}
@@ -34,9 +34,13 @@ import org.elasticsearch.common.CheckedConsumer;
 import org.elasticsearch.index.mapper.DateFieldMapper;
 import org.elasticsearch.index.mapper.MappedFieldType;
 import org.elasticsearch.index.mapper.NumberFieldMapper;
+import org.elasticsearch.search.DocValueFormat;
 import org.elasticsearch.search.aggregations.AggregationBuilder;
 import org.elasticsearch.search.aggregations.AggregatorTestCase;
 import org.elasticsearch.search.aggregations.InternalAggregation;
+import org.elasticsearch.search.aggregations.InternalMultiBucketAggregation;
+import org.elasticsearch.search.aggregations.MultiBucketConsumerService;
+import org.elasticsearch.search.aggregations.MultiBucketConsumerService.MultiBucketConsumer;
 import org.elasticsearch.search.aggregations.PipelineAggregationBuilder;
 import org.elasticsearch.search.aggregations.TestAggregatorFactory;
 import org.elasticsearch.search.aggregations.bucket.histogram.DateHistogramAggregationBuilder;
@@ -48,12 +52,15 @@ import org.elasticsearch.search.aggregations.metrics.avg.InternalAvg;
 import org.elasticsearch.search.aggregations.metrics.sum.Sum;
 import org.elasticsearch.search.aggregations.metrics.sum.SumAggregationBuilder;
 import org.elasticsearch.search.aggregations.pipeline.cumulativesum.CumulativeSumPipelineAggregationBuilder;
+import org.elasticsearch.search.aggregations.pipeline.derivative.Derivative;
 import org.elasticsearch.search.aggregations.pipeline.derivative.DerivativePipelineAggregationBuilder;
+import org.elasticsearch.search.aggregations.pipeline.serialdiff.SerialDiffPipelineAggregationBuilder;
 
 import java.io.IOException;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Set;
 import java.util.function.Consumer;
@@ -126,6 +133,116 @@ public class CumulativeSumAggregatorTests extends AggregatorTestCase {
         });
     }
 
+    /**
+     * Pipelines that read the output of the pipelines evaluated before them in the same pass over the buckets
+     */
+    public void testChainedPipelines() throws IOException {
+        Query query = new MatchAllDocsQuery();
+
+        DateHistogramAggregationBuilder aggBuilder = new DateHistogramAggregationBuilder("histo");
+        aggBuilder.dateHistogramInterval(DateHistogramInterval.DAY).field(HISTO_FIELD);
+        aggBuilder.subAggregation(new AvgAggregationBuilder("the_avg").field(VALUE_FIELD));
+        aggBuilder.subAggregation(new CumulativeSumPipelineAggregationBuilder("cusum", "the_avg"));
+        aggBuilder.subAggregation(new DerivativePipelineAggregationBuilder("the_deriv", "cusum"));
+        aggBuilder.subAggregation(new SerialDiffPipelineAggregationBuilder("the_diff", "cusum").lag(1));
+
+        executeTestCase(query, aggBuilder, histogram -> {
+            assertEquals(10, ((Histogram)histogram).getBuckets().size());
+            List<? extends Histogram.Bucket> buckets = ((Histogram)histogram).getBuckets();
+            double sum = 0.0;
+            for (int i = 0; i < buckets.size(); i++) {
+                double avg = ((InternalAvg) (buckets.get(i).getAggregations().get("the_avg"))).value();
+                sum += avg;
+                assertThat(((InternalSimpleValue) (buckets.get(i).getAggregations().get("cusum"))).value(), equalTo(sum));
+                if (i == 0) {
+                    assertNull(buckets.get(i).getAggregations().get("the_deriv"));
+                    assertNull(buckets.get(i).getAggregations().get("the_diff"));
+                } else {
+                    assertThat(((Derivative) (buckets.get(i).getAggregations().get("the_deriv"))).value(), equalTo(avg));
+                    assertThat(((InternalSimpleValue) (buckets.get(i).getAggregations().get("the_diff"))).value(), equalTo(avg));
+                }
+            }
+        });
+    }
+
+    /**
+     * Pipelines evaluated in the same pass only copy a bucket before a visitor if it reads the output of a previous visitor
+     */
+    public void testFusedPipelinesCopyBucketsOnce() throws IOException {
+        DateHistogramAggregationBuilder aggBuilder = new DateHistogramAggregationBuilder("histo");
+        aggBuilder.dateHistogramInterval(DateHistogramInterval.DAY).field(HISTO_FIELD);
+        aggBuilder.subAggregation(new AvgAggregationBuilder("the_avg").field(VALUE_FIELD));
+
+        executeTestCase(new MatchAllDocsQuery(), aggBuilder, histogram -> {
+            InternalMultiBucketAggregation<?, ?> histo = (InternalMultiBucketAggregation<?, ?>) histogram;
+            Set<Object> originalBuckets = Collections.newSetFromMap(new IdentityHashMap<>());
+            originalBuckets.addAll(histo.getBuckets());
+            List<FusiblePipelineAggregator.BucketVisitor> visitors = Arrays.asList(
+                new TestBucketVisitor("first", null, bucket -> assertTrue(originalBuckets.contains(bucket))),
+                new TestBucketVisitor("second", null, bucket -> assertTrue(originalBuckets.contains(bucket))),
+                new TestBucketVisitor("third", "first", bucket -> {
+                    assertFalse(originalBuckets.contains(bucket));
+                    assertNotNull(bucket.getAggregations().get("first"));
+                }));
+
+            MultiBucketConsumer bucketConsumer = new MultiBucketConsumer(10000);
+            Histogram result = (Histogram) BucketHelpers.visitBuckets(histo, visitors,
+                new InternalAggregation.ReduceContext(null, null, bucketConsumer, true));
+            assertEquals(10, result.getBuckets().size());
+            for (Histogram.Bucket bucket : result.getBuckets()) {
+                assertFalse(originalBuckets.contains(bucket));
+                assertNotNull(bucket.getAggregations().get("the_avg"));
+                assertNotNull(bucket.getAggregations().get("first"));
+                assertNotNull(bucket.getAggregations().get("second"));
+                assertNotNull(bucket.getAggregations().get("third"));
+            }
+            // the copies replaced the original buckets
+            assertEquals(0, bucketConsumer.getCount());
+        });
+    }
+
+    /**
+     * The copies of the buckets count towards the maximum number of buckets while the original buckets are still alive
+     */
+    public void testFusedPipelinesAccountForCopiedBuckets() throws IOException {
+        DateHistogramAggregationBuilder aggBuilder = new DateHistogramAggregationBuilder("histo");
+        aggBuilder.dateHistogramInterval(DateHistogramInterval.DAY).field(HISTO_FIELD);
+        aggBuilder.subAggregation(new AvgAggregationBuilder("the_avg").field(VALUE_FIELD));
+
+        executeTestCase(new MatchAllDocsQuery(), aggBuilder, histogram -> {
+            InternalMultiBucketAggregation<?, ?> histo = (InternalMultiBucketAggregation<?, ?>) histogram;
+            MultiBucketConsumer bucketConsumer = new MultiBucketConsumer(15);
+            // the buckets of the response
+            bucketConsumer.accept(histo.getBuckets().size());
+            expectThrows(MultiBucketConsumerService.TooManyBucketsException.class, () -> BucketHelpers.visitBuckets(histo,
+                Collections.singletonList(new TestBucketVisitor("first", null, bucket -> {})),
+                new InternalAggregation.ReduceContext(null, null, bucketConsumer, true)));
+        });
+    }
+
+    private static class TestBucketVisitor implements FusiblePipelineAggregator.BucketVisitor {
+        private final String name;
+        private final String reads;
+        private final Consumer<InternalMultiBucketAggregation.InternalBucket> check;
+
+        TestBucketVisitor(String name, String reads, Consumer<InternalMultiBucketAggregation.InternalBucket> check) {
+            this.name = name;
+            this.reads = reads;
+            this.check = check;
+        }
+
+        @Override
+        public InternalAggregation visit(InternalMultiBucketAggregation.InternalBucket bucket) {
+            check.accept(bucket);
+            return new InternalSimpleValue(name, 1.0, DocValueFormat.RAW, Collections.emptyList(), null);
+        }
+
+        @Override
+        public boolean reads(String aggregationName) {
+            return aggregationName.equals(reads);
+        }
+    }
+
     public void testDocCount() throws IOException {
         Query query = new MatchAllDocsQuery();
 
@@ -0,0 +1,146 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.search.aggregations.pipeline.movavg;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.NumericDocValuesField;
+import org.apache.lucene.document.SortedNumericDocValuesField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.RandomIndexWriter;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.MatchAllDocsQuery;
+import org.apache.lucene.store.Directory;
+import org.elasticsearch.index.mapper.DateFieldMapper;
+import org.elasticsearch.index.mapper.MappedFieldType;
+import org.elasticsearch.index.mapper.NumberFieldMapper;
+import org.elasticsearch.search.aggregations.AggregatorTestCase;
+import org.elasticsearch.search.aggregations.MultiBucketConsumerService.TooManyBucketsException;
+import org.elasticsearch.search.aggregations.bucket.histogram.DateHistogramAggregationBuilder;
+import org.elasticsearch.search.aggregations.bucket.histogram.DateHistogramInterval;
+import org.elasticsearch.search.aggregations.bucket.histogram.Histogram;
+import org.elasticsearch.search.aggregations.bucket.histogram.InternalDateHistogram;
+import org.elasticsearch.search.aggregations.metrics.avg.AvgAggregationBuilder;
+import org.elasticsearch.search.aggregations.pipeline.InternalSimpleValue;
+import org.elasticsearch.search.aggregations.pipeline.movavg.models.SimpleModel;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+public class MovAvgUnitTests extends AggregatorTestCase {
+
+    private static final String DATE_FIELD = "date";
+    private static final String VALUE_FIELD = "value_field";
+
+    private static final List<String> datasetTimes = Arrays.asList(
+        "2017-01-01T01:07:45",
+        "2017-01-02T03:43:34",
+        "2017-01-03T04:11:00",
+        "2017-01-04T05:11:31",
+        "2017-01-05T08:24:05",
+        "2017-01-06T13:09:32",
+        "2017-01-07T13:47:43",
+        "2017-01-08T16:14:34",
+        "2017-01-09T17:09:50",
+        "2017-01-10T22:55:46");
+
+    private static final List<Integer> datasetValues = Arrays.asList(1,2,3,4,5,6,7,8,9,10);
+
+    /**
+     * Predicted buckets are appended after the histogram's own buckets, so they must be
+     * counted by the reduce context like any other bucket. {@link AggregatorTestCase#searchAndReduce}
+     * checks that the number of consumed buckets matches the number of buckets in the response.
+     */
+    public void testPredictedBucketsAreCounted() throws IOException {
+        executeTestCase(histogramWithPrediction(5), histogram -> {
+            List<? extends Histogram.Bucket> buckets = histogram.getBuckets();
+            assertEquals(15, buckets.size());
+            for (int i = 10; i < buckets.size(); i++) {
+                assertEquals(0, buckets.get(i).getDocCount());
+                assertNotNull(buckets.get(i).getAggregations().get("mov_avg"));
+                assertEquals(9.0, ((InternalSimpleValue) buckets.get(i).getAggregations().get("mov_avg")).value(), 0.0d);
+            }
+        }, 1000);
+    }
+
+    public void testPredictedBucketsTripTheBucketLimit() {
+        // the histogram itself fits in the limit, only the predicted buckets push it over
+        TooManyBucketsException e = expectThrows(TooManyBucketsException.class,
+            () -> executeTestCase(histogramWithPrediction(5), histogram -> fail("should have tripped the bucket limit"), 12));
+        assertEquals(12, e.getMaxBuckets());
+    }
+
+    private static DateHistogramAggregationBuilder histogramWithPrediction(int predict) {
+        DateHistogramAggregationBuilder aggBuilder = new DateHistogramAggregationBuilder("histo");
+        aggBuilder.dateHistogramInterval(DateHistogramInterval.DAY).field(DATE_FIELD);
+        aggBuilder.subAggregation(new AvgAggregationBuilder("avg").field(VALUE_FIELD));
+        aggBuilder.subAggregation(new MovAvgPipelineAggregationBuilder("mov_avg", "avg")
+            .window(3)
+            .modelBuilder(new SimpleModel.SimpleModelBuilder())
+            .predict(predict));
+        return aggBuilder;
+    }
+
+    private void executeTestCase(DateHistogramAggregationBuilder aggBuilder,
+                                 Consumer<Histogram> verify,
+                                 int maxBucket) throws IOException {
+
+        try (Directory directory = newDirectory()) {
+            try (RandomIndexWriter indexWriter = new RandomIndexWriter(random(), directory)) {
+                Document document = new Document();
+                int counter = 0;
+                for (String date : datasetTimes) {
+                    if (frequently()) {
+                        indexWriter.commit();
+                    }
+
+                    document.add(new SortedNumericDocValuesField(DATE_FIELD, asLong(date)));
+                    document.add(new NumericDocValuesField(VALUE_FIELD, datasetValues.get(counter)));
+                    indexWriter.addDocument(document);
+                    document.clear();
+                    counter += 1;
+                }
+            }
+
+            try (IndexReader indexReader = DirectoryReader.open(directory)) {
+                IndexSearcher indexSearcher = newSearcher(indexReader, true, true);
+
+                DateFieldMapper.Builder builder = new DateFieldMapper.Builder("_name");
+                DateFieldMapper.DateFieldType fieldType = builder.fieldType();
+                fieldType.setHasDocValues(true);
+                fieldType.setName(aggBuilder.field());
+
+                MappedFieldType valueFieldType = new NumberFieldMapper.NumberFieldType(NumberFieldMapper.NumberType.LONG);
+                valueFieldType.setHasDocValues(true);
+                valueFieldType.setName(VALUE_FIELD);
+
+                InternalDateHistogram histogram = searchAndReduce(indexSearcher, new MatchAllDocsQuery(), aggBuilder, maxBucket, null,
+                    fieldType, valueFieldType);
+                verify.accept(histogram);
+            }
+        }
+    }
+
+    private static long asLong(String dateTime) {
+        return DateFieldMapper.DEFAULT_DATE_TIME_FORMATTER.parseJoda(dateTime).getMillis();
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.search.aggregations.support;
+
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.store.Directory;
+import org.elasticsearch.common.unit.ByteSizeUnit;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.test.ESTestCase;
+
+import static org.hamcrest.Matchers.lessThan;
+
+public class ReaderKeyedCacheTests extends ESTestCase {
+
+    private static ReaderKeyedCache<String, Long> newCache(ByteSizeValue maxSize) {
+        return new ReaderKeyedCache<>(maxSize, TimeValue.timeValueMinutes(5), (key, value) -> key.length() + Long.BYTES);
+    }
+
+    public void testValuesAreInvalidatedOnReaderClose() throws Exception {
+        try (Directory directory = newDirectory()) {
+            try (IndexWriter writer = new IndexWriter(directory, newIndexWriterConfig())) {
+                writer.commit();
+            }
+            ReaderKeyedCache<String, Long> cache = newCache(new ByteSizeValue(1, ByteSizeUnit.MB));
+            try (DirectoryReader first = DirectoryReader.open(directory);
+                 DirectoryReader second = DirectoryReader.open(directory)) {
+                cache.put(first.getReaderCacheHelper(), "foo", 1L);
+                cache.put(first.getReaderCacheHelper(), "bar", 2L);
+                cache.put(second.getReaderCacheHelper(), "foo", 3L);
+                // replacing a value keeps it bound to its reader
+                cache.put(second.getReaderCacheHelper(), "foo", 4L);
+                assertEquals(3, cache.count());
+                assertEquals(Long.valueOf(1), cache.get(first.getReaderCacheHelper(), "foo"));
+                assertEquals(Long.valueOf(4), cache.get(second.getReaderCacheHelper(), "foo"));
+                assertNull(cache.get(second.getReaderCacheHelper(), "bar"));
+
+                first.close();
+                assertEquals(1, cache.count());
+                assertEquals(Long.valueOf(4), cache.get(second.getReaderCacheHelper(), "foo"));
+            }
+            assertEquals(0, cache.count());
+            assertEquals(0, cache.ramBytesUsed());
+        }
+    }
+
+    public void testMaxSize() throws Exception {
+        try (Directory directory = newDirectory()) {
+            try (IndexWriter writer = new IndexWriter(directory, newIndexWriterConfig())) {
+                writer.commit();
+            }
+            ReaderKeyedCache<String, Long> cache = newCache(new ByteSizeValue(100));
+            try (DirectoryReader reader = DirectoryReader.open(directory)) {
+                for (int i = 0; i < 100; i++) {
+                    cache.put(reader.getReaderCacheHelper(), "key" + i, (long) i);
+                }
+                assertThat(cache.count(), lessThan(100));
+                assertThat(cache.ramBytesUsed(), lessThan(101L));
+                cache.clear();
+                assertEquals(0, cache.count());
+            }
+        }
+    }
+}
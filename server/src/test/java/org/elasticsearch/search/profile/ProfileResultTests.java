@@ -19,19 +19,23 @@
 
 package org.elasticsearch.search.profile;
 
+import org.elasticsearch.Version;
 import org.elasticsearch.common.Strings;
 import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.io.stream.NamedWriteableRegistry;
 import org.elasticsearch.common.xcontent.ToXContent;
 import org.elasticsearch.common.xcontent.XContentBuilder;
 import org.elasticsearch.common.xcontent.XContentFactory;
 import org.elasticsearch.common.xcontent.XContentParser;
 import org.elasticsearch.common.xcontent.XContentType;
 import org.elasticsearch.test.ESTestCase;
+import org.elasticsearch.test.VersionUtils;
 
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.function.Predicate;
@@ -56,12 +60,17 @@ public class ProfileResultTests extends ESTestCase {
             }
             timings.put(randomAlphaOfLengthBetween(5, 10), time); // don't overflow Long.MAX_VALUE;
         }
+        int debugSize = randomIntBetween(0, 2);
+        Map<String, Object> debug = new HashMap<>(debugSize);
+        for (int i = 0; i < debugSize; i++) {
+            debug.put(randomAlphaOfLengthBetween(5, 10), randomAlphaOfLengthBetween(5, 10));
+        }
         int childrenSize = depth > 0 ? randomIntBetween(0, 1) : 0;
         List<ProfileResult> children = new ArrayList<>(childrenSize);
         for (int i = 0; i < childrenSize; i++) {
             children.add(createTestItem(depth - 1));
         }
-        return new ProfileResult(type, description, timings, children);
+        return new ProfileResult(type, description, timings, debug, children);
     }
 
     public void testFromXContent() throws IOException {
@@ -83,8 +92,9 @@ public class ProfileResultTests extends ESTestCase {
         BytesReference originalBytes = toShuffledXContent(profileResult, xContentType, ToXContent.EMPTY_PARAMS, humanReadable);
         BytesReference mutated;
         if (addRandomFields) {
-            // "breakdown" just consists of key/value pairs, we shouldn't add anything random there
-            Predicate<String> excludeFilter = (s) -> s.endsWith(ProfileResult.BREAKDOWN.getPreferredName());
+            // "breakdown" and "debug" just consist of key/value pairs, we shouldn't add anything random there
+            Predicate<String> excludeFilter = (s) -> s.endsWith(ProfileResult.BREAKDOWN.getPreferredName())
+                    || s.endsWith(ProfileResult.DEBUG.getPreferredName());
             mutated = insertRandomFields(xContentType, originalBytes, excludeFilter, random());
         } else {
             mutated = originalBytes;
@@ -100,6 +110,42 @@ public class ProfileResultTests extends ESTestCase {
         assertToXContentEquivalent(originalBytes, toXContent(parsed, xContentType, humanReadable), xContentType);
     }
 
+    public void testSerialization() throws IOException {
+        ProfileResult profileResult = createTestItem(2);
+        ProfileResult copy = copyWriteable(profileResult, new NamedWriteableRegistry(Collections.emptyList()), ProfileResult::new);
+        assertEquals(profileResult.getTime(), copy.getTime());
+        assertEquals(profileResult.getTimeBreakdown(), copy.getTimeBreakdown());
+        assertEquals(profileResult.getDebugInfo(), copy.getDebugInfo());
+        assertEquals(profileResult.getProfiledChildren().size(), copy.getProfiledChildren().size());
+
+        Version version = VersionUtils.randomVersionBetween(random(), Version.V_6_0_0, VersionUtils.getPreviousVersion(Version.V_6_8_24));
+        copy = copyWriteable(profileResult, new NamedWriteableRegistry(Collections.emptyList()), ProfileResult::new, version);
+        assertEquals(profileResult.getTimeBreakdown(), copy.getTimeBreakdown());
+        assertEquals(Collections.emptyMap(), copy.getDebugInfo());
+    }
+
+    public void testToXContentWithDebug() throws IOException {
+        Map<String, Object> debug = new LinkedHashMap<>();
+        debug.put("execution_mode", "filter_by_filter");
+        debug.put("segments_counted_from_points", 3);
+        ProfileResult result = new ProfileResult("someType", "some description", Collections.singletonMap("key1", 100L), debug,
+                Collections.emptyList());
+        XContentBuilder builder = XContentFactory.jsonBuilder().prettyPrint();
+        result.toXContent(builder, ToXContent.EMPTY_PARAMS);
+        assertEquals("{\n" +
+                "  \"type\" : \"someType\",\n" +
+                "  \"description\" : \"some description\",\n" +
+                "  \"time_in_nanos\" : 100,\n" +
+                "  \"breakdown\" : {\n" +
+                "    \"key1\" : 100\n" +
+                "  },\n" +
+                "  \"debug\" : {\n" +
+                "    \"execution_mode\" : \"filter_by_filter\",\n" +
+                "    \"segments_counted_from_points\" : 3\n" +
+                "  }\n" +
+              "}", Strings.toString(builder));
+    }
+
     public void testToXContent() throws IOException {
         List<ProfileResult> children = new ArrayList<>();
         children.add(new ProfileResult("child1", "desc1", Collections.singletonMap("key1", 100L), Collections.emptyList()));
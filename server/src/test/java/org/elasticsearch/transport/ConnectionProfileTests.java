@@ -24,9 +24,12 @@ import org.elasticsearch.test.ESTestCase;
 import org.hamcrest.Matchers;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.EnumSet;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 import static org.hamcrest.Matchers.equalTo;
 
@@ -139,6 +142,35 @@ public class ConnectionProfileTests extends ESTestCase {
         assertEquals(1, build.getNumConnectionsPerType(TransportRequestOptions.Type.BULK));
     }
 
+    public void testSelectChannelWithLeastPendingBytes() {
+        ConnectionProfile.Builder builder = new ConnectionProfile.Builder();
+        builder.addConnections(1, TransportRequestOptions.Type.PING);
+        builder.addConnections(4, TransportRequestOptions.Type.BULK,
+            TransportRequestOptions.Type.STATE,
+            TransportRequestOptions.Type.RECOVERY,
+            TransportRequestOptions.Type.REG);
+        ConnectionProfile build = builder.build();
+        List<Integer> channels = Arrays.asList(0, 1, 2, 3, 4);
+        long[] pendingBytes = new long[] {0, 100, 100, 100, 100};
+        ConnectionProfile.ConnectionTypeHandle handle = build.getHandles().get(1);
+
+        // all channels are busy, the least loaded one is selected
+        int idle = randomIntBetween(1, 4);
+        pendingBytes[idle] = randomIntBetween(0, 99);
+        final int numIters = randomIntBetween(5, 10);
+        for (int i = 0; i < numIters; i++) {
+            assertEquals(idle, handle.getChannel(channels, c -> pendingBytes[c]).intValue());
+        }
+
+        // all channels are idle, we fall back to round-robin
+        Arrays.fill(pendingBytes, 0);
+        Set<Integer> selected = new HashSet<>();
+        for (int i = 0; i < 4; i++) {
+            selected.add(handle.getChannel(channels, c -> pendingBytes[c]));
+        }
+        assertEquals(new HashSet<>(Arrays.asList(1, 2, 3, 4)), selected);
+    }
+
     public void testNoChannels() {
         ConnectionProfile.Builder builder = new ConnectionProfile.Builder();
         builder.addConnections(1, TransportRequestOptions.Type.BULK,
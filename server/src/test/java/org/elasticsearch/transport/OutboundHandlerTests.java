@@ -72,6 +72,10 @@ public class OutboundHandlerTests extends ESTestCase {
         ActionListener<Void> listener = ActionListener.wrap((v) -> isSuccess.set(true), exception::set);
         handler.sendBytes(fakeTcpChannel, bytesArray, listener);
 
+        assertEquals(1, handler.getPendingMessages());
+        assertEquals(bytesArray.length(), handler.getPendingBytes());
+        assertEquals(bytesArray.length(), fakeTcpChannel.getChannelStats().pendingBytes());
+
         BytesReference reference = fakeTcpChannel.getMessageCaptor().get();
         ActionListener<Void> sendListener  = fakeTcpChannel.getListenerCaptor().get();
         if (randomBoolean()) {
@@ -86,6 +90,9 @@ public class OutboundHandlerTests extends ESTestCase {
         }
 
         assertEquals(bytesArray, reference);
+        assertEquals(0, handler.getPendingMessages());
+        assertEquals(0, handler.getPendingBytes());
+        assertEquals(0, fakeTcpChannel.getChannelStats().pendingBytes());
     }
 
     public void testSendMessage() throws IOException {
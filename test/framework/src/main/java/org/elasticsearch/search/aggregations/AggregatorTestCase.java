@@ -63,12 +63,13 @@ import org.elasticsearch.indices.fielddata.cache.IndicesFieldDataCache;
 import org.elasticsearch.mock.orig.Mockito;
 import org.elasticsearch.script.ScriptService;
 import org.elasticsearch.search.aggregations.MultiBucketConsumerService.MultiBucketConsumer;
-import org.elasticsearch.search.aggregations.pipeline.PipelineAggregator;
+import org.elasticsearch.search.aggregations.pipeline.BucketHelpers;
 import org.elasticsearch.search.fetch.FetchPhase;
 import org.elasticsearch.search.fetch.subphase.DocValueFieldsFetchSubPhase;
 import org.elasticsearch.search.fetch.subphase.FetchSourceSubPhase;
 import org.elasticsearch.search.internal.ContextIndexSearcher;
 import org.elasticsearch.search.internal.SearchContext;
+import org.elasticsearch.search.internal.ShardSearchRequest;
 import org.elasticsearch.search.lookup.SearchLookup;
 import org.elasticsearch.test.ESTestCase;
 import org.elasticsearch.test.InternalAggregationTestCase;
@@ -91,6 +92,7 @@ import static org.mockito.Matchers.anyObject;
 import static org.mockito.Matchers.anyString;
 import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.when;
 
 /**
@@ -131,12 +133,12 @@ public abstract class AggregatorTestCase extends ESTestCase {
         IndexShard indexShard = mock(IndexShard.class);
         when(indexShard.shardId()).thenReturn(new ShardId("test", "test", 0));
         when(searchContext.indexShard()).thenReturn(indexShard);
-        when(searchContext.aggregations())
-            .thenReturn(new SearchContextAggregations(AggregatorFactories.EMPTY, bucketConsumer));
+        when(searchContext.aggregations()).thenReturn(createSearchContextAggregations(bucketConsumer));
         when(searchContext.bigArrays()).thenReturn(
             new MockBigArrays(new MockPageCacheRecycler(Settings.EMPTY), circuitBreakerService)
         );
         when(searchContext.query()).thenReturn(query);
+        when(searchContext.request()).thenReturn(shardSearchRequestMock());
         // TODO: now just needed for top_hits, this will need to be revised for other agg unit tests:
         MapperService mapperService = mapperServiceMock();
         when(mapperService.getIndexSettings()).thenReturn(indexSettings);
@@ -295,6 +297,23 @@ public abstract class AggregatorTestCase extends ESTestCase {
         return mock(MapperService.class);
     }
 
+    /**
+     * sub-tests that need a more complex mock can overwrite this
+     */
+    protected ShardSearchRequest shardSearchRequestMock() {
+        ShardSearchRequest request = mock(ShardSearchRequest.class);
+        // a mock returns false for Boolean methods, requests that do not set the request cache flag return null
+        when(request.requestCache()).thenReturn(null);
+        return request;
+    }
+
+    /**
+     * sub-tests that need the node level aggregation caches can overwrite this
+     */
+    protected SearchContextAggregations createSearchContextAggregations(MultiBucketConsumer bucketConsumer) {
+        return new SearchContextAggregations(AggregatorFactories.EMPTY, bucketConsumer);
+    }
+
     /**
      * sub-tests that need a more complex mock can overwrite this
      */
@@ -308,6 +327,20 @@ public abstract class AggregatorTestCase extends ESTestCase {
         return queryShardContext;
     }
 
+    /**
+     * Returns a spy of a real {@link QueryShardContext} for the sub-tests that need a cacheable context,
+     * {@link QueryShardContext#isCacheable()} is final and always returns false on a mock.
+     */
+    protected QueryShardContext cacheableQueryShardContext(MapperService mapperService) {
+        IndexSettings indexSettings = mapperService.getIndexSettings();
+        CircuitBreakerService circuitBreakerService = new NoneCircuitBreakerService();
+        QueryShardContext queryShardContext = new QueryShardContext(0, indexSettings, null, null,
+            (fieldType, index) -> fieldType.fielddataBuilder(index).build(indexSettings, fieldType, new IndexFieldDataCache.None(),
+                circuitBreakerService, mapperService),
+            mapperService, null, null, xContentRegistry(), writableRegistry(), null, null, System::currentTimeMillis, null);
+        return spy(queryShardContext);
+    }
+
     protected <A extends InternalAggregation, C extends Aggregator> A search(IndexSearcher searcher,
                                                                              Query query,
                                                                              AggregationBuilder builder,
@@ -407,9 +440,7 @@ public abstract class AggregatorTestCase extends ESTestCase {
             @SuppressWarnings("unchecked")
             A internalAgg = (A) aggs.get(0).doReduce(aggs, context);
             if (internalAgg.pipelineAggregators().size() > 0) {
-                for (PipelineAggregator pipelineAggregator : internalAgg.pipelineAggregators()) {
-                    internalAgg = (A) pipelineAggregator.reduce(internalAgg, context);
-                }
+                internalAgg = (A) BucketHelpers.reducePipelines(internalAgg, internalAgg.pipelineAggregators(), context);
             }
             InternalAggregationTestCase.assertMultiBucketConsumer(internalAgg, reduceBucketConsumer);
             return internalAgg;
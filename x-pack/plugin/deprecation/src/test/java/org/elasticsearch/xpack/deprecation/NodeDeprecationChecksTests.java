@@ -224,7 +224,7 @@ public class NodeDeprecationChecksTests extends ESTestCase {
     public void testDiscoveryConfigurationCheck() {
         List<NodeStats> nodeStats = Collections.singletonList(new NodeStats(discoveryNode, 0L, null,
             null, null, null, null, new FsInfo(0L, null, paths), null, null, null,
-            null, null, null, null));
+            null, null, null, null, null));
         Settings baseSettings = Settings.builder()
             .put(CLUSTER_NAME_SETTING.getKey(), "elasticsearch")
             .put(NODE_NAME_SETTING.getKey(), "node_check")